@@ -6,7 +6,10 @@ public enum CliType {
   ENCLAVE,
   CONFIG_MIGRATION,
   DATA_MIGRATION,
-  MULTITENANCY_MIGRATION;
+  MULTITENANCY_MIGRATION,
+  CODEC_MIGRATION,
+  LOG_STORE_IMPORT,
+  RESHARD;
 
   public static final String CLI_TYPE_KEY = "tessera.cli.type";
 }
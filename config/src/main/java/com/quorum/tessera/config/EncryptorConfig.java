@@ -18,6 +18,22 @@ public class EncryptorConfig {
   @XmlElement
   private Map<String, String> properties;
 
+  /** Maximum number of shared keys the enclave keeps for reuse, 0 disables the cache */
+  @XmlElement(defaultValue = "0")
+  private int sharedKeyCacheSize;
+
+  /** Seconds a cached shared key may be reused for, 0 keeps it until it is evicted */
+  @XmlElement(defaultValue = "0")
+  private long sharedKeyCacheExpiry;
+
+  /** Smallest number of recipients whose boxes are sealed in parallel, 0 always seals in turn */
+  @XmlElement(defaultValue = "0")
+  private int parallelSealingThreshold;
+
+  /** Threads used to seal recipient boxes in parallel, 0 uses one per available processor */
+  @XmlElement(defaultValue = "0")
+  private int parallelSealingThreads;
+
   public EncryptorType getType() {
     return type;
   }
@@ -34,11 +50,47 @@ public class EncryptorConfig {
     this.properties = properties;
   }
 
+  public int getSharedKeyCacheSize() {
+    return sharedKeyCacheSize;
+  }
+
+  public void setSharedKeyCacheSize(int sharedKeyCacheSize) {
+    this.sharedKeyCacheSize = sharedKeyCacheSize;
+  }
+
+  public long getSharedKeyCacheExpiry() {
+    return sharedKeyCacheExpiry;
+  }
+
+  public void setSharedKeyCacheExpiry(long sharedKeyCacheExpiry) {
+    this.sharedKeyCacheExpiry = sharedKeyCacheExpiry;
+  }
+
+  public int getParallelSealingThreshold() {
+    return parallelSealingThreshold;
+  }
+
+  public void setParallelSealingThreshold(int parallelSealingThreshold) {
+    this.parallelSealingThreshold = parallelSealingThreshold;
+  }
+
+  public int getParallelSealingThreads() {
+    return parallelSealingThreads;
+  }
+
+  public void setParallelSealingThreads(int parallelSealingThreads) {
+    this.parallelSealingThreads = parallelSealingThreads;
+  }
+
   @Override
   public int hashCode() {
     int hash = 7;
     hash = 61 * hash + Objects.hashCode(this.type);
     hash = 61 * hash + Objects.hashCode(this.properties);
+    hash = 61 * hash + this.sharedKeyCacheSize;
+    hash = 61 * hash + Long.hashCode(this.sharedKeyCacheExpiry);
+    hash = 61 * hash + this.parallelSealingThreshold;
+    hash = 61 * hash + this.parallelSealingThreads;
     return hash;
   }
 
@@ -60,7 +112,16 @@ public class EncryptorConfig {
     if (!Objects.equals(this.properties, other.properties)) {
       return false;
     }
-    return true;
+    if (this.sharedKeyCacheSize != other.sharedKeyCacheSize) {
+      return false;
+    }
+    if (this.sharedKeyCacheExpiry != other.sharedKeyCacheExpiry) {
+      return false;
+    }
+    if (this.parallelSealingThreshold != other.parallelSealingThreshold) {
+      return false;
+    }
+    return this.parallelSealingThreads == other.parallelSealingThreads;
   }
 
   public static EncryptorConfig getDefault() {
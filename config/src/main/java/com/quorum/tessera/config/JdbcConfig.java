@@ -4,6 +4,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
 import jakarta.xml.bind.annotation.XmlElement;
+import java.util.List;
 
 @XmlAccessorType(XmlAccessType.FIELD)
 public class JdbcConfig extends ConfigItem {
@@ -22,6 +23,66 @@ public class JdbcConfig extends ConfigItem {
 
   @XmlElement private int fetchSize;
 
+  /**
+   * Maximum number of decoded payloads held in the read-through cache, 0 disables the cache. The
+   * cache is held by each node and only sees the writes that node makes, so when several nodes
+   * share a database a transaction updated by another node is read from the cache as it was until
+   * it is evicted or expires, see {@link #payloadCacheExpiryMillis}.
+   */
+  @XmlElement(defaultValue = "0")
+  private int payloadCacheSize;
+
+  /** Maximum combined size in bytes of the cached payloads, 0 means bounded by count only */
+  @XmlElement(defaultValue = "0")
+  private long payloadCacheMaxWeight;
+
+  /** Milliseconds a payload is read from the cache before it is read again, 0 means no expiry */
+  @XmlElement(defaultValue = "0")
+  private long payloadCacheExpiryMillis;
+
+  /** Number of rows sent to the database in each JDBC batch by bulk saves, 0 uses the default */
+  @XmlElement(defaultValue = "0")
+  private int writeBatchSize;
+
+  /** Store new payloads with the compact CBOR_V2 codec, which earlier releases cannot read */
+  @XmlElement(defaultValue = "false")
+  private boolean compactPayloads;
+
+  /** Compress payloads as they are stored, existing rows are read with the codec they were */
+  @XmlElement(defaultValue = "false")
+  private boolean compressPayloads;
+
+  /** File of base64 public keys, one per line, used as the dictionary for compressed payloads */
+  @XmlElement private String payloadDictionary;
+
+  /** Directory of an embedded log store that holds transactions instead of the database, if set */
+  @XmlElement private String logStoreDirectory;
+
+  /** Look up and save transactions with plain JDBC statements rather than through JPA */
+  @XmlElement(defaultValue = "false")
+  private boolean directJdbc;
+
+  /** Urls of read replicas of the database that lookups of stored transactions can be sent to */
+  @XmlElement private List<String> readReplicaUrls;
+
+  /** Milliseconds that a written transaction is read from the primary, 0 uses the default */
+  @XmlElement(defaultValue = "0")
+  private long readReplicaPinMillis;
+
+  /** Milliseconds a read replica can fall behind the primary and still be read, 0 uses default */
+  @XmlElement(defaultValue = "0")
+  private long readReplicaMaxLagMillis;
+
+  /** Urls of databases that stored transactions are split across by hash, instead of the url */
+  @XmlElement private List<String> shardUrls;
+
+  /** Commit sent transactions with their pending pushes and deliver them in the background */
+  @XmlElement(defaultValue = "false")
+  private boolean outboxDelivery;
+
+  /** Directory of a journal that pushes are acknowledged from before they are stored, if set */
+  @XmlElement private String pushJournalDirectory;
+
   public JdbcConfig(String username, String password, String url) {
     this.username = username;
     this.password = password;
@@ -71,4 +132,124 @@ public class JdbcConfig extends ConfigItem {
   public void setFetchSize(int fetchSize) {
     this.fetchSize = fetchSize;
   }
+
+  public int getPayloadCacheSize() {
+    return payloadCacheSize;
+  }
+
+  public void setPayloadCacheSize(int payloadCacheSize) {
+    this.payloadCacheSize = payloadCacheSize;
+  }
+
+  public long getPayloadCacheMaxWeight() {
+    return payloadCacheMaxWeight;
+  }
+
+  public void setPayloadCacheMaxWeight(long payloadCacheMaxWeight) {
+    this.payloadCacheMaxWeight = payloadCacheMaxWeight;
+  }
+
+  public long getPayloadCacheExpiryMillis() {
+    return payloadCacheExpiryMillis;
+  }
+
+  public void setPayloadCacheExpiryMillis(long payloadCacheExpiryMillis) {
+    this.payloadCacheExpiryMillis = payloadCacheExpiryMillis;
+  }
+
+  public int getWriteBatchSize() {
+    return writeBatchSize;
+  }
+
+  public void setWriteBatchSize(int writeBatchSize) {
+    this.writeBatchSize = writeBatchSize;
+  }
+
+  public boolean isCompactPayloads() {
+    return compactPayloads;
+  }
+
+  public void setCompactPayloads(boolean compactPayloads) {
+    this.compactPayloads = compactPayloads;
+  }
+
+  public boolean isCompressPayloads() {
+    return compressPayloads;
+  }
+
+  public void setCompressPayloads(boolean compressPayloads) {
+    this.compressPayloads = compressPayloads;
+  }
+
+  public String getPayloadDictionary() {
+    return payloadDictionary;
+  }
+
+  public void setPayloadDictionary(String payloadDictionary) {
+    this.payloadDictionary = payloadDictionary;
+  }
+
+  public String getLogStoreDirectory() {
+    return logStoreDirectory;
+  }
+
+  public void setLogStoreDirectory(String logStoreDirectory) {
+    this.logStoreDirectory = logStoreDirectory;
+  }
+
+  public boolean isDirectJdbc() {
+    return directJdbc;
+  }
+
+  public void setDirectJdbc(boolean directJdbc) {
+    this.directJdbc = directJdbc;
+  }
+
+  public List<String> getReadReplicaUrls() {
+    return readReplicaUrls;
+  }
+
+  public void setReadReplicaUrls(List<String> readReplicaUrls) {
+    this.readReplicaUrls = readReplicaUrls;
+  }
+
+  public long getReadReplicaPinMillis() {
+    return readReplicaPinMillis;
+  }
+
+  public void setReadReplicaPinMillis(long readReplicaPinMillis) {
+    this.readReplicaPinMillis = readReplicaPinMillis;
+  }
+
+  public long getReadReplicaMaxLagMillis() {
+    return readReplicaMaxLagMillis;
+  }
+
+  public void setReadReplicaMaxLagMillis(long readReplicaMaxLagMillis) {
+    this.readReplicaMaxLagMillis = readReplicaMaxLagMillis;
+  }
+
+  public List<String> getShardUrls() {
+    return shardUrls;
+  }
+
+  public void setShardUrls(List<String> shardUrls) {
+    this.shardUrls = shardUrls;
+  }
+
+  public boolean isOutboxDelivery() {
+    return outboxDelivery;
+  }
+
+  public void setOutboxDelivery(boolean outboxDelivery) {
+    this.outboxDelivery = outboxDelivery;
+  }
+
+  public String getPushJournalDirectory() {
+    return pushJournalDirectory;
+  }
+
+  public void setPushJournalDirectory(String pushJournalDirectory) {
+    this.pushJournalDirectory = pushJournalDirectory;
+  }
 }
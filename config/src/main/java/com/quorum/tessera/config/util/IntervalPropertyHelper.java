@@ -50,4 +50,47 @@ public class IntervalPropertyHelper {
       return "7200000";
     }
   }
+
+  /**
+   * @return the milliseconds that pushes to the same node are held for so they can be sent
+   *     together, 0 sends each push as soon as it is made
+   */
+  public long pushBatchDelay() {
+    try {
+      return Long.parseLong(properties.getOrDefault("pushBatchDelay", "0"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 0L;
+    }
+  }
+
+  /** @return the largest number of held pushes that are sent to a node together */
+  public int pushBatchSize() {
+    try {
+      return Integer.parseInt(properties.getOrDefault("pushBatchSize", "100"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 100;
+    }
+  }
+
+  /** @return the milliseconds between runs of the dispatcher that delivers queued pushes */
+  public long outboxDispatchInterval() {
+    try {
+      return Long.parseLong(properties.getOrDefault("outboxDispatchInterval", "1000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 1000L;
+    }
+  }
+
+  /** @return the longest that a queued push is waited on before it is tried again, in millis */
+  public long outboxMaxRetryDelay() {
+    try {
+      return Long.parseLong(properties.getOrDefault("outboxMaxRetryDelay", "300000"));
+    } catch (NumberFormatException ex) {
+      LOGGER.warn("Not able to parse configured property. Will use default value instead");
+      return 300000L;
+    }
+  }
 }
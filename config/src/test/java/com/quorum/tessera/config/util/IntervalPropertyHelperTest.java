@@ -17,6 +17,10 @@ public class IntervalPropertyHelperTest {
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(2000);
     assertThat(util.syncInterval()).isEqualTo(60000);
     assertThat(util.resendWaitTime()).isEqualTo("7200000");
+    assertThat(util.pushBatchDelay()).isZero();
+    assertThat(util.pushBatchSize()).isEqualTo(100);
+    assertThat(util.outboxDispatchInterval()).isEqualTo(1000);
+    assertThat(util.outboxMaxRetryDelay()).isEqualTo(300000);
   }
 
   @Test
@@ -26,6 +30,10 @@ public class IntervalPropertyHelperTest {
     props.put("enclaveKeySyncInterval", "3000");
     props.put("syncInterval", "4000");
     props.put("resendWaitTime", "4000");
+    props.put("pushBatchDelay", "5");
+    props.put("pushBatchSize", "50");
+    props.put("outboxDispatchInterval", "200");
+    props.put("outboxMaxRetryDelay", "60000");
 
     final IntervalPropertyHelper util = new IntervalPropertyHelper(props);
 
@@ -33,6 +41,10 @@ public class IntervalPropertyHelperTest {
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(3000);
     assertThat(util.syncInterval()).isEqualTo(4000);
     assertThat(util.resendWaitTime()).isEqualTo("4000");
+    assertThat(util.pushBatchDelay()).isEqualTo(5);
+    assertThat(util.pushBatchSize()).isEqualTo(50);
+    assertThat(util.outboxDispatchInterval()).isEqualTo(200);
+    assertThat(util.outboxMaxRetryDelay()).isEqualTo(60000);
   }
 
   @Test
@@ -42,6 +54,10 @@ public class IntervalPropertyHelperTest {
     props.put("enclaveKeySyncInterval", "abc");
     props.put("syncInterval", "4000L");
     props.put("resendWaitTime", "4000L");
+    props.put("pushBatchDelay", "5ms");
+    props.put("pushBatchSize", "many");
+    props.put("outboxDispatchInterval", "1s");
+    props.put("outboxMaxRetryDelay", "5m");
 
     final IntervalPropertyHelper util = new IntervalPropertyHelper(props);
 
@@ -49,5 +65,9 @@ public class IntervalPropertyHelperTest {
     assertThat(util.enclaveKeySyncInterval()).isEqualTo(2000);
     assertThat(util.syncInterval()).isEqualTo(60000);
     assertThat(util.resendWaitTime()).isEqualTo("7200000");
+    assertThat(util.pushBatchDelay()).isZero();
+    assertThat(util.pushBatchSize()).isEqualTo(100);
+    assertThat(util.outboxDispatchInterval()).isEqualTo(1000);
+    assertThat(util.outboxMaxRetryDelay()).isEqualTo(300000);
   }
 }
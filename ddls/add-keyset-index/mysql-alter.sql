@@ -0,0 +1,2 @@
+UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = 0 WHERE TIMESTAMP IS NULL;
+ALTER TABLE ENCRYPTED_TRANSACTION ADD INDEX ENCRYPTED_TRANSACTION_TSHASH (TIMESTAMP, HASH);
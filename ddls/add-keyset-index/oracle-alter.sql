@@ -0,0 +1,2 @@
+UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = 0 WHERE TIMESTAMP IS NULL;
+CREATE INDEX ENCRYPTED_TRANSACTION_TSHASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
@@ -0,0 +1,3 @@
+CREATE TABLE PENDING_DELIVERY (ID BIGINT(19) NOT NULL, HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, QUEUED_AT BIGINT(19), ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT(19), LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+ALTER TABLE PENDING_DELIVERY ADD INDEX PENDING_DELIVERY_KEY (PUBLIC_KEY);
+ALTER TABLE PENDING_DELIVERY ADD INDEX PENDING_DELIVERY_HASH (HASH);
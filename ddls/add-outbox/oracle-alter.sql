@@ -0,0 +1,3 @@
+CREATE TABLE PENDING_DELIVERY (ID NUMBER(19) NOT NULL, HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, QUEUED_AT NUMBER(19), ATTEMPTS NUMBER(10), NEXT_ATTEMPT NUMBER(19), LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX PENDING_DELIVERY_KEY ON PENDING_DELIVERY(PUBLIC_KEY);
+CREATE INDEX PENDING_DELIVERY_HASH ON PENDING_DELIVERY(HASH);
@@ -0,0 +1,3 @@
+CREATE TABLE IF NOT EXISTS PENDING_DELIVERY (ID BIGINT NOT NULL, HASH BLOB NOT NULL, PUBLIC_KEY BLOB NOT NULL, QUEUED_AT BIGINT, ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX IF NOT EXISTS PENDING_DELIVERY_KEY ON PENDING_DELIVERY(PUBLIC_KEY);
+CREATE INDEX IF NOT EXISTS PENDING_DELIVERY_HASH ON PENDING_DELIVERY(HASH);
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS ENCRYPTED_TRANSACTION_BOX (HASH LONGVARBINARY NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY VARBINARY(100), BOX LONGVARBINARY NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH VARBINARY(100) NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY VARBINARY(100), BOX BLOB NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH RAW(100) NOT NULL, SEQUENCE_NUMBER NUMBER(10) NOT NULL, PUBLIC_KEY RAW(100), BOX BLOB NOT NULL, PREPENDED NUMBER(1) NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS ENCRYPTED_TRANSACTION_BOX (HASH BYTEA NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY BYTEA, BOX BYTEA NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS ENCRYPTED_TRANSACTION_BOX (HASH BLOB NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY BLOB, BOX BLOB NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
@@ -0,0 +1,2 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_RECIPIENT (HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+ALTER TABLE ENCRYPTED_TRANSACTION_RECIPIENT ADD INDEX ENCRYPTED_TRANSACTION_RECIPIENT_KEY (PUBLIC_KEY);
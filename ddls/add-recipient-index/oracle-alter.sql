@@ -0,0 +1,2 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_RECIPIENT (HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX ENCRYPTED_TRANSACTION_RECIPIENT_KEY ON ENCRYPTED_TRANSACTION_RECIPIENT(PUBLIC_KEY);
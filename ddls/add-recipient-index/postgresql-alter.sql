@@ -0,0 +1,2 @@
+CREATE TABLE IF NOT EXISTS ENCRYPTED_TRANSACTION_RECIPIENT (HASH BYTEA NOT NULL, PUBLIC_KEY BYTEA NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TRANSACTION_RECIPIENT_KEY ON ENCRYPTED_TRANSACTION_RECIPIENT(PUBLIC_KEY);
@@ -0,0 +1,2 @@
+CREATE TABLE IF NOT EXISTS ENCRYPTED_TRANSACTION_RECIPIENT (HASH BLOB NOT NULL, PUBLIC_KEY BLOB NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TRANSACTION_RECIPIENT_KEY ON ENCRYPTED_TRANSACTION_RECIPIENT(PUBLIC_KEY);
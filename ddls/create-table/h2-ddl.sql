@@ -4,3 +4,10 @@ CREATE TABLE PRIVACY_GROUP(ID LONGVARBINARY NOT NULL, LOOKUP_ID LONGVARBINARY NO
 CREATE TABLE ST_TRANSACTION(ID BIGINT NOT NULL PRIMARY KEY, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR NOT NULL, PAYLOAD LONGVARBINARY, PRIVACY_MODE INTEGER, TIMESTAMP BIGINT, VALIDATION_STAGE BIGINT);
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID BIGINT NOT NULL PRIMARY KEY, AFFECTED_HASH VARCHAR NOT NULL, TXN_ID BIGINT NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION (ID));
 CREATE INDEX IF NOT EXISTS ST_TRANSACTION_VALSTG ON ST_TRANSACTION(VALIDATION_STAGE);
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TRANSACTION_TSHASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_RECIPIENT (HASH LONGVARBINARY NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX IF NOT EXISTS ENCRYPTED_TRANSACTION_RECIPIENT_KEY ON ENCRYPTED_TRANSACTION_RECIPIENT(PUBLIC_KEY);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH LONGVARBINARY NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY VARBINARY(100), BOX LONGVARBINARY NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
+CREATE TABLE PENDING_DELIVERY (ID BIGINT NOT NULL, HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, QUEUED_AT BIGINT, ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT, LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX IF NOT EXISTS PENDING_DELIVERY_KEY ON PENDING_DELIVERY(PUBLIC_KEY);
+CREATE INDEX IF NOT EXISTS PENDING_DELIVERY_HASH ON PENDING_DELIVERY(HASH);
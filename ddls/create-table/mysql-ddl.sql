@@ -4,3 +4,10 @@ CREATE TABLE PRIVACY_GROUP(ID VARBINARY(100) NOT NULL, LOOKUP_ID BLOB NOT NULL,
 CREATE TABLE ST_TRANSACTION(ID BIGINT(19) NOT NULL, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR(100) NOT NULL, PAYLOAD BLOB, PRIVACY_MODE BIGINT(10), TIMESTAMP BIGINT(19), VALIDATION_STAGE BIGINT(19), PRIMARY KEY (ID));
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID BIGINT(19) NOT NULL, AFFECTED_HASH VARCHAR(100) NOT NULL, TXN_ID BIGINT(19) NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION(ID), PRIMARY KEY (ID));
 ALTER TABLE ST_TRANSACTION ADD INDEX ST_TRANSACTION_VALSTG (VALIDATION_STAGE);
+ALTER TABLE ENCRYPTED_TRANSACTION ADD INDEX ENCRYPTED_TRANSACTION_TSHASH (TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_RECIPIENT (HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+ALTER TABLE ENCRYPTED_TRANSACTION_RECIPIENT ADD INDEX ENCRYPTED_TRANSACTION_RECIPIENT_KEY (PUBLIC_KEY);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH VARBINARY(100) NOT NULL, SEQUENCE_NUMBER INTEGER NOT NULL, PUBLIC_KEY VARBINARY(100), BOX BLOB NOT NULL, PREPENDED BOOLEAN NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
+CREATE TABLE PENDING_DELIVERY (ID BIGINT(19) NOT NULL, HASH VARBINARY(100) NOT NULL, PUBLIC_KEY VARBINARY(100) NOT NULL, QUEUED_AT BIGINT(19), ATTEMPTS INTEGER, NEXT_ATTEMPT BIGINT(19), LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+ALTER TABLE PENDING_DELIVERY ADD INDEX PENDING_DELIVERY_KEY (PUBLIC_KEY);
+ALTER TABLE PENDING_DELIVERY ADD INDEX PENDING_DELIVERY_HASH (HASH);
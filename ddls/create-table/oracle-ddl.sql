@@ -4,3 +4,10 @@ CREATE TABLE PRIVACY_GROUP(ID RAW(100) NOT NULL, LOOKUP_ID BLOB NOT NULL, DATA B
 CREATE TABLE ST_TRANSACTION(ID NUMBER(19) NOT NULL PRIMARY KEY, PAYLOAD_CODEC VARCHAR(50), HASH VARCHAR(100) NOT NULL, PAYLOAD BLOB, PRIVACY_MODE INTEGER, TIMESTAMP NUMBER(19), VALIDATION_STAGE NUMBER(19));
 CREATE TABLE ST_AFFECTED_TRANSACTION(ID NUMBER(19) NOT NULL PRIMARY KEY, AFFECTED_HASH VARCHAR(100) NOT NULL, TXN_ID NUMBER(19) NOT NULL, CONSTRAINT FK_ST_AFFECTED_TRANSACTION_TXN_ID FOREIGN KEY (TXN_ID) REFERENCES ST_TRANSACTION (ID));
 CREATE INDEX ST_TRANSACTION_VALSTG ON ST_TRANSACTION(VALIDATION_STAGE);
+CREATE INDEX ENCRYPTED_TRANSACTION_TSHASH ON ENCRYPTED_TRANSACTION(TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_RECIPIENT (HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX ENCRYPTED_TRANSACTION_RECIPIENT_KEY ON ENCRYPTED_TRANSACTION_RECIPIENT(PUBLIC_KEY);
+CREATE TABLE ENCRYPTED_TRANSACTION_BOX (HASH RAW(100) NOT NULL, SEQUENCE_NUMBER NUMBER(10) NOT NULL, PUBLIC_KEY RAW(100), BOX BLOB NOT NULL, PREPENDED NUMBER(1) NOT NULL, UNIQUE (HASH, SEQUENCE_NUMBER));
+CREATE TABLE PENDING_DELIVERY (ID NUMBER(19) NOT NULL, HASH RAW(100) NOT NULL, PUBLIC_KEY RAW(100) NOT NULL, QUEUED_AT NUMBER(19), ATTEMPTS NUMBER(10), NEXT_ATTEMPT NUMBER(19), LAST_ERROR VARCHAR(500), PRIMARY KEY (ID), UNIQUE (HASH, PUBLIC_KEY));
+CREATE INDEX PENDING_DELIVERY_KEY ON PENDING_DELIVERY(PUBLIC_KEY);
+CREATE INDEX PENDING_DELIVERY_HASH ON PENDING_DELIVERY(HASH);
@@ -1,24 +1,62 @@
 package com.quorum.tessera.enclave;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
 import com.fasterxml.jackson.dataformat.cbor.CBORParser;
 import com.quorum.tessera.encryption.PublicKey;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
 
-public class CBOREncoder implements PayloadEncoder {
+public class CBOREncoder implements SplicingPayloadEncoder {
 
   final CBORFactory cborFactory = new CBORFactory();
 
   @Override
   public byte[] encode(EncodedPayload payload) {
 
+    if (payload instanceof CBORPayloadView) {
+      return ((CBORPayloadView) payload).toByteArray();
+    }
+
     ByteArrayOutputStream output = new ByteArrayOutputStream();
 
+    try {
+      encode(payload, output);
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encode(EncodedPayload payload, OutputStream output) throws IOException {
+
+    if (payload instanceof CBORPayloadView) {
+      ((CBORPayloadView) payload).writeTo(output);
+      return;
+    }
+    if (payload instanceof RecipientPayloadView) {
+      ((RecipientPayloadView) payload).writeTo(this, output);
+      return;
+    }
+    encode(payload, output, null);
+  }
+
+  @Override
+  public void encode(EncodedPayload payload, OutputStream output, Runnable marker)
+      throws IOException {
+
     try (CBORGenerator generator = cborFactory.createGenerator(output)) {
 
+      // the generator would otherwise close the stream, which belongs to the caller
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
       generator.writeStartObject(11);
       generator.writeBinaryField("sender", payload.getSenderKey().getKeyBytes());
       generator.writeBinaryField("cipherText", payload.getCipherText());
@@ -27,16 +65,20 @@ public class CBOREncoder implements PayloadEncoder {
 
       generator.writeFieldName("recipientBoxes");
       generator.writeStartArray(payload.getRecipientBoxes().size());
+      mark(generator, marker);
       for (RecipientBox box : payload.getRecipientBoxes()) {
         generator.writeBinary(box.getData());
       }
+      mark(generator, marker);
       generator.writeEndArray();
 
       generator.writeFieldName("recipients");
       generator.writeStartArray(payload.getRecipientKeys().size());
+      mark(generator, marker);
       for (PublicKey key : payload.getRecipientKeys()) {
         generator.writeBinary(key.getKeyBytes());
       }
+      mark(generator, marker);
       generator.writeEndArray();
 
       generator.writeNumberField("privacyFlag", payload.getPrivacyMode().getPrivacyFlag());
@@ -67,16 +109,48 @@ public class CBOREncoder implements PayloadEncoder {
       generator.writeEndObject();
 
       generator.flush();
+    }
+  }
 
-    } catch (Exception ex) {
-      throw new RuntimeException("Unable to encode payload. ", ex);
+  /** The generator buffers, so it is only flushed for a mark rather than on the caller's stream */
+  private static void mark(CBORGenerator generator, Runnable marker) throws IOException {
+    if (Objects.nonNull(marker)) {
+      generator.flush();
+      marker.run();
     }
+  }
 
-    return output.toByteArray();
+  /** Writes a byte string with the shortest header, as the generator does */
+  @Override
+  public void encodeElement(byte[] element, OutputStream output) throws IOException {
+    new CBORWriter(output).bytes(element);
   }
 
+  /**
+   * Decodes the payload as a view over the input where it can be, so the input must not be changed
+   * afterwards
+   */
   @Override
   public EncodedPayload decode(byte[] input) {
+    return decodeBuffer(ByteBuffer.wrap(input));
+  }
+
+  @Override
+  public EncodedPayload decodeBuffer(ByteBuffer input) {
+    return CBORPayloadView.of(input).orElseGet(() -> decodeCopy(input));
+  }
+
+  private EncodedPayload decodeCopy(ByteBuffer input) {
+    final ByteBuffer data = input.slice();
+    if (data.hasArray() && data.arrayOffset() == 0 && data.limit() == data.array().length) {
+      return decodeCopy(data.array());
+    }
+    final byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    return decodeCopy(bytes);
+  }
+
+  private EncodedPayload decodeCopy(byte[] input) {
 
     EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.create();
 
@@ -183,6 +257,49 @@ public class CBOREncoder implements PayloadEncoder {
     return payloadBuilder.build();
   }
 
+  @Override
+  public EncodedPayloadHeader decodeHeader(byte[] input) {
+
+    PublicKey senderKey = null;
+    final List<PublicKey> recipientKeys = new ArrayList<>();
+    PrivacyMode privacyMode = PrivacyMode.STANDARD_PRIVATE;
+
+    try (final CBORParser parser = cborFactory.createParser(input)) {
+
+      validateToken(JsonToken.START_OBJECT, parser.nextToken());
+
+      while (parser.nextFieldName() != null) {
+
+        if (parser.getCurrentName().equals("sender")) {
+          validateToken(JsonToken.VALUE_EMBEDDED_OBJECT, parser.nextToken());
+          senderKey = PublicKey.from(parser.getBinaryValue());
+          continue;
+        }
+
+        if (parser.getCurrentName().equals("recipients")) {
+          validateToken(JsonToken.START_ARRAY, parser.nextToken());
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            recipientKeys.add(PublicKey.from(parser.getBinaryValue()));
+          }
+          continue;
+        }
+
+        if (parser.getCurrentName().equals("privacyFlag")) {
+          privacyMode = PrivacyMode.fromFlag(parser.nextIntValue(0));
+          continue;
+        }
+
+        // binary values that are never read are skipped by the parser without being copied
+        parser.nextToken();
+        parser.skipChildren();
+      }
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to decode payload data. ", ex);
+    }
+
+    return EncodedPayloadHeader.from(senderKey, recipientKeys, privacyMode);
+  }
+
   @Override
   public EncodedPayloadCodec encodedPayloadCodec() {
     return EncodedPayloadCodec.CBOR;
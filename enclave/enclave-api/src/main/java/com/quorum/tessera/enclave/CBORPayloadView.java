@@ -0,0 +1,377 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * A read-only {@link EncodedPayload} over the bytes written by {@link CBOREncoder}.
+ *
+ * <p>Creating a view only records where each field is in the bytes. A field is copied out the first
+ * time it is read, and the recipient boxes and keys are indexed so that reading one of them does
+ * not copy the others. Encoding a view again with {@link CBOREncoder} returns a copy of the bytes it
+ * was created from, or writes them out as they are.
+ *
+ * <p>A view may be read by several threads at once, as it is when it is held in a cache. Each field
+ * is published through a volatile write once it is fully built, so a thread either sees the built
+ * value or builds an equal one of its own.
+ */
+final class CBORPayloadView extends EncodedPayload {
+
+  private final ByteBuffer buffer;
+
+  private final Range sender;
+
+  private final Range cipherTextRange;
+
+  private final Range nonce;
+
+  private final Range recipientNonceRange;
+
+  private final Range execHashRange;
+
+  private final Range privacyGroupIdRange;
+
+  private final Range[] recipientBoxRanges;
+
+  private final Range[] recipientRanges;
+
+  private final Range[] mandatoryForRanges;
+
+  private final Range[] affectedRanges;
+
+  private final PrivacyMode privacyMode;
+
+  private volatile PublicKey senderKey;
+
+  private volatile byte[] cipherText;
+
+  private volatile Nonce cipherTextNonce;
+
+  private volatile Nonce recipientNonce;
+
+  private volatile byte[] execHash;
+
+  private volatile Optional<PrivacyGroup.Id> privacyGroupId;
+
+  private volatile Set<PublicKey> mandatoryRecipients;
+
+  private volatile Map<TxHash, SecurityHash> affectedContractTransactions;
+
+  private final List<RecipientBox> recipientBoxes;
+
+  private final List<PublicKey> recipientKeys;
+
+  private CBORPayloadView(final ByteBuffer buffer, final Index index) {
+    this.buffer = buffer;
+    this.sender = index.fields.get("sender");
+    this.cipherTextRange = index.fields.get("cipherText");
+    this.nonce = index.fields.get("nonce");
+    this.recipientNonceRange = index.fields.get("recipientNonce");
+    this.execHashRange = index.fields.get("execHash");
+    this.privacyGroupIdRange = index.fields.get("privacyGroupId");
+    this.recipientBoxRanges = index.arrays.getOrDefault("recipientBoxes", new Range[0]);
+    this.recipientRanges = index.arrays.getOrDefault("recipients", new Range[0]);
+    this.mandatoryForRanges = index.arrays.getOrDefault("mandatoryFor", new Range[0]);
+    this.affectedRanges = index.arrays.getOrDefault("affected", new Range[0]);
+    this.privacyMode = index.privacyMode;
+    this.recipientBoxes = new IndexedList<>(recipientBoxRanges, r -> RecipientBox.from(copy(r)));
+    this.recipientKeys = new IndexedList<>(recipientRanges, r -> PublicKey.from(copy(r)));
+  }
+
+  /**
+   * Indexes the encoded payload, without copying any of its fields
+   *
+   * @param input the bytes written by {@link CBOREncoder}
+   * @return the view, or empty if the bytes are laid out differently to how {@link CBOREncoder}
+   *     writes them or do not form a valid payload, in which case they should be decoded in full
+   */
+  static Optional<EncodedPayload> of(final ByteBuffer input) {
+    final ByteBuffer buffer = input.slice();
+    try {
+      final Index index = new Index(buffer);
+      if (!index.isValid()) {
+        return Optional.empty();
+      }
+      return Optional.of(new CBORPayloadView(buffer, index));
+    } catch (RuntimeException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * A copy of the encoded bytes, since the bytes the view reads its fields from must not be changed
+   */
+  byte[] toByteArray() {
+    final byte[] bytes = new byte[buffer.limit()];
+    buffer.get(0, bytes);
+    return bytes;
+  }
+
+  /** Writes the encoded bytes to the stream, without copying them first if they are on the heap */
+  void writeTo(final OutputStream output) throws IOException {
+    if (buffer.hasArray()) {
+      output.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+    } else {
+      output.write(toByteArray());
+    }
+  }
+
+  @Override
+  public PublicKey getSenderKey() {
+    PublicKey value = senderKey;
+    if (Objects.isNull(value) && Objects.nonNull(sender)) {
+      value = PublicKey.from(copy(sender));
+      senderKey = value;
+    }
+    return value;
+  }
+
+  @Override
+  public byte[] getCipherText() {
+    byte[] value = cipherText;
+    if (Objects.isNull(value) && Objects.nonNull(cipherTextRange)) {
+      value = copy(cipherTextRange);
+      cipherText = value;
+    }
+    return value;
+  }
+
+  @Override
+  public Nonce getCipherTextNonce() {
+    Nonce value = cipherTextNonce;
+    if (Objects.isNull(value) && Objects.nonNull(nonce)) {
+      value = new Nonce(copy(nonce));
+      cipherTextNonce = value;
+    }
+    return value;
+  }
+
+  @Override
+  public List<RecipientBox> getRecipientBoxes() {
+    return recipientBoxes;
+  }
+
+  @Override
+  public Nonce getRecipientNonce() {
+    Nonce value = recipientNonce;
+    if (Objects.isNull(value) && Objects.nonNull(recipientNonceRange)) {
+      value = new Nonce(copy(recipientNonceRange));
+      recipientNonce = value;
+    }
+    return value;
+  }
+
+  @Override
+  public List<PublicKey> getRecipientKeys() {
+    return recipientKeys;
+  }
+
+  @Override
+  public PrivacyMode getPrivacyMode() {
+    return privacyMode;
+  }
+
+  @Override
+  public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
+    Map<TxHash, SecurityHash> value = affectedContractTransactions;
+    if (Objects.isNull(value)) {
+      final Map<TxHash, SecurityHash> affected = new HashMap<>();
+      for (int i = 0; i < affectedRanges.length; i += 2) {
+        final String txHash = new String(copy(affectedRanges[i]), StandardCharsets.UTF_8);
+        affected.put(new TxHash(txHash), SecurityHash.from(copy(affectedRanges[i + 1])));
+      }
+      value = Collections.unmodifiableMap(affected);
+      affectedContractTransactions = value;
+    }
+    return value;
+  }
+
+  @Override
+  public byte[] getExecHash() {
+    byte[] value = execHash;
+    if (Objects.isNull(value)) {
+      value = Objects.isNull(execHashRange) ? new byte[0] : copy(execHashRange);
+      execHash = value;
+    }
+    return value;
+  }
+
+  @Override
+  public Optional<PrivacyGroup.Id> getPrivacyGroupId() {
+    Optional<PrivacyGroup.Id> value = privacyGroupId;
+    if (Objects.isNull(value)) {
+      value =
+          Optional.ofNullable(privacyGroupIdRange)
+              .filter(r -> r.length > 0)
+              .map(this::copy)
+              .map(PrivacyGroup.Id::fromBytes);
+      privacyGroupId = value;
+    }
+    return value;
+  }
+
+  @Override
+  public Set<PublicKey> getMandatoryRecipients() {
+    Set<PublicKey> value = mandatoryRecipients;
+    if (Objects.isNull(value)) {
+      final Set<PublicKey> recipients = new HashSet<>();
+      for (final Range range : mandatoryForRanges) {
+        recipients.add(PublicKey.from(copy(range)));
+      }
+      value = Collections.unmodifiableSet(recipients);
+      mandatoryRecipients = value;
+    }
+    return value;
+  }
+
+  private byte[] copy(final Range range) {
+    final byte[] bytes = new byte[range.length];
+    buffer.get(range.offset, bytes);
+    return bytes;
+  }
+
+  /** Where a value is in the encoded bytes */
+  private static final class Range {
+
+    private final int offset;
+
+    private final int length;
+
+    private Range(final int offset, final int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * A list that creates each element from its range the first time it is read, publishing it so
+   * that other threads reading the list see it fully built
+   */
+  private static final class IndexedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Range[] ranges;
+
+    private final Function<Range, T> reader;
+
+    private final AtomicReferenceArray<T> elements;
+
+    private IndexedList(final Range[] ranges, final Function<Range, T> reader) {
+      this.ranges = ranges;
+      this.reader = reader;
+      this.elements = new AtomicReferenceArray<>(ranges.length);
+    }
+
+    @Override
+    public T get(final int index) {
+      final T element = elements.get(index);
+      if (Objects.nonNull(element)) {
+        return element;
+      }
+      // threads that read the same element at once all return the one that was set first
+      final T created = reader.apply(ranges[index]);
+      return elements.compareAndSet(index, null, created) ? created : elements.get(index);
+    }
+
+    @Override
+    public int size() {
+      return ranges.length;
+    }
+  }
+
+  /**
+   * Finds each field of the payload in a single pass, expecting the definite length map, arrays
+   * and byte strings that {@link CBOREncoder} writes
+   */
+  private static final class Index {
+
+    private static final Set<String> BINARY_FIELDS =
+        Set.of("sender", "cipherText", "nonce", "recipientNonce", "execHash", "privacyGroupId");
+
+    private static final Set<String> ARRAY_FIELDS =
+        Set.of("recipientBoxes", "recipients", "mandatoryFor");
+
+    private final ByteBuffer buffer;
+
+    private final CBORReader reader;
+
+    private final Map<String, Range> fields = new HashMap<>();
+
+    private final Map<String, Range[]> arrays = new HashMap<>();
+
+    private PrivacyMode privacyMode = PrivacyMode.STANDARD_PRIVATE;
+
+    private Index(final ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.reader = new CBORReader(buffer);
+
+      final long fieldCount = reader.header(CBORReader.MAJOR_TYPE_MAP);
+      final Set<String> seen = new HashSet<>();
+      for (long i = 0; i < fieldCount; i++) {
+        final String name = text();
+        if (!seen.add(name)) {
+          throw new IllegalArgumentException("Duplicate field " + name);
+        }
+
+        if (BINARY_FIELDS.contains(name)) {
+          fields.put(name, bytes());
+        } else if (ARRAY_FIELDS.contains(name)) {
+          final Range[] elements = new Range[reader.length(CBORReader.MAJOR_TYPE_ARRAY)];
+          for (int e = 0; e < elements.length; e++) {
+            elements[e] = bytes();
+          }
+          arrays.put(name, elements);
+        } else if (name.equals("affected")) {
+          // alternating ranges of the base64 transaction hash and its security hash
+          final Range[] entries =
+              new Range[Math.multiplyExact(reader.length(CBORReader.MAJOR_TYPE_MAP), 2)];
+          for (int e = 0; e < entries.length; e += 2) {
+            entries[e] = range(CBORReader.MAJOR_TYPE_TEXT);
+            entries[e + 1] = bytes();
+          }
+          arrays.put(name, entries);
+        } else if (name.equals("privacyFlag")) {
+          privacyMode = PrivacyMode.fromFlag(reader.length(CBORReader.MAJOR_TYPE_UNSIGNED));
+        } else {
+          throw new IllegalArgumentException("Unknown field " + name);
+        }
+      }
+
+      if (reader.hasRemaining()) {
+        throw new IllegalArgumentException("Unexpected data after payload");
+      }
+    }
+
+    /** Whether the payload could have been built, as checked by {@link EncodedPayload.Builder} */
+    private boolean isValid() {
+      final boolean hasExecHash =
+          Optional.ofNullable(fields.get("execHash")).map(r -> r.length > 0).orElse(false);
+      final boolean hasMandatoryRecipients =
+          arrays.getOrDefault("mandatoryFor", new Range[0]).length > 0;
+      return (privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) == hasExecHash
+          && (privacyMode == PrivacyMode.MANDATORY_RECIPIENTS) == hasMandatoryRecipients;
+    }
+
+    private Range bytes() {
+      return range(CBORReader.MAJOR_TYPE_BYTES);
+    }
+
+    private String text() {
+      final Range range = range(CBORReader.MAJOR_TYPE_TEXT);
+      final byte[] name = new byte[range.length];
+      buffer.get(range.offset, name);
+      return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private Range range(final int majorType) {
+      final int length = reader.length(majorType);
+      return new Range(reader.skip(length), length);
+    }
+  }
+}
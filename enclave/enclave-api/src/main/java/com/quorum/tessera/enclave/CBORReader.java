@@ -0,0 +1,106 @@
+package com.quorum.tessera.enclave;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the definite length CBOR items written by the payload encoders straight from a buffer,
+ * starting at index zero of the buffer and without changing its position.
+ */
+final class CBORReader {
+
+  static final int MAJOR_TYPE_UNSIGNED = 0;
+
+  static final int MAJOR_TYPE_BYTES = 2;
+
+  static final int MAJOR_TYPE_TEXT = 3;
+
+  static final int MAJOR_TYPE_ARRAY = 4;
+
+  static final int MAJOR_TYPE_MAP = 5;
+
+  private final ByteBuffer buffer;
+
+  private int position;
+
+  CBORReader(final ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  int position() {
+    return position;
+  }
+
+  boolean hasRemaining() {
+    return position < buffer.limit();
+  }
+
+  /**
+   * Reads the header of the next item, which must be of the given type and definite length
+   *
+   * @param majorType the expected CBOR major type
+   * @return the argument of the header, the value of an unsigned integer or the length of a
+   *     string or collection
+   */
+  long header(final int majorType) {
+    final int initial = Byte.toUnsignedInt(buffer.get(position++));
+    if (initial >>> 5 != majorType) {
+      throw new IllegalArgumentException("Unexpected CBOR major type " + (initial >>> 5));
+    }
+
+    final int additional = initial & 0x1f;
+    final long argument;
+    if (additional < 24) {
+      argument = additional;
+    } else if (additional == 24) {
+      argument = Byte.toUnsignedInt(buffer.get(position));
+      position += 1;
+    } else if (additional == 25) {
+      argument = Short.toUnsignedInt(buffer.getShort(position));
+      position += 2;
+    } else if (additional == 26) {
+      argument = Integer.toUnsignedLong(buffer.getInt(position));
+      position += 4;
+    } else if (additional == 27) {
+      argument = buffer.getLong(position);
+      position += 8;
+    } else {
+      throw new IllegalArgumentException("Indefinite length CBOR items are not supported");
+    }
+    return argument;
+  }
+
+  /** Reads the header of the next item as a length or count that fits in an array */
+  int length(final int majorType) {
+    return count(header(majorType));
+  }
+
+  /**
+   * Moves past the content of a string whose header has been read
+   *
+   * @param length the length of the string
+   * @return the index where the content starts
+   */
+  int skip(final int length) {
+    final int offset = position;
+    position = Math.addExact(position, length);
+    if (position > buffer.limit()) {
+      throw new IllegalArgumentException("Value extends past the end of the payload");
+    }
+    return offset;
+  }
+
+  /** Reads the next item, which must be a byte string, into a new array */
+  byte[] bytes() {
+    final int length = length(MAJOR_TYPE_BYTES);
+    final byte[] bytes = new byte[length];
+    buffer.get(skip(length), bytes);
+    return bytes;
+  }
+
+  static int count(final long argument) {
+    if (argument < 0 || argument > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("CBOR length out of range");
+    }
+    return (int) argument;
+  }
+}
@@ -0,0 +1,285 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A more compact CBOR encoding than {@link CBOREncoder}. The fields are keyed by small integers
+ * rather than their names, the affected transaction hashes are byte strings rather than base64
+ * text, and fields that are empty are left out.
+ *
+ * <p>The keys must never be renumbered, as payloads are stored with this encoding.
+ */
+public class CBORV2Encoder implements SplicingPayloadEncoder {
+
+  static final int SENDER = 0;
+
+  static final int CIPHER_TEXT = 1;
+
+  static final int NONCE = 2;
+
+  static final int RECIPIENT_NONCE = 3;
+
+  static final int RECIPIENT_BOXES = 4;
+
+  static final int RECIPIENTS = 5;
+
+  static final int PRIVACY_FLAG = 6;
+
+  static final int AFFECTED = 7;
+
+  static final int EXEC_HASH = 8;
+
+  static final int MANDATORY_FOR = 9;
+
+  static final int PRIVACY_GROUP_ID = 10;
+
+  @Override
+  public byte[] encode(EncodedPayload payload) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try {
+      encode(payload, output);
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encode(EncodedPayload payload, OutputStream output) throws IOException {
+    if (payload instanceof RecipientPayloadView) {
+      ((RecipientPayloadView) payload).writeTo(this, output);
+      return;
+    }
+    encode(payload, output, null);
+  }
+
+  @Override
+  public void encode(EncodedPayload payload, OutputStream output, Runnable marker)
+      throws IOException {
+    // the writer does not buffer, so everything written has reached the output at each mark
+    final CBORWriter writer = new CBORWriter(output);
+
+    final Map<TxHash, SecurityHash> affected = payload.getAffectedContractTransactions();
+    final byte[] execHash = Optional.ofNullable(payload.getExecHash()).orElse(new byte[0]);
+    final Set<PublicKey> mandatoryRecipients = payload.getMandatoryRecipients();
+    final Optional<PrivacyGroup.Id> privacyGroupId = payload.getPrivacyGroupId();
+
+    int fieldCount = 7;
+    fieldCount += affected.isEmpty() ? 0 : 1;
+    fieldCount += execHash.length == 0 ? 0 : 1;
+    fieldCount += mandatoryRecipients.isEmpty() ? 0 : 1;
+    fieldCount += privacyGroupId.isPresent() ? 1 : 0;
+
+    writer.header(CBORReader.MAJOR_TYPE_MAP, fieldCount);
+
+    writer.unsigned(SENDER);
+    writer.bytes(payload.getSenderKey().getKeyBytes());
+    writer.unsigned(CIPHER_TEXT);
+    writer.bytes(payload.getCipherText());
+    writer.unsigned(NONCE);
+    writer.bytes(payload.getCipherTextNonce().getNonceBytes());
+    writer.unsigned(RECIPIENT_NONCE);
+    writer.bytes(payload.getRecipientNonce().getNonceBytes());
+
+    writer.unsigned(RECIPIENT_BOXES);
+    writer.header(CBORReader.MAJOR_TYPE_ARRAY, payload.getRecipientBoxes().size());
+    mark(marker);
+    for (RecipientBox box : payload.getRecipientBoxes()) {
+      writer.bytes(box.getData());
+    }
+    mark(marker);
+
+    writer.unsigned(RECIPIENTS);
+    writer.header(CBORReader.MAJOR_TYPE_ARRAY, payload.getRecipientKeys().size());
+    mark(marker);
+    for (PublicKey key : payload.getRecipientKeys()) {
+      writer.bytes(key.getKeyBytes());
+    }
+    mark(marker);
+
+    writer.unsigned(PRIVACY_FLAG);
+    writer.unsigned(payload.getPrivacyMode().getPrivacyFlag());
+
+    if (!affected.isEmpty()) {
+      writer.unsigned(AFFECTED);
+      writer.header(CBORReader.MAJOR_TYPE_MAP, affected.size());
+      for (Map.Entry<TxHash, SecurityHash> entry : affected.entrySet()) {
+        writer.bytes(entry.getKey().getBytes());
+        writer.bytes(entry.getValue().getData());
+      }
+    }
+
+    if (execHash.length > 0) {
+      writer.unsigned(EXEC_HASH);
+      writer.bytes(execHash);
+    }
+
+    if (!mandatoryRecipients.isEmpty()) {
+      writer.unsigned(MANDATORY_FOR);
+      writer.header(CBORReader.MAJOR_TYPE_ARRAY, mandatoryRecipients.size());
+      for (PublicKey recipient : mandatoryRecipients) {
+        writer.bytes(recipient.getKeyBytes());
+      }
+    }
+
+    if (privacyGroupId.isPresent()) {
+      writer.unsigned(PRIVACY_GROUP_ID);
+      writer.bytes(privacyGroupId.get().getBytes());
+    }
+
+    writer.flush();
+  }
+
+  private static void mark(Runnable marker) {
+    if (Objects.nonNull(marker)) {
+      marker.run();
+    }
+  }
+
+  @Override
+  public void encodeElement(byte[] element, OutputStream output) throws IOException {
+    new CBORWriter(output).bytes(element);
+  }
+
+  @Override
+  public EncodedPayload decode(byte[] input) {
+    return decodeBuffer(ByteBuffer.wrap(input));
+  }
+
+  @Override
+  public EncodedPayload decodeBuffer(ByteBuffer input) {
+
+    final EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.create();
+
+    try {
+      final CBORReader reader = new CBORReader(input.slice());
+
+      final long fieldCount = reader.header(CBORReader.MAJOR_TYPE_MAP);
+      for (long i = 0; i < fieldCount; i++) {
+        final int key = reader.length(CBORReader.MAJOR_TYPE_UNSIGNED);
+        switch (key) {
+          case SENDER:
+            payloadBuilder.withSenderKey(PublicKey.from(reader.bytes()));
+            break;
+          case CIPHER_TEXT:
+            payloadBuilder.withCipherText(reader.bytes());
+            break;
+          case NONCE:
+            payloadBuilder.withCipherTextNonce(reader.bytes());
+            break;
+          case RECIPIENT_NONCE:
+            payloadBuilder.withRecipientNonce(reader.bytes());
+            break;
+          case RECIPIENT_BOXES:
+            final int boxCount = reader.length(CBORReader.MAJOR_TYPE_ARRAY);
+            for (int b = 0; b < boxCount; b++) {
+              payloadBuilder.withRecipientBox(reader.bytes());
+            }
+            break;
+          case RECIPIENTS:
+            payloadBuilder.withRecipientKeys(readKeys(reader));
+            break;
+          case PRIVACY_FLAG:
+            payloadBuilder.withPrivacyFlag(reader.length(CBORReader.MAJOR_TYPE_UNSIGNED));
+            break;
+          case AFFECTED:
+            final int affectedCount = reader.length(CBORReader.MAJOR_TYPE_MAP);
+            final Map<TxHash, byte[]> affectedTxs = new HashMap<>();
+            for (int a = 0; a < affectedCount; a++) {
+              affectedTxs.put(new TxHash(reader.bytes()), reader.bytes());
+            }
+            payloadBuilder.withAffectedContractTransactions(affectedTxs);
+            break;
+          case EXEC_HASH:
+            payloadBuilder.withExecHash(reader.bytes());
+            break;
+          case MANDATORY_FOR:
+            payloadBuilder.withMandatoryRecipients(new HashSet<>(readKeys(reader)));
+            break;
+          case PRIVACY_GROUP_ID:
+            payloadBuilder.withPrivacyGroupId(PrivacyGroup.Id.fromBytes(reader.bytes()));
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown field " + key);
+        }
+      }
+
+      if (reader.hasRemaining()) {
+        throw new IllegalArgumentException("Unexpected data after payload");
+      }
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to decode payload data. ", ex);
+    }
+
+    return payloadBuilder.build();
+  }
+
+  @Override
+  public EncodedPayloadHeader decodeHeader(byte[] input) {
+
+    PublicKey senderKey = null;
+    List<PublicKey> recipientKeys = new ArrayList<>();
+    PrivacyMode privacyMode = PrivacyMode.STANDARD_PRIVATE;
+
+    try {
+      final CBORReader reader = new CBORReader(ByteBuffer.wrap(input));
+
+      final long fieldCount = reader.header(CBORReader.MAJOR_TYPE_MAP);
+      for (long i = 0; i < fieldCount; i++) {
+        final int key = reader.length(CBORReader.MAJOR_TYPE_UNSIGNED);
+        switch (key) {
+          case SENDER:
+            senderKey = PublicKey.from(reader.bytes());
+            break;
+          case RECIPIENTS:
+            recipientKeys = readKeys(reader);
+            break;
+          case PRIVACY_FLAG:
+            privacyMode = PrivacyMode.fromFlag(reader.length(CBORReader.MAJOR_TYPE_UNSIGNED));
+            break;
+          case RECIPIENT_BOXES:
+          case MANDATORY_FOR:
+            skipBytes(reader, reader.length(CBORReader.MAJOR_TYPE_ARRAY));
+            break;
+          case AFFECTED:
+            skipBytes(reader, Math.multiplyExact(reader.length(CBORReader.MAJOR_TYPE_MAP), 2));
+            break;
+          default:
+            // the cipher text and the other binary fields are skipped without being copied
+            skipBytes(reader, 1);
+        }
+      }
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to decode payload data. ", ex);
+    }
+
+    return EncodedPayloadHeader.from(senderKey, recipientKeys, privacyMode);
+  }
+
+  @Override
+  public EncodedPayloadCodec encodedPayloadCodec() {
+    return EncodedPayloadCodec.CBOR_V2;
+  }
+
+  private static List<PublicKey> readKeys(CBORReader reader) {
+    final int count = reader.length(CBORReader.MAJOR_TYPE_ARRAY);
+    final List<PublicKey> keys = new ArrayList<>();
+    for (int k = 0; k < count; k++) {
+      keys.add(PublicKey.from(reader.bytes()));
+    }
+    return keys;
+  }
+
+  private static void skipBytes(CBORReader reader, int count) {
+    for (int s = 0; s < count; s++) {
+      reader.skip(reader.length(CBORReader.MAJOR_TYPE_BYTES));
+    }
+  }
+}
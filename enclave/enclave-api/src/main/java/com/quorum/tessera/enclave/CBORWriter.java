@@ -0,0 +1,53 @@
+package com.quorum.tessera.enclave;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Writes definite length CBOR items, in their shortest form, to a stream */
+final class CBORWriter {
+
+  private final DataOutputStream output;
+
+  CBORWriter(final OutputStream output) {
+    this.output = new DataOutputStream(output);
+  }
+
+  /**
+   * Writes the header of an item
+   *
+   * @param majorType the CBOR major type of the item
+   * @param argument the value of an unsigned integer or the length of a string or collection
+   */
+  void header(final int majorType, final long argument) throws IOException {
+    final int type = majorType << 5;
+    if (argument < 24) {
+      output.write(type | (int) argument);
+    } else if (argument <= 0xff) {
+      output.write(type | 24);
+      output.write((int) argument);
+    } else if (argument <= 0xffff) {
+      output.write(type | 25);
+      output.writeShort((int) argument);
+    } else if (argument <= 0xffffffffL) {
+      output.write(type | 26);
+      output.writeInt((int) argument);
+    } else {
+      output.write(type | 27);
+      output.writeLong(argument);
+    }
+  }
+
+  void unsigned(final long value) throws IOException {
+    header(CBORReader.MAJOR_TYPE_UNSIGNED, value);
+  }
+
+  void bytes(final byte[] value) throws IOException {
+    header(CBORReader.MAJOR_TYPE_BYTES, value.length);
+    output.write(value);
+  }
+
+  void flush() throws IOException {
+    output.flush();
+  }
+}
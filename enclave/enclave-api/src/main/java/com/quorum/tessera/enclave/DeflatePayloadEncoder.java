@@ -0,0 +1,105 @@
+package com.quorum.tessera.enclave;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the {@link CBORV2Encoder} encoding of a payload as a zlib stream, for payloads at
+ * rest. The cipher text does not compress, but the keys, nonces and lengths around it do, and they
+ * compress much further when the keys are in the {@link PayloadDictionary} held by {@link
+ * PayloadDictionaryHolder}. The zlib header records which dictionary, if any, was used.
+ */
+public class DeflatePayloadEncoder implements PayloadEncoder {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private final PayloadEncoder cborEncoder = new CBORV2Encoder();
+
+  @Override
+  public byte[] encode(EncodedPayload payload) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try {
+      encode(payload, output);
+    } catch (Exception ex) {
+      throw new RuntimeException("Unable to encode payload. ", ex);
+    }
+
+    return output.toByteArray();
+  }
+
+  @Override
+  public void encode(EncodedPayload payload, OutputStream output) throws IOException {
+    final Deflater deflater = new Deflater();
+    try {
+      PayloadDictionaryHolder.INSTANCE
+          .getDictionary()
+          .map(PayloadDictionary::getBytes)
+          .ifPresent(deflater::setDictionary);
+
+      // finished rather than closed, as the stream belongs to the caller
+      final DeflaterOutputStream deflaterOutput =
+          new DeflaterOutputStream(output, deflater, CHUNK_SIZE);
+      cborEncoder.encode(payload, deflaterOutput);
+      deflaterOutput.finish();
+      deflaterOutput.flush();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  @Override
+  public EncodedPayload decode(byte[] input) {
+    return cborEncoder.decode(inflate(input));
+  }
+
+  @Override
+  public EncodedPayloadHeader decodeHeader(byte[] input) {
+    return cborEncoder.decodeHeader(inflate(input));
+  }
+
+  @Override
+  public EncodedPayloadCodec encodedPayloadCodec() {
+    return EncodedPayloadCodec.CBOR_V2_DEFLATE;
+  }
+
+  private static byte[] inflate(byte[] input) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(input);
+
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(input.length + CHUNK_SIZE);
+      final byte[] chunk = new byte[CHUNK_SIZE];
+      while (!inflater.finished()) {
+        final int length = inflater.inflate(chunk);
+        if (length > 0) {
+          output.write(chunk, 0, length);
+        } else if (inflater.needsDictionary()) {
+          inflater.setDictionary(dictionary(inflater.getAdler()).getBytes());
+        } else if (inflater.needsInput()) {
+          throw new IllegalArgumentException("Compressed payload is incomplete");
+        }
+      }
+      return output.toByteArray();
+    } catch (DataFormatException | RuntimeException ex) {
+      throw new RuntimeException("Unable to decode payload data. ", ex);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static PayloadDictionary dictionary(int id) {
+    final Optional<PayloadDictionary> dictionary = PayloadDictionaryHolder.INSTANCE.find(id);
+    return dictionary.orElseThrow(
+        () ->
+            new IllegalStateException(
+                String.format(
+                    "Payload was compressed with dictionary %08x, which is not configured", id)));
+  }
+}
@@ -2,6 +2,7 @@ package com.quorum.tessera.enclave;
 
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -117,12 +118,79 @@ public interface Enclave extends Service {
    */
   byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey);
 
+  /**
+   * Encrypts several messages for the same sender, recipients and privacy metadata, as if {@link
+   * #encryptPayload(byte[], PublicKey, List, PrivacyMetadata)} was called for each message in turn.
+   *
+   * @param messages the messages to be encrypted
+   * @param senderPublicKey the public key which this enclave manages
+   * @param recipientPublicKeys the recipients to encrypt the messages for
+   * @param privacyMetadata privacy metadata of the transactions
+   * @return the encrypted messages, in the same order as the given messages
+   */
+  default List<EncodedPayload> encryptPayloads(
+      List<byte[]> messages,
+      PublicKey senderPublicKey,
+      List<PublicKey> recipientPublicKeys,
+      PrivacyMetadata privacyMetadata) {
+    final List<EncodedPayload> results = new ArrayList<>(messages.size());
+    for (final byte[] message : messages) {
+      results.add(encryptPayload(message, senderPublicKey, recipientPublicKeys, privacyMetadata));
+    }
+    return results;
+  }
+
+  /**
+   * Decrypts several transactions, as if {@link #unencryptTransaction(EncodedPayload, PublicKey)}
+   * was called for each payload and the key at the same position. Fails as a whole if any one of
+   * the payloads cannot be decrypted.
+   *
+   * @param payloads the encrypted payloads
+   * @param providedKeys the key to use for each payload, with the same size as the payloads
+   * @return the original messages, in the same order as the payloads
+   */
+  default List<byte[]> unencryptTransactions(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    requireSameSize(payloads, providedKeys);
+    final List<byte[]> results = new ArrayList<>(payloads.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      results.add(unencryptTransaction(payloads.get(i), providedKeys.get(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Creates several new recipient boxes, as if {@link #createNewRecipientBox(EncodedPayload,
+   * PublicKey)} was called for each payload and the recipient at the same position. The same
+   * payload may be given more than once to create boxes for several of its recipients.
+   *
+   * @param payloads the payloads to add a recipient to
+   * @param recipientKeys the new recipient for each payload, with the same size as the payloads
+   * @return the new boxes, in the same order as the payloads
+   */
+  default List<byte[]> createNewRecipientBoxes(
+      List<EncodedPayload> payloads, List<PublicKey> recipientKeys) {
+    requireSameSize(payloads, recipientKeys);
+    final List<byte[]> results = new ArrayList<>(payloads.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      results.add(createNewRecipientBox(payloads.get(i), recipientKeys.get(i)));
+    }
+    return results;
+  }
+
   @Override
   default void start() {}
 
   @Override
   default void stop() {}
 
+  private static void requireSameSize(List<EncodedPayload> payloads, List<PublicKey> keys) {
+    if (payloads.size() != keys.size()) {
+      throw new IllegalArgumentException(
+          String.format("Expected %d keys for the payloads, got %d", payloads.size(), keys.size()));
+    }
+  }
+
   static Enclave create() {
     return ServiceLoader.load(Enclave.class).findFirst().get();
   }
@@ -9,10 +9,15 @@ import com.quorum.tessera.config.keys.KeyEncryptorFactory;
 import com.quorum.tessera.config.util.EnvironmentVariableProvider;
 import com.quorum.tessera.config.util.KeyDataUtil;
 import com.quorum.tessera.encryption.*;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +25,8 @@ public class EnclaveFactoryImpl {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EnclaveFactoryImpl.class);
 
+  static final String SHARED_KEY_CACHE_OBJECT_NAME = "com.quorum.tessera:type=SharedKeyCache";
+
   private final Config config;
 
   public EnclaveFactoryImpl(Config config) {
@@ -70,10 +77,41 @@ public class EnclaveFactoryImpl {
 
     LOGGER.debug("Creating enclave");
 
-    Enclave enclave = new EnclaveImpl(encryptor, new KeyManagerImpl(keys, forwardKeys));
+    Enclave enclave =
+        new EnclaveImpl(
+            encryptor,
+            new KeyManagerImpl(keys, forwardKeys),
+            createSharedKeyCache(encryptorConfig),
+            RecipientBoxSealer.create(
+                encryptorConfig.getParallelSealingThreshold(),
+                encryptorConfig.getParallelSealingThreads()));
 
     LOGGER.debug("Created enclave {}", enclave);
 
     return enclave;
   }
+
+  static SharedKeyCache createSharedKeyCache(EncryptorConfig encryptorConfig) {
+    if (encryptorConfig.getSharedKeyCacheSize() <= 0) {
+      return SharedKeyCache.disabled();
+    }
+
+    final SharedKeyCache sharedKeyCache =
+        new SharedKeyCache(
+            encryptorConfig.getSharedKeyCacheSize(),
+            Duration.ofSeconds(encryptorConfig.getSharedKeyCacheExpiry()));
+
+    try {
+      final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = new ObjectName(SHARED_KEY_CACHE_OBJECT_NAME);
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+      mBeanServer.registerMBean(sharedKeyCache, objectName);
+    } catch (JMException ex) {
+      LOGGER.warn("Unable to register shared key cache metrics. {}", ex.getMessage());
+      LOGGER.debug("", ex);
+    }
+    return sharedKeyCache;
+  }
 }
@@ -16,9 +16,27 @@ public class EnclaveImpl implements Enclave {
 
   private final KeyManager keyManager;
 
+  private final SharedKeyCache sharedKeyCache;
+
+  private final RecipientBoxSealer recipientBoxSealer;
+
   public EnclaveImpl(Encryptor encryptor, KeyManager keyManager) {
+    this(encryptor, keyManager, SharedKeyCache.disabled());
+  }
+
+  public EnclaveImpl(Encryptor encryptor, KeyManager keyManager, SharedKeyCache sharedKeyCache) {
+    this(encryptor, keyManager, sharedKeyCache, RecipientBoxSealer.sequential());
+  }
+
+  public EnclaveImpl(
+      Encryptor encryptor,
+      KeyManager keyManager,
+      SharedKeyCache sharedKeyCache,
+      RecipientBoxSealer recipientBoxSealer) {
     this.encryptor = Objects.requireNonNull(encryptor);
     this.keyManager = Objects.requireNonNull(keyManager);
+    this.sharedKeyCache = Objects.requireNonNull(sharedKeyCache);
+    this.recipientBoxSealer = Objects.requireNonNull(recipientBoxSealer);
   }
 
   @Override
@@ -94,14 +112,7 @@ public class EnclaveImpl implements Enclave {
   @Override
   public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey publicKey) {
 
-    if (payload.getRecipientKeys().isEmpty() || payload.getRecipientBoxes().isEmpty()) {
-      throw new RuntimeException("No key or recipient-box to use");
-    }
-
-    final MasterKey master =
-        this.getMasterKey(
-            payload.getRecipientKeys().get(0), payload.getSenderKey(),
-            payload.getRecipientNonce(), payload.getRecipientBoxes().get(0).getData());
+    final MasterKey master = getSenderMasterKey(payload);
 
     final List<byte[]> sealedMasterKeyList =
         this.buildRecipientMasterKeys(
@@ -110,6 +121,39 @@ public class EnclaveImpl implements Enclave {
     return sealedMasterKeyList.get(0);
   }
 
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      final List<EncodedPayload> payloads, final List<PublicKey> recipientKeys) {
+    if (payloads.size() != recipientKeys.size()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Expected %d keys for the payloads, got %d", payloads.size(), recipientKeys.size()));
+    }
+
+    // the master key of a payload given several times is only opened once
+    final Map<EncodedPayload, MasterKey> masterKeys = new IdentityHashMap<>();
+    final List<byte[]> boxes = new ArrayList<>(payloads.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      final EncodedPayload payload = payloads.get(i);
+      final MasterKey master = masterKeys.computeIfAbsent(payload, this::getSenderMasterKey);
+      final SharedKey sharedKey = computeSharedKey(recipientKeys.get(i), payload.getSenderKey());
+      boxes.add(
+          encryptor.sealAfterPrecomputation(
+              master.getKeyBytes(), payload.getRecipientNonce(), sharedKey));
+    }
+    return boxes;
+  }
+
+  private MasterKey getSenderMasterKey(final EncodedPayload payload) {
+    if (payload.getRecipientKeys().isEmpty() || payload.getRecipientBoxes().isEmpty()) {
+      throw new RuntimeException("No key or recipient-box to use");
+    }
+
+    return this.getMasterKey(
+        payload.getRecipientKeys().get(0), payload.getSenderKey(),
+        payload.getRecipientNonce(), payload.getRecipientBoxes().get(0).getData());
+  }
+
   @Override
   public EncodedPayload encryptPayload(
       final RawTransaction rawTransaction,
@@ -184,15 +228,12 @@ public class EnclaveImpl implements Enclave {
       final List<PublicKey> recipientPublicKeys,
       final Nonce recipientNonce,
       final MasterKey masterKey) {
-    final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(senderPublicKey);
-
-    return recipientPublicKeys.stream()
-        .map(publicKey -> encryptor.computeSharedKey(publicKey, privateKey))
-        .map(
-            sharedKey ->
-                encryptor.sealAfterPrecomputation(
-                    masterKey.getKeyBytes(), recipientNonce, sharedKey))
-        .collect(Collectors.toList());
+    final byte[] masterKeyBytes = masterKey.getKeyBytes();
+    return recipientBoxSealer.seal(
+        recipientPublicKeys,
+        publicKey ->
+            encryptor.sealAfterPrecomputation(
+                masterKeyBytes, recipientNonce, computeSharedKey(publicKey, senderPublicKey)));
   }
 
   @Override
@@ -202,9 +243,7 @@ public class EnclaveImpl implements Enclave {
 
     final byte[] cipherText = encryptor.sealAfterPrecomputation(message, nonce, masterKey);
 
-    final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(sender);
-
-    final SharedKey sharedKey = encryptor.computeSharedKey(sender, privateKey);
+    final SharedKey sharedKey = computeSharedKey(sender, sender);
     final byte[] encryptedMasterKey =
         encryptor.sealAfterPrecomputation(masterKey.getKeyBytes(), nonce, sharedKey);
 
@@ -281,8 +320,7 @@ public class EnclaveImpl implements Enclave {
       }
     }
 
-    final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(publicToFindPrivateFor);
-    final SharedKey sharedKey = encryptor.computeSharedKey(senderPublicKey, privateKey);
+    final SharedKey sharedKey = computeSharedKey(senderPublicKey, publicToFindPrivateFor);
 
     final Nonce recipientNonce = payload.getRecipientNonce();
 
@@ -300,9 +338,7 @@ public class EnclaveImpl implements Enclave {
   @Override
   public byte[] unencryptRawPayload(RawTransaction payload) {
 
-    final PrivateKey senderPrivateKey = keyManager.getPrivateKeyForPublicKey(payload.getFrom());
-
-    final SharedKey sharedKey = encryptor.computeSharedKey(payload.getFrom(), senderPrivateKey);
+    final SharedKey sharedKey = computeSharedKey(payload.getFrom(), payload.getFrom());
 
     final byte[] recipientBox = payload.getEncryptedKey();
 
@@ -322,8 +358,7 @@ public class EnclaveImpl implements Enclave {
   private MasterKey getMasterKey(
       PublicKey recipient, PublicKey sender, Nonce nonce, byte[] encryptedKey) {
 
-    final SharedKey sharedKey =
-        encryptor.computeSharedKey(recipient, keyManager.getPrivateKeyForPublicKey(sender));
+    final SharedKey sharedKey = computeSharedKey(recipient, sender);
 
     final byte[] masterKeyBytes = encryptor.openAfterPrecomputation(encryptedKey, nonce, sharedKey);
 
@@ -371,6 +406,16 @@ public class EnclaveImpl implements Enclave {
         recipientPubKey, senderPubKey, encodedPayload.getRecipientNonce(), recipientBox);
   }
 
+  /**
+   * The shared key between a peer and one of our key pairs, reusing a previously computed key for
+   * the same pair when the cache holds one
+   */
+  private SharedKey computeSharedKey(final PublicKey publicKey, final PublicKey localKey) {
+    final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(localKey);
+    return sharedKeyCache.get(
+        publicKey, privateKey, () -> encryptor.computeSharedKey(publicKey, privateKey));
+  }
+
   @Override
   public PublicKey defaultPublicKey() {
     return keyManager.defaultPublicKey();
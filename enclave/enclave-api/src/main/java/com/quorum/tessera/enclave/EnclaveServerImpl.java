@@ -72,6 +72,27 @@ class EnclaveServerImpl implements EnclaveServer {
     return enclave.createNewRecipientBox(payload, recipientKey);
   }
 
+  @Override
+  public List<EncodedPayload> encryptPayloads(
+      List<byte[]> messages,
+      PublicKey senderPublicKey,
+      List<PublicKey> recipientPublicKeys,
+      PrivacyMetadata privacyMetadata) {
+    return enclave.encryptPayloads(messages, senderPublicKey, recipientPublicKeys, privacyMetadata);
+  }
+
+  @Override
+  public List<byte[]> unencryptTransactions(
+      List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+    return enclave.unencryptTransactions(payloads, providedKeys);
+  }
+
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      List<EncodedPayload> payloads, List<PublicKey> recipientKeys) {
+    return enclave.createNewRecipientBoxes(payloads, recipientKeys);
+  }
+
   @Override
   public void start() {
     enclave.start();
@@ -7,7 +7,13 @@ import com.quorum.tessera.encryption.PublicKey;
 import java.util.*;
 import java.util.stream.Collectors;
 
-/** This class contains the data that is sent to other nodes */
+/**
+ * This class contains the data that is sent to other nodes
+ *
+ * <p>Payloads decoded from CBOR may be read-only views over the encoded bytes, and the payloads
+ * pushed to each recipient views over the payload for every recipient, which are equal to the
+ * payloads they stand for.
+ */
 public class EncodedPayload {
 
   private final PublicKey senderKey;
@@ -48,15 +54,20 @@ public class EncodedPayload {
     this.cipherText = cipherText;
     this.cipherTextNonce = cipherTextNonce;
     this.recipientNonce = recipientNonce;
-    this.recipientBoxes = recipientBoxes;
+    this.recipientBoxes = Collections.unmodifiableList(recipientBoxes);
     this.recipientKeys = recipientKeys;
     this.privacyMode = privacyMode;
-    this.affectedContractTransactions = affectedContractTransactions;
+    this.affectedContractTransactions = Collections.unmodifiableMap(affectedContractTransactions);
     this.execHash = execHash;
     this.privacyGroupId = privacyGroupId;
     this.mandatoryRecipients = mandatoryRecipients;
   }
 
+  /** For views that read each field from elsewhere, and override every getter */
+  EncodedPayload() {
+    this(null, null, null, List.of(), null, List.of(), null, Map.of(), null, null, Set.of());
+  }
+
   public PublicKey getSenderKey() {
     return senderKey;
   }
@@ -70,7 +81,7 @@ public class EncodedPayload {
   }
 
   public List<RecipientBox> getRecipientBoxes() {
-    return Collections.unmodifiableList(recipientBoxes);
+    return recipientBoxes;
   }
 
   public Nonce getRecipientNonce() {
@@ -86,7 +97,7 @@ public class EncodedPayload {
   }
 
   public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
-    return Collections.unmodifiableMap(affectedContractTransactions);
+    return affectedContractTransactions;
   }
 
   public byte[] getExecHash() {
@@ -321,34 +332,39 @@ public class EncodedPayload {
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
+    if (!(o instanceof EncodedPayload)) return false;
     EncodedPayload that = (EncodedPayload) o;
-    return Objects.equals(senderKey, that.senderKey)
-        && Arrays.equals(cipherText, that.cipherText)
-        && Objects.equals(cipherTextNonce, that.cipherTextNonce)
-        && Objects.equals(recipientBoxes, that.recipientBoxes)
-        && Objects.equals(recipientNonce, that.recipientNonce)
-        && Objects.equals(recipientKeys, that.recipientKeys)
-        && privacyMode == that.privacyMode
-        && Arrays.equals(execHash, that.execHash)
-        && Objects.equals(privacyGroupId, that.privacyGroupId)
-        && Objects.equals(mandatoryRecipients, that.mandatoryRecipients);
+    if (getClass() != that.getClass() && !isView(this) && !isView(that)) return false;
+    return Objects.equals(getSenderKey(), that.getSenderKey())
+        && Arrays.equals(getCipherText(), that.getCipherText())
+        && Objects.equals(getCipherTextNonce(), that.getCipherTextNonce())
+        && Objects.equals(getRecipientBoxes(), that.getRecipientBoxes())
+        && Objects.equals(getRecipientNonce(), that.getRecipientNonce())
+        && Objects.equals(getRecipientKeys(), that.getRecipientKeys())
+        && getPrivacyMode() == that.getPrivacyMode()
+        && Arrays.equals(getExecHash(), that.getExecHash())
+        && Objects.equals(getPrivacyGroupId(), that.getPrivacyGroupId())
+        && Objects.equals(getMandatoryRecipients(), that.getMandatoryRecipients());
   }
 
   @Override
   public int hashCode() {
     int result =
         Objects.hash(
-            senderKey,
-            cipherTextNonce,
-            recipientBoxes,
-            recipientNonce,
-            recipientKeys,
-            privacyMode,
-            privacyGroupId,
-            mandatoryRecipients);
-    result = 31 * result + Arrays.hashCode(cipherText);
-    result = 31 * result + Arrays.hashCode(execHash);
+            getSenderKey(),
+            getCipherTextNonce(),
+            getRecipientBoxes(),
+            getRecipientNonce(),
+            getRecipientKeys(),
+            getPrivacyMode(),
+            getPrivacyGroupId(),
+            getMandatoryRecipients());
+    result = 31 * result + Arrays.hashCode(getCipherText());
+    result = 31 * result + Arrays.hashCode(getExecHash());
     return result;
   }
+
+  private static boolean isView(final EncodedPayload payload) {
+    return payload instanceof CBORPayloadView || payload instanceof RecipientPayloadView;
+  }
 }
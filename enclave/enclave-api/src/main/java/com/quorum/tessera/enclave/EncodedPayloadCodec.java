@@ -2,11 +2,16 @@ package com.quorum.tessera.enclave;
 
 import com.quorum.tessera.version.BaseVersion;
 import com.quorum.tessera.version.CBORSupportVersion;
+import com.quorum.tessera.version.CBORV2SupportVersion;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 public enum EncodedPayloadCodec {
+  CBOR_V2(CBORV2SupportVersion.API_VERSION_6),
+  /** Only used to store payloads, so is never negotiated with other nodes */
+  CBOR_V2_DEFLATE,
   CBOR(CBORSupportVersion.API_VERSION_5),
   LEGACY(BaseVersion.API_VERSION_1);
 
@@ -16,16 +21,27 @@ public enum EncodedPayloadCodec {
     this.minimumSupportedVersion = minimumSupportedVersion;
   }
 
+  EncodedPayloadCodec() {
+    this(null);
+  }
+
+  /** The API version a node must support to be sent this codec, null if it is never sent */
   public String getMinimumSupportedVersion() {
     return minimumSupportedVersion;
   }
 
+  /**
+   * The codec that payloads are stored with unless configured otherwise. It stays {@link #CBOR} so
+   * that rows written by this release can still be read after a downgrade; {@link #CBOR_V2} is only
+   * negotiated with peers or chosen for storage explicitly.
+   */
   public static EncodedPayloadCodec current() {
     return CBOR;
   }
 
   public static EncodedPayloadCodec getPreferredCodec(Set<String> versions) {
     return Stream.of(EncodedPayloadCodec.values())
+        .filter(c -> Objects.nonNull(c.getMinimumSupportedVersion()))
         .sorted(
             (c1, c2) -> {
               Function<EncodedPayloadCodec, Double> parseValue =
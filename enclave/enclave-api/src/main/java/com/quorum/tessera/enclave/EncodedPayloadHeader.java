@@ -0,0 +1,61 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The addressing fields of an {@link EncodedPayload}, which can be read from an encoded payload
+ * without copying out the cipher text or recipient boxes
+ */
+public interface EncodedPayloadHeader {
+
+  PublicKey getSenderKey();
+
+  List<PublicKey> getRecipientKeys();
+
+  PrivacyMode getPrivacyMode();
+
+  static EncodedPayloadHeader from(
+      final PublicKey senderKey,
+      final List<PublicKey> recipientKeys,
+      final PrivacyMode privacyMode) {
+    final List<PublicKey> keys = List.copyOf(recipientKeys);
+    return new EncodedPayloadHeader() {
+      @Override
+      public PublicKey getSenderKey() {
+        return senderKey;
+      }
+
+      @Override
+      public List<PublicKey> getRecipientKeys() {
+        return keys;
+      }
+
+      @Override
+      public PrivacyMode getPrivacyMode() {
+        return privacyMode;
+      }
+
+      @Override
+      public int hashCode() {
+        return Objects.hash(senderKey, keys, privacyMode);
+      }
+
+      @Override
+      public boolean equals(final Object obj) {
+        if (!(obj instanceof EncodedPayloadHeader)) {
+          return false;
+        }
+        final EncodedPayloadHeader other = (EncodedPayloadHeader) obj;
+        return Objects.equals(senderKey, other.getSenderKey())
+            && Objects.equals(keys, other.getRecipientKeys())
+            && privacyMode == other.getPrivacyMode();
+      }
+    };
+  }
+
+  static EncodedPayloadHeader from(final EncodedPayload payload) {
+    return from(payload.getSenderKey(), payload.getRecipientKeys(), payload.getPrivacyMode());
+  }
+}
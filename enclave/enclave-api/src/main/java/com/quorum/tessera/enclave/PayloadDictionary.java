@@ -0,0 +1,75 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.Adler32;
+
+/**
+ * A preset dictionary of public keys that are seen in many payloads, such as the members of a
+ * busy privacy group, used by {@link DeflatePayloadEncoder} so that the recipient keys of a
+ * payload compress to a few bytes each.
+ *
+ * <p>A compressed payload records the {@link #getId() id} of the dictionary it was compressed with
+ * and can only be decompressed with that dictionary, so a dictionary file must be kept for as long
+ * as there are payloads stored with it.
+ */
+public final class PayloadDictionary {
+
+  private final byte[] bytes;
+
+  private final int id;
+
+  private PayloadDictionary(final byte[] bytes) {
+    this.bytes = bytes;
+    final Adler32 adler32 = new Adler32();
+    adler32.update(bytes);
+    this.id = (int) adler32.getValue();
+  }
+
+  /**
+   * @param keys the keys, the most frequently seen last as they are then the cheapest to refer to
+   * @return the dictionary of the given keys
+   */
+  public static PayloadDictionary of(final List<PublicKey> keys) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    keys.stream().map(PublicKey::getKeyBytes).forEach(bytes::writeBytes);
+    return new PayloadDictionary(bytes.toByteArray());
+  }
+
+  /**
+   * Reads a dictionary from a file of base64 encoded public keys, one per line
+   *
+   * @param path the file to read
+   * @return the dictionary of the keys in the file, in the order they are listed
+   */
+  public static PayloadDictionary read(final Path path) {
+    try {
+      final List<PublicKey> keys =
+          Files.readAllLines(path, StandardCharsets.UTF_8).stream()
+              .map(String::trim)
+              .filter(line -> !line.isEmpty())
+              .map(Base64.getDecoder()::decode)
+              .map(PublicKey::from)
+              .collect(Collectors.toList());
+      return of(keys);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  byte[] getBytes() {
+    return bytes;
+  }
+
+  /** The Adler-32 checksum of the dictionary, which zlib records in a compressed payload */
+  public int getId() {
+    return id;
+  }
+}
@@ -0,0 +1,35 @@
+package com.quorum.tessera.enclave;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link PayloadDictionary} that payloads are compressed with, and every dictionary set
+ * before it so that payloads compressed with those can still be decompressed.
+ */
+public enum PayloadDictionaryHolder {
+  INSTANCE;
+
+  private final Map<Integer, PayloadDictionary> dictionaries = new ConcurrentHashMap<>();
+
+  private volatile PayloadDictionary dictionary;
+
+  public void setDictionary(final PayloadDictionary dictionary) {
+    dictionaries.put(dictionary.getId(), dictionary);
+    this.dictionary = dictionary;
+  }
+
+  public Optional<PayloadDictionary> getDictionary() {
+    return Optional.ofNullable(dictionary);
+  }
+
+  Optional<PayloadDictionary> find(final int id) {
+    return Optional.ofNullable(dictionaries.get(id));
+  }
+
+  void clear() {
+    dictionaries.clear();
+    dictionary = null;
+  }
+}
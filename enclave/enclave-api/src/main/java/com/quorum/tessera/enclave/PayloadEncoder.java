@@ -1,5 +1,8 @@
 package com.quorum.tessera.enclave;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /** Encodes and decodes a {@link EncodedPayload} to and from its binary representation */
@@ -13,6 +16,18 @@ public interface PayloadEncoder {
    */
   byte[] encode(EncodedPayload payload);
 
+  /**
+   * Writes the encoded payload to a stream, without first encoding all of it to a byte array where
+   * the encoder supports it. The stream is not closed.
+   *
+   * @param payload the payload to encode
+   * @param output the stream to write the encoded payload to
+   * @throws IOException if the stream cannot be written to
+   */
+  default void encode(EncodedPayload payload, OutputStream output) throws IOException {
+    output.write(encode(payload));
+  }
+
   /**
    * Decodes a byte array back into an encrypted payload
    *
@@ -21,6 +36,31 @@ public interface PayloadEncoder {
    */
   EncodedPayload decode(byte[] input);
 
+  /**
+   * Decodes the remaining bytes of a buffer back into an encrypted payload, without changing its
+   * position. Encoders may return a payload that reads its fields from the buffer, so its content
+   * must not be changed afterwards.
+   *
+   * @param input the buffer holding the encoded payload
+   * @return the decoded payload
+   */
+  default EncodedPayload decodeBuffer(ByteBuffer input) {
+    final byte[] bytes = new byte[input.remaining()];
+    input.duplicate().get(bytes);
+    return decode(bytes);
+  }
+
+  /**
+   * Decodes only the sender, recipient keys and privacy mode of an encoded payload, skipping over
+   * the cipher text and recipient boxes
+   *
+   * @param input The byte array to read the header fields from
+   * @return the addressing fields of the payload
+   */
+  default EncodedPayloadHeader decodeHeader(byte[] input) {
+    return EncodedPayloadHeader.from(decode(input));
+  }
+
   EncodedPayloadCodec encodedPayloadCodec();
 
   static PayloadEncoder create(EncodedPayloadCodec encodedPayloadCodec) {
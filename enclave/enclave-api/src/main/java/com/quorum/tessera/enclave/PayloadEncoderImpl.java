@@ -1,128 +1,225 @@
 package com.quorum.tessera.enclave;
 
 import static java.util.Collections.*;
-import static java.util.stream.Collectors.toList;
 
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
+/**
+ * The LEGACY codec, where each field is written as its length in 8 bytes followed by its bytes,
+ * and each list as the number of elements in 8 bytes followed by each element as a field.
+ *
+ * <p>Payloads are encoded in a single pass, into an array of exactly the encoded length or into a
+ * buffer supplied by the caller. Decoding reads each field straight out of the input buffer.
+ */
+public class PayloadEncoderImpl implements SplicingPayloadEncoder, BinaryEncoder {
 
   @Override
   public byte[] encode(final EncodedPayload payload) {
+    final byte[] encoded = new byte[encodedLength(payload)];
+    encode(payload, ByteBuffer.wrap(encoded));
+    return encoded;
+  }
+
+  /**
+   * Writes the encoded payload at the position of the buffer, which is moved past it
+   *
+   * @param payload the payload to encode
+   * @param buffer the buffer to write to, with at least {@link #encodedLength(EncodedPayload)}
+   *     bytes remaining
+   */
+  public void encode(final EncodedPayload payload, final ByteBuffer buffer) {
+    try {
+      write(
+          payload,
+          new FieldWriter() {
+            @Override
+            public void writeLong(final long value) {
+              buffer.putLong(value);
+            }
+
+            @Override
+            public void write(final byte[] bytes) {
+              buffer.put(bytes);
+            }
+          },
+          null);
+    } catch (IOException ex) {
+      // a buffer is never written to with an I/O operation
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public void encode(final EncodedPayload payload, final OutputStream output)
+      throws IOException {
+    if (payload instanceof RecipientPayloadView) {
+      ((RecipientPayloadView) payload).writeTo(this, output);
+      return;
+    }
+    encode(payload, output, null);
+  }
+
+  @Override
+  public void encode(final EncodedPayload payload, final OutputStream output, final Runnable marker)
+      throws IOException {
+    // the data stream does not buffer, so everything written has reached the output at each mark
+    final DataOutputStream data = new DataOutputStream(output);
+    write(
+        payload,
+        new FieldWriter() {
+          @Override
+          public void writeLong(final long value) throws IOException {
+            data.writeLong(value);
+          }
+
+          @Override
+          public void write(final byte[] bytes) throws IOException {
+            data.write(bytes);
+          }
+        },
+        marker);
+    data.flush();
+  }
+
+  @Override
+  public void encodeElement(final byte[] element, final OutputStream output) throws IOException {
+    output.write(encodeField(element));
+  }
+
+  /**
+   * @param payload the payload to encode
+   * @return the number of bytes the payload is encoded to
+   */
+  public int encodedLength(final EncodedPayload payload) {
+    long length = fieldLength(payload.getSenderKey().getKeyBytes());
+    length += fieldLength(payload.getCipherText());
+    length += fieldLength(payload.getCipherTextNonce().getNonceBytes());
+
+    length += Long.BYTES;
+    for (final RecipientBox box : payload.getRecipientBoxes()) {
+      length += fieldLength(box.getData());
+    }
+
+    length += fieldLength(payload.getRecipientNonce().getNonceBytes());
+
+    length += Long.BYTES;
+    for (final PublicKey key : payload.getRecipientKeys()) {
+      length += fieldLength(key.getKeyBytes());
+    }
+
+    // the privacy flag
+    length += Long.BYTES + 1;
+
+    length += Long.BYTES;
+    for (final Map.Entry<TxHash, SecurityHash> entry :
+        payload.getAffectedContractTransactions().entrySet()) {
+      length += fieldLength(entry.getKey().getBytes()) + fieldLength(entry.getValue().getData());
+    }
+
+    if (hasExecHash(payload)) {
+      length += fieldLength(payload.getExecHash());
+    }
+
+    if (payload.getPrivacyMode() == PrivacyMode.MANDATORY_RECIPIENTS) {
+      length += Long.BYTES;
+      for (final PublicKey recipient : payload.getMandatoryRecipients()) {
+        length += fieldLength(recipient.getKeyBytes());
+      }
+    }
+
+    final Optional<PrivacyGroup.Id> privacyGroupId = payload.getPrivacyGroupId();
+    if (privacyGroupId.isPresent()) {
+      length += fieldLength(privacyGroupId.get().getBytes());
+    }
+
+    return Math.toIntExact(length);
+  }
+
+  private static void write(
+      final EncodedPayload payload, final FieldWriter writer, final Runnable marker)
+      throws IOException {
+    writer.writeField(payload.getSenderKey().getKeyBytes());
+    writer.writeField(payload.getCipherText());
+    writer.writeField(payload.getCipherTextNonce().getNonceBytes());
+
+    writer.writeLong(payload.getRecipientBoxes().size());
+    mark(marker);
+    for (final RecipientBox box : payload.getRecipientBoxes()) {
+      writer.writeField(box.getData());
+    }
+    mark(marker);
+
+    writer.writeField(payload.getRecipientNonce().getNonceBytes());
+
+    writer.writeLong(payload.getRecipientKeys().size());
+    mark(marker);
+    for (final PublicKey key : payload.getRecipientKeys()) {
+      writer.writeField(key.getKeyBytes());
+    }
+    mark(marker);
 
-    final byte[] senderKey = encodeField(payload.getSenderKey().getKeyBytes());
-    final byte[] cipherText = encodeField(payload.getCipherText());
-    final byte[] nonce = encodeField(payload.getCipherTextNonce().getNonceBytes());
-    final byte[] recipientNonce = encodeField(payload.getRecipientNonce().getNonceBytes());
-    final byte[] recipients =
-        encodeArray(
-            payload.getRecipientBoxes().stream()
-                .map(RecipientBox::getData)
-                .collect(Collectors.toUnmodifiableList()));
-    final byte[] recipientBytes =
-        encodeArray(
-            payload.getRecipientKeys().stream().map(PublicKey::getKeyBytes).collect(toList()));
     final PrivacyMode privacyMode =
         Optional.ofNullable(payload.getPrivacyMode()).orElse(PrivacyMode.STANDARD_PRIVATE);
-    final byte[] privacyModeByte = encodeField(new byte[] {(byte) privacyMode.getPrivacyFlag()});
-
-    final int affectedContractsPayloadLength =
-        payload.getAffectedContractTransactions().entrySet().stream()
-                .mapToInt(
-                    entry -> entry.getKey().getBytes().length + entry.getValue().getData().length)
-                .sum() // total size of all keys and values
-            + Long.BYTES
-            + // the number of entries in the map
-            payload.getAffectedContractTransactions().size()
-                * 2
-                * Long.BYTES; // sizes of key and value lengths (for each entry)
-    final ByteBuffer affectedContractTxs = ByteBuffer.allocate(affectedContractsPayloadLength);
-    affectedContractTxs.putLong(payload.getAffectedContractTransactions().size());
-    for (Map.Entry<TxHash, SecurityHash> entry :
+    writer.writeField(new byte[] {(byte) privacyMode.getPrivacyFlag()});
+
+    writer.writeLong(payload.getAffectedContractTransactions().size());
+    for (final Map.Entry<TxHash, SecurityHash> entry :
         payload.getAffectedContractTransactions().entrySet()) {
-      affectedContractTxs.putLong(entry.getKey().getBytes().length);
-      affectedContractTxs.put(entry.getKey().getBytes());
-      affectedContractTxs.putLong(entry.getValue().getData().length);
-      affectedContractTxs.put(entry.getValue().getData());
+      writer.writeField(entry.getKey().getBytes());
+      writer.writeField(entry.getValue().getData());
     }
-    byte[] executionHash = new byte[0];
-    if (Objects.nonNull(payload.getExecHash()) && payload.getExecHash().length > 0) {
-      executionHash = encodeField(payload.getExecHash());
+
+    if (hasExecHash(payload)) {
+      writer.writeField(payload.getExecHash());
     }
 
-    byte[] mandatoryRecipients = new byte[0];
     if (payload.getPrivacyMode() == PrivacyMode.MANDATORY_RECIPIENTS) {
-      mandatoryRecipients =
-          encodeArray(
-              payload.getMandatoryRecipients().stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toUnmodifiableList()));
-    }
-
-    byte[] privacyGroupId =
-        payload
-            .getPrivacyGroupId()
-            .map(PrivacyGroup.Id::getBytes)
-            .map(this::encodeField)
-            .orElse(new byte[0]);
-
-    return ByteBuffer.allocate(
-            senderKey.length
-                + cipherText.length
-                + nonce.length
-                + recipients.length
-                + recipientNonce.length
-                + recipientBytes.length
-                + privacyModeByte.length
-                + affectedContractsPayloadLength
-                + executionHash.length
-                + mandatoryRecipients.length
-                + privacyGroupId.length)
-        .put(senderKey)
-        .put(cipherText)
-        .put(nonce)
-        .put(recipients)
-        .put(recipientNonce)
-        .put(recipientBytes)
-        .put(privacyModeByte)
-        .put(affectedContractTxs.array())
-        .put(executionHash)
-        .put(mandatoryRecipients)
-        .put(privacyGroupId)
-        .array();
+      writer.writeLong(payload.getMandatoryRecipients().size());
+      for (final PublicKey recipient : payload.getMandatoryRecipients()) {
+        writer.writeField(recipient.getKeyBytes());
+      }
+    }
+
+    final Optional<PrivacyGroup.Id> privacyGroupId = payload.getPrivacyGroupId();
+    if (privacyGroupId.isPresent()) {
+      writer.writeField(privacyGroupId.get().getBytes());
+    }
   }
 
-  @Override
-  public EncodedPayload decode(final byte[] input) {
-    final ByteBuffer buffer = ByteBuffer.wrap(input);
+  private static void mark(final Runnable marker) {
+    if (Objects.nonNull(marker)) {
+      marker.run();
+    }
+  }
 
-    final long senderSize = buffer.getLong();
-    final byte[] senderKey = new byte[Math.toIntExact(senderSize)];
-    buffer.get(senderKey);
+  private static boolean hasExecHash(final EncodedPayload payload) {
+    return Objects.nonNull(payload.getExecHash()) && payload.getExecHash().length > 0;
+  }
 
-    final long cipherTextSize = buffer.getLong();
-    final byte[] cipherText = new byte[Math.toIntExact(cipherTextSize)];
-    buffer.get(cipherText);
+  private static long fieldLength(final byte[] field) {
+    return Long.BYTES + field.length;
+  }
 
-    final long nonceSize = buffer.getLong();
-    final byte[] nonce = new byte[Math.toIntExact(nonceSize)];
-    buffer.get(nonce);
+  @Override
+  public EncodedPayload decode(final byte[] input) {
+    return decodeBuffer(ByteBuffer.wrap(input));
+  }
 
-    final long numberOfRecipients = buffer.getLong();
-    final List<byte[]> recipientBoxes = new ArrayList<>();
-    for (long i = 0; i < numberOfRecipients; i++) {
-      final long boxSize = buffer.getLong();
-      final byte[] box = new byte[Math.toIntExact(boxSize)];
-      buffer.get(box);
-      recipientBoxes.add(box);
-    }
+  @Override
+  public EncodedPayload decodeBuffer(final ByteBuffer input) {
+    final ByteBuffer buffer = input.slice();
 
-    final long recipientNonceSize = buffer.getLong();
-    final byte[] recipientNonce = new byte[Math.toIntExact(recipientNonceSize)];
-    buffer.get(recipientNonce);
+    final byte[] senderKey = readField(buffer);
+    final byte[] cipherText = readField(buffer);
+    final byte[] nonce = readField(buffer);
+    final List<byte[]> recipientBoxes = readArray(buffer);
+    final byte[] recipientNonce = readField(buffer);
 
     EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.create();
 
@@ -144,17 +241,7 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
           .build();
     }
 
-    final long recipientLength = buffer.getLong();
-
-    final List<byte[]> recipientKeys = new ArrayList<>();
-    for (long i = 0; i < recipientLength; i++) {
-      final long boxSize = buffer.getLong();
-      final byte[] box = new byte[Math.toIntExact(boxSize)];
-      buffer.get(box);
-      recipientKeys.add(box);
-    }
-
-    payloadBuilder.withRecipientKeys(recipientKeys.stream().map(PublicKey::from).collect(toList()));
+    payloadBuilder.withRecipientKeys(readKeys(buffer));
 
     if (!buffer.hasRemaining()) {
       return payloadBuilder
@@ -164,33 +251,21 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
           .build();
     }
 
-    final long privacyFlagLength = buffer.getLong();
-    final byte[] privacyFlag = new byte[Math.toIntExact(privacyFlagLength)];
-    buffer.get(privacyFlag);
+    final byte[] privacyFlag = readField(buffer);
 
     final long affectedContractTransactionsLength = buffer.getLong();
     final Map<TxHash, byte[]> affectedContractTransactions = new HashMap<>();
     for (long i = 0; i < affectedContractTransactionsLength; i++) {
-      final long txHashSize = buffer.getLong();
-      final byte[] txHash = new byte[Math.toIntExact(txHashSize)];
-      buffer.get(txHash);
-
-      final long txSecHashSize = buffer.getLong();
-      final byte[] txSecHash = new byte[Math.toIntExact(txSecHashSize)];
-      buffer.get(txSecHash);
-
+      final byte[] txHash = readField(buffer);
+      final byte[] txSecHash = readField(buffer);
       affectedContractTransactions.put(new TxHash(txHash), txSecHash);
     }
 
     final PrivacyMode privacyMode = PrivacyMode.fromFlag(privacyFlag[0]);
 
     byte[] executionHash = new byte[0];
-    if (buffer.hasRemaining()) {
-      if (privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) {
-        final long executionHashSize = buffer.getLong();
-        executionHash = new byte[Math.toIntExact(executionHashSize)];
-        buffer.get(executionHash);
-      }
+    if (buffer.hasRemaining() && privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) {
+      executionHash = readField(buffer);
     }
 
     payloadBuilder
@@ -198,29 +273,15 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
         .withAffectedContractTransactions(affectedContractTransactions)
         .withExecHash(executionHash);
 
-    if (buffer.hasRemaining()) {
-      if (privacyMode == PrivacyMode.MANDATORY_RECIPIENTS) {
-        final long mandatoryRecipientLength = buffer.getLong();
-
-        final List<byte[]> mandatoryRecipients = new ArrayList<>();
-        for (long i = 0; i < mandatoryRecipientLength; i++) {
-          final long boxSize = buffer.getLong();
-          final byte[] box = new byte[Math.toIntExact(boxSize)];
-          buffer.get(box);
-          mandatoryRecipients.add(box);
-        }
-        payloadBuilder.withMandatoryRecipients(
-            mandatoryRecipients.stream().map(PublicKey::from).collect(Collectors.toSet()));
-      }
+    if (buffer.hasRemaining() && privacyMode == PrivacyMode.MANDATORY_RECIPIENTS) {
+      payloadBuilder.withMandatoryRecipients(new HashSet<>(readKeys(buffer)));
     }
 
     if (!buffer.hasRemaining()) {
       return payloadBuilder.build();
     }
 
-    final long privacyGroupIdSize = buffer.getLong();
-    final byte[] privacyGroupId = new byte[Math.toIntExact(privacyGroupIdSize)];
-    buffer.get(privacyGroupId);
+    final byte[] privacyGroupId = readField(buffer);
 
     if (privacyGroupId.length > 0) {
       payloadBuilder.withPrivacyGroupId(PrivacyGroup.Id.fromBytes(privacyGroupId));
@@ -229,8 +290,79 @@ public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
     return payloadBuilder.build();
   }
 
+  @Override
+  public EncodedPayloadHeader decodeHeader(final byte[] input) {
+    final ByteBuffer buffer = ByteBuffer.wrap(input);
+
+    final byte[] senderKey = readField(buffer);
+
+    // cipher text and nonce
+    skipField(buffer);
+    skipField(buffer);
+
+    final long numberOfRecipients = buffer.getLong();
+    for (long i = 0; i < numberOfRecipients; i++) {
+      skipField(buffer);
+    }
+
+    // recipient nonce
+    skipField(buffer);
+
+    final List<PublicKey> recipientKeys =
+        buffer.hasRemaining() ? readKeys(buffer) : new ArrayList<>();
+
+    PrivacyMode privacyMode = PrivacyMode.STANDARD_PRIVATE;
+    if (buffer.hasRemaining()) {
+      privacyMode = PrivacyMode.fromFlag(readField(buffer)[0]);
+    }
+
+    return EncodedPayloadHeader.from(PublicKey.from(senderKey), recipientKeys, privacyMode);
+  }
+
+  private static byte[] readField(final ByteBuffer buffer) {
+    final byte[] field = new byte[Math.toIntExact(buffer.getLong())];
+    buffer.get(field);
+    return field;
+  }
+
+  private static List<byte[]> readArray(final ByteBuffer buffer) {
+    final long size = buffer.getLong();
+    final List<byte[]> elements = new ArrayList<>();
+    for (long i = 0; i < size; i++) {
+      elements.add(readField(buffer));
+    }
+    return elements;
+  }
+
+  private static List<PublicKey> readKeys(final ByteBuffer buffer) {
+    final long size = buffer.getLong();
+    final List<PublicKey> keys = new ArrayList<>();
+    for (long i = 0; i < size; i++) {
+      keys.add(PublicKey.from(readField(buffer)));
+    }
+    return keys;
+  }
+
+  private static void skipField(final ByteBuffer buffer) {
+    final long size = buffer.getLong();
+    buffer.position(buffer.position() + Math.toIntExact(size));
+  }
+
   @Override
   public EncodedPayloadCodec encodedPayloadCodec() {
     return EncodedPayloadCodec.LEGACY;
   }
+
+  /** Where the encoded fields are written to, either a buffer or a stream */
+  private interface FieldWriter {
+
+    void writeLong(long value) throws IOException;
+
+    void write(byte[] bytes) throws IOException;
+
+    default void writeField(final byte[] field) throws IOException {
+      writeLong(field.length);
+      write(field);
+    }
+  }
 }
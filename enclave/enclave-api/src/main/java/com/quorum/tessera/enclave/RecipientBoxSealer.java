@@ -0,0 +1,152 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Seals the master key of a transaction for each of its recipients.
+ *
+ * <p>Recipient lists shorter than the threshold are sealed on the calling thread. Longer lists are
+ * split into contiguous ranges which are sealed on a dedicated pool, with the calling thread
+ * taking the first range itself. The boxes are always returned in the same order as the
+ * recipients.
+ */
+public class RecipientBoxSealer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecipientBoxSealer.class);
+
+  private static final RecipientBoxSealer SEQUENTIAL = new RecipientBoxSealer(null, 0, 0);
+
+  private final ExecutorService executor;
+
+  private final int threshold;
+
+  private final int parallelism;
+
+  RecipientBoxSealer(final ExecutorService executor, final int threshold, final int parallelism) {
+    this.executor = executor;
+    this.threshold = threshold;
+    this.parallelism = parallelism;
+  }
+
+  /** A sealer that always seals on the calling thread */
+  public static RecipientBoxSealer sequential() {
+    return SEQUENTIAL;
+  }
+
+  /**
+   * @param threshold the smallest number of recipients that are sealed in parallel, 0 disables
+   *     parallel sealing
+   * @param threads the number of pool threads to seal with, 0 to use one per available processor
+   */
+  public static RecipientBoxSealer create(final int threshold, final int threads) {
+    if (threshold < 0 || threads < 0) {
+      throw new IllegalArgumentException(
+          "Parallel sealing threshold and threads must not be negative");
+    }
+    if (threshold == 0) {
+      return sequential();
+    }
+
+    final int poolSize = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    final AtomicInteger threadCount = new AtomicInteger();
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            poolSize,
+            runnable -> {
+              final Thread thread =
+                  new Thread(runnable, "recipient-box-sealer-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    LOGGER.info(
+        "Sealing recipient boxes with {} threads for {} or more recipients", poolSize, threshold);
+
+    return new RecipientBoxSealer(executor, Math.max(threshold, 2), poolSize);
+  }
+
+  /**
+   * Seals a box for every recipient
+   *
+   * @param recipients the keys to seal a box for
+   * @param sealer seals the box for a single recipient
+   * @return the boxes, in the same order as the recipients
+   */
+  public List<byte[]> seal(
+      final List<PublicKey> recipients, final Function<PublicKey, byte[]> sealer) {
+    final int size = recipients.size();
+    if (Objects.isNull(executor) || size < threshold) {
+      final List<byte[]> boxes = new ArrayList<>(size);
+      for (final PublicKey recipient : recipients) {
+        boxes.add(sealer.apply(recipient));
+      }
+      return boxes;
+    }
+
+    final byte[][] boxes = new byte[size][];
+    final int ranges = Math.min(parallelism + 1, size);
+    final int rangeSize = (size + ranges - 1) / ranges;
+
+    final List<Future<?>> futures = new ArrayList<>(ranges - 1);
+    for (int from = rangeSize; from < size; from += rangeSize) {
+      final int start = from;
+      final int end = Math.min(from + rangeSize, size);
+      final Runnable task = () -> sealRange(recipients, sealer, boxes, start, end);
+      try {
+        futures.add(executor.submit(task));
+      } catch (final RejectedExecutionException ex) {
+        task.run();
+      }
+    }
+
+    sealRange(recipients, sealer, boxes, 0, Math.min(rangeSize, size));
+
+    for (final Future<?> future : futures) {
+      await(future);
+    }
+
+    return Arrays.asList(boxes);
+  }
+
+  private static void sealRange(
+      final List<PublicKey> recipients,
+      final Function<PublicKey, byte[]> sealer,
+      final byte[][] boxes,
+      final int from,
+      final int to) {
+    for (int i = from; i < to; i++) {
+      boxes[i] = sealer.apply(recipients.get(i));
+    }
+  }
+
+  private static void await(final Future<?> future) {
+    try {
+      future.get();
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new EnclaveException("Interrupted while sealing recipient boxes");
+    } catch (final ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new EnclaveException("Unable to seal recipient boxes: " + cause.getMessage());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * A read-only {@link EncodedPayload} for one recipient of a transaction, which holds the box and
+ * keys of the recipient and reads every other field from the payload shared by all recipients.
+ * Encoders that splice write it out of the fields the shared payload has encoded once.
+ */
+final class RecipientPayloadView extends EncodedPayload {
+
+  private final RecipientPayloads payloads;
+
+  private final RecipientBox recipientBox;
+
+  private final List<PublicKey> recipientKeys;
+
+  RecipientPayloadView(
+      final RecipientPayloads payloads,
+      final RecipientBox recipientBox,
+      final List<PublicKey> recipientKeys) {
+    this.payloads = payloads;
+    this.recipientBox = recipientBox;
+    this.recipientKeys = recipientKeys;
+  }
+
+  RecipientBox getRecipientBox() {
+    return recipientBox;
+  }
+
+  void writeTo(final SplicingPayloadEncoder encoder, final OutputStream output)
+      throws IOException {
+    payloads.writeTo(this, encoder, output);
+  }
+
+  @Override
+  public PublicKey getSenderKey() {
+    return payloads.template().getSenderKey();
+  }
+
+  @Override
+  public byte[] getCipherText() {
+    return payloads.template().getCipherText();
+  }
+
+  @Override
+  public Nonce getCipherTextNonce() {
+    return payloads.template().getCipherTextNonce();
+  }
+
+  @Override
+  public List<RecipientBox> getRecipientBoxes() {
+    return List.of(recipientBox);
+  }
+
+  @Override
+  public Nonce getRecipientNonce() {
+    return payloads.template().getRecipientNonce();
+  }
+
+  @Override
+  public List<PublicKey> getRecipientKeys() {
+    return recipientKeys;
+  }
+
+  @Override
+  public PrivacyMode getPrivacyMode() {
+    return payloads.template().getPrivacyMode();
+  }
+
+  @Override
+  public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
+    return payloads.template().getAffectedContractTransactions();
+  }
+
+  @Override
+  public byte[] getExecHash() {
+    return payloads.template().getExecHash();
+  }
+
+  @Override
+  public Optional<PrivacyGroup.Id> getPrivacyGroupId() {
+    return payloads.template().getPrivacyGroupId();
+  }
+
+  @Override
+  public Set<PublicKey> getMandatoryRecipients() {
+    return payloads.template().getMandatoryRecipients();
+  }
+}
@@ -0,0 +1,178 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The payloads a transaction is pushed to each of its recipients with, holding only the box of that
+ * recipient as {@link EncodedPayload.Builder#forRecipient(EncodedPayload, PublicKey)} would.
+ *
+ * <p>The payload for a recipient is a view that shares every field but the recipient boxes and
+ * keys with the others. When it is encoded, the shared fields are encoded once for each codec and
+ * the box and keys of the recipient are written in between them, so the cipher text is not copied
+ * or encoded again for every recipient and the bytes are the same as those of the built payload.
+ */
+public final class RecipientPayloads {
+
+  private final EncodedPayload payload;
+
+  private final Map<PublicKey, Integer> indexes = new HashMap<>();
+
+  private final Map<EncodedPayloadCodec, Segments> segments = new ConcurrentHashMap<>();
+
+  private volatile EncodedPayload template;
+
+  private RecipientPayloads(final EncodedPayload payload) {
+    this.payload = Objects.requireNonNull(payload);
+    final List<PublicKey> recipientKeys = payload.getRecipientKeys();
+    for (int i = 0; i < recipientKeys.size(); i++) {
+      indexes.putIfAbsent(recipientKeys.get(i), i);
+    }
+  }
+
+  /**
+   * @param payload the payload holding the boxes of every recipient
+   * @return the payloads for each recipient of the payload
+   */
+  public static RecipientPayloads of(final EncodedPayload payload) {
+    return new RecipientPayloads(payload);
+  }
+
+  /**
+   * @param recipient the recipient to push the payload to
+   * @return the payload stripped of the data not intended for the recipient
+   * @throws InvalidRecipientException if the key is not a recipient of the payload
+   */
+  public EncodedPayload forRecipient(final PublicKey recipient) {
+    final int index = indexOf(recipient);
+
+    final List<PublicKey> recipientKeys;
+    if (PrivacyMode.PRIVATE_STATE_VALIDATION == payload.getPrivacyMode()) {
+      final List<PublicKey> keys = new ArrayList<>(payload.getRecipientKeys());
+      keys.remove(index);
+      keys.add(0, recipient);
+      recipientKeys = Collections.unmodifiableList(keys);
+    } else {
+      recipientKeys = List.of(recipient);
+    }
+
+    return new RecipientPayloadView(this, payload.getRecipientBoxes().get(index), recipientKeys);
+  }
+
+  /**
+   * A payload holding the boxes of several recipients, for pushing them to the node that hosts
+   * them in a single request. The boxes are in the order of the given keys, which are listed first
+   * and in the same order; a PSV payload lists the rest of its recipients after them.
+   *
+   * <p>A payload for a single recipient is the same as {@link #forRecipient(PublicKey)}.
+   *
+   * @param recipients the recipients to push the payload to
+   * @return the payload stripped of the data not intended for the recipients
+   * @throws InvalidRecipientException if a key is not a recipient of the payload
+   */
+  public EncodedPayload forRecipients(final List<PublicKey> recipients) {
+    if (recipients.size() == 1) {
+      return forRecipient(recipients.get(0));
+    }
+
+    final List<byte[]> recipientBoxes = new ArrayList<>(recipients.size());
+    for (final PublicKey recipient : recipients) {
+      recipientBoxes.add(payload.getRecipientBoxes().get(indexOf(recipient)).getData());
+    }
+
+    final List<PublicKey> recipientKeys = new ArrayList<>(recipients);
+    if (PrivacyMode.PRIVATE_STATE_VALIDATION == payload.getPrivacyMode()) {
+      final Set<PublicKey> grouped = new HashSet<>(recipients);
+      payload.getRecipientKeys().stream()
+          .filter(key -> !grouped.contains(key))
+          .forEach(recipientKeys::add);
+    }
+
+    return EncodedPayload.Builder.from(payload)
+        .withRecipientBoxes(recipientBoxes)
+        .withNewRecipientKeys(recipientKeys)
+        .build();
+  }
+
+  private int indexOf(final PublicKey recipient) {
+    final Integer index = indexes.get(recipient);
+    if (Objects.isNull(index)) {
+      throw new InvalidRecipientException(
+          "Recipient " + recipient.encodeToBase64() + " is not a recipient of transaction ");
+    }
+    return index;
+  }
+
+  /** The payload built for the first recipient, whose fields but the boxes and keys are shared */
+  EncodedPayload template() {
+    EncodedPayload built = template;
+    if (Objects.isNull(built)) {
+      synchronized (this) {
+        built = template;
+        if (Objects.isNull(built)) {
+          built =
+              EncodedPayload.Builder.forRecipient(payload, payload.getRecipientKeys().get(0))
+                  .build();
+          template = built;
+        }
+      }
+    }
+    return built;
+  }
+
+  void writeTo(
+      final RecipientPayloadView view,
+      final SplicingPayloadEncoder encoder,
+      final OutputStream output)
+      throws IOException {
+    final Segments shared =
+        segments.computeIfAbsent(
+            encoder.encodedPayloadCodec(), codec -> Segments.of(encoder, template()));
+
+    output.write(shared.head);
+    encoder.encodeElement(view.getRecipientBox().getData(), output);
+    output.write(shared.middle);
+    for (final PublicKey key : view.getRecipientKeys()) {
+      encoder.encodeElement(key.getKeyBytes(), output);
+    }
+    output.write(shared.tail);
+  }
+
+  /** The encoded fields of a payload before, between and after its recipient boxes and keys */
+  private static final class Segments {
+
+    private final byte[] head;
+
+    private final byte[] middle;
+
+    private final byte[] tail;
+
+    private Segments(final byte[] head, final byte[] middle, final byte[] tail) {
+      this.head = head;
+      this.middle = middle;
+      this.tail = tail;
+    }
+
+    static Segments of(final SplicingPayloadEncoder encoder, final EncodedPayload template) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final List<Integer> marks = new ArrayList<>(4);
+      try {
+        encoder.encode(template, output, () -> marks.add(output.size()));
+      } catch (IOException ex) {
+        // an array stream is never written to with an I/O operation
+        throw new UncheckedIOException(ex);
+      }
+
+      final byte[] encoded = output.toByteArray();
+      return new Segments(
+          Arrays.copyOfRange(encoded, 0, marks.get(0)),
+          Arrays.copyOfRange(encoded, marks.get(1), marks.get(2)),
+          Arrays.copyOfRange(encoded, marks.get(3), encoded.length));
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PrivateKey;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least-recently-used store of the shared keys computed between a local key pair and a
+ * peer public key, so the key agreement is only performed once for pairs that are used repeatedly.
+ *
+ * <p>Entries are keyed by the peer public key and the local private key used, so a key pair that is
+ * replaced or removed can no longer be matched. Callers are given their own copy of a cached key,
+ * which allows the bytes held by the cache to be zeroed once the entry is evicted or has expired.
+ */
+public class SharedKeyCache implements SharedKeyCacheMXBean {
+
+  private final int maxSize;
+
+  private final long ttlMillis;
+
+  private final Clock clock;
+
+  private final Map<CacheKey, CachedKey> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * @param maxSize the maximum number of shared keys to hold, 0 disables caching
+   * @param ttl how long a shared key may be reused for, {@code null} or zero to keep it until it is
+   *     evicted
+   */
+  public SharedKeyCache(final int maxSize, final Duration ttl) {
+    this(maxSize, ttl, Clock.systemUTC());
+  }
+
+  SharedKeyCache(final int maxSize, final Duration ttl, final Clock clock) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Shared key cache size must not be negative");
+    }
+    this.maxSize = maxSize;
+    this.ttlMillis =
+        Objects.isNull(ttl) || ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toMillis();
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  /** A cache that holds nothing, so every shared key is computed when it is needed */
+  public static SharedKeyCache disabled() {
+    return new SharedKeyCache(0, null);
+  }
+
+  /**
+   * Returns the shared key for the given pair, computing it if it is not already held
+   *
+   * @param publicKey the public key of the other party
+   * @param privateKey the private key of the local key pair
+   * @param computation computes the shared key on a cache miss
+   * @return a copy of the shared key, which the caller may keep
+   */
+  public SharedKey get(
+      final PublicKey publicKey,
+      final PrivateKey privateKey,
+      final Supplier<SharedKey> computation) {
+    if (maxSize == 0) {
+      return computation.get();
+    }
+
+    final CacheKey cacheKey = new CacheKey(publicKey, privateKey);
+    final SharedKey cached = lookup(cacheKey);
+    if (cached != null) {
+      hitCount.increment();
+      return cached;
+    }
+    missCount.increment();
+
+    // computed outside the lock, a concurrent miss for the same pair only repeats the work
+    final SharedKey sharedKey = computation.get();
+    store(cacheKey, sharedKey);
+    return sharedKey;
+  }
+
+  private synchronized SharedKey lookup(final CacheKey cacheKey) {
+    final CachedKey cached = entries.get(cacheKey);
+    if (cached == null) {
+      return null;
+    }
+    if (cached.isExpired(clock.millis())) {
+      entries.remove(cacheKey);
+      cached.destroy();
+      evictionCount.increment();
+      return null;
+    }
+    return cached.copy();
+  }
+
+  private synchronized void store(final CacheKey cacheKey, final SharedKey sharedKey) {
+    final long expiresAt =
+        ttlMillis == Long.MAX_VALUE ? Long.MAX_VALUE : clock.millis() + ttlMillis;
+    final CachedKey previous = entries.put(cacheKey, new CachedKey(sharedKey, expiresAt));
+    if (previous != null) {
+      previous.destroy();
+    }
+
+    final Iterator<CachedKey> eldest = entries.values().iterator();
+    while (entries.size() > maxSize && eldest.hasNext()) {
+      eldest.next().destroy();
+      eldest.remove();
+      evictionCount.increment();
+    }
+  }
+
+  /** Removes and zeroes every cached shared key */
+  public synchronized void clear() {
+    entries.values().forEach(CachedKey::destroy);
+    entries.clear();
+  }
+
+  @Override
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  private static final class CacheKey {
+
+    private final PublicKey publicKey;
+
+    private final PrivateKey privateKey;
+
+    private CacheKey(final PublicKey publicKey, final PrivateKey privateKey) {
+      this.publicKey = Objects.requireNonNull(publicKey);
+      this.privateKey = Objects.requireNonNull(privateKey);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) o;
+      return publicKey.equals(other.publicKey) && privateKey.equals(other.privateKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * publicKey.hashCode() + privateKey.hashCode();
+    }
+  }
+
+  private static final class CachedKey {
+
+    private final byte[] keyBytes;
+
+    private final long expiresAt;
+
+    private CachedKey(final SharedKey sharedKey, final long expiresAt) {
+      this.keyBytes = sharedKey.getKeyBytes().clone();
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(final long now) {
+      return now >= expiresAt;
+    }
+
+    private SharedKey copy() {
+      return SharedKey.from(keyBytes.clone());
+    }
+
+    private void destroy() {
+      Arrays.fill(keyBytes, (byte) 0);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.quorum.tessera.enclave;
+
+/** Management view of the statistics gathered by a {@link SharedKeyCache} */
+public interface SharedKeyCacheMXBean {
+
+  long getHitCount();
+
+  long getMissCount();
+
+  long getEvictionCount();
+
+  int getSize();
+}
@@ -0,0 +1,33 @@
+package com.quorum.tessera.enclave;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An encoder that writes the recipient boxes and recipient keys of a payload as arrays of
+ * separately encoded elements, so that {@link RecipientPayloads} can encode the other fields once
+ * and splice the box and keys of each recipient in between them.
+ */
+interface SplicingPayloadEncoder extends PayloadEncoder {
+
+  /**
+   * Encodes the payload as {@link #encode(EncodedPayload, OutputStream)} does, running the marker
+   * with everything written so far flushed to the stream just before the first recipient box, just
+   * after the last one, and again around the recipient keys
+   *
+   * @param payload the payload to encode
+   * @param output the stream to write the encoded payload to
+   * @param marker run four times while the payload is written
+   * @throws IOException if the stream cannot be written to
+   */
+  void encode(EncodedPayload payload, OutputStream output, Runnable marker) throws IOException;
+
+  /**
+   * Writes a recipient box or recipient key as it is written in its array
+   *
+   * @param element the box or key bytes
+   * @param output the stream to write the element to
+   * @throws IOException if the stream cannot be written to
+   */
+  void encodeElement(byte[] element, OutputStream output) throws IOException;
+}
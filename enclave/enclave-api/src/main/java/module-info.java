@@ -1,4 +1,5 @@
 module tessera.enclave.api {
+  requires java.management;
   requires tessera.config;
   requires tessera.encryption.api;
   requires tessera.keyvault.api;
@@ -28,7 +29,9 @@ module tessera.enclave.api {
 
   provides com.quorum.tessera.enclave.PayloadEncoder with
       com.quorum.tessera.enclave.PayloadEncoderImpl,
-      com.quorum.tessera.enclave.CBOREncoder;
+      com.quorum.tessera.enclave.CBOREncoder,
+      com.quorum.tessera.enclave.CBORV2Encoder,
+      com.quorum.tessera.enclave.DeflatePayloadEncoder;
   provides com.quorum.tessera.enclave.Enclave with
       com.quorum.tessera.enclave.EnclaveProvider;
   provides com.quorum.tessera.enclave.EnclaveServer with
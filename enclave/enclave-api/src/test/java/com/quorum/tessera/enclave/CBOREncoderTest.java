@@ -2,10 +2,12 @@ package com.quorum.tessera.enclave;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -182,6 +184,38 @@ public class CBOREncoderTest {
     assertThat(result.getPrivacyGroupId()).isPresent().get().isEqualTo(groupId);
   }
 
+  @Test
+  public void decodeHeader() {
+    EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("txHash1".getBytes()), "securityHash1".getBytes()))
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient1".getBytes())))
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build();
+
+    final byte[] encoded = encoder.encode(payload);
+
+    final EncodedPayloadHeader result = encoder.decodeHeader(encoded);
+
+    assertThat(result).isEqualTo(EncodedPayloadHeader.from(payload));
+    assertThat(result.getSenderKey()).isEqualTo(PublicKey.from("sender".getBytes()));
+    assertThat(result.getRecipientKeys())
+        .containsExactly(
+            PublicKey.from("recipient1".getBytes()), PublicKey.from("recipient2".getBytes()));
+    assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.MANDATORY_RECIPIENTS);
+  }
+
+  @Test
+  public void decodeHeaderError() {
+    String invalid = "oWZzZW5kZXKA";
+    byte[] raw = Base64.getDecoder().decode(invalid);
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.decodeHeader(raw))
+        .withMessageContaining("Unable to decode payload data");
+  }
+
   @Test
   public void encodeError() {
     EncodedPayload payload = mock(EncodedPayload.class);
@@ -203,4 +237,14 @@ public class CBOREncoderTest {
   public void codec() {
     assertThat(encoder.encodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR);
   }
+
+  @Test
+  public void streamedEncodingIsTheSameAsEncodedBytes() throws IOException {
+    final ByteArrayOutputStream output = spy(new ByteArrayOutputStream());
+
+    encoder.encode(standardPayload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(encoder.encode(standardPayload));
+    verify(output, never()).close();
+  }
 }
@@ -0,0 +1,135 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class CBORPayloadViewTest {
+
+  private final CBOREncoder encoder = new CBOREncoder();
+
+  private final EncodedPayload payload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText("text".getBytes())
+          .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+          .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+          .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+          .withRecipientKeys(
+              List.of(
+                  PublicKey.from("recipient1".getBytes()), PublicKey.from("recipient2".getBytes())))
+          .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+          .withMandatoryRecipients(Set.of(PublicKey.from("recipient2".getBytes())))
+          .withAffectedContractTransactions(
+              Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+          .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+          .build();
+
+  @Test
+  public void decodedPayloadIsAViewEqualToTheEncodedPayload() {
+    final byte[] encoded = encoder.encode(payload);
+
+    final EncodedPayload result = encoder.decode(encoded);
+
+    assertThat(result).isInstanceOf(CBORPayloadView.class);
+    assertThat(result).isEqualTo(payload).hasSameHashCodeAs(payload);
+    assertThat(payload).isEqualTo(result);
+    assertThat(result.getRecipientBoxes().get(1)).isEqualTo(RecipientBox.from("box2".getBytes()));
+    assertThat(result.getExecHash()).isEmpty();
+    assertThat(EncodedPayload.Builder.from(result).build()).isEqualTo(payload);
+  }
+
+  @Test
+  public void fieldsAreOnlyCopiedOnce() {
+    final EncodedPayload result = encoder.decode(encoder.encode(payload));
+
+    assertThat(result.getCipherText()).isSameAs(result.getCipherText());
+    assertThat(result.getRecipientKeys().get(0)).isSameAs(result.getRecipientKeys().get(0));
+    assertThat(result.getMandatoryRecipients()).isSameAs(result.getMandatoryRecipients());
+  }
+
+  @Test
+  public void encodingAViewReturnsACopyOfTheBytesItWasDecodedFrom() {
+    final byte[] encoded = encoder.encode(payload);
+    final EncodedPayload result = encoder.decode(encoded);
+
+    final byte[] reEncoded = encoder.encode(result);
+    assertThat(reEncoded).isEqualTo(encoded).isNotSameAs(encoded);
+
+    Arrays.fill(reEncoded, (byte) 0);
+    assertThat(result).isEqualTo(payload);
+  }
+
+  @Test
+  public void viewReadByManyThreadsSeesTheSameFields() throws Exception {
+    final EncodedPayload result = encoder.decode(encoder.encode(payload));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<EncodedPayload>> reads =
+          executor.invokeAll(
+              Collections.nCopies(8, () -> EncodedPayload.Builder.from(result).build()));
+      for (final Future<EncodedPayload> read : reads) {
+        assertThat(read.get()).isEqualTo(payload);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(result.getRecipientKeys().get(1)).isSameAs(result.getRecipientKeys().get(1));
+  }
+
+  @Test
+  public void viewOfPartOfABufferIsEncodedToACopyOfThatPart() {
+    final byte[] encoded = encoder.encode(payload);
+    final ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 4);
+    buffer.position(2);
+    buffer.put(encoded);
+    buffer.position(2).limit(encoded.length + 2);
+
+    final EncodedPayload result = encoder.decodeBuffer(buffer);
+
+    assertThat(result).isEqualTo(payload);
+    assertThat(encoder.encode(result)).isEqualTo(encoded);
+    assertThat(buffer.position()).isEqualTo(2);
+  }
+
+  @Test
+  public void payloadWrittenDifferentlyIsDecodedInFull() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (CBORGenerator generator = new CBORFactory().createGenerator(output)) {
+      generator.writeStartObject();
+      generator.writeBinaryField("sender", "sender".getBytes());
+      generator.writeBinaryField("cipherText", "text".getBytes());
+      generator.writeEndObject();
+    }
+
+    final EncodedPayload result = encoder.decode(output.toByteArray());
+
+    assertThat(result).isNotInstanceOf(CBORPayloadView.class);
+    assertThat(result.getSenderKey()).isEqualTo(PublicKey.from("sender".getBytes()));
+    assertThat(result.getCipherText()).isEqualTo("text".getBytes());
+  }
+
+  @Test
+  public void invalidPayloadIsNotViewed() {
+    final byte[] encoded = encoder.encode(payload);
+
+    assertThat(CBORPayloadView.of(ByteBuffer.wrap(encoded, 0, encoded.length - 1))).isEmpty();
+    assertThat(CBORPayloadView.of(ByteBuffer.wrap(new byte[] {(byte) 0xa1, 0x61}))).isEmpty();
+  }
+}
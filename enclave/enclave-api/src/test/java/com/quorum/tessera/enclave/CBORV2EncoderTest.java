@@ -0,0 +1,143 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class CBORV2EncoderTest {
+
+  private final PayloadEncoder encoder = new CBORV2Encoder();
+
+  private final EncodedPayload standardPayload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText("text".getBytes())
+          .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+          .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+          .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+          .withRecipientKeys(
+              List.of(
+                  PublicKey.from("recipient1".getBytes()), PublicKey.from("recipient2".getBytes())))
+          .build();
+
+  @Test
+  public void encodeDecodeStandard() {
+    final EncodedPayload result = encoder.decode(encoder.encode(standardPayload));
+
+    assertThat(result).isEqualTo(standardPayload);
+    assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
+    assertThat(result.getAffectedContractTransactions()).isEmpty();
+    assertThat(result.getExecHash()).isEmpty();
+    assertThat(result.getMandatoryRecipients()).isEmpty();
+    assertThat(result.getPrivacyGroupId()).isEmpty();
+  }
+
+  @Test
+  public void encodeDecodePrivateStateValidation() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withAffectedContractTransactions(
+                Map.of(
+                    TxHash.from("txHash1".getBytes()), "securityHash1".getBytes(),
+                    TxHash.from("txHash2".getBytes()), "securityHash2".getBytes()))
+            .withExecHash("execHash".getBytes())
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build();
+
+    final EncodedPayload result = encoder.decode(encoder.encode(payload));
+
+    assertThat(result).isEqualTo(payload);
+    assertThat(result.getAffectedContractTransactions()).hasSize(2);
+    assertThat(result.getExecHash()).isEqualTo("execHash".getBytes());
+    assertThat(result.getPrivacyGroupId()).isPresent();
+  }
+
+  @Test
+  public void encodeDecodeMandatoryRecipients() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient2".getBytes())))
+            .build();
+
+    final EncodedPayload result = encoder.decode(encoder.encode(payload));
+
+    assertThat(result).isEqualTo(payload);
+    assertThat(result.getMandatoryRecipients())
+        .containsExactly(PublicKey.from("recipient2".getBytes()));
+  }
+
+  @Test
+  public void encodingIsSmallerThanNamedFields() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+            .withAffectedContractTransactions(Map.of(TxHash.from(new byte[64]), new byte[32]))
+            .build();
+
+    assertThat(encoder.encode(payload).length)
+        .isLessThan(new CBOREncoder().encode(payload).length - 100);
+  }
+
+  @Test
+  public void streamedEncodingIsTheSameAsEncodedBytes() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    encoder.encode(standardPayload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(encoder.encode(standardPayload));
+  }
+
+  @Test
+  public void decodePartOfABuffer() {
+    final byte[] encoded = encoder.encode(standardPayload);
+    final ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 4);
+    buffer.position(2).put(encoded).position(2).limit(encoded.length + 2);
+
+    assertThat(encoder.decodeBuffer(buffer)).isEqualTo(standardPayload);
+    assertThat(buffer.position()).isEqualTo(2);
+  }
+
+  @Test
+  public void decodeHeader() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient1".getBytes())))
+            .build();
+
+    final EncodedPayloadHeader header = encoder.decodeHeader(encoder.encode(payload));
+
+    assertThat(header).isEqualTo(EncodedPayloadHeader.from(payload));
+  }
+
+  @Test
+  public void invalidPayloadIsRejected() {
+    final byte[] encoded = encoder.encode(standardPayload);
+
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.decode(new byte[] {(byte) 0xa1, 0x18, 0x63, 0x40}))
+        .withMessageContaining("Unable to decode payload data");
+
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.decodeBuffer(ByteBuffer.wrap(encoded, 0, encoded.length - 1)))
+        .withMessageContaining("Unable to decode payload data");
+  }
+
+  @Test
+  public void codec() {
+    assertThat(encoder.encodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR_V2);
+  }
+}
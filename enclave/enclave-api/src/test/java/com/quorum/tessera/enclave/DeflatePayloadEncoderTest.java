@@ -0,0 +1,115 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class DeflatePayloadEncoderTest {
+
+  private final PayloadEncoder encoder = new DeflatePayloadEncoder();
+
+  private final List<PublicKey> recipients =
+      IntStream.range(0, 20)
+          .mapToObj(i -> PublicKey.from(String.format("recipient-key-%018d", i).getBytes()))
+          .collect(Collectors.toList());
+
+  private final EncodedPayload payload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(recipients.get(0))
+          .withCipherText(new byte[1000])
+          .withCipherTextNonce(new Nonce(new byte[24]))
+          .withRecipientNonce(new Nonce(new byte[24]))
+          .withRecipientBoxes(
+              recipients.stream().map(r -> new byte[48]).collect(Collectors.toList()))
+          .withRecipientKeys(recipients)
+          .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+          .withAffectedContractTransactions(
+              Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+          .build();
+
+  @After
+  public void afterTest() {
+    PayloadDictionaryHolder.INSTANCE.clear();
+  }
+
+  @Test
+  public void encodeDecode() {
+    final byte[] encoded = encoder.encode(payload);
+
+    assertThat(encoder.decode(encoded)).isEqualTo(payload);
+    assertThat(encoder.decodeHeader(encoded)).isEqualTo(EncodedPayloadHeader.from(payload));
+    assertThat(encoded.length).isLessThan(new CBORV2Encoder().encode(payload).length);
+  }
+
+  @Test
+  public void dictionaryMakesPayloadSmaller() {
+    final int withoutDictionary = encoder.encode(payload).length;
+
+    PayloadDictionaryHolder.INSTANCE.setDictionary(PayloadDictionary.of(recipients));
+    final byte[] encoded = encoder.encode(payload);
+
+    assertThat(encoded.length).isLessThan(withoutDictionary);
+    assertThat(encoder.decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  public void payloadCompressedWithAnEarlierDictionaryIsDecoded() {
+    PayloadDictionaryHolder.INSTANCE.setDictionary(PayloadDictionary.of(recipients));
+    final byte[] encoded = encoder.encode(payload);
+
+    PayloadDictionaryHolder.INSTANCE.setDictionary(PayloadDictionary.of(recipients.subList(0, 2)));
+
+    assertThat(encoder.decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  public void unknownDictionaryIsReported() {
+    PayloadDictionaryHolder.INSTANCE.setDictionary(PayloadDictionary.of(recipients));
+    final byte[] encoded = encoder.encode(payload);
+    PayloadDictionaryHolder.INSTANCE.clear();
+
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.decode(encoded))
+        .withMessage("Unable to decode payload data. ")
+        .havingCause()
+        .withMessageContaining("which is not configured");
+  }
+
+  @Test
+  public void incompletePayloadIsRejected() {
+    final byte[] encoded = encoder.encode(payload);
+    final byte[] truncated = new byte[encoded.length / 2];
+    System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> encoder.decode(truncated))
+        .withMessage("Unable to decode payload data. ");
+  }
+
+  @Test
+  public void streamedEncodingIsTheSameAsEncodedBytesAndLeavesTheStreamOpen()
+      throws IOException {
+    final ByteArrayOutputStream output = spy(new ByteArrayOutputStream());
+
+    encoder.encode(payload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(encoder.encode(payload));
+    verify(output, never()).close();
+  }
+
+  @Test
+  public void codec() {
+    assertThat(encoder.encodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR_V2_DEFLATE);
+  }
+}
@@ -6,8 +6,10 @@ import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.config.*;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.stream.Stream;
+import javax.management.ObjectName;
 import org.junit.Test;
 
 public class EnclaveFactoryTest {
@@ -159,4 +161,30 @@ public class EnclaveFactoryTest {
       assertThat(ex).hasMessage("OUCH");
     }
   }
+
+  @Test
+  public void sharedKeyCacheIsRegisteredWhenConfigured() throws Exception {
+    final EncryptorConfig encryptorConfig = new EncryptorConfig();
+    encryptorConfig.setType(EncryptorType.NACL);
+    encryptorConfig.setSharedKeyCacheSize(100);
+    encryptorConfig.setSharedKeyCacheExpiry(60);
+
+    final SharedKeyCache first = EnclaveFactoryImpl.createSharedKeyCache(encryptorConfig);
+    final SharedKeyCache second = EnclaveFactoryImpl.createSharedKeyCache(encryptorConfig);
+
+    final ObjectName objectName = new ObjectName(EnclaveFactoryImpl.SHARED_KEY_CACHE_OBJECT_NAME);
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isTrue();
+    assertThat(second).isNotSameAs(first);
+
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+  }
+
+  @Test
+  public void sharedKeyCacheIsDisabledByDefault() {
+    final SharedKeyCache sharedKeyCache =
+        EnclaveFactoryImpl.createSharedKeyCache(EncryptorConfig.getDefault());
+
+    assertThat(sharedKeyCache.getSize()).isZero();
+    assertThat(sharedKeyCache.get(null, null, () -> null)).isNull();
+  }
 }
@@ -224,6 +224,55 @@ public class EnclaveTest {
     verify(keyManager).getPrivateKeyForPublicKey(recipientKey);
   }
 
+  @Test
+  public void unencryptTransactionReusesCachedSharedKey() {
+    final PublicKey senderKey = PublicKey.from("senderKey".getBytes());
+    final PublicKey recipientKey = PublicKey.from("recipientKey".getBytes());
+    final Nonce cipherTextNonce = mock(Nonce.class);
+    final RecipientBox recipientBox = RecipientBox.from("recipientBox".getBytes());
+    final Nonce recipientNonce = mock(Nonce.class);
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(senderKey)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce(cipherTextNonce)
+            .withRecipientBoxes(List.of("senderBox".getBytes(), recipientBox.getData()))
+            .withRecipientKeys(List.of(senderKey, recipientKey))
+            .withRecipientNonce(recipientNonce)
+            .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+            .build();
+
+    final PrivateKey recipientPrivateKey = PrivateKey.from("private-key".getBytes());
+    when(keyManager.getPrivateKeyForPublicKey(recipientKey)).thenReturn(recipientPrivateKey);
+
+    final SharedKey sharedKey = SharedKey.from("shared-key".getBytes());
+    when(nacl.computeSharedKey(senderKey, recipientPrivateKey)).thenReturn(sharedKey);
+
+    final byte[] expectedOutcome = "SUCCESS".getBytes();
+    when(nacl.openAfterPrecomputation(recipientBox.getData(), recipientNonce, sharedKey))
+        .thenReturn("sharedOrMasterKeyBytes".getBytes());
+    when(nacl.openAfterPrecomputation(any(byte[].class), eq(cipherTextNonce), any(MasterKey.class)))
+        .thenReturn(expectedOutcome);
+
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(10, null);
+    final Enclave cachingEnclave = new EnclaveImpl(nacl, keyManager, sharedKeyCache);
+
+    final byte[] first = cachingEnclave.unencryptTransaction(payload, recipientKey);
+    final byte[] second = cachingEnclave.unencryptTransaction(payload, recipientKey);
+
+    assertThat(first).isSameAs(expectedOutcome);
+    assertThat(second).isSameAs(expectedOutcome);
+
+    assertThat(sharedKeyCache.getHitCount()).isEqualTo(1);
+    verify(nacl, times(2))
+        .openAfterPrecomputation(recipientBox.getData(), recipientNonce, sharedKey);
+    verify(nacl, times(2))
+        .openAfterPrecomputation(any(byte[].class), eq(cipherTextNonce), any(MasterKey.class));
+    verify(nacl).computeSharedKey(senderKey, recipientPrivateKey);
+    verify(keyManager, times(2)).getPrivateKeyForPublicKey(recipientKey);
+  }
+
   // Case 3 - decrypt using the sender key
   @Test
   public void unencryptTransactionWeSentUsingSenderKey() {
@@ -606,6 +655,58 @@ public class EnclaveTest {
     verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
   }
 
+  @Test
+  public void encryptPayloadSealsRecipientBoxesInParallelInRecipientOrder() {
+    final RecipientBoxSealer recipientBoxSealer = RecipientBoxSealer.create(2, 2);
+    final Enclave parallelEnclave =
+        new EnclaveImpl(nacl, keyManager, SharedKeyCache.disabled(), recipientBoxSealer);
+
+    final byte[] message = "MESSAGE".getBytes();
+    final PublicKey senderPublicKey = PublicKey.from("sender".getBytes());
+    final PrivateKey senderPrivateKey = PrivateKey.from("senderPrivate".getBytes());
+    final MasterKey masterKey = MasterKey.from("masterKeyBytes".getBytes());
+    final Nonce cipherNonce = mock(Nonce.class);
+    final Nonce recipientNonce = mock(Nonce.class);
+
+    final List<PublicKey> recipients = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      recipients.add(PublicKey.from(("recipient" + i).getBytes()));
+    }
+
+    when(nacl.createMasterKey()).thenReturn(masterKey);
+    when(nacl.randomNonce()).thenReturn(cipherNonce, recipientNonce);
+    when(nacl.sealAfterPrecomputation(message, cipherNonce, masterKey))
+        .thenReturn("cipherText".getBytes());
+    when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+    when(nacl.computeSharedKey(any(PublicKey.class), eq(senderPrivateKey)))
+        .thenAnswer(
+            invocation ->
+                SharedKey.from(invocation.getArgument(0, PublicKey.class).getKeyBytes()));
+    when(nacl.sealAfterPrecomputation(
+            eq(masterKey.getKeyBytes()), eq(recipientNonce), any(SharedKey.class)))
+        .thenAnswer(invocation -> invocation.getArgument(2, SharedKey.class).getKeyBytes());
+
+    final PrivacyMetadata metaData =
+        PrivacyMetadata.Builder.create().withPrivacyMode(PrivacyMode.STANDARD_PRIVATE).build();
+
+    final EncodedPayload result =
+        parallelEnclave.encryptPayload(message, senderPublicKey, recipients, metaData);
+
+    assertThat(result.getRecipientKeys()).containsExactlyElementsOf(recipients);
+    assertThat(result.getRecipientBoxes())
+        .extracting(RecipientBox::getData)
+        .containsExactly(recipients.stream().map(PublicKey::getKeyBytes).toArray(byte[][]::new));
+
+    verify(nacl).createMasterKey();
+    verify(nacl, times(2)).randomNonce();
+    verify(nacl).sealAfterPrecomputation(message, cipherNonce, masterKey);
+    verify(nacl, times(7))
+        .sealAfterPrecomputation(
+            eq(masterKey.getKeyBytes()), eq(recipientNonce), any(SharedKey.class));
+    verify(nacl, times(7)).computeSharedKey(any(PublicKey.class), eq(senderPrivateKey));
+    verify(keyManager, times(7)).getPrivateKeyForPublicKey(senderPublicKey);
+  }
+
   @Test
   public void encryptPayloadWithAffectedTransactions() {
 
@@ -1115,6 +1216,80 @@ public class EnclaveTest {
     verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderKey);
   }
 
+  @Test
+  public void createNewRecipientBoxesOpensMasterKeyOncePerPayload() {
+
+    final PublicKey publicKey = PublicKey.from("recipient".getBytes());
+    final PublicKey otherKey = PublicKey.from("other".getBytes());
+    final PublicKey senderKey = PublicKey.from("sender".getBytes());
+    final PrivateKey privateKey = PrivateKey.from("sender-priv".getBytes());
+    final SharedKey recipientSenderShared = SharedKey.from("shared-one".getBytes());
+    final SharedKey senderShared = SharedKey.from("shared-two".getBytes());
+    final SharedKey otherShared = SharedKey.from("shared-three".getBytes());
+    final RecipientBox closedbox = RecipientBox.from("closed".getBytes());
+    final byte[] openbox = "open".getBytes();
+    final Nonce nonce = new Nonce("nonce".getBytes());
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(senderKey)
+            .withRecipientBox(closedbox.getData())
+            .withRecipientNonce(nonce)
+            .withRecipientKeys(List.of(publicKey))
+            .build();
+
+    when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(privateKey);
+    when(nacl.computeSharedKey(publicKey, privateKey)).thenReturn(recipientSenderShared);
+    when(nacl.computeSharedKey(senderKey, privateKey)).thenReturn(senderShared);
+    when(nacl.computeSharedKey(otherKey, privateKey)).thenReturn(otherShared);
+    when(nacl.openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared))
+        .thenReturn(openbox);
+    when(nacl.sealAfterPrecomputation(openbox, nonce, senderShared))
+        .thenReturn("senderbox".getBytes());
+    when(nacl.sealAfterPrecomputation(openbox, nonce, otherShared))
+        .thenReturn("otherbox".getBytes());
+
+    final List<byte[]> boxes =
+        enclave.createNewRecipientBoxes(List.of(payload, payload), List.of(senderKey, otherKey));
+
+    assertThat(boxes).containsExactly("senderbox".getBytes(), "otherbox".getBytes());
+
+    verify(nacl).computeSharedKey(publicKey, privateKey);
+    verify(nacl).computeSharedKey(senderKey, privateKey);
+    verify(nacl).computeSharedKey(otherKey, privateKey);
+    verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared);
+    verify(nacl).sealAfterPrecomputation(openbox, nonce, senderShared);
+    verify(nacl).sealAfterPrecomputation(openbox, nonce, otherShared);
+    verify(keyManager, times(3)).getPrivateKeyForPublicKey(senderKey);
+  }
+
+  @Test
+  public void createNewRecipientBoxesRequiresAKeyPerPayload() {
+
+    final Throwable throwable =
+        catchThrowable(
+            () -> enclave.createNewRecipientBoxes(List.of(mock(EncodedPayload.class)), List.of()));
+
+    assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void unencryptTransactionsDecryptsEachPayloadWithItsKey() {
+
+    final Enclave spied = spy(enclave);
+    final EncodedPayload first = mock(EncodedPayload.class);
+    final EncodedPayload second = mock(EncodedPayload.class);
+    final PublicKey firstKey = PublicKey.from("first".getBytes());
+
+    doReturn("one".getBytes()).when(spied).unencryptTransaction(first, firstKey);
+    doReturn("two".getBytes()).when(spied).unencryptTransaction(second, null);
+
+    final List<byte[]> results =
+        spied.unencryptTransactions(List.of(first, second), Arrays.asList(firstKey, null));
+
+    assertThat(results).containsExactly("one".getBytes(), "two".getBytes());
+  }
+
   @Test
   public void findInvalidSecurityHashesTransactionSentToCurrentNode() {
 
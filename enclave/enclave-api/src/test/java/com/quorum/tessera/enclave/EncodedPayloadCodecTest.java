@@ -36,6 +36,29 @@ public class EncodedPayloadCodecTest {
     assertThat(codec.getMinimumSupportedVersion()).isEqualTo(CBORSupportVersion.API_VERSION_5);
   }
 
+  @Test
+  public void getPreferredCodecVersion6() {
+    EncodedPayloadCodec codec =
+        EncodedPayloadCodec.getPreferredCodec(
+            Set.of(
+                BaseVersion.API_VERSION_1,
+                CBORSupportVersion.API_VERSION_5,
+                CBORV2SupportVersion.API_VERSION_6));
+
+    assertThat(codec).isEqualTo(EncodedPayloadCodec.CBOR_V2);
+    assertThat(codec.getMinimumSupportedVersion()).isEqualTo(CBORV2SupportVersion.API_VERSION_6);
+  }
+
+  @Test
+  public void storageCodecIsNeverPreferred() {
+    EncodedPayloadCodec codec =
+        EncodedPayloadCodec.getPreferredCodec(
+            Set.of(BaseVersion.API_VERSION_1, CBORV2SupportVersion.API_VERSION_6));
+
+    assertThat(codec).isEqualTo(EncodedPayloadCodec.CBOR_V2);
+    assertThat(EncodedPayloadCodec.CBOR_V2_DEFLATE.getMinimumSupportedVersion()).isNull();
+  }
+
   @Test
   public void getPreferredCodecUnknownVersion() {
     EncodedPayloadCodec codec = EncodedPayloadCodec.getPreferredCodec(Set.of());
@@ -0,0 +1,47 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PayloadDictionaryTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private final PublicKey first = PublicKey.from("first".getBytes());
+
+  private final PublicKey second = PublicKey.from("second".getBytes());
+
+  @Test
+  public void readKeysFromFile() throws IOException {
+    final Path file = workDir.newFile().toPath();
+    Files.writeString(
+        file, first.encodeToBase64() + "\n\n  " + second.encodeToBase64() + "  \n");
+
+    final PayloadDictionary dictionary = PayloadDictionary.read(file);
+
+    assertThat(dictionary.getBytes()).isEqualTo("firstsecond".getBytes());
+    assertThat(dictionary.getId()).isEqualTo(PayloadDictionary.of(List.of(first, second)).getId());
+  }
+
+  @Test
+  public void differentKeysHaveDifferentIds() {
+    assertThat(PayloadDictionary.of(List.of(first)).getId())
+        .isNotEqualTo(PayloadDictionary.of(List.of(second)).getId());
+  }
+
+  @Test
+  public void missingFileIsReported() {
+    assertThatExceptionOfType(UncheckedIOException.class)
+        .isThrownBy(() -> PayloadDictionary.read(workDir.getRoot().toPath().resolve("missing")));
+  }
+}
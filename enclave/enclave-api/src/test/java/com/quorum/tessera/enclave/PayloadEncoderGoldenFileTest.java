@@ -0,0 +1,182 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Checks the LEGACY codec against payloads encoded by earlier releases, which are kept in the
+ * {@code legacy-payloads} test resources. The bytes on the wire must never change.
+ */
+@RunWith(Parameterized.class)
+public class PayloadEncoderGoldenFileTest {
+
+  private final PayloadEncoderImpl payloadEncoder = new PayloadEncoderImpl();
+
+  private final String name;
+
+  private final EncodedPayload payload;
+
+  public PayloadEncoderGoldenFileTest(final String name, final EncodedPayload payload) {
+    this.name = name;
+    this.payload = payload;
+  }
+
+  @Parameterized.Parameters(name = "{0}")
+  public static List<Object[]> payloads() {
+    return payloadsByName().entrySet().stream()
+        .map(e -> new Object[] {e.getKey(), e.getValue()})
+        .collect(Collectors.toList());
+  }
+
+  static Map<String, EncodedPayload> payloadsByName() {
+    final Map<String, EncodedPayload> payloads = new LinkedHashMap<>();
+
+    payloads.put(
+        "standard-private-participant",
+        base().withRecipientBoxes(List.of(bytes("box", 48))).build());
+
+    payloads.put(
+        "standard-private-sender",
+        base()
+            .withRecipientBoxes(List.of(bytes("box1", 48), bytes("box2", 48)))
+            .withRecipientKeys(List.of(key("recipient1"), key("recipient2")))
+            .build());
+
+    payloads.put(
+        "party-protection",
+        base()
+            .withRecipientBoxes(List.of(bytes("box", 48)))
+            .withRecipientKeys(List.of(key("recipient")))
+            .withPrivacyMode(PrivacyMode.PARTY_PROTECTION)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from(bytes("txHash", 64)), bytes("securityHash", 64)))
+            .build());
+
+    payloads.put(
+        "private-state-validation",
+        base()
+            .withRecipientBoxes(List.of(bytes("box1", 48), bytes("box2", 48)))
+            .withRecipientKeys(List.of(key("recipient1"), key("recipient2")))
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from(bytes("txHash", 64)), bytes("securityHash", 64)))
+            .withExecHash(bytes("execHash", 32))
+            .build());
+
+    payloads.put(
+        "mandatory-recipients",
+        base()
+            .withRecipientBoxes(List.of(bytes("box1", 48), bytes("box2", 48)))
+            .withRecipientKeys(List.of(key("recipient1"), key("recipient2")))
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(key("recipient2")))
+            .build());
+
+    payloads.put(
+        "privacy-group",
+        base()
+            .withRecipientBoxes(List.of(bytes("box", 48)))
+            .withRecipientKeys(List.of(key("recipient")))
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes(bytes("group", 32)))
+            .build());
+
+    payloads.put(
+        "large-cipher-text",
+        base()
+            .withCipherText(bytes("cipherText", 70_000))
+            .withRecipientBoxes(List.of(bytes("box1", 48), bytes("box2", 48), bytes("box3", 48)))
+            .withRecipientKeys(List.of(key("recipient1"), key("recipient2"), key("recipient3")))
+            .build());
+
+    return payloads;
+  }
+
+  @Test
+  public void encodesToTheGoldenBytes() {
+    assertThat(payloadEncoder.encode(payload)).isEqualTo(golden());
+  }
+
+  @Test
+  public void streamsTheGoldenBytes() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    payloadEncoder.encode(payload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(golden());
+  }
+
+  @Test
+  public void encodesTheGoldenBytesIntoABuffer() {
+    final byte[] golden = golden();
+    final ByteBuffer buffer = ByteBuffer.allocate(golden.length + 16).position(8);
+
+    payloadEncoder.encode(payload, buffer);
+
+    assertThat(payloadEncoder.encodedLength(payload)).isEqualTo(golden.length);
+    assertThat(buffer.position()).isEqualTo(8 + golden.length);
+    assertThat(Arrays.copyOfRange(buffer.array(), 8, 8 + golden.length)).isEqualTo(golden);
+  }
+
+  @Test
+  public void decodesTheGoldenBytes() {
+    assertThat(payloadEncoder.decode(golden())).isEqualTo(payload);
+  }
+
+  @Test
+  public void decodesTheGoldenBytesFromPartOfABuffer() {
+    final byte[] golden = golden();
+    final ByteBuffer buffer = ByteBuffer.allocate(golden.length + 16);
+    buffer.position(8).put(golden).position(8).limit(8 + golden.length);
+
+    assertThat(payloadEncoder.decodeBuffer(buffer)).isEqualTo(payload);
+    assertThat(buffer.position()).isEqualTo(8);
+  }
+
+  private byte[] golden() {
+    final String resource = "/legacy-payloads/" + name + ".bin";
+    try (InputStream input = getClass().getResourceAsStream(resource)) {
+      return Objects.requireNonNull(input, resource).readAllBytes();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static EncodedPayload.Builder base() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(key("sender"))
+        .withCipherText(bytes("cipherText", 100))
+        .withCipherTextNonce(bytes("nonce", 24))
+        .withRecipientNonce(bytes("recipientNonce", 24));
+  }
+
+  private static PublicKey key(final String seed) {
+    return PublicKey.from(bytes(seed, 32));
+  }
+
+  /** Deterministic bytes of the given length, so the payloads are the same on every run */
+  private static byte[] bytes(final String seed, final int length) {
+    final byte[] bytes = new byte[length];
+    int state = seed.hashCode();
+    for (int i = 0; i < length; i++) {
+      state = state * 1103515245 + 12345;
+      bytes[i] = (byte) (state >>> 16);
+    }
+    return bytes;
+  }
+}
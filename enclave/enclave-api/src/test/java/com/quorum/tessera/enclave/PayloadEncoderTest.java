@@ -9,6 +9,8 @@ import com.quorum.tessera.enclave.encoder.LegacyEncodedPayload;
 import com.quorum.tessera.enclave.encoder.LegacyPayloadEncoder;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Stream;
 import org.junit.Test;
@@ -76,6 +78,12 @@ public class PayloadEncoderTest {
     assertThat(output.getRecipientBoxes()).hasSize(1);
     assertThat(output.getRecipientBoxes().get(0).getData()).containsExactly(recipient);
     assertThat(output.getRecipientKeys()).isEmpty();
+
+    final EncodedPayloadHeader header = payloadEncoder.decodeHeader(input);
+
+    assertThat(header.getSenderKey()).isEqualTo(PublicKey.from(senderKey));
+    assertThat(header.getRecipientKeys()).isEmpty();
+    assertThat(header.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
   }
 
   @Test
@@ -1991,6 +1999,35 @@ public class PayloadEncoderTest {
     assertThat(result.getMandatoryRecipients()).isEqualTo(payload.getMandatoryRecipients());
   }
 
+  @Test
+  public void decodeHeaderMR() {
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("SENDER".getBytes()))
+            .withCipherText("CIPHER_TEXT".getBytes())
+            .withCipherTextNonce(new Nonce("NONCE".getBytes()))
+            .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+            .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+            .withRecipientKeys(
+                List.of(PublicKey.from("KEY1".getBytes()), PublicKey.from("KEY2".getBytes())))
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("hash1".getBytes()), "1".getBytes()))
+            .withMandatoryRecipients(Set.of(PublicKey.from("KEY2".getBytes())))
+            .build();
+
+    final byte[] encoded = payloadEncoder.encode(payload);
+
+    final EncodedPayloadHeader result = payloadEncoder.decodeHeader(encoded);
+
+    assertThat(result).isEqualTo(EncodedPayloadHeader.from(payload));
+    assertThat(result.getSenderKey()).isEqualTo(PublicKey.from("SENDER".getBytes()));
+    assertThat(result.getRecipientKeys())
+        .containsExactly(PublicKey.from("KEY1".getBytes()), PublicKey.from("KEY2".getBytes()));
+    assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.MANDATORY_RECIPIENTS);
+  }
+
   @Test(expected = RuntimeException.class)
   public void encodeDecodeMREmptyList() {
 
@@ -2295,4 +2332,31 @@ public class PayloadEncoderTest {
 
     verifyNoMoreInteractions(payloadEncoder, payloadEncoderProvider);
   }
+
+  @Test
+  public void streamedEncodingIsTheSameAsEncodedBytes() throws IOException {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("sender".getBytes()))
+            .withCipherText("text".getBytes())
+            .withCipherTextNonce("cipherTextNonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes()))
+            .withRecipientKeys(
+                List.of(
+                    PublicKey.from("recipient1".getBytes()),
+                    PublicKey.from("recipient2".getBytes())))
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(PublicKey.from("recipient1".getBytes())))
+            .withAffectedContractTransactions(
+                Map.of(TxHash.from("txHash".getBytes()), "securityHash".getBytes()))
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build();
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    payloadEncoder.encode(payload, output);
+
+    assertThat(output.toByteArray()).isEqualTo(payloadEncoder.encode(payload));
+    assertThat(payloadEncoder.decode(output.toByteArray())).isEqualTo(payload);
+  }
 }
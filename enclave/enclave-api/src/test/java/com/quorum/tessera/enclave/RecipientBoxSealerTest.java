@@ -0,0 +1,101 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.junit.Test;
+
+public class RecipientBoxSealerTest {
+
+  private final Set<Thread> sealingThreads = ConcurrentHashMap.newKeySet();
+
+  private final Function<PublicKey, byte[]> sealer =
+      publicKey -> {
+        sealingThreads.add(Thread.currentThread());
+        return publicKey.getKeyBytes();
+      };
+
+  @Test
+  public void sequentialSealerUsesCallingThread() {
+    final List<PublicKey> recipients = recipients(20);
+
+    final List<byte[]> boxes = RecipientBoxSealer.sequential().seal(recipients, sealer);
+
+    assertThat(boxes).containsExactlyElementsOf(keyBytes(recipients));
+    assertThat(sealingThreads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  public void recipientsBelowThresholdAreSealedOnCallingThread() {
+    final List<PublicKey> recipients = recipients(4);
+
+    final List<byte[]> boxes = RecipientBoxSealer.create(5, 4).seal(recipients, sealer);
+
+    assertThat(boxes).containsExactlyElementsOf(keyBytes(recipients));
+    assertThat(sealingThreads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  public void boxesSealedInParallelKeepRecipientOrder() {
+    final List<PublicKey> recipients = recipients(101);
+
+    final List<byte[]> boxes = RecipientBoxSealer.create(5, 3).seal(recipients, sealer);
+
+    assertThat(boxes).containsExactlyElementsOf(keyBytes(recipients));
+    assertThat(sealingThreads).contains(Thread.currentThread()).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  public void failureOnPoolThreadIsRethrown() {
+    final List<PublicKey> recipients = recipients(10);
+    final PublicKey last = recipients.get(9);
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                RecipientBoxSealer.create(2, 2)
+                    .seal(
+                        recipients,
+                        publicKey -> {
+                          if (publicKey.equals(last)) {
+                            throw new EnclaveException("unable to seal");
+                          }
+                          return publicKey.getKeyBytes();
+                        }));
+
+    assertThat(throwable).isInstanceOf(EnclaveException.class).hasMessage("unable to seal");
+  }
+
+  @Test
+  public void zeroThresholdIsSequential() {
+    assertThat(RecipientBoxSealer.create(0, 4)).isSameAs(RecipientBoxSealer.sequential());
+  }
+
+  @Test
+  public void negativeValuesAreRejected() {
+    assertThat(catchThrowable(() -> RecipientBoxSealer.create(-1, 0)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> RecipientBoxSealer.create(1, -1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<PublicKey> recipients(final int count) {
+    final List<PublicKey> recipients = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      recipients.add(PublicKey.from(("recipient" + i).getBytes()));
+    }
+    return recipients;
+  }
+
+  private static List<byte[]> keyBytes(final List<PublicKey> recipients) {
+    final List<byte[]> keyBytes = new ArrayList<>(recipients.size());
+    recipients.forEach(publicKey -> keyBytes.add(publicKey.getKeyBytes()));
+    return keyBytes;
+  }
+}
@@ -0,0 +1,167 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class RecipientPayloadsTest {
+
+  private static final List<PayloadEncoder> ENCODERS =
+      List.of(new PayloadEncoderImpl(), new CBOREncoder(), new CBORV2Encoder());
+
+  private final List<PublicKey> recipients =
+      IntStream.range(0, 30)
+          .mapToObj(i -> PublicKey.from(("recipient" + i).getBytes()))
+          .collect(Collectors.toList());
+
+  private final EncodedPayload standardPayload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText(new byte[5000])
+          .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+          .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+          .withRecipientKeys(recipients)
+          .withRecipientBoxes(
+              recipients.stream()
+                  .map(key -> ("box for " + key.encodeToBase64()).getBytes())
+                  .collect(Collectors.toList()))
+          .build();
+
+  @Test
+  public void standardPayloadsAreEncodedAsBuiltPayloads() throws IOException {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyGroupId(PrivacyGroup.Id.fromBytes("group".getBytes()))
+            .build();
+
+    assertEncodedAsBuilt(payload);
+  }
+
+  @Test
+  public void privateStateValidationPayloadsAreEncodedAsBuiltPayloads() throws IOException {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withAffectedContractTransactions(
+                Map.of(
+                    TxHash.from("txHash1".getBytes()), "securityHash1".getBytes(),
+                    TxHash.from("txHash2".getBytes()), "securityHash2".getBytes()))
+            .withExecHash("execHash".getBytes())
+            .build();
+
+    assertEncodedAsBuilt(payload);
+
+    final PublicKey recipient = recipients.get(7);
+    assertThat(RecipientPayloads.of(payload).forRecipient(recipient).getRecipientKeys())
+        .hasSize(30)
+        .startsWith(recipient)
+        .containsExactlyInAnyOrderElementsOf(recipients);
+  }
+
+  @Test
+  public void mandatoryRecipientsPayloadsAreEncodedAsBuiltPayloads() throws IOException {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.MANDATORY_RECIPIENTS)
+            .withMandatoryRecipients(Set.of(recipients.get(1), recipients.get(2)))
+            .build();
+
+    assertEncodedAsBuilt(payload);
+  }
+
+  @Test
+  public void payloadsForRecipientsShareEveryOtherField() {
+    final RecipientPayloads payloads = RecipientPayloads.of(standardPayload);
+
+    final EncodedPayload first = payloads.forRecipient(recipients.get(0));
+    final EncodedPayload second = payloads.forRecipient(recipients.get(1));
+
+    assertThat(first.getCipherText()).isSameAs(second.getCipherText());
+    assertThat(first.getRecipientKeys()).containsExactly(recipients.get(0));
+    assertThat(second.getRecipientBoxes())
+        .containsExactly(standardPayload.getRecipientBoxes().get(1));
+  }
+
+  @Test
+  public void payloadForRecipientsHoldsTheirBoxesInOrder() {
+    final EncodedPayload payload =
+        RecipientPayloads.of(standardPayload)
+            .forRecipients(List.of(recipients.get(4), recipients.get(2)));
+
+    assertThat(payload.getCipherText()).isEqualTo(standardPayload.getCipherText());
+    assertThat(payload.getRecipientKeys()).containsExactly(recipients.get(4), recipients.get(2));
+    assertThat(payload.getRecipientBoxes())
+        .containsExactly(
+            standardPayload.getRecipientBoxes().get(4),
+            standardPayload.getRecipientBoxes().get(2));
+
+    assertThat(RecipientPayloads.of(standardPayload).forRecipients(List.of(recipients.get(3))))
+        .isEqualTo(EncodedPayload.Builder.forRecipient(standardPayload, recipients.get(3)).build());
+  }
+
+  @Test
+  public void privateStateValidationPayloadForRecipientsListsTheirKeysFirst() {
+    final EncodedPayload psvPayload =
+        EncodedPayload.Builder.from(standardPayload)
+            .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+            .withExecHash("execHash".getBytes())
+            .build();
+
+    final EncodedPayload payload =
+        RecipientPayloads.of(psvPayload)
+            .forRecipients(List.of(recipients.get(9), recipients.get(5)));
+
+    assertThat(payload.getRecipientBoxes())
+        .containsExactly(
+            psvPayload.getRecipientBoxes().get(9), psvPayload.getRecipientBoxes().get(5));
+    assertThat(payload.getRecipientKeys())
+        .hasSize(30)
+        .startsWith(recipients.get(9), recipients.get(5))
+        .containsExactlyInAnyOrderElementsOf(recipients);
+  }
+
+  @Test
+  public void unknownRecipientIsRejected() {
+    final PublicKey unknown = PublicKey.from("unknown".getBytes());
+
+    final Throwable throwable =
+        catchThrowable(() -> RecipientPayloads.of(standardPayload).forRecipient(unknown));
+
+    assertThat(throwable)
+        .isInstanceOf(InvalidRecipientException.class)
+        .hasMessageContaining(unknown.encodeToBase64());
+  }
+
+  private void assertEncodedAsBuilt(final EncodedPayload payload) throws IOException {
+    final RecipientPayloads payloads = RecipientPayloads.of(payload);
+
+    for (final PayloadEncoder encoder : ENCODERS) {
+      for (final PublicKey recipient : recipients) {
+        final EncodedPayload built =
+            EncodedPayload.Builder.forRecipient(payload, recipient).build();
+        final EncodedPayload view = payloads.forRecipient(recipient);
+
+        assertThat(view).isEqualTo(built);
+        assertThat(encode(encoder, view))
+            .describedAs("%s for %s", encoder.encodedPayloadCodec(), recipient)
+            .isEqualTo(encode(encoder, built));
+        assertThat(encoder.encode(view)).isEqualTo(encoder.encode(built));
+      }
+    }
+  }
+
+  private static byte[] encode(final PayloadEncoder encoder, final EncodedPayload payload)
+      throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    encoder.encode(payload, output);
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,128 @@
+package com.quorum.tessera.enclave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.encryption.PrivateKey;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedKeyCacheTest {
+
+  private static final PublicKey PEER = PublicKey.from("peer".getBytes());
+
+  private static final PublicKey OTHER_PEER = PublicKey.from("other-peer".getBytes());
+
+  private static final PrivateKey LOCAL = PrivateKey.from("local".getBytes());
+
+  private static final PrivateKey OTHER_LOCAL = PrivateKey.from("other-local".getBytes());
+
+  private Clock clock;
+
+  private Supplier<SharedKey> computation;
+
+  @Before
+  public void beforeTest() {
+    clock = mock(Clock.class);
+    computation = mock(Supplier.class);
+    when(computation.get())
+        .thenAnswer(invocation -> SharedKey.from("shared".getBytes()))
+        .thenAnswer(invocation -> SharedKey.from("recomputed".getBytes()));
+  }
+
+  @Test
+  public void repeatedPairIsOnlyComputedOnce() {
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(10, null, clock);
+
+    final SharedKey first = sharedKeyCache.get(PEER, LOCAL, computation);
+    final SharedKey second = sharedKeyCache.get(PEER, LOCAL, computation);
+
+    assertThat(second).isEqualTo(first).isNotSameAs(first);
+    assertThat(sharedKeyCache.getHitCount()).isEqualTo(1);
+    assertThat(sharedKeyCache.getMissCount()).isEqualTo(1);
+    assertThat(sharedKeyCache.getSize()).isEqualTo(1);
+    verify(computation).get();
+  }
+
+  @Test
+  public void differentLocalKeyIsADifferentEntry() {
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(10, null, clock);
+
+    sharedKeyCache.get(PEER, LOCAL, computation);
+    sharedKeyCache.get(PEER, OTHER_LOCAL, computation);
+
+    assertThat(sharedKeyCache.getSize()).isEqualTo(2);
+    verify(computation, times(2)).get();
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvictedAndZeroed() {
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(1, null, clock);
+
+    final SharedKey first = sharedKeyCache.get(PEER, LOCAL, computation);
+    sharedKeyCache.get(OTHER_PEER, LOCAL, computation);
+
+    assertThat(sharedKeyCache.getSize()).isEqualTo(1);
+    assertThat(sharedKeyCache.getEvictionCount()).isEqualTo(1);
+    // the caller's copy is not affected by the cached bytes being zeroed
+    assertThat(first.getKeyBytes()).isEqualTo("shared".getBytes());
+
+    when(computation.get()).thenReturn(SharedKey.from("again".getBytes()));
+    assertThat(sharedKeyCache.get(PEER, LOCAL, computation).getKeyBytes())
+        .isEqualTo("again".getBytes());
+  }
+
+  @Test
+  public void expiredEntryIsComputedAgain() {
+    when(clock.millis()).thenReturn(1000L);
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(10, Duration.ofSeconds(5), clock);
+
+    sharedKeyCache.get(PEER, LOCAL, computation);
+
+    when(clock.millis()).thenReturn(5999L);
+    assertThat(sharedKeyCache.get(PEER, LOCAL, computation).getKeyBytes())
+        .isEqualTo("shared".getBytes());
+
+    when(clock.millis()).thenReturn(6000L);
+    assertThat(sharedKeyCache.get(PEER, LOCAL, computation).getKeyBytes())
+        .isEqualTo("recomputed".getBytes());
+
+    assertThat(sharedKeyCache.getEvictionCount()).isEqualTo(1);
+    verify(computation, times(2)).get();
+  }
+
+  @Test
+  public void disabledCacheAlwaysComputes() {
+    final SharedKeyCache sharedKeyCache = SharedKeyCache.disabled();
+
+    sharedKeyCache.get(PEER, LOCAL, computation);
+    sharedKeyCache.get(PEER, LOCAL, computation);
+
+    assertThat(sharedKeyCache.getSize()).isZero();
+    assertThat(sharedKeyCache.getMissCount()).isZero();
+    verify(computation, times(2)).get();
+  }
+
+  @Test
+  public void clearRemovesAllEntries() {
+    final SharedKeyCache sharedKeyCache = new SharedKeyCache(10, null, clock);
+    sharedKeyCache.get(PEER, LOCAL, computation);
+
+    sharedKeyCache.clear();
+
+    assertThat(sharedKeyCache.getSize()).isZero();
+  }
+
+  @Test
+  public void negativeSizeIsRejected() {
+    final Throwable throwable = catchThrowable(() -> new SharedKeyCache(-1, null));
+
+    assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,87 @@
+package com.quorum.tessera.enclave.rest;
+
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes the enclave request and response types as CBOR, with byte arrays written as
+ * binary values rather than base64 strings. Used by both the enclave server and the client.
+ */
+@Provider
+@Consumes(EnclaveMediaType.APPLICATION_CBOR)
+@Produces(EnclaveMediaType.APPLICATION_CBOR)
+public class CBORMessageBodyProvider
+    implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper(
+              CBORFactory.builder()
+                  .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                  .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                  .build())
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  @Override
+  public boolean isReadable(
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    return isSupported(type, mediaType);
+  }
+
+  @Override
+  public Object readFrom(
+      final Class<Object> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType,
+      final MultivaluedMap<String, String> httpHeaders,
+      final InputStream entityStream)
+      throws IOException {
+    return objectMapper.readValue(entityStream, type);
+  }
+
+  @Override
+  public boolean isWriteable(
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    return isSupported(type, mediaType);
+  }
+
+  @Override
+  public void writeTo(
+      final Object value,
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType,
+      final MultivaluedMap<String, Object> httpHeaders,
+      final OutputStream entityStream)
+      throws IOException {
+    objectMapper.writeValue(entityStream, value);
+  }
+
+  /** Only the types defined alongside the enclave endpoints are handled */
+  private static boolean isSupported(final Class<?> type, final MediaType mediaType) {
+    return EnclaveMediaType.APPLICATION_CBOR_TYPE.isCompatible(mediaType)
+        && CBORMessageBodyProvider.class.getPackage().equals(type.getPackage());
+  }
+}
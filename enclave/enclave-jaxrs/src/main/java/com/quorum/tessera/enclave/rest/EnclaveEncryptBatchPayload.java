@@ -0,0 +1,32 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.xml.bind.annotation.XmlMimeType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveEncryptBatchPayload implements Serializable {
+
+  @XmlMimeType("base64Binary")
+  private List<byte[]> messages;
+
+  /** The sender, recipients and privacy metadata shared by all the messages */
+  private EnclavePayload payload;
+
+  public List<byte[]> getMessages() {
+    return messages;
+  }
+
+  public void setMessages(List<byte[]> messages) {
+    this.messages = messages;
+  }
+
+  public EnclavePayload getPayload() {
+    return payload;
+  }
+
+  public void setPayload(EnclavePayload payload) {
+    this.payload = payload;
+  }
+}
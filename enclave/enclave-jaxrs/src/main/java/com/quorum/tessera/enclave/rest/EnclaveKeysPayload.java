@@ -0,0 +1,21 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.xml.bind.annotation.XmlMimeType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveKeysPayload implements Serializable {
+
+  @XmlMimeType("base64Binary")
+  private List<byte[]> keys;
+
+  public List<byte[]> getKeys() {
+    return keys;
+  }
+
+  public void setKeys(List<byte[]> keys) {
+    this.keys = keys;
+  }
+}
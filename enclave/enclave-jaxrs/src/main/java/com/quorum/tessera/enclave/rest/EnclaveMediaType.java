@@ -0,0 +1,20 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.ws.rs.core.MediaType;
+
+/** Media types, other than JSON, that the enclave endpoints can be called with */
+public final class EnclaveMediaType {
+
+  /** Binary CBOR request and response bodies, with payloads encoded by the CBOR codec */
+  public static final String APPLICATION_CBOR = "application/cbor";
+
+  public static final MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
+
+  /**
+   * CBOR with a lower source quality, for endpoints that also produce JSON so that JSON is still
+   * returned to older clients that accept any media type
+   */
+  static final String APPLICATION_CBOR_SECONDARY = APPLICATION_CBOR + ";qs=0.5";
+
+  private EnclaveMediaType() {}
+}
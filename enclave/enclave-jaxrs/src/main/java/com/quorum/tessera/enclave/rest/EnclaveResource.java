@@ -6,11 +6,16 @@ import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
 import jakarta.json.Json;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.StreamingOutput;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -21,11 +26,16 @@ public class EnclaveResource {
 
   private final Enclave enclave;
 
-  private final PayloadEncoder payloadEncoder;
+  private final PayloadEncoder legacyPayloadEncoder;
+
+  private final PayloadEncoder cborPayloadEncoder;
+
+  @Context private HttpHeaders httpHeaders;
 
   public EnclaveResource(Enclave enclave) {
     this.enclave = Objects.requireNonNull(enclave);
-    payloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
+    legacyPayloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
+    cborPayloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.CBOR);
   }
 
   @GET
@@ -80,9 +90,37 @@ public class EnclaveResource {
         .build();
   }
 
+  @GET
+  @Produces(EnclaveMediaType.APPLICATION_CBOR_SECONDARY)
+  @Path("forwarding")
+  public Response getForwardingKeysAsCBOR() {
+    return keysResponse(enclave.getForwardingKeys());
+  }
+
+  @GET
+  @Produces(EnclaveMediaType.APPLICATION_CBOR_SECONDARY)
+  @Path("public")
+  public Response getPublicKeysAsCBOR() {
+    return keysResponse(enclave.getPublicKeys());
+  }
+
+  /** The media types the endpoints accept, which clients check before using anything but JSON */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("mediatypes")
+  public Response getMediaTypes() {
+    return Response.ok(
+            Json.createArrayBuilder(
+                    List.of(MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR))
+                .build()
+                .toString(),
+            MediaType.APPLICATION_JSON_TYPE)
+        .build();
+  }
+
   @POST
   @Path("encrypt")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response encryptPayload(EnclavePayload payload) {
 
@@ -91,35 +129,39 @@ public class EnclaveResource {
     final List<PublicKey> recipientPublicKeys =
         payload.getRecipientPublicKeys().stream().map(PublicKey::from).collect(Collectors.toList());
 
-    final List<AffectedTransaction> affectedTransactions =
-        convertToAffectedTransactions(payload.getAffectedContractTransactions());
-
-    final Set<PublicKey> mandatoryRecipients =
-        payload.getMandatoryRecipients().stream().map(PublicKey::from).collect(Collectors.toSet());
-
-    final PrivacyMetadata.Builder privacyMetadataBuilder =
-        PrivacyMetadata.Builder.create()
-            .withPrivacyMode(payload.getPrivacyMode())
-            .withAffectedTransactions(affectedTransactions)
-            .withExecHash(payload.getExecHash())
-            .withMandatoryRecipients(mandatoryRecipients);
-
-    Optional.ofNullable(payload.getPrivacyGroupId())
-        .map(PrivacyGroup.Id::fromBytes)
-        .ifPresent(privacyMetadataBuilder::withPrivacyGroupId);
-
     EncodedPayload outcome =
         enclave.encryptPayload(
-            payload.getData(), senderKey, recipientPublicKeys, privacyMetadataBuilder.build());
+            payload.getData(), senderKey, recipientPublicKeys, toPrivacyMetadata(payload));
 
-    byte[] response = payloadEncoder.encode(outcome);
+    byte[] response = payloadEncoder().encode(outcome);
     final StreamingOutput streamingOutput = out -> out.write(response);
     return Response.ok(streamingOutput).build();
   }
 
+  @POST
+  @Path("encrypt/batch")
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR_SECONDARY})
+  public Response encryptPayloads(EnclaveEncryptBatchPayload batchPayload) {
+
+    final EnclavePayload payload = batchPayload.getPayload();
+
+    final PublicKey senderKey = PublicKey.from(payload.getSenderKey());
+
+    final List<PublicKey> recipientPublicKeys =
+        payload.getRecipientPublicKeys().stream().map(PublicKey::from).collect(Collectors.toList());
+
+    final List<EncodedPayload> outcome =
+        enclave.encryptPayloads(
+            batchPayload.getMessages(), senderKey, recipientPublicKeys, toPrivacyMetadata(payload));
+
+    final PayloadEncoder payloadEncoder = payloadEncoder();
+    return batchResponse(outcome.stream().map(payloadEncoder::encode).collect(Collectors.toList()));
+  }
+
   @POST
   @Path("encrypt/raw")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response encryptPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -157,15 +199,15 @@ public class EnclaveResource {
     EncodedPayload outcome =
         enclave.encryptPayload(rawTransaction, recipientPublicKeys, privacyMetaDataBuilder.build());
 
-    byte[] response = payloadEncoder.encode(outcome);
+    byte[] response = payloadEncoder().encode(outcome);
     final StreamingOutput streamingOutput = out -> out.write(response);
     return Response.ok(streamingOutput).build();
   }
 
   @POST
   @Path("encrypt/toraw")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR_SECONDARY})
   public Response encryptRawPayload(EnclavePayload payload) {
 
     RawTransaction rawTransaction =
@@ -182,12 +224,12 @@ public class EnclaveResource {
 
   @POST
   @Path("findinvalidsecurityhashes")
-  @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR_SECONDARY})
   public Response findInvalidSecurityHashes(
       EnclaveFindInvalidSecurityHashesRequestPayload payload) {
 
-    EncodedPayload encodedPayload = payloadEncoder.decode(payload.getEncodedPayload());
+    EncodedPayload encodedPayload = payloadEncoder().decode(payload.getEncodedPayload());
 
     List<AffectedTransaction> affectedTransactions =
         payload.getAffectedContractTransactions().stream()
@@ -195,7 +237,7 @@ public class EnclaveResource {
                 keyValuePair ->
                     AffectedTransaction.Builder.create()
                         .withHash(keyValuePair.getKey())
-                        .withPayload(payloadEncoder.decode(keyValuePair.getValue()))
+                        .withPayload(payloadEncoder().decode(keyValuePair.getValue()))
                         .build())
             .collect(Collectors.toList());
 
@@ -212,7 +254,7 @@ public class EnclaveResource {
 
   @POST
   @Path("unencrypt/raw")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response unencryptRawPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -231,11 +273,11 @@ public class EnclaveResource {
 
   @POST
   @Path("unencrypt")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response unencryptTransaction(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
-    EncodedPayload payload = payloadEncoder.decode(enclaveUnencryptPayload.getData());
+    EncodedPayload payload = payloadEncoder().decode(enclaveUnencryptPayload.getData());
     PublicKey providedKey =
         Optional.ofNullable(enclaveUnencryptPayload.getProvidedKey())
             .map(PublicKey::from)
@@ -247,13 +289,28 @@ public class EnclaveResource {
     return Response.ok(streamingOutput).build();
   }
 
+  @POST
+  @Path("unencrypt/batch")
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR_SECONDARY})
+  public Response unencryptTransactions(EnclaveUnencryptBatchPayload batchPayload) {
+
+    final List<EncodedPayload> payloads = decodePayloads(batchPayload);
+    final List<PublicKey> providedKeys =
+        batchPayload.getPayloads().stream()
+            .map(p -> Optional.ofNullable(p.getProvidedKey()).map(PublicKey::from).orElse(null))
+            .collect(Collectors.toList());
+
+    return batchResponse(enclave.unencryptTransactions(payloads, providedKeys));
+  }
+
   @POST
   @Path("addRecipient")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
   @Produces(MediaType.APPLICATION_OCTET_STREAM)
   public Response createNewRecipientBox(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
-    EncodedPayload payload = payloadEncoder.decode(enclaveUnencryptPayload.getData());
+    EncodedPayload payload = payloadEncoder().decode(enclaveUnencryptPayload.getData());
     PublicKey providedKey = PublicKey.from(enclaveUnencryptPayload.getProvidedKey());
 
     byte[] response = enclave.createNewRecipientBox(payload, providedKey);
@@ -262,8 +319,84 @@ public class EnclaveResource {
     return Response.ok(streamingOutput).build();
   }
 
+  @POST
+  @Path("addRecipient/batch")
+  @Consumes({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR})
+  @Produces({MediaType.APPLICATION_JSON, EnclaveMediaType.APPLICATION_CBOR_SECONDARY})
+  public Response createNewRecipientBoxes(EnclaveUnencryptBatchPayload batchPayload) {
+
+    final List<EncodedPayload> payloads = decodePayloads(batchPayload);
+    final List<PublicKey> recipientKeys =
+        batchPayload.getPayloads().stream()
+            .map(EnclaveUnencryptPayload::getProvidedKey)
+            .map(PublicKey::from)
+            .collect(Collectors.toList());
+
+    return batchResponse(enclave.createNewRecipientBoxes(payloads, recipientKeys));
+  }
+
+  /**
+   * Payloads sent as CBOR are encoded with the CBOR codec, those sent as JSON with the legacy codec
+   * that older clients expect
+   */
+  private PayloadEncoder payloadEncoder() {
+    final MediaType mediaType =
+        Optional.ofNullable(httpHeaders).map(HttpHeaders::getMediaType).orElse(null);
+    if (EnclaveMediaType.APPLICATION_CBOR_TYPE.isCompatible(mediaType)) {
+      return cborPayloadEncoder;
+    }
+    return legacyPayloadEncoder;
+  }
+
+  private static Response keysResponse(final Set<PublicKey> keys) {
+    final EnclaveKeysPayload keysPayload = new EnclaveKeysPayload();
+    keysPayload.setKeys(keys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    return Response.ok(keysPayload).build();
+  }
+
+  private PrivacyMetadata toPrivacyMetadata(final EnclavePayload payload) {
+
+    final List<AffectedTransaction> affectedTransactions =
+        convertToAffectedTransactions(payload.getAffectedContractTransactions());
+
+    final Set<PublicKey> mandatoryRecipients =
+        payload.getMandatoryRecipients().stream().map(PublicKey::from).collect(Collectors.toSet());
+
+    final PrivacyMetadata.Builder privacyMetadataBuilder =
+        PrivacyMetadata.Builder.create()
+            .withPrivacyMode(payload.getPrivacyMode())
+            .withAffectedTransactions(affectedTransactions)
+            .withExecHash(payload.getExecHash())
+            .withMandatoryRecipients(mandatoryRecipients);
+
+    Optional.ofNullable(payload.getPrivacyGroupId())
+        .map(PrivacyGroup.Id::fromBytes)
+        .ifPresent(privacyMetadataBuilder::withPrivacyGroupId);
+
+    return privacyMetadataBuilder.build();
+  }
+
+  /** Payloads that share the same encoded bytes are decoded once and given as the same instance */
+  private List<EncodedPayload> decodePayloads(final EnclaveUnencryptBatchPayload batchPayload) {
+    final PayloadEncoder payloadEncoder = payloadEncoder();
+    final Map<ByteBuffer, EncodedPayload> decoded = new HashMap<>();
+    return batchPayload.getPayloads().stream()
+        .map(EnclaveUnencryptPayload::getData)
+        .map(
+            data ->
+                decoded.computeIfAbsent(ByteBuffer.wrap(data), b -> payloadEncoder.decode(data)))
+        .collect(Collectors.toList());
+  }
+
+  private static Response batchResponse(final List<byte[]> results) {
+    final EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+    responsePayload.setResults(results);
+    return Response.ok(responsePayload).build();
+  }
+
   private List<AffectedTransaction> convertToAffectedTransactions(
       final List<KeyValuePair> keyValuePairs) {
+    final PayloadEncoder payloadEncoder = payloadEncoder();
     return keyValuePairs.stream()
         .map(
             kvp ->
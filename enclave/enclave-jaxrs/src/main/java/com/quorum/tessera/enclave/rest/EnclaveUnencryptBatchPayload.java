@@ -0,0 +1,18 @@
+package com.quorum.tessera.enclave.rest;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveUnencryptBatchPayload {
+
+  private List<EnclaveUnencryptPayload> payloads;
+
+  public List<EnclaveUnencryptPayload> getPayloads() {
+    return payloads;
+  }
+
+  public void setPayloads(List<EnclaveUnencryptPayload> payloads) {
+    this.payloads = payloads;
+  }
+}
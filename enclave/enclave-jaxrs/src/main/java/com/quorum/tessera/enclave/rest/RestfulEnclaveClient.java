@@ -6,39 +6,75 @@ import com.quorum.tessera.encryption.PublicKey;
 import jakarta.json.JsonArray;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Calls a remote enclave over HTTP.
+ *
+ * <p>Request and response bodies are sent as CBOR if the enclave server supports it, which is
+ * checked once on first use, and as JSON otherwise. Calls are made on the calling thread so any
+ * number can be in flight at once, and every response is closed so that its connection can be
+ * reused by the next call.
+ */
 public class RestfulEnclaveClient implements EnclaveClient {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RestfulEnclaveClient.class);
   public static final int TIMEOUT = 2;
 
-  private final Client client;
-
   private final URI uri;
 
+  private final WebTarget target;
+
   private final ExecutorService executorService;
 
-  private final PayloadEncoder payloadEncoder;
+  private final WireFormat json;
+
+  private final WireFormat cbor;
+
+  private volatile WireFormat wireFormat;
 
   public RestfulEnclaveClient(Client client, URI uri) {
-    this(client, uri, Executors.newSingleThreadExecutor());
+    this(
+        client,
+        uri,
+        Executors.newCachedThreadPool(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "enclave-status-check");
+              thread.setDaemon(true);
+              return thread;
+            }));
   }
 
   public RestfulEnclaveClient(Client client, URI uri, ExecutorService executorService) {
-    this.client = Objects.requireNonNull(client);
     this.uri = Objects.requireNonNull(uri);
-    this.payloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
+    this.target =
+        Objects.requireNonNull(client).target(uri).register(CBORMessageBodyProvider.class);
+    this.json =
+        new WireFormat(
+            MediaType.APPLICATION_JSON_TYPE, PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
+    this.cbor =
+        new WireFormat(
+            EnclaveMediaType.APPLICATION_CBOR_TYPE,
+            PayloadEncoder.create(EncodedPayloadCodec.CBOR));
     this.executorService = executorService;
   }
 
@@ -47,50 +83,25 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
     return ClientCallback.execute(
         () -> {
-          Response response = client.target(uri).path("default").request().get();
+          try (Response response = target.path("default").request().get()) {
 
-          validateResponseIsOk(response);
+            validateResponseIsOk(response);
 
-          byte[] data = response.readEntity(byte[].class);
+            byte[] data = response.readEntity(byte[].class);
 
-          return PublicKey.from(data);
+            return PublicKey.from(data);
+          }
         });
   }
 
   @Override
   public Set<PublicKey> getForwardingKeys() {
-    return ClientCallback.execute(
-        () -> {
-          Response response = client.target(uri).path("forwarding").request().get();
-
-          validateResponseIsOk(response);
-
-          JsonArray results = response.readEntity(JsonArray.class);
-
-          return IntStream.range(0, results.size())
-              .mapToObj(results::getString)
-              .map(s -> Base64.getDecoder().decode(s))
-              .map(PublicKey::from)
-              .collect(Collectors.toSet());
-        });
+    return getKeys("forwarding");
   }
 
   @Override
   public Set<PublicKey> getPublicKeys() {
-    return ClientCallback.execute(
-        () -> {
-          Response response = client.target(uri).path("public").request().get();
-
-          validateResponseIsOk(response);
-
-          JsonArray results = response.readEntity(JsonArray.class);
-
-          return IntStream.range(0, results.size())
-              .mapToObj(results::getString)
-              .map(s -> Base64.getDecoder().decode(s))
-              .map(PublicKey::from)
-              .collect(Collectors.toSet());
-        });
+    return getKeys("public");
   }
 
   @Override
@@ -100,32 +111,16 @@ public class RestfulEnclaveClient implements EnclaveClient {
       final List<PublicKey> recipientPublicKeys,
       final PrivacyMetadata privacyMetaData) {
 
-    return ClientCallback.execute(
-        () -> {
-          EnclavePayload enclavePayload = new EnclavePayload();
+    return post(
+        "encrypt",
+        payloadEncoder -> {
+          EnclavePayload enclavePayload =
+              toEnclavePayload(
+                  payloadEncoder, senderPublicKey, recipientPublicKeys, privacyMetaData);
           enclavePayload.setData(message);
-          enclavePayload.setSenderKey(senderPublicKey.getKeyBytes());
-          enclavePayload.setRecipientPublicKeys(
-              recipientPublicKeys.stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toList()));
-          enclavePayload.setPrivacyMode(privacyMetaData.getPrivacyMode());
-          enclavePayload.setAffectedContractTransactions(
-              convertAffectedContractTransactions(
-                  privacyMetaData.getAffectedContractTransactions()));
-          enclavePayload.setExecHash(privacyMetaData.getExecHash());
-          enclavePayload.setMandatoryRecipients(
-              privacyMetaData.getMandatoryRecipients().stream()
-                  .map(PublicKey::getKeyBytes)
-                  .collect(Collectors.toList()));
-          privacyMetaData
-              .getPrivacyGroupId()
-              .map(PrivacyGroup.Id::getBytes)
-              .ifPresent(enclavePayload::setPrivacyGroupId);
-
-          Response response =
-              client.target(uri).path("encrypt").request().post(Entity.json(enclavePayload));
-
+          return enclavePayload;
+        },
+        (payloadEncoder, response) -> {
           validateResponseIsOk(response);
 
           byte[] result = response.readEntity(byte[].class);
@@ -134,14 +129,41 @@ public class RestfulEnclaveClient implements EnclaveClient {
         });
   }
 
+  @Override
+  public List<EncodedPayload> encryptPayloads(
+      final List<byte[]> messages,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetaData) {
+    if (messages.isEmpty()) {
+      return List.of();
+    }
+
+    return post(
+        "encrypt/batch",
+        payloadEncoder -> {
+          final EnclaveEncryptBatchPayload batchPayload = new EnclaveEncryptBatchPayload();
+          batchPayload.setMessages(messages);
+          batchPayload.setPayload(
+              toEnclavePayload(
+                  payloadEncoder, senderPublicKey, recipientPublicKeys, privacyMetaData));
+          return batchPayload;
+        },
+        (payloadEncoder, response) ->
+            readBatchResponse(response).stream()
+                .map(payloadEncoder::decode)
+                .collect(Collectors.toList()));
+  }
+
   @Override
   public EncodedPayload encryptPayload(
       final RawTransaction rawTransaction,
       final List<PublicKey> recipientPublicKeys,
       final PrivacyMetadata privacyMetaData) {
 
-    return ClientCallback.execute(
-        () -> {
+    return post(
+        "encrypt/raw",
+        payloadEncoder -> {
           EnclaveRawPayload enclaveRawPayload = new EnclaveRawPayload();
           enclaveRawPayload.setNonce(rawTransaction.getNonce().getNonceBytes());
           enclaveRawPayload.setFrom(rawTransaction.getFrom().getKeyBytes());
@@ -162,21 +184,16 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
           enclaveRawPayload.setAffectedContractTransactions(
               convertAffectedContractTransactions(
-                  privacyMetaData.getAffectedContractTransactions()));
+                  payloadEncoder, privacyMetaData.getAffectedContractTransactions()));
 
           privacyMetaData
               .getPrivacyGroupId()
               .map(PrivacyGroup.Id::getBytes)
               .ifPresent(enclaveRawPayload::setPrivacyGroupId);
 
-          Response response =
-              client
-                  .target(uri)
-                  .path("encrypt")
-                  .path("raw")
-                  .request()
-                  .post(Entity.json(enclaveRawPayload));
-
+          return enclaveRawPayload;
+        },
+        (payloadEncoder, response) -> {
           validateResponseIsOk(response);
 
           byte[] body = response.readEntity(byte[].class);
@@ -188,20 +205,15 @@ public class RestfulEnclaveClient implements EnclaveClient {
   @Override
   public RawTransaction encryptRawPayload(byte[] message, PublicKey sender) {
 
-    return ClientCallback.execute(
-        () -> {
+    return post(
+        "encrypt/toraw",
+        payloadEncoder -> {
           EnclavePayload enclavePayload = new EnclavePayload();
           enclavePayload.setData(message);
           enclavePayload.setSenderKey(sender.getKeyBytes());
-
-          Response response =
-              client
-                  .target(uri)
-                  .path("encrypt")
-                  .path("toraw")
-                  .request()
-                  .post(Entity.json(enclavePayload));
-
+          return enclavePayload;
+        },
+        (payloadEncoder, response) -> {
           validateResponseIsOk(response);
 
           EnclaveRawPayload enclaveRawPayload = response.readEntity(EnclaveRawPayload.class);
@@ -217,8 +229,9 @@ public class RestfulEnclaveClient implements EnclaveClient {
   @Override
   public byte[] unencryptTransaction(EncodedPayload payload, PublicKey providedKey) {
 
-    return ClientCallback.execute(
-        () -> {
+    return post(
+        "unencrypt",
+        payloadEncoder -> {
           EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
 
           byte[] body = payloadEncoder.encode(payload);
@@ -228,79 +241,99 @@ public class RestfulEnclaveClient implements EnclaveClient {
           if (providedKey != null) {
             dto.setProvidedKey(providedKey.getKeyBytes());
           }
-          Response response = client.target(uri).path("unencrypt").request().post(Entity.json(dto));
-
+          return dto;
+        },
+        (payloadEncoder, response) -> {
           validateResponseIsOk(response);
 
           return response.readEntity(byte[].class);
         });
   }
 
+  @Override
+  public List<byte[]> unencryptTransactions(
+      final List<EncodedPayload> payloads, final List<PublicKey> providedKeys) {
+    if (payloads.isEmpty() && providedKeys.isEmpty()) {
+      return List.of();
+    }
+
+    return post(
+        "unencrypt/batch",
+        payloadEncoder -> toBatchPayload(payloadEncoder, payloads, providedKeys),
+        (payloadEncoder, response) -> readBatchResponse(response));
+  }
+
   @Override
   public byte[] unencryptRawPayload(RawTransaction payload) {
 
-    return ClientCallback.execute(
-        () -> {
+    return post(
+        "unencrypt/raw",
+        payloadEncoder -> {
           EnclaveRawPayload enclaveRawPayload = new EnclaveRawPayload();
           enclaveRawPayload.setEncryptedPayload(payload.getEncryptedPayload());
           enclaveRawPayload.setEncryptedKey(payload.getEncryptedKey());
           enclaveRawPayload.setNonce(payload.getNonce().getNonceBytes());
           enclaveRawPayload.setFrom(payload.getFrom().getKeyBytes());
-
-          Response response =
-              client
-                  .target(uri)
-                  .path("unencrypt")
-                  .path("raw")
-                  .request()
-                  .post(Entity.json(enclaveRawPayload));
-
-          return response.readEntity(byte[].class);
-        });
+          return enclaveRawPayload;
+        },
+        (payloadEncoder, response) -> response.readEntity(byte[].class));
   }
 
   @Override
   public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey recipientKey) {
 
-    return ClientCallback.execute(
-        () -> {
+    return post(
+        "addRecipient",
+        payloadEncoder -> {
           final byte[] body = payloadEncoder.encode(payload);
 
           final EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
           dto.setData(body);
           dto.setProvidedKey(recipientKey.getKeyBytes());
-
-          final Response response =
-              client.target(uri).path("addRecipient").request().post(Entity.json(dto));
-
+          return dto;
+        },
+        (payloadEncoder, response) -> {
           validateResponseIsOk(response);
 
           return response.readEntity(byte[].class);
         });
   }
 
+  @Override
+  public List<byte[]> createNewRecipientBoxes(
+      final List<EncodedPayload> payloads, final List<PublicKey> recipientKeys) {
+    if (payloads.isEmpty() && recipientKeys.isEmpty()) {
+      return List.of();
+    }
+
+    return post(
+        "addRecipient/batch",
+        payloadEncoder -> toBatchPayload(payloadEncoder, payloads, recipientKeys),
+        (payloadEncoder, response) -> readBatchResponse(response));
+  }
+
   @Override
   public Set<TxHash> findInvalidSecurityHashes(
       EncodedPayload encodedPayload, List<AffectedTransaction> affectedContractTransactions) {
-    EnclaveFindInvalidSecurityHashesRequestPayload requestPayload =
-        new EnclaveFindInvalidSecurityHashesRequestPayload();
-    requestPayload.setEncodedPayload(this.payloadEncoder.encode(encodedPayload));
-    requestPayload.setAffectedContractTransactions(
-        convertAffectedContractTransactions(affectedContractTransactions));
-
-    Response response =
-        client
-            .target(uri)
-            .path("findinvalidsecurityhashes")
-            .request()
-            .post(Entity.json(requestPayload));
-
-    EnclaveFindInvalidSecurityHashesResponsePayload responsePayload =
-        response.readEntity(EnclaveFindInvalidSecurityHashesResponsePayload.class);
-
-    return responsePayload.getInvalidSecurityHashes().stream()
-        .map(TxHash::new)
-        .collect(Collectors.toSet());
+
+    return post(
+        "findinvalidsecurityhashes",
+        payloadEncoder -> {
+          EnclaveFindInvalidSecurityHashesRequestPayload requestPayload =
+              new EnclaveFindInvalidSecurityHashesRequestPayload();
+          requestPayload.setEncodedPayload(payloadEncoder.encode(encodedPayload));
+          requestPayload.setAffectedContractTransactions(
+              convertAffectedContractTransactions(payloadEncoder, affectedContractTransactions));
+          return requestPayload;
+        },
+        (payloadEncoder, response) -> {
+          EnclaveFindInvalidSecurityHashesResponsePayload responsePayload =
+              response.readEntity(EnclaveFindInvalidSecurityHashesResponsePayload.class);
+
+          return responsePayload.getInvalidSecurityHashes().stream()
+              .map(TxHash::new)
+              .collect(Collectors.toSet());
+        });
   }
 
   /**
@@ -315,22 +348,100 @@ public class RestfulEnclaveClient implements EnclaveClient {
     Future<Status> outcome =
         executorService.submit(
             () -> {
-              Response response = client.target(uri).path("ping").request().get();
-
-              if (response.getStatus() == 200) {
-                return Status.STARTED;
+              try (Response response = target.path("ping").request().get()) {
+                if (response.getStatus() == 200) {
+                  return Status.STARTED;
+                }
+                return Status.STOPPED;
               }
-              return Status.STOPPED;
             });
 
     try {
       return outcome.get(TIMEOUT, TimeUnit.SECONDS);
     } catch (InterruptedException | ExecutionException | TimeoutException ex) {
       LOGGER.trace(null, ex);
+      outcome.cancel(true);
       return Status.STOPPED;
     }
   }
 
+  private Set<PublicKey> getKeys(final String path) {
+    return ClientCallback.execute(
+        () -> {
+          try (Response response = wireFormat().request(target.path(path)).get()) {
+
+            validateResponseIsOk(response);
+
+            if (EnclaveMediaType.APPLICATION_CBOR_TYPE.isCompatible(response.getMediaType())) {
+              return response.readEntity(EnclaveKeysPayload.class).getKeys().stream()
+                  .map(PublicKey::from)
+                  .collect(Collectors.toSet());
+            }
+
+            JsonArray results = response.readEntity(JsonArray.class);
+
+            return IntStream.range(0, results.size())
+                .mapToObj(results::getString)
+                .map(s -> Base64.getDecoder().decode(s))
+                .map(PublicKey::from)
+                .collect(Collectors.toSet());
+          }
+        });
+  }
+
+  /**
+   * Posts a request in the wire format the enclave server supports
+   *
+   * @param path the endpoint to post to
+   * @param body creates the request body, encoding any payloads with the given encoder
+   * @param reader reads the response, decoding any payloads with the given encoder
+   */
+  private <T> T post(
+      final String path,
+      final Function<PayloadEncoder, Object> body,
+      final BiFunction<PayloadEncoder, Response, T> reader) {
+    return ClientCallback.execute(
+        () -> {
+          final WireFormat format = wireFormat();
+          final Entity<Object> entity =
+              Entity.entity(body.apply(format.payloadEncoder), format.mediaType);
+          try (Response response = format.request(target.path(path)).post(entity)) {
+            return reader.apply(format.payloadEncoder, response);
+          }
+        });
+  }
+
+  /**
+   * The wire format to use, which is CBOR if the enclave server lists it as a supported media type.
+   * Older servers have no such list, and are sent JSON.
+   */
+  private WireFormat wireFormat() {
+    final WireFormat current = wireFormat;
+    if (Objects.nonNull(current)) {
+      return current;
+    }
+
+    final WireFormat negotiated;
+    try (Response response =
+        target.path("mediatypes").request(MediaType.APPLICATION_JSON_TYPE).get()) {
+      negotiated = isCBORSupported(response) ? cbor : json;
+    }
+
+    LOGGER.info("Using {} to call the remote enclave at {}", negotiated.mediaType, uri);
+    wireFormat = negotiated;
+    return negotiated;
+  }
+
+  private static boolean isCBORSupported(final Response response) {
+    if (response.getStatus() != 200) {
+      return false;
+    }
+    final JsonArray mediaTypes = response.readEntity(JsonArray.class);
+    return IntStream.range(0, mediaTypes.size())
+        .mapToObj(mediaTypes::getString)
+        .anyMatch(EnclaveMediaType.APPLICATION_CBOR::equals);
+  }
+
   private static void validateResponseIsOk(Response response) {
     if (response.getStatus() != 200) {
       Response.StatusType statusInfo = response.getStatusInfo();
@@ -343,14 +454,90 @@ public class RestfulEnclaveClient implements EnclaveClient {
     }
   }
 
-  private List<KeyValuePair> convertAffectedContractTransactions(
-      List<AffectedTransaction> affectedContractTransactions) {
+  private EnclavePayload toEnclavePayload(
+      final PayloadEncoder payloadEncoder,
+      final PublicKey senderPublicKey,
+      final List<PublicKey> recipientPublicKeys,
+      final PrivacyMetadata privacyMetaData) {
+    EnclavePayload enclavePayload = new EnclavePayload();
+    enclavePayload.setSenderKey(senderPublicKey.getKeyBytes());
+    enclavePayload.setRecipientPublicKeys(
+        recipientPublicKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+    enclavePayload.setPrivacyMode(privacyMetaData.getPrivacyMode());
+    enclavePayload.setAffectedContractTransactions(
+        convertAffectedContractTransactions(
+            payloadEncoder, privacyMetaData.getAffectedContractTransactions()));
+    enclavePayload.setExecHash(privacyMetaData.getExecHash());
+    enclavePayload.setMandatoryRecipients(
+        privacyMetaData.getMandatoryRecipients().stream()
+            .map(PublicKey::getKeyBytes)
+            .collect(Collectors.toList()));
+    privacyMetaData
+        .getPrivacyGroupId()
+        .map(PrivacyGroup.Id::getBytes)
+        .ifPresent(enclavePayload::setPrivacyGroupId);
+    return enclavePayload;
+  }
+
+  /**
+   * Pairs each payload with the key at the same position. A payload given more than once is only
+   * encoded once.
+   */
+  private static EnclaveUnencryptBatchPayload toBatchPayload(
+      final PayloadEncoder payloadEncoder,
+      final List<EncodedPayload> payloads,
+      final List<PublicKey> keys) {
+    if (payloads.size() != keys.size()) {
+      throw new IllegalArgumentException(
+          String.format("Expected %d keys for the payloads, got %d", payloads.size(), keys.size()));
+    }
+
+    final Map<EncodedPayload, byte[]> encoded = new IdentityHashMap<>();
+    final List<EnclaveUnencryptPayload> dtos = new ArrayList<>(payloads.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      final EnclaveUnencryptPayload dto = new EnclaveUnencryptPayload();
+      dto.setData(encoded.computeIfAbsent(payloads.get(i), payloadEncoder::encode));
+      Optional.ofNullable(keys.get(i)).map(PublicKey::getKeyBytes).ifPresent(dto::setProvidedKey);
+      dtos.add(dto);
+    }
+
+    final EnclaveUnencryptBatchPayload batchPayload = new EnclaveUnencryptBatchPayload();
+    batchPayload.setPayloads(dtos);
+    return batchPayload;
+  }
+
+  private static List<byte[]> readBatchResponse(Response response) {
+    validateResponseIsOk(response);
+
+    return response.readEntity(EnclaveBatchResponsePayload.class).getResults();
+  }
+
+  private static List<KeyValuePair> convertAffectedContractTransactions(
+      PayloadEncoder payloadEncoder, List<AffectedTransaction> affectedContractTransactions) {
     return affectedContractTransactions.stream()
         .map(
             affectedTransaction ->
                 new KeyValuePair(
                     affectedTransaction.getHash().getBytes(),
-                    this.payloadEncoder.encode(affectedTransaction.getPayload())))
+                    payloadEncoder.encode(affectedTransaction.getPayload())))
         .collect(Collectors.toList());
   }
+
+  /** A media type for request and response bodies, and the codec for payloads within them */
+  private static final class WireFormat {
+
+    private final MediaType mediaType;
+
+    private final PayloadEncoder payloadEncoder;
+
+    private WireFormat(final MediaType mediaType, final PayloadEncoder payloadEncoder) {
+      this.mediaType = mediaType;
+      this.payloadEncoder = payloadEncoder;
+    }
+
+    /** Raw results, such as decrypted transactions, are returned as octet streams */
+    private Invocation.Builder request(final WebTarget target) {
+      return target.request(mediaType, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+    }
+  }
 }
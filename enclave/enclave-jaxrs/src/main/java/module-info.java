@@ -18,10 +18,14 @@ module tessera.enclave.jaxrs {
   requires com.fasterxml.classmate;
   requires org.glassfish.json.jaxrs;
   requires org.eclipse.persistence.asm;
+  requires com.fasterxml.jackson.core;
+  requires com.fasterxml.jackson.databind;
+  requires com.fasterxml.jackson.dataformat.cbor;
 
   opens com.quorum.tessera.enclave.rest to
       org.eclipse.persistence.moxy,
-      org.eclipse.persistence.core;
+      org.eclipse.persistence.core,
+      com.fasterxml.jackson.databind;
 
   exports com.quorum.tessera.enclave.rest to
       org.eclipse.persistence.core,
@@ -0,0 +1,75 @@
+package com.quorum.tessera.enclave.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import org.junit.Test;
+
+public class CBORMessageBodyProviderTest {
+
+  private final CBORMessageBodyProvider provider = new CBORMessageBodyProvider();
+
+  @Test
+  public void roundTripsEnclaveTypes() throws Exception {
+    final EnclavePayload payload = new EnclavePayload();
+    payload.setData("data".getBytes());
+    payload.setSenderKey("sender".getBytes());
+    payload.setRecipientPublicKeys(List.of("recipient".getBytes()));
+    payload.setPrivacyMode(PrivacyMode.PARTY_PROTECTION);
+    payload.setAffectedContractTransactions(
+        List.of(new KeyValuePair("hash".getBytes(), "securityHash".getBytes())));
+    payload.setExecHash(new byte[0]);
+    payload.setMandatoryRecipients(List.of());
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    provider.writeTo(
+        payload,
+        EnclavePayload.class,
+        EnclavePayload.class,
+        null,
+        EnclaveMediaType.APPLICATION_CBOR_TYPE,
+        null,
+        out);
+
+    // binary values are written as they are, not as base64 text
+    assertThat(new String(out.toByteArray())).contains("sender").doesNotContain("c2VuZGVy");
+
+    final EnclavePayload result =
+        (EnclavePayload)
+            provider.readFrom(
+                (Class) EnclavePayload.class,
+                EnclavePayload.class,
+                null,
+                EnclaveMediaType.APPLICATION_CBOR_TYPE,
+                null,
+                new ByteArrayInputStream(out.toByteArray()));
+
+    assertThat(result).usingRecursiveComparison().isEqualTo(payload);
+  }
+
+  @Test
+  public void onlyEnclaveTypesAsCBORAreSupported() {
+    assertThat(
+            provider.isReadable(
+                EnclavePayload.class, null, null, EnclaveMediaType.APPLICATION_CBOR_TYPE))
+        .isTrue();
+    assertThat(
+            provider.isWriteable(
+                EnclaveBatchResponsePayload.class,
+                null,
+                null,
+                EnclaveMediaType.APPLICATION_CBOR_TYPE))
+        .isTrue();
+
+    assertThat(
+            provider.isReadable(EnclavePayload.class, null, null, MediaType.APPLICATION_JSON_TYPE))
+        .isFalse();
+    assertThat(
+            provider.isWriteable(String.class, null, null, EnclaveMediaType.APPLICATION_CBOR_TYPE))
+        .isFalse();
+  }
+}
@@ -97,7 +97,7 @@ public class EnclaveApplicationTest {
     when(acoth.getRecipientBoxes()).thenReturn(Collections.emptyList());
     when(acoth.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
     when(acoth.getAffectedContractTransactions()).thenReturn(Collections.emptyMap());
-    when(acoth.getExecHash()).thenReturn("0".getBytes());
+    when(acoth.getExecHash()).thenReturn(new byte[0]);
 
     TxHash txHash = new TxHash("key".getBytes());
     AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
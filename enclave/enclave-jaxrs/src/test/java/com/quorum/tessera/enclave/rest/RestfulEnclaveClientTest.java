@@ -9,13 +9,22 @@ import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service.Status;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -458,6 +467,100 @@ public class RestfulEnclaveClientTest {
     verify(enclave).createNewRecipientBox(any(EncodedPayload.class), any(PublicKey.class));
   }
 
+  @Test
+  public void encryptPayloads() {
+
+    List<byte[]> messages = List.of("ONE".getBytes(), "TWO".getBytes());
+
+    PublicKey senderPublicKey = PublicKey.from("PublicKey".getBytes());
+    List<PublicKey> recipientPublicKeys = List.of(PublicKey.from("RecipientPublicKey".getBytes()));
+
+    EncodedPayload encodedPayload = Fixtures.createSample();
+
+    when(enclave.encryptPayloads(
+            anyList(), eq(senderPublicKey), eq(recipientPublicKeys), any(PrivacyMetadata.class)))
+        .thenReturn(List.of(encodedPayload, encodedPayload));
+
+    final PrivacyMetadata privacyMetaData =
+        PrivacyMetadata.Builder.create().withPrivacyMode(PrivacyMode.STANDARD_PRIVATE).build();
+
+    List<EncodedPayload> result =
+        enclaveClient.encryptPayloads(
+            messages, senderPublicKey, recipientPublicKeys, privacyMetaData);
+
+    assertThat(result).hasSize(2);
+    assertThat(payloadEncoder.encode(result.get(1)))
+        .isEqualTo(payloadEncoder.encode(encodedPayload));
+
+    ArgumentCaptor<List<byte[]>> messagesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(enclave)
+        .encryptPayloads(
+            messagesCaptor.capture(),
+            eq(senderPublicKey),
+            eq(recipientPublicKeys),
+            any(PrivacyMetadata.class));
+    assertThat(messagesCaptor.getValue()).containsExactlyElementsOf(messages);
+  }
+
+  @Test
+  public void unencryptTransactions() {
+
+    EncodedPayload payload = Fixtures.createSample();
+
+    PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+
+    when(enclave.unencryptTransactions(anyList(), anyList()))
+        .thenReturn(List.of("ONE".getBytes(), "TWO".getBytes()));
+
+    List<byte[]> result =
+        enclaveClient.unencryptTransactions(
+            List.of(payload, payload), Arrays.asList(providedKey, null));
+
+    assertThat(result).containsExactly("ONE".getBytes(), "TWO".getBytes());
+
+    ArgumentCaptor<List<EncodedPayload>> payloadsCaptor = ArgumentCaptor.forClass(List.class);
+    ArgumentCaptor<List<PublicKey>> keysCaptor = ArgumentCaptor.forClass(List.class);
+    verify(enclave).unencryptTransactions(payloadsCaptor.capture(), keysCaptor.capture());
+
+    assertThat(payloadsCaptor.getValue()).hasSize(2);
+    // the same payload is only decoded once by the remote enclave
+    assertThat(payloadsCaptor.getValue().get(0)).isSameAs(payloadsCaptor.getValue().get(1));
+    assertThat(keysCaptor.getValue()).containsExactly(providedKey, null);
+  }
+
+  @Test
+  public void createNewRecipientBoxes() {
+
+    EncodedPayload payload = Fixtures.createSample();
+
+    List<PublicKey> recipientKeys =
+        List.of(PublicKey.from("ONE".getBytes()), PublicKey.from("TWO".getBytes()));
+
+    when(enclave.createNewRecipientBoxes(anyList(), eq(recipientKeys)))
+        .thenReturn(List.of("BOX1".getBytes(), "BOX2".getBytes()));
+
+    List<byte[]> result =
+        enclaveClient.createNewRecipientBoxes(List.of(payload, payload), recipientKeys);
+
+    assertThat(result).containsExactly("BOX1".getBytes(), "BOX2".getBytes());
+
+    verify(enclave).createNewRecipientBoxes(anyList(), eq(recipientKeys));
+  }
+
+  @Test
+  public void emptyBatchesAreNotSent() {
+
+    assertThat(enclaveClient.unencryptTransactions(List.of(), List.of())).isEmpty();
+    assertThat(enclaveClient.createNewRecipientBoxes(List.of(), List.of())).isEmpty();
+    assertThat(
+            enclaveClient.encryptPayloads(
+                List.of(),
+                PublicKey.from("PublicKey".getBytes()),
+                List.of(),
+                PrivacyMetadata.Builder.forStandardPrivate().build()))
+        .isEmpty();
+  }
+
   @Test
   public void statusStarted() {
     when(enclave.status()).thenReturn(Status.STARTED);
@@ -505,4 +608,92 @@ public class RestfulEnclaveClientTest {
       verify(enclave).defaultPublicKey();
     }
   }
+
+  @Test
+  public void requestsAreSentAsCBORToServersThatSupportIt() {
+
+    final List<MediaType> sentMediaTypes = new ArrayList<>();
+    final ClientRequestFilter recorder =
+        requestContext -> {
+          if (requestContext.hasEntity()) {
+            sentMediaTypes.add(requestContext.getMediaType());
+          }
+        };
+    final RestfulEnclaveClient cborClient =
+        new RestfulEnclaveClient(jersey.client().register(recorder), jersey.target().getUri());
+
+    final EncodedPayload payload = Fixtures.createSample();
+    final PublicKey providedKey = PublicKey.from("providedKey".getBytes());
+    when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(providedKey)))
+        .thenReturn("message".getBytes());
+    when(enclave.getPublicKeys()).thenReturn(Set.of(providedKey));
+
+    assertThat(cborClient.unencryptTransaction(payload, providedKey))
+        .isEqualTo("message".getBytes());
+    assertThat(cborClient.getPublicKeys()).containsExactly(providedKey);
+
+    assertThat(sentMediaTypes).containsExactly(EnclaveMediaType.APPLICATION_CBOR_TYPE);
+
+    final ArgumentCaptor<EncodedPayload> payloadCaptor =
+        ArgumentCaptor.forClass(EncodedPayload.class);
+    verify(enclave).unencryptTransaction(payloadCaptor.capture(), eq(providedKey));
+    verify(enclave).getPublicKeys();
+    assertThat(payloadEncoder.encode(payloadCaptor.getValue()))
+        .isEqualTo(payloadEncoder.encode(payload));
+  }
+
+  @Test
+  public void requestsAreSentAsJsonToServersWithoutCBORSupport() throws Exception {
+
+    final OlderServerFilter olderServer = new OlderServerFilter();
+    final JerseyTest olderJersey =
+        new JerseyTest() {
+          @Override
+          protected Application configure() {
+            set(TestProperties.CONTAINER_PORT, "0");
+            return ResourceConfig.forApplication(new EnclaveApplication(enclave))
+                .register(olderServer);
+          }
+        };
+    olderJersey.setUp();
+    try {
+      final RestfulEnclaveClient jsonClient =
+          new RestfulEnclaveClient(olderJersey.client(), olderJersey.target().getUri());
+
+      final EncodedPayload payload = Fixtures.createSample();
+      final PublicKey providedKey = PublicKey.from("providedKey".getBytes());
+      when(enclave.unencryptTransaction(any(EncodedPayload.class), eq(providedKey)))
+          .thenReturn("message".getBytes());
+      when(enclave.getPublicKeys()).thenReturn(Set.of(providedKey));
+
+      assertThat(jsonClient.unencryptTransaction(payload, providedKey))
+          .isEqualTo("message".getBytes());
+      assertThat(jsonClient.getPublicKeys()).containsExactly(providedKey);
+
+      assertThat(olderServer.receivedMediaTypes).containsExactly(MediaType.APPLICATION_JSON_TYPE);
+
+      verify(enclave).unencryptTransaction(any(EncodedPayload.class), eq(providedKey));
+      verify(enclave).getPublicKeys();
+    } finally {
+      olderJersey.tearDown();
+    }
+  }
+
+  /** Behaves as a server from before CBOR support, which has no list of media types */
+  @PreMatching
+  static class OlderServerFilter implements ContainerRequestFilter {
+
+    private final List<MediaType> receivedMediaTypes = new ArrayList<>();
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+      if (requestContext.getUriInfo().getPath().equals("mediatypes")) {
+        requestContext.abortWith(Response.serverError().build());
+        return;
+      }
+      if (requestContext.hasEntity()) {
+        receivedMediaTypes.add(requestContext.getMediaType());
+      }
+    }
+  }
 }
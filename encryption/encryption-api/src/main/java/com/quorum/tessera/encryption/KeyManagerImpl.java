@@ -1,10 +1,12 @@
 package com.quorum.tessera.encryption;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,20 +14,33 @@ public class KeyManagerImpl implements KeyManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(KeyManagerImpl.class);
 
-  /** A list of all pub/priv keys that are attached to this node */
-  private final Set<KeyPair> localKeys;
-
-  private final KeyPair defaultKeys;
-
-  private final Set<PublicKey> forwardingPublicKeys;
+  /** All pub/priv keys that are attached to this node, replaced as a whole when keys change */
+  private volatile Keys keys;
 
   public KeyManagerImpl(final Collection<KeyPair> keys, Collection<PublicKey> forwardKeys) {
+    final Set<KeyPair> localKeys = new HashSet<>(keys);
+    this.keys = new Keys(localKeys, localKeys.iterator().next(), forwardKeys);
+  }
 
-    this.localKeys = new HashSet<>(keys);
-
-    this.defaultKeys = localKeys.iterator().next();
-
-    this.forwardingPublicKeys = new HashSet<>(forwardKeys);
+  /**
+   * Replaces the keys managed by this node. Lookups made while the keys are being replaced see
+   * either the old or the new keys, never a mixture of both.
+   *
+   * <p>The default key is kept if it is still one of the local keys, so that it does not change
+   * during a run unless it has been removed.
+   *
+   * @param keyPairs the new local key pairs
+   * @param forwardKeys the new keys that all transactions are forwarded to
+   */
+  public synchronized void replaceKeys(
+      final Collection<KeyPair> keyPairs, final Collection<PublicKey> forwardKeys) {
+    final Set<KeyPair> localKeys = new HashSet<>(keyPairs);
+    final KeyPair currentDefault = this.keys.defaultKeys;
+    final KeyPair defaultKeys =
+        localKeys.contains(currentDefault) ? currentDefault : localKeys.iterator().next();
+
+    this.keys = new Keys(localKeys, defaultKeys, forwardKeys);
+    LOGGER.info("Replaced local keys, now managing {} keys", localKeys.size());
   }
 
   @Override
@@ -33,10 +48,8 @@ public class KeyManagerImpl implements KeyManager {
     LOGGER.debug("Attempting to find public key for the private key {}", privateKey);
 
     final PublicKey publicKey =
-        localKeys.stream()
-            .filter(keypair -> Objects.equals(keypair.getPrivateKey(), privateKey))
-            .findFirst()
-            .map(KeyPair::getPublicKey)
+        Optional.ofNullable(privateKey)
+            .map(keys.publicKeysByPrivateKey::get)
             .orElseThrow(
                 () ->
                     new KeyNotFoundException(
@@ -54,10 +67,8 @@ public class KeyManagerImpl implements KeyManager {
     LOGGER.debug("Attempting to find private key for the public key {}", publicKey);
 
     final PrivateKey privateKey =
-        localKeys.stream()
-            .filter(keypair -> Objects.equals(keypair.getPublicKey(), publicKey))
-            .findFirst()
-            .map(KeyPair::getPrivateKey)
+        Optional.ofNullable(publicKey)
+            .map(keys.privateKeysByPublicKey::get)
             .orElseThrow(
                 () ->
                     new KeyNotFoundException(
@@ -70,18 +81,52 @@ public class KeyManagerImpl implements KeyManager {
     return privateKey;
   }
 
+  /** The returned set is shared between callers and cannot be modified */
   @Override
   public Set<PublicKey> getPublicKeys() {
-    return localKeys.stream().map(KeyPair::getPublicKey).collect(Collectors.toSet());
+    return keys.publicKeys;
   }
 
   @Override
   public PublicKey defaultPublicKey() {
-    return defaultKeys.getPublicKey();
+    return keys.defaultKeys.getPublicKey();
   }
 
   @Override
   public Set<PublicKey> getForwardingKeys() {
-    return this.forwardingPublicKeys;
+    return keys.forwardingPublicKeys;
+  }
+
+  /** An immutable snapshot of the keys, indexed for lookups in either direction */
+  private static final class Keys {
+
+    private final Map<PublicKey, PrivateKey> privateKeysByPublicKey;
+
+    private final Map<PrivateKey, PublicKey> publicKeysByPrivateKey;
+
+    private final Set<PublicKey> publicKeys;
+
+    private final KeyPair defaultKeys;
+
+    private final Set<PublicKey> forwardingPublicKeys;
+
+    private Keys(
+        final Set<KeyPair> localKeys,
+        final KeyPair defaultKeys,
+        final Collection<PublicKey> forwardKeys) {
+      final Map<PublicKey, PrivateKey> privateKeys = new HashMap<>(localKeys.size() * 2);
+      final Map<PrivateKey, PublicKey> publicKeys = new HashMap<>(localKeys.size() * 2);
+      for (final KeyPair keyPair : localKeys) {
+        privateKeys.putIfAbsent(keyPair.getPublicKey(), keyPair.getPrivateKey());
+        publicKeys.putIfAbsent(keyPair.getPrivateKey(), keyPair.getPublicKey());
+      }
+
+      // not Map.copyOf or Set.copyOf, whose contains(null) throws rather than returning false
+      this.privateKeysByPublicKey = Collections.unmodifiableMap(privateKeys);
+      this.publicKeysByPrivateKey = Collections.unmodifiableMap(publicKeys);
+      this.publicKeys = Collections.unmodifiableSet(new HashSet<>(privateKeys.keySet()));
+      this.defaultKeys = defaultKeys;
+      this.forwardingPublicKeys = Collections.unmodifiableSet(new HashSet<>(forwardKeys));
+    }
   }
 }
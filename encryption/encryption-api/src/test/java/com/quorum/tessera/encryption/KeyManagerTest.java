@@ -5,6 +5,7 @@ import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import org.junit.Before;
@@ -92,4 +93,40 @@ public class KeyManagerTest {
         .hasSize(1)
         .containsExactlyInAnyOrder(FORWARDING_KEY);
   }
+
+  @Test
+  public void getPublicKeysReturnsSameUnmodifiableView() {
+    final Set<PublicKey> publicKeys = this.keyManager.getPublicKeys();
+
+    assertThat(this.keyManager.getPublicKeys()).isSameAs(publicKeys);
+    assertThat(publicKeys.contains(null)).isFalse();
+    assertThat(catchThrowable(() -> publicKeys.add(FORWARDING_KEY)))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void replaceKeysSwapsAllLookups() {
+    final PublicKey newPublicKey = PublicKey.from("newPublicKey".getBytes());
+    final PrivateKey newPrivateKey = PrivateKey.from("newPrivateKey".getBytes());
+    final PublicKey newForwardingKey = PublicKey.from("newForwardingKey".getBytes());
+
+    final KeyManagerImpl keyManager =
+        new KeyManagerImpl(singleton(new KeyPair(PUBLIC_KEY, PRIVATE_KEY)), emptyList());
+
+    keyManager.replaceKeys(
+        List.of(new KeyPair(PUBLIC_KEY, PRIVATE_KEY), new KeyPair(newPublicKey, newPrivateKey)),
+        singleton(newForwardingKey));
+
+    assertThat(keyManager.getPublicKeys()).containsExactlyInAnyOrder(PUBLIC_KEY, newPublicKey);
+    assertThat(keyManager.getPrivateKeyForPublicKey(newPublicKey)).isEqualTo(newPrivateKey);
+    assertThat(keyManager.getPublicKeyForPrivateKey(newPrivateKey)).isEqualTo(newPublicKey);
+    assertThat(keyManager.getForwardingKeys()).containsExactly(newForwardingKey);
+    assertThat(keyManager.defaultPublicKey()).isEqualTo(PUBLIC_KEY);
+
+    keyManager.replaceKeys(singleton(new KeyPair(newPublicKey, newPrivateKey)), emptyList());
+
+    assertThat(keyManager.defaultPublicKey()).isEqualTo(newPublicKey);
+    assertThat(catchThrowable(() -> keyManager.getPrivateKeyForPublicKey(PUBLIC_KEY)))
+        .isInstanceOf(KeyNotFoundException.class);
+  }
 }
@@ -0,0 +1,112 @@
+package com.quorum.tessera.codec.migration;
+
+import com.quorum.tessera.cli.CliAdapter;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadDictionary;
+import com.quorum.tessera.enclave.PayloadDictionaryHolder;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    headerHeading = "Usage:%n%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    header = "Re-encode the stored transactions of a node with another payload codec",
+    description =
+        "Rows are rewritten in small batches, each in its own database transaction, so the node"
+            + " can keep running while they are. Rows already stored with the codec are skipped,"
+            + " so an interrupted run can be started again. Every shard listed in shardUrls is"
+            + " rewritten in turn.")
+public class CodecMigrationCliAdapter implements CliAdapter, Callable<CliResult> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CodecMigrationCliAdapter.class);
+
+  @CommandLine.Option(
+      names = "--config",
+      description = "path to the node configuration file",
+      required = true)
+  private Config config;
+
+  @CommandLine.Option(
+      names = "--codec",
+      description = "the codec to store payloads with, one of ${COMPLETION-CANDIDATES}",
+      defaultValue = "CBOR_V2_DEFLATE")
+  private EncodedPayloadCodec codec;
+
+  @CommandLine.Option(
+      names = "--batch-size",
+      description = "number of rows rewritten in each database transaction",
+      defaultValue = "100")
+  private int batchSize;
+
+  @Override
+  public CliType getType() {
+    return CliType.CODEC_MIGRATION;
+  }
+
+  @Override
+  public CliResult execute(String... args) {
+    final JdbcConfig jdbcConfig = config.getJdbcConfig();
+
+    // the same dictionary as the node, so that it can read the rewritten payloads
+    Optional.ofNullable(jdbcConfig.getPayloadDictionary())
+        .map(Paths::get)
+        .map(PayloadDictionary::read)
+        .ifPresent(PayloadDictionaryHolder.INSTANCE::setDictionary);
+
+    final List<String> urls = urls(jdbcConfig);
+    for (int i = 0; i < urls.size(); i++) {
+      final EntityManagerFactory entityManagerFactory =
+          entityManagerFactory(jdbcConfig, urls.get(i), i);
+      try {
+        LOGGER.info("Re-encoding transactions in database {} of {}", i + 1, urls.size());
+        new PayloadRewriter(entityManagerFactory, codec, batchSize).rewrite();
+      } finally {
+        entityManagerFactory.close();
+      }
+    }
+
+    return new CliResult(0, true, null);
+  }
+
+  /** The shards that stored transactions are split across, or else the single database */
+  static List<String> urls(JdbcConfig jdbcConfig) {
+    if (Objects.nonNull(jdbcConfig.getShardUrls()) && !jdbcConfig.getShardUrls().isEmpty()) {
+      return jdbcConfig.getShardUrls();
+    }
+    return List.of(jdbcConfig.getUrl());
+  }
+
+  private static EntityManagerFactory entityManagerFactory(
+      JdbcConfig jdbcConfig, String url, int index) {
+    // a configuration with shard urls need not have a url of its own
+    final Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", url);
+    properties.put("jakarta.persistence.jdbc.user", jdbcConfig.getUsername());
+    properties.put("jakarta.persistence.jdbc.password", jdbcConfig.getPassword());
+    // each database needs a session of its own, or the factories would share the first one
+    properties.put("eclipselink.session-name", "tessera-codec-migration-" + index);
+    return Persistence.createEntityManagerFactory("tessera", properties);
+  }
+
+  @Override
+  public CliResult call() {
+    return this.execute();
+  }
+}
@@ -0,0 +1,143 @@
+package com.quorum.tessera.codec.migration;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Re-encodes every stored transaction that is not already stored with the target codec, walking
+ * the table in (timestamp, hash) order one page at a time. Each page is rewritten in its own
+ * database transaction, and a row is only ever replaced by the same payload in another encoding,
+ * so nodes reading the table while it runs see either encoding.
+ *
+ * <p>Only the payload column of a row is rewritten. Recipient boxes added to a transaction are kept
+ * in rows of their own, which are left as they are, so boxes that a running node adds while the
+ * table is rewritten are not lost. A row is only updated if it is still stored with the codec it
+ * was read with, so a payload the node has replaced since is not overwritten.
+ */
+public class PayloadRewriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadRewriter.class);
+
+  private static final String UPDATE_PAYLOAD =
+      "update EncryptedTransaction et set et.encodedPayload = :payload,"
+          + " et.encodedPayloadCodec = :codec where et.hash.hashBytes = :hash"
+          + " and et.encodedPayloadCodec = :current";
+
+  /** Rows written before the codec was recorded have none, and are LEGACY. */
+  private static final String UPDATE_LEGACY_PAYLOAD =
+      "update EncryptedTransaction et set et.encodedPayload = :payload,"
+          + " et.encodedPayloadCodec = :codec where et.hash.hashBytes = :hash"
+          + " and (et.encodedPayloadCodec = :current or et.encodedPayloadCodec is null)";
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  private final EncodedPayloadCodec codec;
+
+  private final int batchSize;
+
+  public PayloadRewriter(
+      final EntityManagerFactory entityManagerFactory,
+      final EncodedPayloadCodec codec,
+      final int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be greater than 0");
+    }
+    this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+    this.codec = Objects.requireNonNull(codec);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return the number of transactions that were re-encoded
+   */
+  public long rewrite() {
+    long lastTimestamp = Long.MIN_VALUE;
+    MessageHash lastHash = null;
+    long read = 0;
+    long rewritten = 0;
+
+    while (true) {
+      final EntityManager entityManager = entityManagerFactory.createEntityManager();
+      try {
+        entityManager.getTransaction().begin();
+
+        final List<EncryptedTransaction> page = page(entityManager, lastTimestamp, lastHash);
+        // the rows are updated on their own, so the loaded transactions must not be written back
+        entityManager.clear();
+        for (final EncryptedTransaction transaction : page) {
+          if (rewrite(entityManager, transaction)) {
+            rewritten++;
+          }
+          lastTimestamp = transaction.getTimestamp();
+          lastHash = transaction.getHash();
+        }
+
+        entityManager.getTransaction().commit();
+
+        read += page.size();
+        LOGGER.info("Read {} transactions, re-encoded {} as {}", read, rewritten, codec);
+
+        if (page.size() < batchSize) {
+          return rewritten;
+        }
+      } finally {
+        if (entityManager.getTransaction().isActive()) {
+          entityManager.getTransaction().rollback();
+        }
+        entityManager.close();
+      }
+    }
+  }
+
+  private boolean rewrite(
+      final EntityManager entityManager, final EncryptedTransaction transaction) {
+    final EncodedPayloadCodec current =
+        Optional.ofNullable(transaction.getEncodedPayloadCodec())
+            .orElse(EncodedPayloadCodec.LEGACY);
+    if (current == codec) {
+      return false;
+    }
+    // the stored column alone, without the added boxes that reading the payload merges in
+    final EncodedPayload payload =
+        PayloadEncoder.create(current).decode(transaction.getEncodedPayload());
+    final Query update =
+        entityManager
+            .createQuery(
+                current == EncodedPayloadCodec.LEGACY ? UPDATE_LEGACY_PAYLOAD : UPDATE_PAYLOAD)
+            .setParameter("payload", PayloadEncoder.create(codec).encode(payload))
+            .setParameter("codec", codec)
+            .setParameter("hash", transaction.getHash().getHashBytes())
+            .setParameter("current", current);
+    return update.executeUpdate() > 0;
+  }
+
+  private List<EncryptedTransaction> page(
+      final EntityManager entityManager, final long afterTimestamp, final MessageHash afterHash) {
+    final TypedQuery<EncryptedTransaction> query;
+    if (Objects.isNull(afterHash)) {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllFrom", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp);
+    } else {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllAfter", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp)
+              .setParameter("hash", afterHash.getHashBytes());
+    }
+    return query.setMaxResults(batchSize).getResultList();
+  }
+}
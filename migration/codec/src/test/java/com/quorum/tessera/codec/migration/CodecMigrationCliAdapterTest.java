@@ -0,0 +1,164 @@
+package com.quorum.tessera.codec.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.cli.parsers.ConfigConverter;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.util.JaxbUtil;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine;
+
+public class CodecMigrationCliAdapterTest {
+
+  private static final PublicKey SENDER = PublicKey.from("sender".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("recipient".getBytes());
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  @Test
+  public void type() {
+    assertThat(new CodecMigrationCliAdapter().getType()).isEqualTo(CliType.CODEC_MIGRATION);
+  }
+
+  @Test
+  public void urlsAreShardUrlsOrElseUrl() {
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setUrl("jdbc:h2:mem:single");
+
+    assertThat(CodecMigrationCliAdapter.urls(jdbcConfig)).containsExactly("jdbc:h2:mem:single");
+
+    jdbcConfig.setShardUrls(List.of("jdbc:h2:mem:first", "jdbc:h2:mem:second"));
+    assertThat(CodecMigrationCliAdapter.urls(jdbcConfig))
+        .containsExactly("jdbc:h2:mem:first", "jdbc:h2:mem:second");
+  }
+
+  @Test
+  public void rewritesEveryShardKeepingAddedBoxes() throws IOException {
+    final String firstUrl = "jdbc:h2:" + workDir.getRoot().toPath().resolve("first.db");
+    final String secondUrl = "jdbc:h2:" + workDir.getRoot().toPath().resolve("second.db");
+    final MessageHash first = new MessageHash("first".getBytes());
+    final MessageHash second = new MessageHash("second".getBytes());
+    seed(firstUrl, first);
+    seed(secondUrl, second);
+
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setUsername("junit");
+    jdbcConfig.setPassword("junit");
+    jdbcConfig.setShardUrls(List.of(firstUrl, secondUrl));
+
+    final CommandLine commandLine = new CommandLine(new CodecMigrationCliAdapter());
+    commandLine
+        .registerConverter(Config.class, new ConfigConverter())
+        .setSeparator(" ")
+        .setCaseInsensitiveEnumValuesAllowed(true);
+
+    final int exitCode =
+        commandLine.execute("--config", write(jdbcConfig).toString(), "--codec", "CBOR_V2");
+    assertThat(exitCode).isZero();
+
+    assertRewritten(firstUrl, first);
+    assertRewritten(secondUrl, second);
+  }
+
+  private static void seed(final String url, final MessageHash hash) {
+    final EntityManagerFactory entityManagerFactory = entityManagerFactory(url, "codec-test-seed");
+    try {
+      final EntityManager entityManager = entityManagerFactory.createEntityManager();
+      entityManager.getTransaction().begin();
+      // stored with the default codec, CBOR
+      entityManager.persist(new EncryptedTransaction(hash, payload()));
+      entityManager.flush();
+      entityManager
+          .createNativeQuery(
+              "INSERT INTO ENCRYPTED_TRANSACTION_BOX"
+                  + " (HASH, SEQUENCE_NUMBER, BOX, PREPENDED, PUBLIC_KEY)"
+                  + " VALUES (?1, 1, ?2, ?3, ?4)")
+          .setParameter(1, hash.getHashBytes())
+          .setParameter(2, "added".getBytes())
+          .setParameter(3, false)
+          .setParameter(4, SENDER.getKeyBytes())
+          .executeUpdate();
+      entityManager.getTransaction().commit();
+      entityManager.close();
+    } finally {
+      entityManagerFactory.close();
+    }
+  }
+
+  private static void assertRewritten(final String url, final MessageHash hash) {
+    final EntityManagerFactory entityManagerFactory =
+        entityManagerFactory(url, "codec-test-check");
+    try {
+      final EntityManager entityManager = entityManagerFactory.createEntityManager();
+      final EncryptedTransaction transaction = entityManager.find(EncryptedTransaction.class, hash);
+
+      assertThat(transaction.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR_V2);
+      assertThat(
+              PayloadEncoder.create(EncodedPayloadCodec.CBOR_V2)
+                  .decode(transaction.getEncodedPayload()))
+          .isEqualTo(payload());
+      assertThat(transaction.getAddedBoxes()).hasSize(1);
+      assertThat(transaction.getPayload().getRecipientKeys()).containsExactly(RECIPIENT, SENDER);
+      assertThat(transaction.getPayload().getRecipientBoxes())
+          .containsExactly(
+              RecipientBox.from("box".getBytes()), RecipientBox.from("added".getBytes()));
+      entityManager.close();
+    } finally {
+      entityManagerFactory.close();
+    }
+  }
+
+  private Path write(final JdbcConfig jdbcConfig) throws IOException {
+    final Config config = new Config();
+    config.setJdbcConfig(jdbcConfig);
+    final Path path = workDir.getRoot().toPath().toAbsolutePath().resolve("config.json");
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      JaxbUtil.marshalWithNoValidation(config, outputStream);
+    }
+    return path;
+  }
+
+  private static EntityManagerFactory entityManagerFactory(
+      final String url, final String sessionName) {
+    final Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", url);
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "junit");
+    properties.put("eclipselink.session-name", sessionName);
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+    return Persistence.createEntityManagerFactory("tessera", properties);
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(SENDER)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(RECIPIENT))
+        .withRecipientBoxes(List.of("box".getBytes()))
+        .build();
+  }
+}
@@ -0,0 +1,138 @@
+package com.quorum.tessera.codec.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class PayloadRewriterTest {
+
+  private final EncodedPayload payload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText("cipherText".getBytes())
+          .withCipherTextNonce("nonce".getBytes())
+          .withRecipientNonce("recipientNonce".getBytes())
+          .withRecipientBoxes(List.of("box".getBytes()))
+          .withRecipientKeys(List.of(PublicKey.from("recipient".getBytes())))
+          .build();
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private EntityManager entityManager;
+
+  private EntityTransaction entityTransaction;
+
+  private TypedQuery<EncryptedTransaction> query;
+
+  private Query update;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void beforeTest() {
+    entityManagerFactory = mock(EntityManagerFactory.class);
+    entityManager = mock(EntityManager.class);
+    entityTransaction = mock(EntityTransaction.class);
+    query = mock(TypedQuery.class);
+    update = mock(Query.class);
+
+    when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+    when(entityManager.getTransaction()).thenReturn(entityTransaction);
+    when(entityManager.createNamedQuery(anyString(), any(Class.class))).thenReturn(query);
+    when(query.setParameter(anyString(), any())).thenReturn(query);
+    when(query.setMaxResults(anyInt())).thenReturn(query);
+    when(entityManager.createQuery(anyString())).thenReturn(update);
+    when(update.setParameter(anyString(), any())).thenReturn(update);
+    when(update.executeUpdate()).thenReturn(1);
+  }
+
+  @Test
+  public void rowsNotStoredWithTheCodecAreReEncoded() {
+    final EncryptedTransaction legacy = stored("legacy", 1L, null);
+    final EncryptedTransaction cbor = stored("cbor", 2L, EncodedPayloadCodec.CBOR);
+    final EncryptedTransaction compressed =
+        stored("compressed", 3L, EncodedPayloadCodec.CBOR_V2_DEFLATE);
+    when(query.getResultList()).thenReturn(List.of(legacy, cbor), List.of(compressed));
+
+    final long rewritten =
+        new PayloadRewriter(entityManagerFactory, EncodedPayloadCodec.CBOR_V2_DEFLATE, 2)
+            .rewrite();
+
+    assertThat(rewritten).isEqualTo(2);
+    final ArgumentCaptor<Object> encoded = ArgumentCaptor.forClass(Object.class);
+    verify(update, times(2)).setParameter(eq("payload"), encoded.capture());
+    assertThat(encoded.getAllValues())
+        .allSatisfy(
+            bytes ->
+                assertThat(
+                        PayloadEncoder.create(EncodedPayloadCodec.CBOR_V2_DEFLATE)
+                            .decode((byte[]) bytes))
+                    .isEqualTo(payload));
+    verify(update, times(2)).setParameter("codec", EncodedPayloadCodec.CBOR_V2_DEFLATE);
+    verify(update).setParameter("hash", legacy.getHash().getHashBytes());
+    verify(update).setParameter("current", EncodedPayloadCodec.LEGACY);
+    verify(update).setParameter("current", EncodedPayloadCodec.CBOR);
+    verify(update, times(2)).executeUpdate();
+    verify(entityManager, times(2)).clear();
+
+    verify(entityManager)
+        .createNamedQuery("EncryptedTransaction.FindAllFrom", EncryptedTransaction.class);
+    verify(entityManager)
+        .createNamedQuery("EncryptedTransaction.FindAllAfter", EncryptedTransaction.class);
+    verify(query).setParameter("timestamp", Long.MIN_VALUE);
+    verify(query).setParameter("timestamp", 2L);
+    verify(query).setParameter("hash", cbor.getHash().getHashBytes());
+    verify(entityTransaction, times(2)).commit();
+    verify(entityManager, times(2)).close();
+  }
+
+  @Test
+  public void failedPageIsRolledBack() {
+    when(query.getResultList()).thenThrow(new IllegalStateException("failed"));
+    when(entityTransaction.isActive()).thenReturn(true);
+
+    final PayloadRewriter payloadRewriter =
+        new PayloadRewriter(entityManagerFactory, EncodedPayloadCodec.CBOR_V2, 10);
+
+    assertThatExceptionOfType(IllegalStateException.class).isThrownBy(payloadRewriter::rewrite);
+
+    verify(entityTransaction).rollback();
+    verify(entityManager).close();
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(
+            () -> new PayloadRewriter(entityManagerFactory, EncodedPayloadCodec.CBOR_V2, 0));
+  }
+
+  private EncryptedTransaction stored(String hash, long timestamp, EncodedPayloadCodec codec) {
+    final EncodedPayloadCodec storedWith =
+        codec == null ? EncodedPayloadCodec.LEGACY : codec;
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(new MessageHash(hash.getBytes()));
+    transaction.setTimestamp(timestamp);
+    transaction.setEncodedPayloadCodec(codec);
+    transaction.setEncodedPayload(PayloadEncoder.create(storedWith).encode(payload));
+    return transaction;
+  }
+}
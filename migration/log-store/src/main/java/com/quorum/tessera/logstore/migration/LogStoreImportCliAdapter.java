@@ -0,0 +1,85 @@
+package com.quorum.tessera.logstore.migration;
+
+import com.quorum.tessera.cli.CliAdapter;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.data.logstore.LogStore;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedTransactionDAO;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    headerHeading = "Usage:%n%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    header = "Copy the stored transactions of a node from its database into its log store",
+    description =
+        "Transactions are read from the database tables in small batches and appended to the log"
+            + " store directory of the configuration, which the node must not be using while they"
+            + " are. Transactions already in the log store are skipped, so an interrupted run can"
+            + " be started again.")
+public class LogStoreImportCliAdapter implements CliAdapter, Callable<CliResult> {
+
+  @CommandLine.Option(
+      names = "--config",
+      description = "path to the node configuration file",
+      required = true)
+  private Config config;
+
+  @CommandLine.Option(
+      names = "--batch-size",
+      description = "number of rows read from the database at a time",
+      defaultValue = "100")
+  private int batchSize;
+
+  @Override
+  public CliType getType() {
+    return CliType.LOG_STORE_IMPORT;
+  }
+
+  @Override
+  public CliResult execute(String... args) {
+    final JdbcConfig jdbcConfig = config.getJdbcConfig();
+    if (Objects.isNull(jdbcConfig.getLogStoreDirectory())) {
+      throw new IllegalArgumentException("The configuration has no log store directory");
+    }
+
+    final EntityManagerFactory entityManagerFactory =
+        Persistence.createEntityManagerFactory(
+            "tessera",
+            Map.of(
+                "jakarta.persistence.jdbc.url", jdbcConfig.getUrl(),
+                "jakarta.persistence.jdbc.user", jdbcConfig.getUsername(),
+                "jakarta.persistence.jdbc.password", jdbcConfig.getPassword()));
+
+    try (LogStore logStore = new LogStore(Paths.get(jdbcConfig.getLogStoreDirectory()))) {
+      final LogStoreImporter importer =
+          new LogStoreImporter(
+              entityManagerFactory,
+              new LogStoreEncryptedTransactionDAO(logStore),
+              new LogStoreEncryptedRawTransactionDAO(logStore),
+              batchSize);
+      importer.importTransactions();
+      importer.importRawTransactions();
+    } finally {
+      entityManagerFactory.close();
+    }
+
+    return new CliResult(0, true, null);
+  }
+
+  @Override
+  public CliResult call() {
+    return this.execute();
+  }
+}
@@ -0,0 +1,146 @@
+package com.quorum.tessera.logstore.migration;
+
+import com.quorum.tessera.data.EncryptedRawTransaction;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedTransactionDAO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies the transactions and raw transactions of the database tables into a log store, one page
+ * at a time. The stored bytes are copied as they are, along with their timestamps and any added
+ * recipient boxes, so no payload is decoded. Transactions already in the log store are skipped,
+ * so an interrupted import can be started again.
+ */
+public class LogStoreImporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreImporter.class);
+
+  private static final String BATCH_HINT = "eclipselink.batch";
+
+  private static final String BATCH_TYPE_HINT = "eclipselink.batch.type";
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  private final LogStoreEncryptedTransactionDAO transactionDAO;
+
+  private final LogStoreEncryptedRawTransactionDAO rawTransactionDAO;
+
+  private final int batchSize;
+
+  public LogStoreImporter(
+      final EntityManagerFactory entityManagerFactory,
+      final LogStoreEncryptedTransactionDAO transactionDAO,
+      final LogStoreEncryptedRawTransactionDAO rawTransactionDAO,
+      final int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be greater than 0");
+    }
+    this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+    this.transactionDAO = Objects.requireNonNull(transactionDAO);
+    this.rawTransactionDAO = Objects.requireNonNull(rawTransactionDAO);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return the number of transactions that were copied
+   */
+  public long importTransactions() {
+    long lastTimestamp = Long.MIN_VALUE;
+    MessageHash lastHash = null;
+    long read = 0;
+    long copied = 0;
+
+    while (true) {
+      final long afterTimestamp = lastTimestamp;
+      final MessageHash afterHash = lastHash;
+      final List<EncryptedTransaction> page =
+          inEntityManager(
+              entityManager -> {
+                final List<EncryptedTransaction> transactions =
+                    page(entityManager, afterTimestamp, afterHash);
+                // the added boxes are read while the entity manager is open
+                transactions.forEach(transaction -> transaction.getAddedBoxes().size());
+                return transactions;
+              });
+      copied += transactionDAO.copyAll(page);
+
+      read += page.size();
+      LOGGER.info("Read {} transactions, copied {} to the log store", read, copied);
+      if (page.size() < batchSize) {
+        return copied;
+      }
+
+      final EncryptedTransaction last = page.get(page.size() - 1);
+      lastTimestamp = last.getTimestamp();
+      lastHash = last.getHash();
+    }
+  }
+
+  /**
+   * @return the number of raw transactions that were copied
+   */
+  public long importRawTransactions() {
+    long read = 0;
+    long copied = 0;
+
+    while (true) {
+      final long offset = read;
+      final List<EncryptedRawTransaction> page =
+          inEntityManager(
+              entityManager ->
+                  entityManager
+                      .createNamedQuery(
+                          "EncryptedRawTransaction.FindAll", EncryptedRawTransaction.class)
+                      .setFirstResult(Math.toIntExact(offset))
+                      .setMaxResults(batchSize)
+                      .getResultList());
+      copied += rawTransactionDAO.copyAll(page);
+
+      read += page.size();
+      LOGGER.info("Read {} raw transactions, copied {} to the log store", read, copied);
+      if (page.size() < batchSize) {
+        return copied;
+      }
+    }
+  }
+
+  private List<EncryptedTransaction> page(
+      final EntityManager entityManager, final long afterTimestamp, final MessageHash afterHash) {
+    final TypedQuery<EncryptedTransaction> query;
+    if (Objects.isNull(afterHash)) {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllFrom", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp);
+    } else {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllAfter", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp)
+              .setParameter("hash", afterHash.getHashBytes());
+    }
+    return query
+        .setHint(BATCH_HINT, "et.addedBoxes")
+        .setHint(BATCH_TYPE_HINT, "IN")
+        .setMaxResults(batchSize)
+        .getResultList();
+  }
+
+  private <T> T inEntityManager(final Function<EntityManager, T> function) {
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      return function.apply(entityManager);
+    } finally {
+      entityManager.close();
+    }
+  }
+}
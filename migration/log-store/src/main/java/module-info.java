@@ -0,0 +1,17 @@
+module tessera.migration.logstore {
+  requires tessera.cli.api;
+  requires tessera.data;
+  requires tessera.config;
+  requires tessera.encryption.api;
+  requires info.picocli;
+  requires tessera.enclave.api;
+  requires java.sql;
+  requires jakarta.persistence;
+  requires org.slf4j;
+
+  opens com.quorum.tessera.logstore.migration to
+      info.picocli;
+
+  exports com.quorum.tessera.logstore.migration to
+      info.picocli;
+}
@@ -0,0 +1,14 @@
+package com.quorum.tessera.logstore.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.cli.CliType;
+import org.junit.Test;
+
+public class LogStoreImportCliAdapterTest {
+
+  @Test
+  public void type() {
+    assertThat(new LogStoreImportCliAdapter().getType()).isEqualTo(CliType.LOG_STORE_IMPORT);
+  }
+}
@@ -0,0 +1,169 @@
+package com.quorum.tessera.logstore.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedRawTransaction;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.logstore.LogStore;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedTransactionDAO;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStoreImporterTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private final EncodedPayload payload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText("cipherText".getBytes())
+          .withCipherTextNonce("nonce".getBytes())
+          .withRecipientNonce("recipientNonce".getBytes())
+          .withRecipientBoxes(List.of("box".getBytes()))
+          .withRecipientKeys(List.of(PublicKey.from("recipient".getBytes())))
+          .build();
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private EntityManager entityManager;
+
+  private TypedQuery query;
+
+  private LogStore logStore;
+
+  private LogStoreImporter importer;
+
+  @Before
+  public void beforeTest() {
+    entityManagerFactory = mock(EntityManagerFactory.class);
+    entityManager = mock(EntityManager.class);
+    query = mock(TypedQuery.class);
+
+    when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+    when(entityManager.createNamedQuery(anyString(), any(Class.class))).thenReturn(query);
+    when(query.setParameter(anyString(), any())).thenReturn(query);
+    when(query.setHint(anyString(), any())).thenReturn(query);
+    when(query.setFirstResult(anyInt())).thenReturn(query);
+    when(query.setMaxResults(anyInt())).thenReturn(query);
+
+    logStore = new LogStore(workDir.getRoot().toPath());
+    importer =
+        new LogStoreImporter(
+            entityManagerFactory,
+            new LogStoreEncryptedTransactionDAO(logStore),
+            new LogStoreEncryptedRawTransactionDAO(logStore),
+            2);
+  }
+
+  @After
+  public void afterTest() {
+    logStore.close();
+  }
+
+  @Test
+  public void transactionsAreCopiedPageByPage() {
+    final EncryptedTransaction first = stored("first", 1L);
+    final EncryptedTransaction second = stored("second", 2L);
+    second.setAddedBoxes(
+        List.of(
+            EncryptedTransactionBox.appended(
+                PublicKey.from("added".getBytes()), RecipientBox.from("addedBox".getBytes()))));
+    final EncryptedTransaction third = stored("third", 3L);
+    when(query.getResultList()).thenReturn(List.of(first, second), List.of(third));
+
+    assertThat(importer.importTransactions()).isEqualTo(3);
+
+    final LogStoreEncryptedTransactionDAO imported = new LogStoreEncryptedTransactionDAO(logStore);
+    assertThat(imported.streamAll(10).map(EncryptedTransaction::getHash))
+        .containsExactly(first.getHash(), second.getHash(), third.getHash());
+    final EncryptedTransaction copied = imported.retrieveByHash(second.getHash()).get();
+    assertThat(copied.getTimestamp()).isEqualTo(2L);
+    assertThat(copied.getPayload().getRecipientKeys())
+        .containsExactly(
+            PublicKey.from("recipient".getBytes()), PublicKey.from("added".getBytes()));
+
+    verify(entityManager)
+        .createNamedQuery("EncryptedTransaction.FindAllFrom", EncryptedTransaction.class);
+    verify(entityManager)
+        .createNamedQuery("EncryptedTransaction.FindAllAfter", EncryptedTransaction.class);
+    verify(query).setParameter("timestamp", 2L);
+    verify(query).setParameter("hash", second.getHash().getHashBytes());
+    verify(entityManager, times(2)).close();
+  }
+
+  @Test
+  public void transactionsAlreadyCopiedAreSkipped() {
+    final EncryptedTransaction first = stored("first", 1L);
+    when(query.getResultList()).thenReturn(List.of(first));
+
+    assertThat(importer.importTransactions()).isEqualTo(1);
+    assertThat(importer.importTransactions()).isZero();
+  }
+
+  @Test
+  public void rawTransactionsAreCopiedPageByPage() {
+    when(query.getResultList())
+        .thenReturn(List.of(raw("first", 1L), raw("second", 2L)), List.of(raw("third", 3L)));
+
+    assertThat(importer.importRawTransactions()).isEqualTo(3);
+
+    assertThat(new LogStoreEncryptedRawTransactionDAO(logStore).retrieveTransactions(0, 10))
+        .extracting(EncryptedRawTransaction::getTimestamp)
+        .containsExactly(1L, 2L, 3L);
+    verify(query).setFirstResult(0);
+    verify(query).setFirstResult(2);
+  }
+
+  @Test
+  public void batchSizeMustBePositive() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(
+            () ->
+                new LogStoreImporter(
+                    entityManagerFactory,
+                    mock(LogStoreEncryptedTransactionDAO.class),
+                    mock(LogStoreEncryptedRawTransactionDAO.class),
+                    0));
+  }
+
+  private EncryptedTransaction stored(String hash, long timestamp) {
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(new MessageHash(hash.getBytes()));
+    transaction.setTimestamp(timestamp);
+    transaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    transaction.setEncodedPayload(PayloadEncoder.create(EncodedPayloadCodec.CBOR).encode(payload));
+    return transaction;
+  }
+
+  private static EncryptedRawTransaction raw(String hash, long timestamp) {
+    final EncryptedRawTransaction transaction =
+        new EncryptedRawTransaction(
+            new MessageHash(hash.getBytes()),
+            "payload".getBytes(),
+            "key".getBytes(),
+            "nonce".getBytes(),
+            "sender".getBytes());
+    transaction.setTimestamp(timestamp);
+    return transaction;
+  }
+}
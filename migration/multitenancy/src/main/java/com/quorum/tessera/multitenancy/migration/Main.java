@@ -3,19 +3,25 @@ package com.quorum.tessera.multitenancy.migration;
 import com.quorum.tessera.cli.CliResult;
 import com.quorum.tessera.cli.parsers.ConfigConverter;
 import com.quorum.tessera.config.Config;
+import java.util.Arrays;
 import picocli.CommandLine;
 
 public class Main {
 
+  static final String RESHARD = "reshard";
+
   public static void main(String... args) {
     try {
-      final CommandLine commandLine = new CommandLine(new MigrationCliAdapter());
+      // "reshard" runs the resharding tool rather than the multitenancy migration
+      final boolean reshard = args.length > 0 && RESHARD.equals(args[0]);
+      final CommandLine commandLine =
+          new CommandLine(reshard ? new ReshardCliAdapter() : new MigrationCliAdapter());
       commandLine
           .registerConverter(Config.class, new ConfigConverter())
           .setSeparator(" ")
           .setCaseInsensitiveEnumValuesAllowed(true);
 
-      commandLine.execute(args);
+      commandLine.execute(reshard ? Arrays.copyOfRange(args, 1, args.length) : args);
       final CliResult cliResult = commandLine.getExecutionResult();
 
       System.exit(cliResult.getStatus());
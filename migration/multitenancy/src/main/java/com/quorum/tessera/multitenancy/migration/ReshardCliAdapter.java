@@ -0,0 +1,148 @@
+package com.quorum.tessera.multitenancy.migration;
+
+import com.quorum.tessera.cli.CliAdapter;
+import com.quorum.tessera.cli.CliResult;
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.*;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    headerHeading = "Usage:%n%n",
+    synopsisHeading = "%n",
+    descriptionHeading = "%nDescription:%n%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    header = "Move stored transactions between shards when the shards of a node change",
+    description =
+        "Transactions are read from the shard urls of the current configuration, or its url if"
+            + " it has none, and moved into the shard urls of the new configuration. The node must"
+            + " be stopped while they are. An interrupted run can be started again. Each shard"
+            + " holds a range of hashes in list order, so a database that stays a shard should"
+            + " keep a position that overlaps its old range: when doubling the shards, list each"
+            + " new url after the old url it splits rather than appending them all.")
+public class ReshardCliAdapter implements CliAdapter, Callable<CliResult> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReshardCliAdapter.class);
+
+  @CommandLine.Option(
+      names = "--from",
+      description = "path to the current node configuration file",
+      required = true)
+  private Config configFrom;
+
+  @CommandLine.Option(
+      names = "--to",
+      description = "path to the node configuration file with the new shard urls",
+      required = true)
+  private Config configTo;
+
+  @CommandLine.Option(
+      names = "--batch-size",
+      description = "number of transactions read from a database at a time",
+      defaultValue = "100")
+  private int batchSize;
+
+  @Override
+  public CliType getType() {
+    return CliType.RESHARD;
+  }
+
+  @Override
+  public CliResult execute(String... args) {
+    final JdbcConfig from = configFrom.getJdbcConfig();
+    final JdbcConfig to = configTo.getJdbcConfig();
+
+    misplacedUrls(urls(from), urls(to))
+        .forEach(
+            url ->
+                LOGGER.warn(
+                    "Shard {} moves to a position whose hashes it held none of, so all of its"
+                        + " transactions are moved. List it at a position that splits its old"
+                        + " range to keep some of them in place",
+                    url));
+
+    // a database in both layouts is opened once, so the migrator can tell it is the same one
+    final Map<String, EntityManagerFactory> entityManagerFactories = new LinkedHashMap<>();
+    try {
+      final List<EntityManagerFactory> targets = new ArrayList<>();
+      for (String url : urls(to)) {
+        targets.add(
+            entityManagerFactories.computeIfAbsent(
+                url, u -> entityManagerFactory(to, u, entityManagerFactories.size(), true)));
+      }
+      final List<EntityManagerFactory> sources = new ArrayList<>();
+      for (String url : urls(from)) {
+        sources.add(
+            entityManagerFactories.computeIfAbsent(
+                url, u -> entityManagerFactory(from, u, entityManagerFactories.size(), false)));
+      }
+
+      new ShardMigrator(sources, targets, batchSize).migrate();
+    } finally {
+      entityManagerFactories.values().forEach(EntityManagerFactory::close);
+    }
+
+    return new CliResult(0, true, null);
+  }
+
+  static List<String> urls(JdbcConfig jdbcConfig) {
+    if (Objects.nonNull(jdbcConfig.getShardUrls()) && !jdbcConfig.getShardUrls().isEmpty()) {
+      return jdbcConfig.getShardUrls();
+    }
+    return List.of(jdbcConfig.getUrl());
+  }
+
+  /**
+   * Finds the databases that are shards in both layouts but whose new range of hashes does not
+   * overlap their old one. Shard {@code i} of {@code n} holds the hashes from {@code i/n} to {@code
+   * (i+1)/n} of the range, so appending new urls when doubling the shards moves every transaction
+   * out of all but the first old shard, where interleaving them moves only half.
+   *
+   * @param from the shard urls of the current layout
+   * @param to the shard urls of the new layout
+   * @return the urls whose transactions would all be moved elsewhere
+   */
+  static List<String> misplacedUrls(List<String> from, List<String> to) {
+    final List<String> misplaced = new ArrayList<>();
+    for (int i = 0; i < from.size(); i++) {
+      final int j = to.indexOf(from.get(i));
+      if (j < 0) {
+        continue;
+      }
+      final long n = from.size();
+      final long m = to.size();
+      final boolean overlaps = j * n < (i + 1) * m && i * m < (j + 1) * n;
+      if (!overlaps) {
+        misplaced.add(from.get(i));
+      }
+    }
+    return misplaced;
+  }
+
+  private static EntityManagerFactory entityManagerFactory(
+      JdbcConfig jdbcConfig, String url, int index, boolean target) {
+    // a configuration with shard urls need not have a url of its own
+    final Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", url);
+    properties.put("jakarta.persistence.jdbc.user", jdbcConfig.getUsername());
+    properties.put("jakarta.persistence.jdbc.password", jdbcConfig.getPassword());
+    // each database needs a session of its own, or the factories would share the first one
+    properties.put("eclipselink.session-name", "tessera-reshard-" + index);
+    if (target && jdbcConfig.isAutoCreateTables()) {
+      properties.put("jakarta.persistence.schema-generation.database.action", "create");
+    }
+    return Persistence.createEntityManagerFactory("tessera", properties);
+  }
+
+  @Override
+  public CliResult call() {
+    return this.execute();
+  }
+}
@@ -0,0 +1,178 @@
+package com.quorum.tessera.multitenancy.migration;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves encrypted transactions between databases when the number of shards they are split across
+ * changes, so that each transaction ends up in the shard {@link MessageHash#shard(int)} gives for
+ * the new number of shards.
+ *
+ * <p>Each source database is read one page at a time in timestamp then hash order. Transactions
+ * that belong elsewhere are written to their new shard, keeping their timestamps, and then removed
+ * from the source. A database can be both a source and a target, in which case the transactions
+ * that already belong to it are left in place. Transactions already in their new shard are not
+ * written again, so an interrupted run can be started again.
+ */
+public class ShardMigrator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardMigrator.class);
+
+  private static final String UPDATE_TIMESTAMP =
+      "UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = ?1 WHERE HASH = ?2";
+
+  // the pages are read with their added boxes batch fetched, which the entity manager cannot track
+  // removals of, so moved transactions are deleted by hash instead
+  private static final List<String> DELETE_BY_HASH =
+      List.of(
+          "DELETE FROM ENCRYPTED_TRANSACTION_BOX WHERE HASH = ?1",
+          "DELETE FROM ENCRYPTED_TRANSACTION_RECIPIENT WHERE HASH = ?1",
+          "DELETE FROM ENCRYPTED_TRANSACTION WHERE HASH = ?1");
+
+  private final List<EntityManagerFactory> sources;
+
+  private final List<EntityManagerFactory> targets;
+
+  private final int batchSize;
+
+  /**
+   * @param sources the databases transactions are currently stored in
+   * @param targets the shards transactions are moved into, in shard order, with the same instance
+   *     as in the sources for a database in both
+   * @param batchSize the number of transactions read at a time
+   */
+  public ShardMigrator(
+      final List<EntityManagerFactory> sources,
+      final List<EntityManagerFactory> targets,
+      final int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be greater than 0");
+    }
+    if (targets.isEmpty()) {
+      throw new IllegalArgumentException("At least one target shard is required");
+    }
+    this.sources = List.copyOf(sources);
+    this.targets = List.copyOf(targets);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return the number of transactions that were moved
+   */
+  public long migrate() {
+    long moved = 0;
+    for (int i = 0; i < sources.size(); i++) {
+      LOGGER.info("Moving transactions out of database {} of {}", i + 1, sources.size());
+      moved += migrate(sources.get(i));
+    }
+    LOGGER.info("Moved {} transactions into {} shards", moved, targets.size());
+    return moved;
+  }
+
+  private long migrate(final EntityManagerFactory source) {
+    final EntityManager entityManager = source.createEntityManager();
+    try {
+      long lastTimestamp = Long.MIN_VALUE;
+      MessageHash lastHash = null;
+      long read = 0;
+      long moved = 0;
+
+      while (true) {
+        final List<EncryptedTransaction> page = page(entityManager, lastTimestamp, lastHash);
+
+        final Map<EntityManagerFactory, List<EncryptedTransaction>> byTarget =
+            new IdentityHashMap<>();
+        for (final EncryptedTransaction transaction : page) {
+          final EntityManagerFactory target =
+              targets.get(transaction.getHash().shard(targets.size()));
+          if (target != source) {
+            byTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(transaction);
+          }
+        }
+
+        byTarget.forEach(this::copy);
+        final List<EncryptedTransaction> moving = new ArrayList<>();
+        byTarget.values().forEach(moving::addAll);
+        if (!moving.isEmpty()) {
+          entityManager.clear();
+          entityManager.getTransaction().begin();
+          for (final EncryptedTransaction transaction : moving) {
+            for (final String delete : DELETE_BY_HASH) {
+              entityManager
+                  .createNativeQuery(delete)
+                  .setParameter(1, transaction.getHash().getHashBytes())
+                  .executeUpdate();
+            }
+          }
+          entityManager.getTransaction().commit();
+        }
+
+        read += page.size();
+        moved += moving.size();
+        LOGGER.info("Read {} transactions, moved {} to other shards", read, moved);
+        if (page.size() < batchSize) {
+          return moved;
+        }
+
+        final EncryptedTransaction last = page.get(page.size() - 1);
+        lastTimestamp = last.getTimestamp();
+        lastHash = last.getHash();
+        entityManager.clear();
+      }
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private void copy(final EntityManagerFactory target, final List<EncryptedTransaction> page) {
+    final EntityManager entityManager = target.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      for (final EncryptedTransaction transaction : page) {
+        final MessageHash hash = transaction.getHash();
+        if (Objects.nonNull(entityManager.find(EncryptedTransaction.class, hash))) {
+          continue;
+        }
+        // the added boxes are folded into the copied payload, as an update would
+        entityManager.persist(new EncryptedTransaction(hash, transaction.getPayload()));
+        entityManager.flush();
+        entityManager
+            .createNativeQuery(UPDATE_TIMESTAMP)
+            .setParameter(1, transaction.getTimestamp())
+            .setParameter(2, hash.getHashBytes())
+            .executeUpdate();
+      }
+      entityManager.getTransaction().commit();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private List<EncryptedTransaction> page(
+      final EntityManager entityManager, final long afterTimestamp, final MessageHash afterHash) {
+    final TypedQuery<EncryptedTransaction> query;
+    if (Objects.isNull(afterHash)) {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllFrom", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp);
+    } else {
+      query =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAllAfter", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp)
+              .setParameter("hash", afterHash.getHashBytes());
+    }
+    return query
+        .setHint("eclipselink.batch", "et.addedBoxes")
+        .setHint("eclipselink.batch.type", "IN")
+        .setMaxResults(batchSize)
+        .getResultList();
+  }
+}
@@ -7,6 +7,7 @@ module tessera.migration.multitenancy {
   requires tessera.enclave.api;
   requires java.sql;
   requires jakarta.persistence;
+  requires org.slf4j;
 
   opens com.quorum.tessera.multitenancy.migration to
       info.picocli;
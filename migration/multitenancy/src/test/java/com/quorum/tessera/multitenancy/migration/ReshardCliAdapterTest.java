@@ -0,0 +1,161 @@
+package com.quorum.tessera.multitenancy.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.cli.CliType;
+import com.quorum.tessera.cli.parsers.ConfigConverter;
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.util.JaxbUtil;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine;
+
+public class ReshardCliAdapterTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  @Test
+  public void urlsAreShardUrlsOrElseUrl() {
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setUrl("jdbc:h2:mem:single");
+
+    assertThat(ReshardCliAdapter.urls(jdbcConfig)).containsExactly("jdbc:h2:mem:single");
+
+    jdbcConfig.setShardUrls(List.of());
+    assertThat(ReshardCliAdapter.urls(jdbcConfig)).containsExactly("jdbc:h2:mem:single");
+
+    jdbcConfig.setShardUrls(List.of("jdbc:h2:mem:first", "jdbc:h2:mem:second"));
+    assertThat(ReshardCliAdapter.urls(jdbcConfig))
+        .containsExactly("jdbc:h2:mem:first", "jdbc:h2:mem:second");
+  }
+
+  @Test
+  public void appendedUrlsMoveOldShardsOutOfTheirRange() {
+    assertThat(ReshardCliAdapter.misplacedUrls(List.of("a", "b"), List.of("a", "b", "c", "d")))
+        .containsExactly("b");
+    assertThat(
+            ReshardCliAdapter.misplacedUrls(
+                List.of("a", "b", "c"), List.of("a", "b", "c", "d", "e", "f")))
+        .containsExactly("b", "c");
+  }
+
+  @Test
+  public void interleavedUrlsKeepOldShardsInTheirRange() {
+    assertThat(ReshardCliAdapter.misplacedUrls(List.of("a", "b"), List.of("a", "c", "b", "d")))
+        .isEmpty();
+    assertThat(ReshardCliAdapter.misplacedUrls(List.of("a", "b", "c", "d"), List.of("a", "c")))
+        .isEmpty();
+    assertThat(ReshardCliAdapter.misplacedUrls(List.of("a"), List.of("b", "a"))).isEmpty();
+    assertThat(ReshardCliAdapter.misplacedUrls(List.of("a", "b"), List.of("c", "d"))).isEmpty();
+  }
+
+  @Test
+  public void splitsSingleDatabaseIntoShards() throws IOException {
+    final String firstUrl = "jdbc:h2:" + workDir.getRoot().toPath().resolve("first.db");
+    final String secondUrl = "jdbc:h2:" + workDir.getRoot().toPath().resolve("second.db");
+
+    final MessageHash low = new MessageHash(new byte[] {0x10});
+    final MessageHash high = new MessageHash(new byte[] {(byte) 0x90});
+    final EntityManagerFactory seed = entityManagerFactory(firstUrl, "reshard-test-seed");
+    try {
+      final EntityManager entityManager = seed.createEntityManager();
+      entityManager.getTransaction().begin();
+      entityManager.persist(new EncryptedTransaction(low, payload()));
+      entityManager.persist(new EncryptedTransaction(high, payload()));
+      entityManager.getTransaction().commit();
+      entityManager.close();
+    } finally {
+      seed.close();
+    }
+
+    final JdbcConfig from = jdbcConfig();
+    from.setUrl(firstUrl);
+    final JdbcConfig to = jdbcConfig();
+    to.setShardUrls(List.of(firstUrl, secondUrl));
+    to.setAutoCreateTables(true);
+
+    final ReshardCliAdapter reshardCommand = new ReshardCliAdapter();
+    assertThat(reshardCommand.getType()).isEqualTo(CliType.RESHARD);
+
+    final CommandLine commandLine = new CommandLine(reshardCommand);
+    commandLine
+        .registerConverter(Config.class, new ConfigConverter())
+        .setSeparator(" ")
+        .setCaseInsensitiveEnumValuesAllowed(true);
+
+    final int exitCode =
+        commandLine.execute(
+            "--from", write(from, "from.json").toString(), "--to", write(to, "to.json").toString());
+    assertThat(exitCode).isZero();
+
+    assertThat(hashes(firstUrl)).containsExactly(low);
+    assertThat(hashes(secondUrl)).containsExactly(high);
+  }
+
+  private Path write(final JdbcConfig jdbcConfig, final String fileName) throws IOException {
+    final Config config = new Config();
+    config.setJdbcConfig(jdbcConfig);
+    final Path path = workDir.getRoot().toPath().toAbsolutePath().resolve(fileName);
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      JaxbUtil.marshalWithNoValidation(config, outputStream);
+    }
+    return path;
+  }
+
+  private static List<MessageHash> hashes(final String url) {
+    final EntityManagerFactory entityManagerFactory =
+        entityManagerFactory(url, "reshard-test-check");
+    try {
+      return entityManagerFactory
+          .createEntityManager()
+          .createQuery("select e.hash from EncryptedTransaction e", MessageHash.class)
+          .getResultList();
+    } finally {
+      entityManagerFactory.close();
+    }
+  }
+
+  private static JdbcConfig jdbcConfig() {
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setUsername("junit");
+    jdbcConfig.setPassword("junit");
+    return jdbcConfig;
+  }
+
+  private static EntityManagerFactory entityManagerFactory(
+      final String url, final String sessionName) {
+    final Map<String, String> properties = new HashMap<>();
+    properties.put("jakarta.persistence.jdbc.url", url);
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "junit");
+    properties.put("eclipselink.session-name", sessionName);
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+    return Persistence.createEntityManagerFactory("tessera", properties);
+  }
+
+  private static EncodedPayload payload() {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    return EncodedPayload.Builder.create()
+        .withSenderKey(key)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(key))
+        .withRecipientBoxes(List.of("box".getBytes()))
+        .build();
+  }
+}
@@ -0,0 +1,201 @@
+package com.quorum.tessera.multitenancy.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShardMigratorTest {
+
+  private static final PublicKey SENDER = PublicKey.from("sender".getBytes());
+
+  private static final PublicKey RECIPIENT = PublicKey.from("recipient".getBytes());
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private final List<EntityManagerFactory> entityManagerFactories = new ArrayList<>();
+
+  private EntityManagerFactory first;
+
+  private EntityManagerFactory second;
+
+  private EntityManagerFactory third;
+
+  @Before
+  public void beforeTest() {
+    first = entityManagerFactory("first");
+    second = entityManagerFactory("second");
+    third = entityManagerFactory("third");
+  }
+
+  @After
+  public void afterTest() {
+    entityManagerFactories.forEach(EntityManagerFactory::close);
+  }
+
+  @Test
+  public void splitsDatabaseInPlace() {
+    final Map<MessageHash, Long> timestamps = new HashMap<>();
+    for (int i = 0; i < 25; i++) {
+      final MessageHash hash = new MessageHash(new byte[] {(byte) (i * 10), (byte) i});
+      timestamps.put(hash, 1000L + i);
+      store(first, hash, 1000L + i);
+    }
+    final MessageHash withBox = new MessageHash(new byte[] {(byte) 0xf0});
+    timestamps.put(withBox, 5L);
+    store(first, withBox, 5L);
+    addBox(first, withBox);
+
+    final long moved = new ShardMigrator(List.of(first), List.of(first, second), 10).migrate();
+
+    final Map<MessageHash, EncryptedTransaction> inFirst = all(first);
+    final Map<MessageHash, EncryptedTransaction> inSecond = all(second);
+    assertThat(moved).isEqualTo(inSecond.size());
+    assertThat(inFirst.keySet()).allMatch(hash -> hash.shard(2) == 0).isNotEmpty();
+    assertThat(inSecond.keySet()).allMatch(hash -> hash.shard(2) == 1).contains(withBox);
+    assertThat(inFirst.size() + inSecond.size()).isEqualTo(timestamps.size());
+
+    inSecond
+        .values()
+        .forEach(tx -> assertThat(tx.getTimestamp()).isEqualTo(timestamps.get(tx.getHash())));
+
+    // the added box is part of the moved payload
+    final EncryptedTransaction movedWithBox = inSecond.get(withBox);
+    assertThat(movedWithBox.getAddedBoxes()).isEmpty();
+    assertThat(movedWithBox.getPayload().getRecipientKeys()).containsExactly(RECIPIENT, SENDER);
+    assertThat(movedWithBox.getPayload().getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box".getBytes()), RecipientBox.from("added".getBytes()));
+  }
+
+  @Test
+  public void mergesShardsIntoNewLayout() {
+    final List<MessageHash> hashes = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      final MessageHash hash = new MessageHash(new byte[] {(byte) (i * 16)});
+      hashes.add(hash);
+      store(hash.shard(2) == 0 ? first : second, hash, i);
+    }
+
+    new ShardMigrator(List.of(first, second), List.of(third), 4).migrate();
+
+    assertThat(all(first)).isEmpty();
+    assertThat(all(second)).isEmpty();
+    assertThat(all(third).keySet()).containsExactlyInAnyOrderElementsOf(hashes);
+  }
+
+  @Test
+  public void transactionAlreadyInTargetIsNotCopiedAgain() {
+    final MessageHash hash = new MessageHash(new byte[] {(byte) 0x90});
+    store(first, hash, 1);
+    store(second, hash, 2);
+
+    final long moved = new ShardMigrator(List.of(first), List.of(first, second), 10).migrate();
+
+    assertThat(moved).isEqualTo(1);
+    assertThat(all(first)).isEmpty();
+    assertThat(all(second).get(hash).getTimestamp()).isEqualTo(2);
+  }
+
+  private EntityManagerFactory entityManagerFactory(final String name) {
+    final Map<String, String> properties = new HashMap<>();
+    properties.put(
+        "jakarta.persistence.jdbc.url",
+        "jdbc:h2:" + workDir.getRoot().toPath().resolve(name).toString());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "junit");
+    properties.put("eclipselink.session-name", "shard-migrator-test-" + name);
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+    final EntityManagerFactory entityManagerFactory =
+        Persistence.createEntityManagerFactory("tessera", properties);
+    entityManagerFactories.add(entityManagerFactory);
+    return entityManagerFactory;
+  }
+
+  private static void store(
+      final EntityManagerFactory entityManagerFactory,
+      final MessageHash hash,
+      final long timestamp) {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(SENDER)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(RECIPIENT))
+            .withRecipientBoxes(List.of("box".getBytes()))
+            .build();
+
+    inTransaction(
+        entityManagerFactory,
+        entityManager -> {
+          entityManager.persist(new EncryptedTransaction(hash, payload));
+          entityManager.flush();
+          entityManager
+              .createNativeQuery("UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = ?1 WHERE HASH = ?2")
+              .setParameter(1, timestamp)
+              .setParameter(2, hash.getHashBytes())
+              .executeUpdate();
+        });
+  }
+
+  private static void addBox(
+      final EntityManagerFactory entityManagerFactory, final MessageHash hash) {
+    inTransaction(
+        entityManagerFactory,
+        entityManager ->
+            entityManager
+                .createNativeQuery(
+                    "INSERT INTO ENCRYPTED_TRANSACTION_BOX"
+                        + " (HASH, SEQUENCE_NUMBER, BOX, PREPENDED, PUBLIC_KEY)"
+                        + " VALUES (?1, 1, ?2, ?3, ?4)")
+                .setParameter(1, hash.getHashBytes())
+                .setParameter(2, "added".getBytes())
+                .setParameter(3, false)
+                .setParameter(4, SENDER.getKeyBytes())
+                .executeUpdate());
+  }
+
+  private static Map<MessageHash, EncryptedTransaction> all(
+      final EntityManagerFactory entityManagerFactory) {
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      final List<EncryptedTransaction> transactions =
+          entityManager
+              .createNamedQuery("EncryptedTransaction.FindAll", EncryptedTransaction.class)
+              .getResultList();
+      transactions.forEach(tx -> tx.getPayload());
+      return transactions.stream()
+          .collect(Collectors.toMap(EncryptedTransaction::getHash, tx -> tx));
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private static void inTransaction(
+      final EntityManagerFactory entityManagerFactory,
+      final Consumer<EntityManager> work) {
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      work.accept(entityManager);
+      entityManager.getTransaction().commit();
+    } finally {
+      entityManager.close();
+    }
+  }
+}
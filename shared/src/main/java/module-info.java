@@ -26,5 +26,8 @@ module tessera.shared {
       com.quorum.tessera.version.MultiTenancyVersion,
       com.quorum.tessera.version.PrivacyGroupVersion,
       com.quorum.tessera.version.MandatoryRecipientsVersion,
-      com.quorum.tessera.version.CBORSupportVersion;
+      com.quorum.tessera.version.CBORSupportVersion,
+      com.quorum.tessera.version.CBORV2SupportVersion,
+      com.quorum.tessera.version.GroupedPushVersion,
+      com.quorum.tessera.version.PushBatchVersion;
 }
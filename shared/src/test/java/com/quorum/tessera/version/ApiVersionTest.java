@@ -9,6 +9,6 @@ public class ApiVersionTest {
   @Test
   public void create() {
     assertThat(ApiVersion.versions())
-        .containsExactlyInAnyOrder("v1", "v2", "2.1", "3.0", "4.0", "5.0");
+        .containsExactlyInAnyOrder("v1", "v2", "2.1", "3.0", "4.0", "5.0", "6.0", "7.0", "8.0");
   }
 }
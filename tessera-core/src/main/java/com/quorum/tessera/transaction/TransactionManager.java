@@ -1,12 +1,14 @@
 package com.quorum.tessera.transaction;
 
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.PendingDelivery;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.encryption.PublicKey;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface TransactionManager {
 
@@ -18,6 +20,37 @@ public interface TransactionManager {
 
   MessageHash storePayload(EncodedPayload transactionPayload);
 
+  /**
+   * Accepts a payload pushed by another node. If a push journal is configured, a standard private
+   * payload is acknowledged once it is journaled and is stored in the background; otherwise it is
+   * stored as by {@link #storePayload(EncodedPayload)}.
+   *
+   * @param transactionPayload the payload that was pushed
+   * @return the hash of the payload
+   */
+  default MessageHash acceptPayload(EncodedPayload transactionPayload) {
+    return storePayload(transactionPayload);
+  }
+
+  /**
+   * Stores payloads received from other nodes as though each were passed to {@link
+   * #storePayload(EncodedPayload)} in turn, while allowing new transactions to be written together
+   *
+   * @param transactionPayloads the payloads to store, in the order they are to be applied
+   * @param errorHandler notified of each payload that could not be stored and the reason why
+   */
+  default void storePayloads(
+      List<EncodedPayload> transactionPayloads,
+      BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    for (EncodedPayload transactionPayload : transactionPayloads) {
+      try {
+        storePayload(transactionPayload);
+      } catch (RuntimeException ex) {
+        errorHandler.accept(transactionPayload, ex);
+      }
+    }
+  }
+
   ReceiveResponse receive(ReceiveRequest request);
 
   StoreRawResponse store(StoreRawRequest storeRequest);
@@ -30,6 +63,16 @@ public interface TransactionManager {
 
   Set<PublicKey> getMandatoryRecipients(MessageHash transactionHash);
 
+  /**
+   * Retrieves the pushes of a sent transaction to its remote recipients that have not yet been
+   * made, when sent transactions are delivered from the outbox
+   *
+   * @param transactionHash the hash of the sent transaction
+   * @return the pending deliveries, empty once every recipient has the transaction or if pushes are
+   *     made while the transaction is sent
+   */
+  List<PendingDelivery> getPendingDeliveries(MessageHash transactionHash);
+
   /**
    * @see Enclave#defaultPublicKey()
    * @return
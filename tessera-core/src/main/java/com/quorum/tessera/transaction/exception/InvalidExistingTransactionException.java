@@ -0,0 +1,14 @@
+package com.quorum.tessera.transaction.exception;
+
+import com.quorum.tessera.exception.TesseraException;
+
+/**
+ * An exception thrown when a payload does not match the stored transaction with the same hash, so
+ * it can never be stored
+ */
+public class InvalidExistingTransactionException extends TesseraException {
+
+  public InvalidExistingTransactionException(final String message) {
+    super(message);
+  }
+}
@@ -114,7 +114,14 @@ public class EncodedPayloadManagerImpl implements EncodedPayloadManager {
   private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
     final MessageHash customPayloadHash =
         new MessageHash(payloadDigest.digest(payload.getCipherText()));
-    for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
+
+    // keys the payload is addressed to go first, the rest are only needed for legacy payloads
+    final Set<PublicKey> localKeys = enclave.getPublicKeys();
+    final Set<PublicKey> candidates = new LinkedHashSet<>();
+    payload.getRecipientKeys().stream().filter(localKeys::contains).forEach(candidates::add);
+    candidates.addAll(localKeys);
+
+    for (final PublicKey potentialMatchingKey : candidates) {
       try {
         LOGGER.debug(
             "Attempting to decrypt {} using key {}",
@@ -0,0 +1,358 @@
+package com.quorum.tessera.transaction.internal;
+
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.logstore.LogStore;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.transaction.exception.InvalidExistingTransactionException;
+import com.quorum.tessera.transaction.exception.PrivacyViolationException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A journal of pushed payloads that have been acknowledged but not yet stored.
+ *
+ * <p>A push is acknowledged once it is on disk in the journal, and concurrent pushes share the
+ * flush of the log they are appended to. A background thread stores the journaled payloads in
+ * batches, in the order they were pushed, and then records that they were applied. When the
+ * journal is opened, the payloads that were journaled but not applied are stored again, so no
+ * acknowledged push is lost. Storing a payload twice has no effect, so a payload that was stored
+ * before the node stopped, but not recorded as applied, is harmless to store again.
+ *
+ * <p>A payload that fails to be stored, for example because the database or enclave cannot be
+ * reached, is tried again after a delay that doubles up to a minute, and stays in the journal until
+ * it is. Only a payload that is rejected, because it does not match what is already stored or
+ * violates the privacy of the transactions it affects, is dropped from the journal and logged as an
+ * error, as it would fail every time it is tried and hold up the pushes after it.
+ */
+public class PushJournal implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PushJournal.class);
+
+  /** A payload that was pushed, with the hash and name of the codec it was written with */
+  static final byte PUSH = 1;
+
+  /** The location of the first push that is not yet applied, or -1 for every push before it */
+  static final byte APPLIED = 2;
+
+  /** The most journaled payloads that are stored together */
+  static final int BATCH_SIZE = 500;
+
+  static final long RETRY_DELAY = 1000L;
+
+  static final long MAX_RETRY_DELAY = 60000L;
+
+  /** The longest a lookup waits for a journaled payload to be stored */
+  static final long APPLY_TIMEOUT = 10000L;
+
+  private final LogStore logStore;
+
+  private final EncodedPayloadCodec codec;
+
+  private final PayloadEncoder payloadEncoder;
+
+  /** The journaled payloads that are not yet stored, by their location in the log */
+  private final NavigableMap<Long, Entry> pending = new TreeMap<>();
+
+  /** The number of journaled payloads that are not yet stored for each hash */
+  private final Map<MessageHash, Integer> pendingHashes = new HashMap<>();
+
+  private Thread applier;
+
+  private volatile boolean running;
+
+  public PushJournal(final LogStore logStore) {
+    this(logStore, EncodedPayloadCodec.current());
+  }
+
+  PushJournal(final LogStore logStore, final EncodedPayloadCodec codec) {
+    this.logStore = Objects.requireNonNull(logStore);
+    this.codec = Objects.requireNonNull(codec);
+    this.payloadEncoder = PayloadEncoder.create(codec);
+  }
+
+  /**
+   * Reads the payloads that were journaled but not applied before the journal was last closed, and
+   * starts storing them and those journaled from now on
+   *
+   * @param store stores a batch of payloads, passing each one that could not be stored and why to
+   *     the error handler it is given
+   */
+  public synchronized void start(
+      final BiConsumer<List<EncodedPayload>, BiConsumer<EncodedPayload, RuntimeException>> store) {
+    if (running) {
+      throw new IllegalStateException("Push journal " + logStore.getDirectory() + " is started");
+    }
+    replay();
+
+    running = true;
+    applier = new Thread(() -> apply(store), "push-journal-applier");
+    applier.setDaemon(true);
+    applier.start();
+  }
+
+  /** Finds where the last applied record says to start, then reads the pushes from there */
+  private void replay() {
+    final long[] appliedBefore = {0L};
+    logStore.replay(
+        (location, type, body) -> {
+          if (type == APPLIED) {
+            final long value = body.getLong();
+            appliedBefore[0] = value < 0 ? location : value;
+          }
+        });
+
+    logStore.replay(
+        (location, type, body) -> {
+          if (type == PUSH && location >= appliedBefore[0]) {
+            final Entry entry = decode(location, body);
+            pending.put(location, entry);
+            pendingHashes.merge(entry.hash, 1, Integer::sum);
+          }
+        });
+
+    if (!pending.isEmpty()) {
+      LOGGER.info(
+          "Storing {} pushes from journal {} that were not stored before it was closed",
+          pending.size(),
+          logStore.getDirectory());
+    }
+  }
+
+  /**
+   * Writes a pushed payload to the journal, returning once it is on disk
+   *
+   * @param hash the hash of the payload
+   * @param payload the payload that was pushed
+   */
+  public void append(final MessageHash hash, final EncodedPayload payload) {
+    final byte[] hashBytes = hash.getHashBytes();
+    final byte[] codecName = codec.name().getBytes(StandardCharsets.UTF_8);
+    final byte[] encoded = payloadEncoder.encode(payload);
+    final ByteBuffer body =
+        ByteBuffer.allocate(
+            Integer.BYTES * 3 + hashBytes.length + codecName.length + encoded.length);
+    body.putInt(hashBytes.length).put(hashBytes);
+    body.putInt(codecName.length).put(codecName);
+    body.putInt(encoded.length).put(encoded);
+    body.flip();
+
+    // added to the pending payloads as it is appended, so no later record can say it was applied
+    final long location;
+    synchronized (this) {
+      location = logStore.append(PUSH, body);
+      pending.put(location, new Entry(location, hash, payload));
+      pendingHashes.merge(hash, 1, Integer::sum);
+      notifyAll();
+    }
+    logStore.sync(location);
+    LOGGER.debug("Journaled push of {}", hash);
+  }
+
+  /**
+   * Waits for a journaled payload with the given hash to be stored, returning at once if there is
+   * none waiting to be stored
+   *
+   * @param hash the hash of the payload
+   * @return false if a journaled payload with the hash was not stored in time
+   */
+  public synchronized boolean awaitApplied(final MessageHash hash) {
+    final long deadline = System.currentTimeMillis() + APPLY_TIMEOUT;
+    long remaining = APPLY_TIMEOUT;
+    while (pendingHashes.containsKey(hash) && remaining > 0) {
+      try {
+        wait(remaining);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return !pendingHashes.containsKey(hash);
+  }
+
+  /** @return the number of journaled payloads that are not yet stored */
+  public synchronized int pendingCount() {
+    return pending.size();
+  }
+
+  private void apply(
+      final BiConsumer<List<EncodedPayload>, BiConsumer<EncodedPayload, RuntimeException>> store) {
+    long retryDelay = RETRY_DELAY;
+    while (running) {
+      final List<Entry> batch = nextBatch();
+      if (batch.isEmpty()) {
+        continue;
+      }
+
+      final Map<EncodedPayload, RuntimeException> failed = new IdentityHashMap<>();
+      try {
+        final List<EncodedPayload> payloads = new ArrayList<>(batch.size());
+        batch.forEach(entry -> payloads.add(entry.payload));
+        store.accept(payloads, failed::put);
+      } catch (RuntimeException ex) {
+        batch.forEach(entry -> failed.put(entry.payload, ex));
+      }
+
+      for (final Entry entry : batch) {
+        final RuntimeException ex = failed.get(entry.payload);
+        if (Objects.nonNull(ex) && isRejected(ex)) {
+          LOGGER.error(
+              "Dropping journaled push of {} as it cannot be stored. {}",
+              entry.hash,
+              ex.getMessage());
+          LOGGER.debug("", ex);
+          failed.remove(entry.payload);
+        }
+      }
+
+      applied(batch, failed.keySet());
+
+      if (failed.isEmpty()) {
+        retryDelay = RETRY_DELAY;
+        continue;
+      }
+      LOGGER.warn(
+          "Unable to store {} of {} journaled pushes, trying again in {}ms. {}",
+          failed.size(),
+          batch.size(),
+          retryDelay,
+          failed.values().iterator().next().getMessage());
+      failed.values().forEach(ex -> LOGGER.debug("", ex));
+      pause(retryDelay);
+      retryDelay = Math.min(MAX_RETRY_DELAY, retryDelay * 2);
+    }
+  }
+
+  /** A payload that is rejected is never stored, however often it is tried */
+  private static boolean isRejected(final RuntimeException ex) {
+    return ex instanceof InvalidExistingTransactionException
+        || ex instanceof PrivacyViolationException;
+  }
+
+  private synchronized List<Entry> nextBatch() {
+    while (running && pending.isEmpty()) {
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+    }
+
+    final List<Entry> batch = new ArrayList<>(Math.min(BATCH_SIZE, pending.size()));
+    for (final Entry entry : pending.values()) {
+      if (batch.size() == BATCH_SIZE) {
+        break;
+      }
+      batch.add(entry);
+    }
+    return batch;
+  }
+
+  /**
+   * Removes the stored payloads of a batch from those pending, and records in the log where the
+   * payloads that are still to be stored start, so that those before them are not replayed
+   */
+  private void applied(final List<Entry> batch, final Set<EncodedPayload> failed) {
+    final long location;
+    final long firstPending;
+    synchronized (this) {
+      for (final Entry entry : batch) {
+        if (!failed.contains(entry.payload)) {
+          pending.remove(entry.location);
+          pendingHashes.computeIfPresent(entry.hash, (hash, count) -> count > 1 ? count - 1 : null);
+        }
+      }
+      notifyAll();
+
+      if (failed.size() == batch.size()) {
+        return;
+      }
+      final ByteBuffer body =
+          ByteBuffer.allocate(Long.BYTES)
+              .putLong(pending.isEmpty() ? -1L : pending.firstKey())
+              .flip();
+      location = logStore.append(APPLIED, body);
+      firstPending = pending.isEmpty() ? location : pending.firstKey();
+    }
+
+    logStore.sync(location);
+    final int discarded = logStore.discardBefore(firstPending);
+    LOGGER.debug(
+        "Stored or dropped {} journaled pushes, discarded {} journal segments",
+        batch.size() - failed.size(),
+        discarded);
+  }
+
+  private synchronized void pause(final long millis) {
+    final long deadline = System.currentTimeMillis() + millis;
+    long remaining = millis;
+    while (running && remaining > 0) {
+      try {
+        // woken early by new pushes, which are not stored until the delay is over
+        wait(remaining);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+  }
+
+  private static Entry decode(final long location, final ByteBuffer body) {
+    final MessageHash hash = new MessageHash(bytes(body));
+    final EncodedPayloadCodec codec =
+        EncodedPayloadCodec.valueOf(new String(bytes(body), StandardCharsets.UTF_8));
+    final EncodedPayload payload = PayloadEncoder.create(codec).decode(bytes(body));
+    return new Entry(location, hash, payload);
+  }
+
+  private static byte[] bytes(final ByteBuffer body) {
+    final byte[] value = new byte[body.getInt()];
+    body.get(value);
+    return value;
+  }
+
+  /**
+   * Stops storing journaled payloads and closes the log. Payloads that are not yet stored are
+   * stored when the journal is next started.
+   */
+  @Override
+  public void close() {
+    final Thread thread;
+    synchronized (this) {
+      running = false;
+      notifyAll();
+      thread = applier;
+    }
+    if (Objects.nonNull(thread)) {
+      try {
+        thread.join(APPLY_TIMEOUT);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    logStore.close();
+  }
+
+  private static final class Entry {
+
+    private final long location;
+
+    private final MessageHash hash;
+
+    private final EncodedPayload payload;
+
+    private Entry(final long location, final MessageHash hash, final EncodedPayload payload) {
+      this.location = location;
+      this.hash = hash;
+      this.payload = payload;
+    }
+  }
+}
@@ -9,12 +9,16 @@ import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.*;
+import com.quorum.tessera.transaction.exception.InvalidExistingTransactionException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotAvailableException;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
 import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -38,6 +42,12 @@ public class TransactionManagerImpl implements TransactionManager {
 
   private final PayloadDigest payloadDigest;
 
+  /** The outbox that pushes of sent transactions are queued in, or null to push them on send */
+  private final PendingDeliveryDAO pendingDeliveryDAO;
+
+  /** The journal that pushed payloads are acknowledged from, or null to store them on push */
+  private final PushJournal pushJournal;
+
   public TransactionManagerImpl(
       Enclave enclave,
       EncryptedTransactionDAO encryptedTransactionDAO,
@@ -46,6 +56,49 @@ public class TransactionManagerImpl implements TransactionManager {
       BatchPayloadPublisher batchPayloadPublisher,
       PrivacyHelper privacyHelper,
       PayloadDigest payloadDigest) {
+    this(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        payloadDigest,
+        null,
+        null);
+  }
+
+  public TransactionManagerImpl(
+      Enclave enclave,
+      EncryptedTransactionDAO encryptedTransactionDAO,
+      EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+      ResendManager resendManager,
+      BatchPayloadPublisher batchPayloadPublisher,
+      PrivacyHelper privacyHelper,
+      PayloadDigest payloadDigest,
+      PendingDeliveryDAO pendingDeliveryDAO) {
+    this(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        payloadDigest,
+        pendingDeliveryDAO,
+        null);
+  }
+
+  public TransactionManagerImpl(
+      Enclave enclave,
+      EncryptedTransactionDAO encryptedTransactionDAO,
+      EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+      ResendManager resendManager,
+      BatchPayloadPublisher batchPayloadPublisher,
+      PrivacyHelper privacyHelper,
+      PayloadDigest payloadDigest,
+      PendingDeliveryDAO pendingDeliveryDAO,
+      PushJournal pushJournal) {
     this.encryptedTransactionDAO =
         Objects.requireNonNull(encryptedTransactionDAO, "encryptedTransactionDAO is required");
     this.batchPayloadPublisher =
@@ -57,6 +110,8 @@ public class TransactionManagerImpl implements TransactionManager {
     this.resendManager = Objects.requireNonNull(resendManager, "resendManager is required");
     this.privacyHelper = Objects.requireNonNull(privacyHelper, "privacyHelper is required");
     this.payloadDigest = Objects.requireNonNull(payloadDigest, "payloadDigest is required");
+    this.pendingDeliveryDAO = pendingDeliveryDAO;
+    this.pushJournal = pushJournal;
   }
 
   @Override
@@ -118,12 +173,7 @@ public class TransactionManagerImpl implements TransactionManager {
             .filter(not(managedPublicKeys::contains))
             .collect(Collectors.toList());
 
-    this.encryptedTransactionDAO.save(
-        newTransaction,
-        () -> {
-          batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
-          return null;
-        });
+    storeAndPublish(newTransaction, payload, recipientListRemotesOnly);
 
     return SendResponse.Builder.create()
         .withMessageHash(transactionHash)
@@ -194,12 +244,7 @@ public class TransactionManagerImpl implements TransactionManager {
             .filter(not(managedPublicKeys::contains))
             .collect(Collectors.toList());
 
-    this.encryptedTransactionDAO.save(
-        newTransaction,
-        () -> {
-          batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
-          return null;
-        });
+    storeAndPublish(newTransaction, payload, recipientListRemotesOnly);
 
     return SendResponse.Builder.create()
         .withMessageHash(messageHash)
@@ -208,11 +253,166 @@ public class TransactionManagerImpl implements TransactionManager {
         .build();
   }
 
+  /**
+   * Stores a sent transaction and pushes it to its remote recipients. The pushes are made while the
+   * database transaction is open, so that the transaction is not stored if a push fails, unless
+   * there is an outbox to queue them in. They are then stored with the transaction for the
+   * dispatcher to make once the sender has its response.
+   *
+   * <p>Transactions sent with enhanced privacy are always pushed on send, as they must reach every
+   * recipient to be valid.
+   */
+  private void storeAndPublish(
+      final EncryptedTransaction transaction,
+      final EncodedPayload payload,
+      final List<PublicKey> remoteRecipients) {
+    if (Objects.isNull(pendingDeliveryDAO)
+        || PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()) {
+      encryptedTransactionDAO.save(
+          transaction,
+          () -> {
+            batchPayloadPublisher.publishPayload(payload, remoteRecipients);
+            return null;
+          });
+      return;
+    }
+
+    final List<PendingDelivery> deliveries =
+        remoteRecipients.stream()
+            .map(recipient -> new PendingDelivery(transaction.getHash(), recipient))
+            .collect(Collectors.toList());
+    pendingDeliveryDAO.save(transaction, deliveries);
+    // written alongside the deliveries, so the cache and replica routing must be told of it
+    encryptedTransactionDAO.stored(transaction);
+    LOGGER.debug("Queued {} pushes of transaction {}", deliveries.size(), transaction.getHash());
+  }
+
   @Override
   public synchronized MessageHash storePayload(final EncodedPayload payload) {
+    return storePayload(
+        payload, digest(payload), encryptedTransactionDAO::save, resendManager::acceptOwnMessage);
+  }
+
+  /**
+   * Journals a standard private payload that has no affected contracts, as it needs no checks
+   * against what is already stored that the sender must be told the result of. Other payloads, and
+   * our own payloads that are being rebuilt, which the enclave may reject, are stored before the
+   * push is acknowledged, as without a journal.
+   */
+  @Override
+  public MessageHash acceptPayload(final EncodedPayload payload) {
+    if (Objects.isNull(pushJournal)
+        || PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()
+        || !payload.getAffectedContractTransactions().isEmpty()
+        || enclave.getPublicKeys().contains(payload.getSenderKey())) {
+      return storePayload(payload);
+    }
+
+    final MessageHash transactionHash = digest(payload);
+    pushJournal.append(transactionHash, payload);
+    return transactionHash;
+  }
+
+  @Override
+  public synchronized void storePayloads(
+      final List<EncodedPayload> payloads,
+      final BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    final Map<MessageHash, EncodedPayload> pending = new LinkedHashMap<>();
+    final List<EncryptedTransaction> pendingTransactions = new ArrayList<>();
+    // payloads we sent, by the (possibly sanitised) payload that is handed to the resend manager
+    final Map<EncodedPayload, EncodedPayload> pendingOwnMessages = new IdentityHashMap<>();
+    try {
+      for (final EncodedPayload payload : payloads) {
+        final MessageHash transactionHash = digest(payload);
+
+        // validation of affected contracts and merging of boxes both read what is already stored
+        if (pending.containsKey(transactionHash)
+            || !payload.getAffectedContractTransactions().isEmpty()) {
+          storePending(pending, pendingTransactions, errorHandler);
+          storePendingOwnMessages(pendingOwnMessages, errorHandler);
+        }
+
+        try {
+          storePayload(
+              payload,
+              transactionHash,
+              transaction -> {
+                pending.put(transactionHash, payload);
+                pendingTransactions.add(transaction);
+                return transaction;
+              },
+              ownMessage -> pendingOwnMessages.put(ownMessage, payload));
+        } catch (RuntimeException ex) {
+          errorHandler.accept(payload, ex);
+        }
+      }
+    } finally {
+      storePending(pending, pendingTransactions, errorHandler);
+      storePendingOwnMessages(pendingOwnMessages, errorHandler);
+    }
+  }
+
+  /** Our own payloads are accepted together, so the enclave is only asked once for all of them */
+  private void storePendingOwnMessages(
+      final Map<EncodedPayload, EncodedPayload> pendingOwnMessages,
+      final BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    if (pendingOwnMessages.isEmpty()) {
+      return;
+    }
+
+    try {
+      resendManager.acceptOwnMessages(
+          new ArrayList<>(pendingOwnMessages.keySet()),
+          (ownMessage, ex) -> errorHandler.accept(pendingOwnMessages.get(ownMessage), ex));
+      LOGGER.debug("Stored {} payloads for which we were the sender", pendingOwnMessages.size());
+    } finally {
+      pendingOwnMessages.clear();
+    }
+  }
+
+  private void storePending(
+      final Map<MessageHash, EncodedPayload> pending,
+      final List<EncryptedTransaction> pendingTransactions,
+      final BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    if (pendingTransactions.isEmpty()) {
+      return;
+    }
+
+    try {
+      final List<EncryptedTransaction> conflicts =
+          encryptedTransactionDAO.saveAll(pendingTransactions);
+      LOGGER.debug(
+          "Stored {} new payloads, {} already existed",
+          pendingTransactions.size() - conflicts.size(),
+          conflicts.size());
+
+      // stored elsewhere since it was checked, so merge it in as a single payload would be
+      for (final EncryptedTransaction conflict : conflicts) {
+        final EncodedPayload payload = pending.get(conflict.getHash());
+        try {
+          storePayload(payload);
+        } catch (RuntimeException ex) {
+          errorHandler.accept(payload, ex);
+        }
+      }
+    } catch (RuntimeException ex) {
+      pending.values().forEach(payload -> errorHandler.accept(payload, ex));
+    } finally {
+      pending.clear();
+      pendingTransactions.clear();
+    }
+  }
+
+  private MessageHash digest(final EncodedPayload payload) {
+    return new MessageHash(payloadDigest.digest(payload.getCipherText()));
+  }
+
+  private MessageHash storePayload(
+      final EncodedPayload payload,
+      final MessageHash transactionHash,
+      final UnaryOperator<EncryptedTransaction> newTransactionWriter,
+      final Consumer<EncodedPayload> ownMessageWriter) {
 
-    final byte[] digest = payloadDigest.digest(payload.getCipherText());
-    final MessageHash transactionHash = new MessageHash(digest);
     final List<AffectedTransaction> affectedContractTransactions =
         privacyHelper.findAffectedContractTransactionsFromPayload(payload);
 
@@ -239,7 +439,7 @@ public class TransactionManagerImpl implements TransactionManager {
 
     if (enclave.getPublicKeys().contains(encodedPayload.getSenderKey())) {
       // This is our own message that we are rebuilding, handle separately
-      this.resendManager.acceptOwnMessage(encodedPayload);
+      ownMessageWriter.accept(encodedPayload);
       LOGGER.debug("Stored payload for which we were the sender. Hash = {}", transactionHash);
       return transactionHash;
     }
@@ -249,7 +449,7 @@ public class TransactionManagerImpl implements TransactionManager {
         this.encryptedTransactionDAO.retrieveByHash(transactionHash);
     if (tx.isEmpty()) {
       // This is the first time we have seen the payload, so just save it to the database as is
-      this.encryptedTransactionDAO.save(new EncryptedTransaction(transactionHash, encodedPayload));
+      newTransactionWriter.apply(new EncryptedTransaction(transactionHash, encodedPayload));
       LOGGER.debug("Stored new payload with hash {}", transactionHash);
       return transactionHash;
     }
@@ -279,55 +479,54 @@ public class TransactionManagerImpl implements TransactionManager {
             .allMatch(p -> p);
 
     if (!txMatches) {
-      throw new RuntimeException("Invalid existing transaction");
+      throw new InvalidExistingTransactionException("Invalid existing transaction");
     }
 
-    // check if the box already exists
-    // this is the easiest way to tell if a recipient has already been included
-    for (RecipientBox existingBox : existing.getRecipientBoxes()) {
-      if (Objects.equals(existingBox, encodedPayload.getRecipientBoxes().get(0))) {
-        // recipient must already exist, so just act as though things went normally
-        LOGGER.info("Recipient already existed in payload with hash {}", transactionHash);
-        return transactionHash;
+    // Boxes are all handled the same way. Each new box is prepended to the list of existing boxes,
+    // and stored on its own rather than rewriting the stored payload, which is read back with the
+    // box in place. A node pushes one box per payload, or all the boxes for the keys we host when
+    // we advertise grouped pushes; they are prepended last to first so they keep their order.
+    final List<RecipientBox> newBoxes = encodedPayload.getRecipientBoxes();
+    final List<EncryptedTransactionBox> addedBoxes = new ArrayList<>(newBoxes.size());
+    for (int i = newBoxes.size() - 1; i >= 0; i--) {
+      final RecipientBox newBox = newBoxes.get(i);
+
+      // check if the box already exists
+      // this is the easiest way to tell if a recipient has already been included
+      if (existing.getRecipientBoxes().contains(newBox)) {
+        continue;
       }
-    }
 
-    final EncodedPayload.Builder existingPayloadBuilder = EncodedPayload.Builder.from(existing);
-
-    // Boxes are all handled the same way. The new payload will only contain one box, and this will
-    // be prepended
-    // to the the list of existing boxes.
-    final List<RecipientBox> existingBoxes = new ArrayList<>(existing.getRecipientBoxes());
-    existingBoxes.add(0, encodedPayload.getRecipientBoxes().get(0));
-    existingPayloadBuilder.withRecipientBoxes(
-        existingBoxes.stream().map(RecipientBox::getData).collect(Collectors.toList()));
-
-    // The case where a legacy transaction, which contains no recipients, is sent to us
-    // is handled implicitly, as we don't need to add anything to the recipients list
-    if (PrivacyMode.PRIVATE_STATE_VALIDATION == encodedPayload.getPrivacyMode()) {
-      // PSV transaction, we have one box, and the relevant key is the first value
-      // the existing payload will contain the key, but we can remove it and prepend the key again,
-      // along with the
-      // box
-      final List<PublicKey> existingKeys = new ArrayList<>(existing.getRecipientKeys());
-      final PublicKey newRecipient = encodedPayload.getRecipientKeys().get(0);
-      if (!existingKeys.contains(newRecipient)) {
-        throw new RuntimeException("expected recipient not found");
+      // The case where a legacy transaction, which contains no recipients, is sent to us
+      // is handled implicitly, as we don't need to add anything to the recipients list
+      final PublicKey newRecipient;
+      if (PrivacyMode.PRIVATE_STATE_VALIDATION == encodedPayload.getPrivacyMode()) {
+        // PSV transaction, the keys of the boxes are the first values
+        // the existing payload will contain the key, which is moved to the front along with the box
+        newRecipient = encodedPayload.getRecipientKeys().get(i);
+        if (!existing.getRecipientKeys().contains(newRecipient)) {
+          throw new InvalidExistingTransactionException("expected recipient not found");
+        }
+      } else if (!encodedPayload.getRecipientKeys().isEmpty()) {
+        // Regular tx, add the recipient and the box
+        newRecipient = encodedPayload.getRecipientKeys().get(i);
+      } else {
+        newRecipient = null;
       }
-      existingKeys.remove(newRecipient);
-      existingKeys.add(0, newRecipient);
-      existingPayloadBuilder.withNewRecipientKeys(existingKeys);
-    } else if (!encodedPayload.getRecipientKeys().isEmpty()) {
-      // Regular tx, add the recipient and the box
-      final List<PublicKey> existingKeys = new ArrayList<>(existing.getRecipientKeys());
-      final PublicKey newRecipient = encodedPayload.getRecipientKeys().get(0);
-
-      existingKeys.add(0, newRecipient);
-      existingPayloadBuilder.withNewRecipientKeys(existingKeys);
+      addedBoxes.add(EncryptedTransactionBox.prepended(newRecipient, newBox));
     }
 
-    encryptedTransaction.setPayload(existingPayloadBuilder.build());
-    this.encryptedTransactionDAO.update(encryptedTransaction);
+    if (addedBoxes.isEmpty()) {
+      // recipient must already exist, so just act as though things went normally
+      LOGGER.info("Recipient already existed in payload with hash {}", transactionHash);
+      return transactionHash;
+    }
+
+    if (addedBoxes.size() == 1) {
+      this.encryptedTransactionDAO.addRecipientBox(transactionHash, addedBoxes.get(0));
+    } else {
+      this.encryptedTransactionDAO.addRecipientBoxes(transactionHash, addedBoxes);
+    }
 
     LOGGER.info("Updated existing payload with hash {}", transactionHash);
     return transactionHash;
@@ -373,8 +572,7 @@ public class TransactionManagerImpl implements TransactionManager {
     }
 
     final EncryptedTransaction encryptedTransaction =
-        encryptedTransactionDAO
-            .retrieveByHash(hash)
+        retrieveByHash(hash)
             .orElseThrow(
                 () ->
                     new TransactionNotFoundException(
@@ -389,13 +587,14 @@ public class TransactionManagerImpl implements TransactionManager {
     PublicKey recipientKey =
         request
             .getRecipient()
-            .orElse(
-                searchForRecipientKey(payload)
-                    .orElseThrow(
-                        () ->
-                            new RecipientKeyNotFoundException(
-                                "No suitable recipient keys found to decrypt payload for : "
-                                    + hash)));
+            .orElseGet(
+                () ->
+                    searchForRecipientKey(payload)
+                        .orElseThrow(
+                            () ->
+                                new RecipientKeyNotFoundException(
+                                    "No suitable recipient keys found to decrypt payload for : "
+                                        + hash)));
 
     byte[] unencryptedTransactionData = enclave.unencryptTransaction(payload, recipientKey);
 
@@ -435,7 +634,7 @@ public class TransactionManagerImpl implements TransactionManager {
   }
 
   private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-    for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
+    for (final PublicKey potentialMatchingKey : candidateRecipientKeys(payload)) {
       try {
         enclave.unencryptTransaction(payload, potentialMatchingKey);
         return Optional.of(potentialMatchingKey);
@@ -446,6 +645,18 @@ public class TransactionManagerImpl implements TransactionManager {
     return Optional.empty();
   }
 
+  /**
+   * The local keys to try when decrypting a payload, starting with any that the payload lists as
+   * recipients so that only legacy payloads without recipient keys need to try every key
+   */
+  private List<PublicKey> candidateRecipientKeys(final EncodedPayload payload) {
+    final Set<PublicKey> localKeys = enclave.getPublicKeys();
+    final Set<PublicKey> candidates = new LinkedHashSet<>();
+    payload.getRecipientKeys().stream().filter(localKeys::contains).forEach(candidates::add);
+    candidates.addAll(localKeys);
+    return List.copyOf(candidates);
+  }
+
   @Override
   public StoreRawResponse store(StoreRawRequest storeRequest) {
 
@@ -472,16 +683,16 @@ public class TransactionManagerImpl implements TransactionManager {
 
   @Override
   public boolean isSender(final MessageHash hash) {
-    final EncodedPayload payload = this.fetchPayload(hash);
-    return enclave.getPublicKeys().contains(payload.getSenderKey());
+    final EncodedPayloadHeader header = this.fetchTransaction(hash).getHeader();
+    return enclave.getPublicKeys().contains(header.getSenderKey());
   }
 
   @Override
   public List<PublicKey> getParticipants(final MessageHash transactionHash) {
-    final EncodedPayload payload = this.fetchPayload(transactionHash);
+    final EncodedPayloadHeader header = this.fetchTransaction(transactionHash).getHeader();
 
     // this includes the sender
-    return payload.getRecipientKeys();
+    return header.getRecipientKeys();
   }
 
   @Override
@@ -494,15 +705,25 @@ public class TransactionManagerImpl implements TransactionManager {
     return payload.getMandatoryRecipients();
   }
 
+  @Override
+  public List<PendingDelivery> getPendingDeliveries(final MessageHash transactionHash) {
+    if (Objects.isNull(pendingDeliveryDAO)) {
+      return List.of();
+    }
+    return pendingDeliveryDAO.findByHash(transactionHash);
+  }
+
   @Override
   public PublicKey defaultPublicKey() {
     return enclave.defaultPublicKey();
   }
 
   private EncodedPayload fetchPayload(final MessageHash hash) {
-    return encryptedTransactionDAO
-        .retrieveByHash(hash)
-        .map(EncryptedTransaction::getPayload)
+    return this.fetchTransaction(hash).getPayload();
+  }
+
+  private EncryptedTransaction fetchTransaction(final MessageHash hash) {
+    return retrieveByHash(hash)
         .orElseThrow(
             () ->
                 new TransactionNotFoundException(
@@ -510,4 +731,15 @@ public class TransactionManagerImpl implements TransactionManager {
                         + Base64.getEncoder().encodeToString(hash.getHashBytes())
                         + " was not found"));
   }
+
+  /**
+   * Looks up a stored transaction, first waiting for a journaled push of it to be stored, so that a
+   * transaction can be read as soon as its push has been acknowledged
+   */
+  private Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    if (Objects.nonNull(pushJournal) && !pushJournal.awaitApplied(hash)) {
+      LOGGER.warn("Journaled push of {} is not stored yet", hash);
+    }
+    return encryptedTransactionDAO.retrieveByHash(hash);
+  }
 }
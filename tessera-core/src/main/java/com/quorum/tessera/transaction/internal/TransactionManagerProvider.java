@@ -1,7 +1,11 @@
 package com.quorum.tessera.transaction.internal;
 
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.PendingDeliveryDAO;
+import com.quorum.tessera.data.logstore.LogStore;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.PayloadDigest;
 import com.quorum.tessera.transaction.PrivacyHelper;
@@ -9,6 +13,9 @@ import com.quorum.tessera.transaction.TransactionManager;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,7 +55,25 @@ public class TransactionManagerProvider {
     final PayloadDigest messageHashFactory = PayloadDigest.create();
     LOGGER.debug("Created PayloadDigest {}", messageHashFactory);
 
-    return transactionManagerHolder.store(
+    final Optional<JdbcConfig> jdbcConfig =
+        Optional.ofNullable(ConfigFactory.create().getConfig().getJdbcConfig());
+    final boolean outboxDelivery = jdbcConfig.filter(JdbcConfig::isOutboxDelivery).isPresent();
+    PendingDeliveryDAO pendingDeliveryDAO = null;
+    if (outboxDelivery) {
+      LOGGER.debug("Creating PendingDeliveryDAO");
+      pendingDeliveryDAO = PendingDeliveryDAO.create();
+      LOGGER.debug("Created PendingDeliveryDAO {}", pendingDeliveryDAO);
+    }
+
+    final PushJournal pushJournal =
+        jdbcConfig
+            .map(JdbcConfig::getPushJournalDirectory)
+            .map(Paths::get)
+            .map(LogStore::new)
+            .map(PushJournal::new)
+            .orElse(null);
+
+    final TransactionManager transactionManager =
         new TransactionManagerImpl(
             enclave,
             encryptedTransactionDAO,
@@ -56,6 +81,18 @@ public class TransactionManagerProvider {
             resendManager,
             batchPayloadPublisher,
             privacyHelper,
-            messageHashFactory));
+            messageHashFactory,
+            pendingDeliveryDAO,
+            pushJournal);
+
+    if (Objects.nonNull(pushJournal)) {
+      LOGGER.debug("Starting PushJournal");
+      pushJournal.start(transactionManager::storePayloads);
+
+      // lets the applier finish the batch it is storing and flushes the log before the node stops
+      Runtime.getRuntime().addShutdownHook(new Thread(pushJournal::close, "push-journal-close"));
+    }
+
+    return transactionManagerHolder.store(transactionManager);
   }
 }
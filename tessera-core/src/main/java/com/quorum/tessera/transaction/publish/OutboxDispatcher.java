@@ -0,0 +1,213 @@
+package com.quorum.tessera.transaction.publish;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.RecipientPayloads;
+import com.quorum.tessera.encryption.PublicKey;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Makes the pushes of sent transactions that are waiting in the outbox, each time it is run.
+ *
+ * <p>The pushes to each recipient are made in the order the transactions were sent, on a thread
+ * for that recipient, so a recipient that is slow or offline does not hold up the others. A run
+ * does not wait for the pushes it starts: recipients that pushes are still being made to are left
+ * out of the following runs until those pushes finish. A push that fails is tried again after a
+ * delay that doubles with each attempt, up to a maximum, and the later pushes to the same recipient
+ * wait for it.
+ */
+public class OutboxDispatcher implements Runnable, OutboxDispatcherMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=OutboxDispatcher";
+
+  /** The most pushes that are read from the outbox in each run */
+  static final int BATCH_SIZE = 1000;
+
+  private final PendingDeliveryDAO pendingDeliveryDAO;
+
+  private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private final PayloadPublisher payloadPublisher;
+
+  private final Executor executor;
+
+  private final long retryDelay;
+
+  private final long maxRetryDelay;
+
+  /** The recipients that pushes are being made to, which are left out until those finish */
+  private final Set<PublicKey> inFlight = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder deliveredCount = new LongAdder();
+
+  private final LongAdder failedAttemptCount = new LongAdder();
+
+  public OutboxDispatcher(
+      final PendingDeliveryDAO pendingDeliveryDAO,
+      final EncryptedTransactionDAO encryptedTransactionDAO,
+      final PayloadPublisher payloadPublisher,
+      final Executor executor,
+      final long retryDelay,
+      final long maxRetryDelay) {
+    this.pendingDeliveryDAO = Objects.requireNonNull(pendingDeliveryDAO);
+    this.encryptedTransactionDAO = Objects.requireNonNull(encryptedTransactionDAO);
+    this.payloadPublisher = Objects.requireNonNull(payloadPublisher);
+    this.executor = Objects.requireNonNull(executor);
+    this.retryDelay = Math.max(1, retryDelay);
+    this.maxRetryDelay = Math.max(this.retryDelay, maxRetryDelay);
+  }
+
+  /**
+   * Creates a dispatcher for the outbox of this node and publishes its metrics
+   *
+   * @param retryDelay the milliseconds to wait before a failed push is first tried again
+   * @param maxRetryDelay the longest to wait before a failed push is tried again
+   * @return the dispatcher, to be run on a schedule
+   */
+  public static OutboxDispatcher create(final long retryDelay, final long maxRetryDelay) {
+    final OutboxDispatcher outboxDispatcher =
+        new OutboxDispatcher(
+            PendingDeliveryDAO.create(),
+            EncryptedTransactionDAO.create(),
+            PayloadPublisher.create(),
+            Executors.newCachedThreadPool(
+                runnable -> {
+                  final Thread thread = new Thread(runnable, "outbox-dispatcher");
+                  thread.setDaemon(true);
+                  return thread;
+                }),
+            retryDelay,
+            maxRetryDelay);
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(outboxDispatcher, new ObjectName(OBJECT_NAME));
+    } catch (JMException ex) {
+      LOGGER.warn("Unable to register outbox metrics. {}", ex.getMessage());
+      LOGGER.debug("", ex);
+    }
+    return outboxDispatcher;
+  }
+
+  @Override
+  public void run() {
+    final long now = System.currentTimeMillis();
+    final List<PendingDelivery> due =
+        pendingDeliveryDAO.findDue(now, Set.copyOf(inFlight), BATCH_SIZE);
+    if (due.isEmpty()) {
+      return;
+    }
+
+    final Set<MessageHash> hashes =
+        due.stream().map(PendingDelivery::getHash).collect(Collectors.toSet());
+    final Map<MessageHash, RecipientPayloads> payloads =
+        encryptedTransactionDAO.findByHashes(hashes).stream()
+            .collect(
+                Collectors.toMap(
+                    EncryptedTransaction::getHash,
+                    transaction -> RecipientPayloads.of(transaction.getPayload())));
+
+    final Map<PublicKey, List<PendingDelivery>> byRecipient =
+        due.stream()
+            .collect(
+                Collectors.groupingBy(
+                    PendingDelivery::getRecipient, LinkedHashMap::new, Collectors.toList()));
+
+    LOGGER.debug("Pushing {} queued transactions to {} recipients", due.size(), byRecipient.size());
+
+    byRecipient.forEach(
+        (recipient, recipientDeliveries) -> {
+          if (!inFlight.add(recipient)) {
+            return;
+          }
+          CompletableFuture.runAsync(() -> deliver(recipientDeliveries, payloads::get), executor)
+              .whenComplete(
+                  (result, ex) -> {
+                    inFlight.remove(recipient);
+                    if (Objects.nonNull(ex)) {
+                      LOGGER.warn("Unable to push queued transactions to {}", recipient, ex);
+                    }
+                  });
+        });
+  }
+
+  /** Makes the pushes to one recipient in order, stopping at the first that fails */
+  private void deliver(
+      final List<PendingDelivery> deliveries,
+      final Function<MessageHash, RecipientPayloads> payloads) {
+    for (final PendingDelivery delivery : deliveries) {
+      final RecipientPayloads payload = payloads.apply(delivery.getHash());
+      if (Objects.isNull(payload)) {
+        LOGGER.warn(
+            "Transaction {} is no longer stored, dropping its push to {}",
+            delivery.getHash(),
+            delivery.getRecipient());
+        pendingDeliveryDAO.delivered(delivery);
+        continue;
+      }
+
+      try {
+        payloadPublisher.publishPayload(
+            payload.forRecipient(delivery.getRecipient()), delivery.getRecipient());
+      } catch (RuntimeException ex) {
+        failedAttemptCount.increment();
+        final long delay = retryDelay(delivery.getAttempts());
+        LOGGER.warn(
+            "Unable to push transaction {} to {}, trying again in {}ms. {}",
+            delivery.getHash(),
+            delivery.getRecipient(),
+            delay,
+            ex.getMessage());
+        LOGGER.debug("", ex);
+        pendingDeliveryDAO.retryAt(
+            delivery, System.currentTimeMillis() + delay, ex.getMessage());
+        return;
+      }
+
+      pendingDeliveryDAO.delivered(delivery);
+      deliveredCount.increment();
+      LOGGER.debug("Pushed transaction {} to {}", delivery.getHash(), delivery.getRecipient());
+    }
+  }
+
+  /** The delay before a push that has failed the given number of times before is tried again */
+  long retryDelay(final int previousAttempts) {
+    final int doublings = Math.min(previousAttempts, Long.numberOfLeadingZeros(retryDelay) - 1);
+    return Math.min(maxRetryDelay, retryDelay << doublings);
+  }
+
+  @Override
+  public long getPendingCount() {
+    return pendingDeliveryDAO.pendingCount();
+  }
+
+  @Override
+  public long getOldestPendingAgeMillis() {
+    return pendingDeliveryDAO
+        .oldestQueuedAt()
+        .map(queuedAt -> Math.max(0, System.currentTimeMillis() - queuedAt))
+        .orElse(0L);
+  }
+
+  @Override
+  public long getDeliveredCount() {
+    return deliveredCount.sum();
+  }
+
+  @Override
+  public long getFailedAttemptCount() {
+    return failedAttemptCount.sum();
+  }
+}
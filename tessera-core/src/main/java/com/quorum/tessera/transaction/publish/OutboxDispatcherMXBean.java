@@ -0,0 +1,17 @@
+package com.quorum.tessera.transaction.publish;
+
+/** Metrics of the {@link OutboxDispatcher}, published over JMX */
+public interface OutboxDispatcherMXBean {
+
+  /** @return the number of pushes in the outbox that are still to be made */
+  long getPendingCount();
+
+  /** @return the milliseconds that the longest waiting push has been in the outbox, 0 if empty */
+  long getOldestPendingAgeMillis();
+
+  /** @return the number of pushes made since the node started */
+  long getDeliveredCount();
+
+  /** @return the number of pushes that failed and were queued to be tried again */
+  long getFailedAttemptCount();
+}
@@ -1,7 +1,9 @@
 package com.quorum.tessera.transaction.resend;
 
 import com.quorum.tessera.enclave.EncodedPayload;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.function.BiConsumer;
 
 /** Handles resend requests where the response has one of our own keys as the sender */
 public interface ResendManager {
@@ -16,6 +18,26 @@ public interface ResendManager {
    */
   void acceptOwnMessage(EncodedPayload transactionPayload);
 
+  /**
+   * Accepts each of the given payloads as {@link #acceptOwnMessage(EncodedPayload)} would, in
+   * order. A payload that cannot be accepted is passed to the error handler along with the reason,
+   * and does not stop the remaining payloads from being accepted.
+   *
+   * @param transactionPayloads the transactions to be stored
+   * @param errorHandler called with each payload that could not be accepted
+   */
+  default void acceptOwnMessages(
+      List<EncodedPayload> transactionPayloads,
+      BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    for (final EncodedPayload transactionPayload : transactionPayloads) {
+      try {
+        acceptOwnMessage(transactionPayload);
+      } catch (RuntimeException ex) {
+        errorHandler.accept(transactionPayload, ex);
+      }
+    }
+  }
+
   static ResendManager create() {
     return ServiceLoader.load(ResendManager.class).findFirst().get();
   }
@@ -1,15 +1,23 @@
 package com.quorum.tessera.transaction.resend.internal;
 
 import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.*;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ResendManagerImpl implements ResendManager {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResendManagerImpl.class);
+
   private final EncryptedTransactionDAO encryptedTransactionDAO;
 
   private final Enclave enclave;
@@ -25,33 +33,140 @@ public class ResendManagerImpl implements ResendManager {
 
   public synchronized void acceptOwnMessage(final EncodedPayload payload) {
     // check the payload can be decrypted to ensure it isn't rubbish being sent to us
-    final byte[] newDecrypted;
-    if (payload.getPrivacyMode() == PrivacyMode.PRIVATE_STATE_VALIDATION) {
-      // if it is PSV, then the enclave would be expected our own box to be available,
-      // but it isn't (since we are rebuilding)
-      // since we only want to decrypt the tx and not worry about all the other pieces,
-      // treat it just like a standard private tx, and remove the other recipients
-      final EncodedPayload tempPayload =
-          EncodedPayload.Builder.from(payload)
-              .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
-              .withExecHash(new byte[0])
-              .withNewRecipientKeys(List.of(payload.getRecipientKeys().get(0)))
-              .withRecipientBoxes(List.of(payload.getRecipientBoxes().get(0).getData()))
-              .build();
-      newDecrypted = enclave.unencryptTransaction(tempPayload, payload.getSenderKey());
-    } else {
-      newDecrypted = enclave.unencryptTransaction(payload, payload.getSenderKey());
+    final byte[] newDecrypted =
+        enclave.unencryptTransaction(decryptable(payload), payload.getSenderKey());
+
+    accept(
+        payload,
+        digest(payload),
+        enclave.getPublicKeys(),
+        newDecrypted,
+        existing -> enclave.unencryptTransaction(existing, existing.getSenderKey()),
+        recipients -> createNewRecipientBoxes(payload, recipients));
+  }
+
+  /**
+   * Accepts the payloads as {@link #acceptOwnMessage(EncodedPayload)} would, but with a single
+   * enclave request to decrypt all of them and another to create the missing recipient boxes. If
+   * either request fails, the payloads are accepted one at a time to find out which ones cannot be.
+   */
+  @Override
+  public synchronized void acceptOwnMessages(
+      final List<EncodedPayload> payloads,
+      final BiConsumer<EncodedPayload, RuntimeException> errorHandler) {
+    if (payloads.size() < 2) {
+      ResendManager.super.acceptOwnMessages(payloads, errorHandler);
+      return;
+    }
+
+    final List<MessageHash> hashes =
+        payloads.stream().map(this::digest).collect(Collectors.toList());
+
+    final Map<MessageHash, EncodedPayload> stored = new HashMap<>();
+    encryptedTransactionDAO
+        .findByHashes(new LinkedHashSet<>(hashes))
+        .forEach(tx -> stored.putIfAbsent(tx.getHash(), tx.getPayload()));
+
+    // the new payloads, followed by the stored payloads they are compared against
+    final List<EncodedPayload> toDecrypt = new ArrayList<>(payloads.size() + stored.size());
+    final List<PublicKey> decryptionKeys = new ArrayList<>(payloads.size() + stored.size());
+    payloads.forEach(
+        payload -> {
+          toDecrypt.add(decryptable(payload));
+          decryptionKeys.add(payload.getSenderKey());
+        });
+    final List<MessageHash> storedHashes = new ArrayList<>(stored.keySet());
+    storedHashes.forEach(
+        hash -> {
+          toDecrypt.add(stored.get(hash));
+          decryptionKeys.add(stored.get(hash).getSenderKey());
+        });
+
+    // only the first payload of a transaction that is not stored yet is saved with new boxes
+    final Set<MessageHash> seen = new HashSet<>(stored.keySet());
+    final Map<Integer, List<PublicKey>> boxRecipients = new HashMap<>();
+    final List<EncodedPayload> boxPayloads = new ArrayList<>();
+    final List<PublicKey> boxKeys = new ArrayList<>();
+    for (int i = 0; i < payloads.size(); i++) {
+      if (seen.add(hashes.get(i))) {
+        final List<PublicKey> recipients = recipientsWithoutBoxes(payloads.get(i));
+        boxRecipients.put(i, recipients);
+        boxPayloads.addAll(Collections.nCopies(recipients.size(), payloads.get(i)));
+        boxKeys.addAll(recipients);
+      }
+    }
+
+    final List<byte[]> decrypted;
+    final List<byte[]> boxes;
+    try {
+      decrypted = enclave.unencryptTransactions(toDecrypt, decryptionKeys);
+      boxes =
+          boxPayloads.isEmpty()
+              ? List.of()
+              : enclave.createNewRecipientBoxes(boxPayloads, boxKeys);
+    } catch (final RuntimeException ex) {
+      LOGGER.debug(
+          "Unable to accept {} payloads together, accepting each in turn", payloads.size());
+      LOGGER.trace("", ex);
+      ResendManager.super.acceptOwnMessages(payloads, errorHandler);
+      return;
+    }
+
+    final Map<MessageHash, byte[]> existingDecrypted = new HashMap<>();
+    for (int i = 0; i < storedHashes.size(); i++) {
+      existingDecrypted.put(storedHashes.get(i), decrypted.get(payloads.size() + i));
     }
 
-    final MessageHash transactionHash =
-        Optional.of(payload)
-            .map(EncodedPayload::getCipherText)
-            .map(payloadDigest::digest)
-            .map(MessageHash::new)
-            .get();
+    final Set<PublicKey> localKeys = enclave.getPublicKeys();
+
+    int boxOffset = 0;
+    for (int i = 0; i < payloads.size(); i++) {
+      final EncodedPayload payload = payloads.get(i);
+      final MessageHash hash = hashes.get(i);
+
+      final List<PublicKey> precomputedRecipients = boxRecipients.get(i);
+      final List<byte[]> precomputedBoxes;
+      if (Objects.nonNull(precomputedRecipients)) {
+        final int from = boxOffset;
+        boxOffset += precomputedRecipients.size();
+        precomputedBoxes = boxes.subList(from, boxOffset);
+      } else {
+        precomputedBoxes = null;
+      }
+
+      try {
+        accept(
+            payload,
+            hash,
+            localKeys,
+            decrypted.get(i),
+            existing ->
+                Optional.ofNullable(existingDecrypted.get(hash))
+                    .orElseGet(
+                        () -> enclave.unencryptTransaction(existing, existing.getSenderKey())),
+            recipients ->
+                recipients.equals(precomputedRecipients)
+                    ? precomputedBoxes
+                    : createNewRecipientBoxes(payload, recipients));
+
+        // a transaction saved by this payload decrypts to the same message for later payloads
+        existingDecrypted.putIfAbsent(hash, decrypted.get(i));
+      } catch (final RuntimeException ex) {
+        errorHandler.accept(payload, ex);
+      }
+    }
+  }
+
+  private void accept(
+      final EncodedPayload payload,
+      final MessageHash transactionHash,
+      final Set<PublicKey> localKeys,
+      final byte[] newDecrypted,
+      final Function<EncodedPayload, byte[]> existingDecrypter,
+      final Function<List<PublicKey>, List<byte[]>> boxCreator) {
 
     final PublicKey sender = payload.getSenderKey();
-    if (!enclave.getPublicKeys().contains(sender)) {
+    if (!localKeys.contains(sender)) {
       throw new IllegalArgumentException(
           "Message "
               + transactionHash.toString()
@@ -76,11 +191,9 @@ public class ResendManagerImpl implements ResendManager {
         }
       }
 
-      final EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.from(existing);
-
       if (!existing.getRecipientKeys().contains(payload.getRecipientKeys().get(0))) {
         // lets compare it against another message received before
-        final byte[] oldDecrypted = enclave.unencryptTransaction(existing, existing.getSenderKey());
+        final byte[] oldDecrypted = existingDecrypter.apply(existing);
         final boolean same =
             Arrays.equals(newDecrypted, oldDecrypted)
                 && Arrays.equals(payload.getCipherText(), existing.getCipherText());
@@ -89,36 +202,26 @@ public class ResendManagerImpl implements ResendManager {
           throw new IllegalArgumentException("Invalid payload provided");
         }
 
-        // check recipients
-        if (!existing.getRecipientKeys().contains(payload.getRecipientKeys().get(0))) {
-          payloadBuilder
-              .withRecipientKey(payload.getRecipientKeys().get(0))
-              .withRecipientBox(payload.getRecipientBoxes().get(0).getData());
-        }
-
-        EncryptedTransaction encryptedTransaction = tx.get();
-
-        encryptedTransaction.setPayload(payloadBuilder.build());
-
-        this.encryptedTransactionDAO.update(encryptedTransaction);
+        // add the recipient and its box, without rewriting the stored payload
+        this.encryptedTransactionDAO.addRecipientBox(
+            transactionHash,
+            EncryptedTransactionBox.appended(
+                payload.getRecipientKeys().get(0), payload.getRecipientBoxes().get(0)));
       }
 
     } else {
 
       final EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.from(payload);
-      final List<PublicKey> recipientKeys = new ArrayList<>(payload.getRecipientKeys());
 
       // we need to recreate this
-      if (!recipientKeys.contains(sender)) {
-        recipientKeys.add(sender);
+      if (!payload.getRecipientKeys().contains(sender)) {
         payloadBuilder.withRecipientKey(sender);
       }
 
       // add recipient boxes for all recipients (applicable for PSV transactions)
-      for (int i = payload.getRecipientBoxes().size(); i < recipientKeys.size(); i++) {
-        PublicKey recipient = recipientKeys.get(i);
-        byte[] newBox = enclave.createNewRecipientBox(payload, recipient);
-        payloadBuilder.withRecipientBox(newBox);
+      final List<PublicKey> recipients = recipientsWithoutBoxes(payload);
+      if (!recipients.isEmpty()) {
+        boxCreator.apply(recipients).forEach(payloadBuilder::withRecipientBox);
       }
 
       final EncryptedTransaction txToSave =
@@ -127,4 +230,42 @@ public class ResendManagerImpl implements ResendManager {
       this.encryptedTransactionDAO.save(txToSave);
     }
   }
+
+  /**
+   * The payload to decrypt to check a payload we sent is genuine. For PSV the enclave would expect
+   * our own box to be available, but it isn't (since we are rebuilding). Since we only want to
+   * decrypt the tx and not worry about all the other pieces, treat it just like a standard private
+   * tx, and remove the other recipients.
+   */
+  private static EncodedPayload decryptable(final EncodedPayload payload) {
+    if (payload.getPrivacyMode() != PrivacyMode.PRIVATE_STATE_VALIDATION) {
+      return payload;
+    }
+    return EncodedPayload.Builder.from(payload)
+        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+        .withExecHash(new byte[0])
+        .withNewRecipientKeys(List.of(payload.getRecipientKeys().get(0)))
+        .withRecipientBoxes(List.of(payload.getRecipientBoxes().get(0).getData()))
+        .build();
+  }
+
+  /** The recipients, including ourselves as the sender, that a new box must be created for */
+  private static List<PublicKey> recipientsWithoutBoxes(final EncodedPayload payload) {
+    final List<PublicKey> recipientKeys = new ArrayList<>(payload.getRecipientKeys());
+    if (!recipientKeys.contains(payload.getSenderKey())) {
+      recipientKeys.add(payload.getSenderKey());
+    }
+    final int boxCount = Math.min(payload.getRecipientBoxes().size(), recipientKeys.size());
+    return List.copyOf(recipientKeys.subList(boxCount, recipientKeys.size()));
+  }
+
+  private List<byte[]> createNewRecipientBoxes(
+      final EncodedPayload payload, final List<PublicKey> recipients) {
+    return enclave.createNewRecipientBoxes(
+        Collections.nCopies(recipients.size(), payload), recipients);
+  }
+
+  private MessageHash digest(final EncodedPayload payload) {
+    return new MessageHash(payloadDigest.digest(payload.getCipherText()));
+  }
 }
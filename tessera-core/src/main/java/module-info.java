@@ -1,4 +1,5 @@
 module tessera.transaction {
+  requires java.management;
   requires org.slf4j;
   requires tessera.config;
   requires tessera.enclave.api;
@@ -0,0 +1,191 @@
+package com.quorum.tessera.transaction.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.logstore.LogStore;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.transaction.exception.InvalidExistingTransactionException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PushJournalTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path directory;
+
+  private PushJournal pushJournal;
+
+  private final List<EncodedPayload> stored = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void beforeTest() {
+    directory = workDir.getRoot().toPath().resolve("journal");
+    pushJournal = new PushJournal(new LogStore(directory, 1024));
+  }
+
+  @After
+  public void afterTest() {
+    pushJournal.close();
+  }
+
+  @Test
+  public void journaledPushesAreStoredInOrder() throws Exception {
+    final BlockingQueue<List<EncodedPayload>> batches = new LinkedBlockingQueue<>();
+    pushJournal.start(
+        (payloads, errorHandler) -> {
+          stored.addAll(payloads);
+          batches.add(payloads);
+        });
+
+    for (int i = 0; i < 5; i++) {
+      pushJournal.append(hash(i), payload(i));
+    }
+
+    assertThat(pushJournal.awaitApplied(hash(4))).isTrue();
+    assertThat(cipherTexts(stored)).containsExactly("0", "1", "2", "3", "4");
+    assertThat(pushJournal.pendingCount()).isZero();
+    assertThat(batches.poll(1, TimeUnit.SECONDS)).isNotEmpty();
+  }
+
+  @Test
+  public void pushesThatWereNotStoredAreReplayedWhenReopened() {
+    pushJournal.start(
+        (payloads, errorHandler) ->
+            payloads.forEach(p -> errorHandler.accept(p, new RuntimeException("database down"))));
+    pushJournal.append(hash(1), payload(1));
+    pushJournal.append(hash(2), payload(2));
+    pushJournal.close();
+
+    pushJournal = new PushJournal(new LogStore(directory, 1024));
+    pushJournal.start((payloads, errorHandler) -> stored.addAll(payloads));
+
+    assertThat(pushJournal.awaitApplied(hash(2))).isTrue();
+    assertThat(cipherTexts(stored)).containsExactly("1", "2");
+  }
+
+  @Test
+  public void appliedPushesAreNotReplayed() {
+    pushJournal.start((payloads, errorHandler) -> stored.addAll(payloads));
+    pushJournal.append(hash(1), payload(1));
+    assertThat(pushJournal.awaitApplied(hash(1))).isTrue();
+    pushJournal.close();
+    stored.clear();
+
+    pushJournal = new PushJournal(new LogStore(directory, 1024));
+    pushJournal.start((payloads, errorHandler) -> stored.addAll(payloads));
+    pushJournal.append(hash(2), payload(2));
+
+    assertThat(pushJournal.awaitApplied(hash(2))).isTrue();
+    assertThat(cipherTexts(stored)).containsExactly("2");
+  }
+
+  @Test
+  public void failedPushesAreTriedAgain() {
+    final List<Integer> attempts = new CopyOnWriteArrayList<>();
+    final BiConsumer<List<EncodedPayload>, BiConsumer<EncodedPayload, RuntimeException>> store =
+        (payloads, errorHandler) -> {
+          attempts.add(payloads.size());
+          if (attempts.size() == 1) {
+            payloads.forEach(p -> errorHandler.accept(p, new RuntimeException("database down")));
+            return;
+          }
+          stored.addAll(payloads);
+        };
+    pushJournal.start(store);
+
+    pushJournal.append(hash(1), payload(1));
+
+    assertThat(pushJournal.awaitApplied(hash(1))).isTrue();
+    assertThat(attempts).hasSizeGreaterThanOrEqualTo(2);
+    assertThat(cipherTexts(stored)).containsExactly("1");
+  }
+
+  @Test
+  public void pushesThatCanNeverBeStoredAreDropped() {
+    final List<Integer> attempts = new CopyOnWriteArrayList<>();
+    final BiConsumer<List<EncodedPayload>, BiConsumer<EncodedPayload, RuntimeException>> store =
+        (payloads, errorHandler) -> {
+          attempts.add(payloads.size());
+          for (final EncodedPayload payload : payloads) {
+            if (Arrays.equals(payload.getCipherText(), payload(1).getCipherText())) {
+              errorHandler.accept(payload, new InvalidExistingTransactionException("Invalid existing transaction"));
+            } else {
+              stored.add(payload);
+            }
+          }
+        };
+    pushJournal.start(store);
+
+    pushJournal.append(hash(1), payload(1));
+    assertThat(pushJournal.awaitApplied(hash(1))).isTrue();
+    pushJournal.append(hash(2), payload(2));
+
+    assertThat(pushJournal.awaitApplied(hash(2))).isTrue();
+    assertThat(cipherTexts(stored)).containsExactly("2");
+    assertThat(attempts).hasSize(2);
+    assertThat(pushJournal.pendingCount()).isZero();
+
+    pushJournal.close();
+    stored.clear();
+    pushJournal = new PushJournal(new LogStore(directory, 1024));
+    pushJournal.start(store);
+
+    assertThat(pushJournal.pendingCount()).isZero();
+    assertThat(stored).isEmpty();
+  }
+
+  @Test
+  public void awaitingAHashThatIsNotJournaledReturnsAtOnce() {
+    pushJournal.start((payloads, errorHandler) -> stored.addAll(payloads));
+
+    assertThat(pushJournal.awaitApplied(hash(9))).isTrue();
+    assertThat(stored).isEmpty();
+  }
+
+  @Test
+  public void journalCanOnlyBeStartedOnce() {
+    pushJournal.start((payloads, errorHandler) -> {});
+
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> pushJournal.start((payloads, errorHandler) -> {}));
+  }
+
+  private static MessageHash hash(final int i) {
+    return new MessageHash(("HASH" + i).getBytes());
+  }
+
+  private static EncodedPayload payload(final int i) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("SENDER".getBytes()))
+        .withCipherText(String.valueOf(i).getBytes())
+        .withCipherTextNonce("NONCE".getBytes())
+        .withRecipientNonce("RECIPIENT_NONCE".getBytes())
+        .withRecipientKeys(List.of(PublicKey.from("RECIPIENT".getBytes())))
+        .withRecipientBoxes(List.of("BOX".getBytes()))
+        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+        .build();
+  }
+
+  private static List<String> cipherTexts(final List<EncodedPayload> payloads) {
+    return payloads.stream()
+        .map(EncodedPayload::getCipherText)
+        .map(String::new)
+        .collect(Collectors.toList());
+  }
+}
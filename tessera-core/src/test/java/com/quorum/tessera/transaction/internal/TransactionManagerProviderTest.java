@@ -5,8 +5,10 @@ import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.PendingDeliveryDAO;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.PayloadDigest;
 import com.quorum.tessera.transaction.PrivacyHelper;
@@ -16,10 +18,14 @@ import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TransactionManagerProviderTest {
 
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
   @Before
   @After
   public void clearHolder() {
@@ -104,6 +110,93 @@ public class TransactionManagerProviderTest {
     }
   }
 
+  @Test
+  public void providerWithOutboxDelivery() {
+
+    try (var mockedStaticConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedStaticEncryptedTransactionDAO = mockStatic(EncryptedTransactionDAO.class);
+        var mockedStaticEnclave = mockStatic(Enclave.class);
+        var mockedStaticEncryptedRawTransactionDAO = mockStatic(EncryptedRawTransactionDAO.class);
+        var mockedStaticPayloadPublisher = mockStatic(PayloadPublisher.class);
+        var mockedStaticBatchPayloadPublisher = mockStatic(BatchPayloadPublisher.class);
+        var mockedStaticPrivacyHelper = mockStatic(PrivacyHelper.class);
+        var mockedStaticResendManager = mockStatic(ResendManager.class);
+        var mockedStaticPayloadDigest = mockStatic(PayloadDigest.class);
+        var mockedStaticPendingDeliveryDAO = mockStatic(PendingDeliveryDAO.class)) {
+
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isOutboxDelivery()).thenReturn(true);
+      Config config = mock(Config.class);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+      mockedStaticConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedStaticEncryptedTransactionDAO
+          .when(EncryptedTransactionDAO::create)
+          .thenReturn(mock(EncryptedTransactionDAO.class));
+      mockedStaticBatchPayloadPublisher
+          .when(BatchPayloadPublisher::create)
+          .thenReturn(mock(BatchPayloadPublisher.class));
+      mockedStaticEncryptedRawTransactionDAO
+          .when(EncryptedRawTransactionDAO::create)
+          .thenReturn(mock(EncryptedRawTransactionDAO.class));
+      mockedStaticEnclave.when(Enclave::create).thenReturn(mock(Enclave.class));
+      mockedStaticPrivacyHelper.when(PrivacyHelper::create).thenReturn(mock(PrivacyHelper.class));
+      mockedStaticResendManager.when(ResendManager::create).thenReturn(mock(ResendManager.class));
+      mockedStaticPayloadDigest.when(PayloadDigest::create).thenReturn(mock(PayloadDigest.class));
+      mockedStaticPendingDeliveryDAO
+          .when(PendingDeliveryDAO::create)
+          .thenReturn(mock(PendingDeliveryDAO.class));
+
+      assertThat(TransactionManagerProvider.provider()).isNotNull();
+
+      mockedStaticPendingDeliveryDAO.verify(PendingDeliveryDAO::create);
+      mockedStaticPendingDeliveryDAO.verifyNoMoreInteractions();
+    }
+  }
+
+  @Test
+  public void providerWithPushJournal() {
+
+    try (var mockedStaticConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedStaticEncryptedTransactionDAO = mockStatic(EncryptedTransactionDAO.class);
+        var mockedStaticEnclave = mockStatic(Enclave.class);
+        var mockedStaticEncryptedRawTransactionDAO = mockStatic(EncryptedRawTransactionDAO.class);
+        var mockedStaticPayloadPublisher = mockStatic(PayloadPublisher.class);
+        var mockedStaticBatchPayloadPublisher = mockStatic(BatchPayloadPublisher.class);
+        var mockedStaticPrivacyHelper = mockStatic(PrivacyHelper.class);
+        var mockedStaticResendManager = mockStatic(ResendManager.class);
+        var mockedStaticPayloadDigest = mockStatic(PayloadDigest.class)) {
+
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.getPushJournalDirectory())
+          .thenReturn(workDir.getRoot().toPath().resolve("journal").toString());
+      Config config = mock(Config.class);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+      mockedStaticConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedStaticEncryptedTransactionDAO
+          .when(EncryptedTransactionDAO::create)
+          .thenReturn(mock(EncryptedTransactionDAO.class));
+      mockedStaticBatchPayloadPublisher
+          .when(BatchPayloadPublisher::create)
+          .thenReturn(mock(BatchPayloadPublisher.class));
+      mockedStaticEncryptedRawTransactionDAO
+          .when(EncryptedRawTransactionDAO::create)
+          .thenReturn(mock(EncryptedRawTransactionDAO.class));
+      mockedStaticEnclave.when(Enclave::create).thenReturn(mock(Enclave.class));
+      mockedStaticPrivacyHelper.when(PrivacyHelper::create).thenReturn(mock(PrivacyHelper.class));
+      mockedStaticResendManager.when(ResendManager::create).thenReturn(mock(ResendManager.class));
+      mockedStaticPayloadDigest.when(PayloadDigest::create).thenReturn(mock(PayloadDigest.class));
+
+      assertThat(TransactionManagerProvider.provider()).isNotNull();
+      assertThat(workDir.getRoot().toPath().resolve("journal")).isDirectory();
+    }
+  }
+
   @Test
   public void defaultConstructorForCoverage() {
     assertThat(new TransactionManagerProvider()).isNotNull();
@@ -10,6 +10,7 @@ import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.*;
+import com.quorum.tessera.transaction.exception.InvalidExistingTransactionException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotAvailableException;
 import com.quorum.tessera.transaction.exception.PrivacyViolationException;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
@@ -458,6 +459,84 @@ public class TransactionManagerTest {
     verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
   }
 
+  @Test
+  public void storePayloadsSavesNewTransactionsTogether() {
+    final EncodedPayload first = mock(EncodedPayload.class);
+    when(first.getCipherText()).thenReturn("CIPHERTEXT1".getBytes());
+    final EncodedPayload second = mock(EncodedPayload.class);
+    when(second.getCipherText()).thenReturn("CIPHERTEXT2".getBytes());
+
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.empty());
+    final List<EncryptedTransaction> saved = new ArrayList<>();
+    when(encryptedTransactionDAO.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              saved.addAll(invocation.getArgument(0));
+              return emptyList();
+            });
+
+    final List<EncodedPayload> failed = new ArrayList<>();
+    transactionManager.storePayloads(List.of(first, second), (p, ex) -> failed.add(p));
+
+    assertThat(failed).isEmpty();
+
+    verify(encryptedTransactionDAO).saveAll(anyList());
+    assertThat(saved)
+        .extracting(EncryptedTransaction::getHash)
+        .containsExactly(
+            new MessageHash("CIPHERTEXT1".getBytes()), new MessageHash("CIPHERTEXT2".getBytes()));
+
+    verify(encryptedTransactionDAO, times(2)).retrieveByHash(any(MessageHash.class));
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
+  @Test
+  public void storePayloadsStoresConflictingTransactionIndividually() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.empty());
+    when(encryptedTransactionDAO.saveAll(anyList()))
+        .thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+    final List<EncodedPayload> failed = new ArrayList<>();
+    transactionManager.storePayloads(List.of(payload), (p, ex) -> failed.add(p));
+
+    assertThat(failed).isEmpty();
+
+    verify(encryptedTransactionDAO).saveAll(anyList());
+    verify(encryptedTransactionDAO).save(any(EncryptedTransaction.class));
+    verify(encryptedTransactionDAO, times(2)).retrieveByHash(any(MessageHash.class));
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
+  @Test
+  public void storePayloadsReportsEveryPendingPayloadWhenBatchFails() {
+    final EncodedPayload first = mock(EncodedPayload.class);
+    when(first.getCipherText()).thenReturn("CIPHERTEXT1".getBytes());
+    final EncodedPayload second = mock(EncodedPayload.class);
+    when(second.getCipherText()).thenReturn("CIPHERTEXT2".getBytes());
+
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.empty());
+    final RuntimeException failure = new RuntimeException("OUCH");
+    when(encryptedTransactionDAO.saveAll(anyList())).thenThrow(failure);
+
+    final Map<EncodedPayload, RuntimeException> failed = new LinkedHashMap<>();
+    transactionManager.storePayloads(List.of(first, second), failed::put);
+
+    assertThat(failed).containsExactly(entry(first, failure), entry(second, failure));
+
+    verify(encryptedTransactionDAO).saveAll(anyList());
+    verify(encryptedTransactionDAO, times(2)).retrieveByHash(any(MessageHash.class));
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
   @Test
   public void storePayloadWhenWeAreSender() {
     final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
@@ -717,7 +796,7 @@ public class TransactionManagerTest {
         catchThrowable(() -> transactionManager.storePayload(payloadToStore));
 
     assertThat(throwable)
-        .isInstanceOf(RuntimeException.class)
+        .isExactlyInstanceOf(InvalidExistingTransactionException.class)
         .hasMessage("Invalid existing transaction");
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
@@ -751,7 +830,7 @@ public class TransactionManagerTest {
         catchThrowable(() -> transactionManager.storePayload(payloadToStore));
 
     assertThat(throwable)
-        .isInstanceOf(RuntimeException.class)
+        .isExactlyInstanceOf(InvalidExistingTransactionException.class)
         .hasMessage("expected recipient not found");
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
@@ -806,14 +885,14 @@ public class TransactionManagerTest {
 
     assertThat(response.toString()).isEqualTo("Y3Qx");
 
-    ArgumentCaptor<EncryptedTransaction> txCaptor =
-        ArgumentCaptor.forClass(EncryptedTransaction.class);
-    verify(encryptedTransactionDAO).update(txCaptor.capture());
+    ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), boxCaptor.capture());
 
-    EncodedPayload updatedTransaction = txCaptor.getValue().getPayload();
-    assertThat(updatedTransaction.getRecipientKeys()).containsExactly(recipient1, recipient2);
-    assertThat(updatedTransaction.getRecipientBoxes())
-        .containsExactly(RecipientBox.from("recipient_box1".getBytes()));
+    EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isEqualTo(recipient1.getKeyBytes());
+    assertThat(addedBox.getBox()).isEqualTo("recipient_box1".getBytes());
+    assertThat(addedBox.isPrepended()).isTrue();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
@@ -849,16 +928,67 @@ public class TransactionManagerTest {
 
     assertThat(response.toString()).isEqualTo("Y3Qx");
 
-    ArgumentCaptor<EncryptedTransaction> txCaptor =
-        ArgumentCaptor.forClass(EncryptedTransaction.class);
-    verify(encryptedTransactionDAO).update(txCaptor.capture());
+    ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), boxCaptor.capture());
 
-    EncodedPayload updatedTransaction = txCaptor.getValue().getPayload();
-    assertThat(updatedTransaction.getRecipientKeys()).containsExactly(recipient2, recipient1);
-    assertThat(updatedTransaction.getRecipientBoxes())
-        .containsExactly(
-            RecipientBox.from("recipient_box2".getBytes()),
-            RecipientBox.from("recipient_box1".getBytes()));
+    EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isEqualTo(recipient2.getKeyBytes());
+    assertThat(addedBox.getBox()).isEqualTo("recipient_box2".getBytes());
+    assertThat(addedBox.isPrepended()).isTrue();
+
+    verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+  }
+
+  @Test
+  public void storePayloadWithExistingRecipientAddsGroupedBoxesTogether() {
+    PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+    PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+    PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+    EncodedPayload existingPayload = mock(EncodedPayload.class);
+    when(existingPayload.getCipherText()).thenReturn("ct1".getBytes());
+    when(existingPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(existingPayload.getRecipientKeys()).thenReturn(List.of(recipient1));
+    when(existingPayload.getRecipientBoxes())
+        .thenReturn(List.of(RecipientBox.from("recipient_box1".getBytes())));
+
+    EncryptedTransaction existingDatabaseEntry =
+        new EncryptedTransaction(mock(MessageHash.class), existingPayload);
+
+    when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+        .thenReturn(Optional.of(existingDatabaseEntry));
+
+    EncodedPayload payloadToStore = mock(EncodedPayload.class);
+    when(payloadToStore.getCipherText()).thenReturn("ct1".getBytes());
+    when(payloadToStore.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payloadToStore.getRecipientKeys())
+        .thenReturn(List.of(recipient2, recipient1, recipient3));
+    when(payloadToStore.getRecipientBoxes())
+        .thenReturn(
+            List.of(
+                RecipientBox.from("recipient_box2".getBytes()),
+                RecipientBox.from("recipient_box1".getBytes()),
+                RecipientBox.from("recipient_box3".getBytes())));
+
+    MessageHash response = transactionManager.storePayload(payloadToStore);
+
+    assertThat(response.toString()).isEqualTo("Y3Qx");
+
+    ArgumentCaptor<List<EncryptedTransactionBox>> boxesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(encryptedTransactionDAO)
+        .addRecipientBoxes(any(MessageHash.class), boxesCaptor.capture());
+
+    // prepended last to first, so the payload is read back with the boxes in the pushed order
+    assertThat(boxesCaptor.getValue())
+        .extracting(EncryptedTransactionBox::getPublicKey)
+        .containsExactly(recipient3.getKeyBytes(), recipient2.getKeyBytes());
+    assertThat(boxesCaptor.getValue())
+        .extracting(EncryptedTransactionBox::getBox)
+        .containsExactly("recipient_box3".getBytes(), "recipient_box2".getBytes());
+    assertThat(boxesCaptor.getValue()).allMatch(EncryptedTransactionBox::isPrepended);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
@@ -923,16 +1053,14 @@ public class TransactionManagerTest {
 
     assertThat(response.toString()).isEqualTo("Y3Qx");
 
-    ArgumentCaptor<EncryptedTransaction> txCaptor =
-        ArgumentCaptor.forClass(EncryptedTransaction.class);
-    verify(encryptedTransactionDAO).update(txCaptor.capture());
+    ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), boxCaptor.capture());
 
-    EncodedPayload updatedTransaction = txCaptor.getValue().getPayload();
-    assertThat(updatedTransaction.getRecipientKeys()).isEmpty();
-    assertThat(updatedTransaction.getRecipientBoxes())
-        .containsExactly(
-            RecipientBox.from("recipient_box2".getBytes()),
-            RecipientBox.from("recipient_box1".getBytes()));
+    EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isNull();
+    assertThat(addedBox.getBox()).isEqualTo("recipient_box2".getBytes());
+    assertThat(addedBox.isPrepended()).isTrue();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
@@ -978,8 +1106,7 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.getPrivacyGroupId()).isNotPresent();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
   }
 
   @Test
@@ -1023,8 +1150,7 @@ public class TransactionManagerTest {
         .isEqualTo(PrivacyGroup.Id.fromBytes("group".getBytes()));
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
   }
 
   @Test
@@ -1071,8 +1197,7 @@ public class TransactionManagerTest {
         .isEqualTo(PrivacyGroup.Id.fromBytes("group".getBytes()));
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
   }
 
   @Test
@@ -1115,7 +1240,44 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    verify(enclave).getPublicKeys();
+  }
+
+  @Test
+  public void receiveTriesLocalKeysListedInPayloadFirst() {
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PublicKey unrelated = PublicKey.from("unrelated".getBytes());
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+
+    MessageHash messageHash = mock(MessageHash.class);
+
+    ReceiveRequest receiveRequest = mock(ReceiveRequest.class);
+    when(receiveRequest.getRecipient()).thenReturn(Optional.empty());
+    when(receiveRequest.getTransactionHash()).thenReturn(messageHash);
+
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payload.getRecipientKeys()).thenReturn(List.of(recipient));
+    when(payload.getSenderKey()).thenReturn(sender);
+
+    EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+    when(encryptedTransaction.getPayload()).thenReturn(payload);
+
+    when(encryptedTransactionDAO.retrieveByHash(eq(messageHash)))
+        .thenReturn(Optional.of(encryptedTransaction));
+
+    byte[] expectedOutcome = "Encrypted payload".getBytes();
+    when(enclave.unencryptTransaction(payload, recipient)).thenReturn(expectedOutcome);
+    when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(unrelated, recipient)));
+
+    ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
+
+    assertThat(receiveResponse.getUnencryptedTransactionData()).isEqualTo(expectedOutcome);
+    assertThat(receiveResponse.getManagedParties()).containsExactly(recipient);
+
+    verify(encryptedTransactionDAO).retrieveByHash(messageHash);
+    verify(enclave, times(2)).unencryptTransaction(payload, recipient);
     verify(enclave, times(2)).getPublicKeys();
   }
 
@@ -1156,8 +1318,8 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(3)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    verify(enclave).getPublicKeys();
   }
 
   @Test
@@ -1251,8 +1413,7 @@ public class TransactionManagerTest {
     assertThat(receiveResponse.sender()).isEqualTo(sender);
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-    verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-    verify(enclave).getPublicKeys();
+    verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
   }
 
   @Test
@@ -1283,14 +1444,12 @@ public class TransactionManagerTest {
   @Test
   public void receiveNoRecipientKeyFound() {
 
-    PublicKey recipient = PublicKey.from("recipient".getBytes());
-
     MessageHash messageHash = mock(MessageHash.class);
     when(messageHash.getHashBytes()).thenReturn("KEY".getBytes());
 
     ReceiveRequest receiveRequest = mock(ReceiveRequest.class);
     when(receiveRequest.getTransactionHash()).thenReturn(messageHash);
-    when(receiveRequest.getRecipient()).thenReturn(Optional.of(recipient));
+    when(receiveRequest.getRecipient()).thenReturn(Optional.empty());
 
     EncodedPayload payload = mock(EncodedPayload.class);
 
@@ -1484,11 +1643,11 @@ public class TransactionManagerTest {
 
     final EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
 
-    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    final EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
     PublicKey sender = mock(PublicKey.class);
-    when(encodedPayload.getSenderKey()).thenReturn(sender);
+    when(header.getSenderKey()).thenReturn(sender);
 
-    when(encryptedTransaction.getPayload()).thenReturn(encodedPayload);
+    when(encryptedTransaction.getHeader()).thenReturn(header);
 
     when(encryptedTransactionDAO.retrieveByHash(transactionHash))
         .thenReturn(Optional.of(encryptedTransaction));
@@ -1514,9 +1673,9 @@ public class TransactionManagerTest {
 
     final PublicKey senderKey = mock(PublicKey.class);
 
-    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
-    when(encodedPayload.getSenderKey()).thenReturn(senderKey);
-    when(encryptedTransaction.getPayload()).thenReturn(encodedPayload);
+    final EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
+    when(header.getSenderKey()).thenReturn(senderKey);
+    when(encryptedTransaction.getHeader()).thenReturn(header);
     when(encryptedTransactionDAO.retrieveByHash(transactionHash))
         .thenReturn(Optional.of(encryptedTransaction));
 
@@ -1559,9 +1718,9 @@ public class TransactionManagerTest {
     final PublicKey recipientKey = mock(PublicKey.class);
 
     final EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
-    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
-    when(encodedPayload.getRecipientKeys()).thenReturn(List.of(senderKey, recipientKey));
-    when(encryptedTransaction.getPayload()).thenReturn(encodedPayload);
+    final EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
+    when(header.getRecipientKeys()).thenReturn(List.of(senderKey, recipientKey));
+    when(encryptedTransaction.getHeader()).thenReturn(header);
 
     when(encryptedTransactionDAO.retrieveByHash(transactionHash))
         .thenReturn(Optional.of(encryptedTransaction));
@@ -1664,6 +1823,224 @@ public class TransactionManagerTest {
     verify(encryptedRawTransactionDAO).upcheck();
   }
 
+  @Test
+  public void sendQueuesPushesInTheOutbox() {
+    PendingDeliveryDAO pendingDeliveryDAO = mock(PendingDeliveryDAO.class);
+    TransactionManager outboxTransactionManager = outboxTransactionManager(pendingDeliveryDAO);
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    when(enclave.encryptPayload(any(), any(), any(), any())).thenReturn(encodedPayload);
+
+    PublicKey sender = PublicKey.from("SENDER".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+
+    SendRequest sendRequest = mock(SendRequest.class);
+    when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+    when(sendRequest.getSender()).thenReturn(sender);
+    when(sendRequest.getRecipients()).thenReturn(List.of(receiver));
+    when(sendRequest.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    SendResponse result = outboxTransactionManager.send(sendRequest);
+
+    assertThat(result.getTransactionHash().toString()).isEqualTo("Q0lQSEVSVEVYVA==");
+
+    ArgumentCaptor<List<PendingDelivery>> deliveriesCaptor = ArgumentCaptor.forClass(List.class);
+    verify(pendingDeliveryDAO).save(any(EncryptedTransaction.class), deliveriesCaptor.capture());
+    assertThat(deliveriesCaptor.getValue())
+        .extracting(PendingDelivery::getRecipient, PendingDelivery::getHash)
+        .containsExactly(tuple(receiver, result.getTransactionHash()));
+    verify(encryptedTransactionDAO)
+        .stored(
+            argThat(transaction -> transaction.getHash().equals(result.getTransactionHash())));
+
+    verify(enclave).encryptPayload(any(), any(), any(), any());
+    verify(enclave).getForwardingKeys();
+    verify(enclave).getPublicKeys();
+    verifyNoMoreInteractions(pendingDeliveryDAO);
+  }
+
+  @Test
+  public void sendWithEnhancedPrivacyIsPushedBeforeItIsStored() {
+    PendingDeliveryDAO pendingDeliveryDAO = mock(PendingDeliveryDAO.class);
+    TransactionManager outboxTransactionManager = outboxTransactionManager(pendingDeliveryDAO);
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+
+    when(enclave.encryptPayload(any(), any(), any(), any())).thenReturn(encodedPayload);
+
+    PublicKey sender = PublicKey.from("SENDER".getBytes());
+    PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+
+    SendRequest sendRequest = mock(SendRequest.class);
+    when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+    when(sendRequest.getSender()).thenReturn(sender);
+    when(sendRequest.getRecipients()).thenReturn(List.of(receiver));
+    when(sendRequest.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+
+    outboxTransactionManager.send(sendRequest);
+
+    verify(encryptedTransactionDAO).save(any(EncryptedTransaction.class), any(Callable.class));
+    verify(enclave).encryptPayload(any(), any(), any(), any());
+    verify(enclave).getForwardingKeys();
+    verify(enclave).getPublicKeys();
+    verifyNoInteractions(pendingDeliveryDAO);
+  }
+
+  @Test
+  public void getPendingDeliveries() {
+    MessageHash hash = new MessageHash("HASH".getBytes());
+    PendingDelivery delivery = new PendingDelivery(hash, PublicKey.from("RECEIVER".getBytes()));
+
+    PendingDeliveryDAO pendingDeliveryDAO = mock(PendingDeliveryDAO.class);
+    when(pendingDeliveryDAO.findByHash(hash)).thenReturn(List.of(delivery));
+
+    assertThat(outboxTransactionManager(pendingDeliveryDAO).getPendingDeliveries(hash))
+        .containsExactly(delivery);
+    assertThat(transactionManager.getPendingDeliveries(hash)).isEmpty();
+
+    verify(pendingDeliveryDAO).findByHash(hash);
+    verifyNoMoreInteractions(pendingDeliveryDAO);
+  }
+
+  private TransactionManager outboxTransactionManager(PendingDeliveryDAO pendingDeliveryDAO) {
+    return new TransactionManagerImpl(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        mockDigest,
+        pendingDeliveryDAO);
+  }
+
+  @Test
+  public void acceptPayloadJournalsStandardPrivatePayloads() {
+    PushJournal pushJournal = mock(PushJournal.class);
+    TransactionManager journalTransactionManager = journalTransactionManager(pushJournal);
+
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(PublicKey.from("OTHER".getBytes()));
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payload.getAffectedContractTransactions()).thenReturn(emptyMap());
+
+    when(enclave.getPublicKeys()).thenReturn(singleton(PublicKey.from("SENDER".getBytes())));
+
+    MessageHash result = journalTransactionManager.acceptPayload(payload);
+
+    assertThat(result).isEqualTo(new MessageHash("CIPHERTEXT".getBytes()));
+    verify(pushJournal).append(result, payload);
+    verify(enclave).getPublicKeys();
+    verifyNoMoreInteractions(pushJournal);
+  }
+
+  @Test
+  public void acceptPayloadStoresOwnPayloadsBeforeAcknowledging() {
+    PushJournal pushJournal = mock(PushJournal.class);
+    TransactionManager journalTransactionManager = journalTransactionManager(pushJournal);
+
+    final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(senderKey);
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    when(payload.getAffectedContractTransactions()).thenReturn(emptyMap());
+
+    when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+
+    journalTransactionManager.acceptPayload(payload);
+
+    verify(resendManager).acceptOwnMessage(payload);
+    verify(enclave, times(2)).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(), any());
+    verifyNoInteractions(pushJournal);
+  }
+
+  @Test
+  public void acceptPayloadStoresEnhancedPrivacyPayloadsBeforeAcknowledging() {
+    PushJournal pushJournal = mock(PushJournal.class);
+    TransactionManager journalTransactionManager = journalTransactionManager(pushJournal);
+
+    final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(senderKey);
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.PRIVATE_STATE_VALIDATION);
+    when(payload.getAffectedContractTransactions()).thenReturn(emptyMap());
+    when(payload.getExecHash()).thenReturn(new byte[0]);
+
+    when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+
+    journalTransactionManager.acceptPayload(payload);
+
+    verify(resendManager).acceptOwnMessage(payload);
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(), any());
+    verifyNoInteractions(pushJournal);
+  }
+
+  @Test
+  public void acceptPayloadWithoutJournalStoresPayload() {
+    final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+    EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(senderKey);
+    when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+
+    when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
+
+    transactionManager.acceptPayload(payload);
+
+    verify(resendManager).acceptOwnMessage(payload);
+    verify(enclave).getPublicKeys();
+    verify(enclave).findInvalidSecurityHashes(any(), any());
+  }
+
+  @Test
+  public void lookupsWaitForJournaledPushes() {
+    PushJournal pushJournal = mock(PushJournal.class);
+    when(pushJournal.awaitApplied(any(MessageHash.class))).thenReturn(true);
+    TransactionManager journalTransactionManager = journalTransactionManager(pushJournal);
+
+    MessageHash transactionHash = new MessageHash("HASH".getBytes());
+    EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+    EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
+    when(header.getSenderKey()).thenReturn(PublicKey.from("SENDER".getBytes()));
+    when(encryptedTransaction.getHeader()).thenReturn(header);
+    when(encryptedTransactionDAO.retrieveByHash(transactionHash))
+        .thenReturn(Optional.of(encryptedTransaction));
+
+    assertThat(journalTransactionManager.isSender(transactionHash)).isFalse();
+
+    verify(pushJournal).awaitApplied(transactionHash);
+    verify(encryptedTransactionDAO).retrieveByHash(transactionHash);
+    verify(enclave).getPublicKeys();
+    verifyNoMoreInteractions(pushJournal);
+  }
+
+  private TransactionManager journalTransactionManager(PushJournal pushJournal) {
+    return new TransactionManagerImpl(
+        enclave,
+        encryptedTransactionDAO,
+        encryptedRawTransactionDAO,
+        resendManager,
+        batchPayloadPublisher,
+        privacyHelper,
+        mockDigest,
+        null,
+        pushJournal);
+  }
+
   @Test
   public void create() {
     TransactionManager expected = mock(TransactionManager.class);
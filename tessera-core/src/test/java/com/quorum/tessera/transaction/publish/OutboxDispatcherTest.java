@@ -0,0 +1,214 @@
+package com.quorum.tessera.transaction.publish;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutboxDispatcherTest {
+
+  private static final PublicKey FIRST = PublicKey.from("FIRST".getBytes());
+
+  private static final PublicKey SECOND = PublicKey.from("SECOND".getBytes());
+
+  private PendingDeliveryDAO pendingDeliveryDAO;
+
+  private EncryptedTransactionDAO encryptedTransactionDAO;
+
+  private PayloadPublisher payloadPublisher;
+
+  private OutboxDispatcher outboxDispatcher;
+
+  @Before
+  public void beforeTest() {
+    pendingDeliveryDAO = mock(PendingDeliveryDAO.class);
+    encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+    payloadPublisher = mock(PayloadPublisher.class);
+    outboxDispatcher =
+        new OutboxDispatcher(
+            pendingDeliveryDAO,
+            encryptedTransactionDAO,
+            payloadPublisher,
+            Runnable::run,
+            1000L,
+            5000L);
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(pendingDeliveryDAO, encryptedTransactionDAO, payloadPublisher);
+  }
+
+  @Test
+  public void nothingDue() {
+    when(pendingDeliveryDAO.findDue(anyLong(), any(), anyInt())).thenReturn(List.of());
+
+    outboxDispatcher.run();
+
+    verify(pendingDeliveryDAO).findDue(anyLong(), eq(Set.of()), eq(OutboxDispatcher.BATCH_SIZE));
+  }
+
+  @Test
+  public void pushesEachDueDelivery() {
+    final MessageHash hash = new MessageHash("HASH".getBytes());
+    final PendingDelivery first = delivery(hash, FIRST, 0);
+    final PendingDelivery second = delivery(hash, SECOND, 0);
+    when(pendingDeliveryDAO.findDue(anyLong(), any(), anyInt())).thenReturn(List.of(first, second));
+    when(encryptedTransactionDAO.findByHashes(any())).thenReturn(List.of(transaction(hash)));
+
+    outboxDispatcher.run();
+
+    verify(pendingDeliveryDAO).findDue(anyLong(), eq(Set.of()), eq(OutboxDispatcher.BATCH_SIZE));
+    verify(encryptedTransactionDAO).findByHashes(Set.of(hash));
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(FIRST));
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(SECOND));
+    verify(pendingDeliveryDAO).delivered(first);
+    verify(pendingDeliveryDAO).delivered(second);
+
+    assertThat(outboxDispatcher.getDeliveredCount()).isEqualTo(2);
+    assertThat(outboxDispatcher.getFailedAttemptCount()).isZero();
+  }
+
+  @Test
+  public void failedPushHoldsBackLaterPushesToTheSameRecipient() {
+    final MessageHash firstHash = new MessageHash("FIRST_HASH".getBytes());
+    final MessageHash secondHash = new MessageHash("SECOND_HASH".getBytes());
+    final PendingDelivery failing = delivery(firstHash, FIRST, 2);
+    final PendingDelivery heldBack = delivery(secondHash, FIRST, 0);
+    final PendingDelivery other = delivery(firstHash, SECOND, 0);
+    when(pendingDeliveryDAO.findDue(anyLong(), any(), anyInt()))
+        .thenReturn(List.of(failing, other, heldBack));
+    when(encryptedTransactionDAO.findByHashes(any()))
+        .thenReturn(List.of(transaction(firstHash), transaction(secondHash)));
+    doThrow(new NodeOfflineException(URI.create("http://first")))
+        .when(payloadPublisher)
+        .publishPayload(any(EncodedPayload.class), eq(FIRST));
+
+    outboxDispatcher.run();
+
+    verify(pendingDeliveryDAO).findDue(anyLong(), any(), anyInt());
+    verify(encryptedTransactionDAO).findByHashes(any());
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(FIRST));
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(SECOND));
+    verify(pendingDeliveryDAO).retryAt(eq(failing), anyLong(), anyString());
+    verify(pendingDeliveryDAO).delivered(other);
+
+    assertThat(outboxDispatcher.getDeliveredCount()).isEqualTo(1);
+    assertThat(outboxDispatcher.getFailedAttemptCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void recipientStillBeingPushedToIsLeftOutOfTheNextRun() {
+    final List<Runnable> started = new ArrayList<>();
+    final OutboxDispatcher dispatcher =
+        new OutboxDispatcher(
+            pendingDeliveryDAO,
+            encryptedTransactionDAO,
+            payloadPublisher,
+            started::add,
+            1000L,
+            5000L);
+
+    final MessageHash hash = new MessageHash("HASH".getBytes());
+    final PendingDelivery slow = delivery(hash, FIRST, 0);
+    final PendingDelivery other = delivery(hash, SECOND, 0);
+    when(pendingDeliveryDAO.findDue(anyLong(), eq(Set.of()), anyInt()))
+        .thenReturn(List.of(slow), List.of());
+    when(pendingDeliveryDAO.findDue(anyLong(), eq(Set.of(FIRST)), anyInt()))
+        .thenReturn(List.of(other));
+    when(encryptedTransactionDAO.findByHashes(any())).thenReturn(List.of(transaction(hash)));
+
+    // the push to the first recipient has not finished, so the run returns without waiting for it
+    dispatcher.run();
+    assertThat(started).hasSize(1);
+
+    dispatcher.run();
+    assertThat(started).hasSize(2);
+    started.get(1).run();
+
+    verify(pendingDeliveryDAO).findDue(anyLong(), eq(Set.of()), anyInt());
+    verify(pendingDeliveryDAO).findDue(anyLong(), eq(Set.of(FIRST)), anyInt());
+    verify(encryptedTransactionDAO, times(2)).findByHashes(Set.of(hash));
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(SECOND));
+    verify(pendingDeliveryDAO).delivered(other);
+
+    // once the first push finishes its recipient is included again
+    started.get(0).run();
+    verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(FIRST));
+    verify(pendingDeliveryDAO).delivered(slow);
+
+    dispatcher.run();
+    verify(pendingDeliveryDAO, times(2)).findDue(anyLong(), eq(Set.of()), anyInt());
+  }
+
+  @Test
+  public void deliveryOfADeletedTransactionIsDropped() {
+    final MessageHash hash = new MessageHash("HASH".getBytes());
+    final PendingDelivery delivery = delivery(hash, FIRST, 0);
+    when(pendingDeliveryDAO.findDue(anyLong(), any(), anyInt())).thenReturn(List.of(delivery));
+    when(encryptedTransactionDAO.findByHashes(any())).thenReturn(List.of());
+
+    outboxDispatcher.run();
+
+    verify(pendingDeliveryDAO).findDue(anyLong(), any(), anyInt());
+    verify(encryptedTransactionDAO).findByHashes(any());
+    verify(pendingDeliveryDAO).delivered(delivery);
+
+    assertThat(outboxDispatcher.getDeliveredCount()).isZero();
+  }
+
+  @Test
+  public void retryDelayDoublesUpToTheMaximum() {
+    assertThat(outboxDispatcher.retryDelay(0)).isEqualTo(1000L);
+    assertThat(outboxDispatcher.retryDelay(1)).isEqualTo(2000L);
+    assertThat(outboxDispatcher.retryDelay(2)).isEqualTo(4000L);
+    assertThat(outboxDispatcher.retryDelay(3)).isEqualTo(5000L);
+    assertThat(outboxDispatcher.retryDelay(Integer.MAX_VALUE)).isEqualTo(5000L);
+  }
+
+  @Test
+  public void metricsOfTheOutbox() {
+    when(pendingDeliveryDAO.pendingCount()).thenReturn(3L);
+    when(pendingDeliveryDAO.oldestQueuedAt())
+        .thenReturn(Optional.of(System.currentTimeMillis() - 60000L), Optional.empty());
+
+    assertThat(outboxDispatcher.getPendingCount()).isEqualTo(3L);
+    assertThat(outboxDispatcher.getOldestPendingAgeMillis()).isGreaterThanOrEqualTo(60000L);
+    assertThat(outboxDispatcher.getOldestPendingAgeMillis()).isZero();
+
+    verify(pendingDeliveryDAO).pendingCount();
+    verify(pendingDeliveryDAO, times(2)).oldestQueuedAt();
+  }
+
+  private static PendingDelivery delivery(
+      final MessageHash hash, final PublicKey recipient, final int attempts) {
+    final PendingDelivery delivery = new PendingDelivery(hash, recipient);
+    delivery.setAttempts(attempts);
+    return delivery;
+  }
+
+  private static EncryptedTransaction transaction(final MessageHash hash) {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("SENDER".getBytes()))
+            .withCipherText("CIPHERTEXT".getBytes())
+            .withRecipientKeys(List.of(FIRST, SECOND))
+            .withRecipientBoxes(List.of("BOX1".getBytes(), "BOX2".getBytes()))
+            .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+            .build();
+
+    return new EncryptedTransaction(hash, payload);
+  }
+}
@@ -4,9 +4,11 @@ import static java.util.Collections.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.*;
@@ -61,7 +63,8 @@ public class ResendManagerImplTest {
     when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
     when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
         .thenReturn(Optional.empty());
-    when(enclave.createNewRecipientBox(any(), any())).thenReturn(newEncryptedMasterKey);
+    when(enclave.createNewRecipientBoxes(List.of(encodedPayload), List.of(senderKey)))
+        .thenReturn(List.of(newEncryptedMasterKey));
 
     resendManager.acceptOwnMessage(encodedPayload);
 
@@ -82,7 +85,7 @@ public class ResendManagerImplTest {
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
-    verify(enclave).createNewRecipientBox(any(), any());
+    verify(enclave).createNewRecipientBoxes(List.of(encodedPayload), List.of(senderKey));
     verify(enclave).unencryptTransaction(encodedPayload, senderKey);
   }
 
@@ -120,19 +123,15 @@ public class ResendManagerImplTest {
     assertThat(encodedPayload.getRecipientKeys()).containsExactly(recipientKey2);
     assertThat(encodedPayload.getRecipientBoxes()).containsExactly(recipientBox2);
 
-    ArgumentCaptor<EncryptedTransaction> updatedTxCaptor =
-        ArgumentCaptor.forClass(EncryptedTransaction.class);
-    verify(encryptedTransactionDAO).update(updatedTxCaptor.capture());
-
-    final EncodedPayload updated = updatedTxCaptor.getValue().getPayload();
-
-    // Check recipients are being added
-    assertThat(updated.getRecipientKeys())
-        .hasSize(2)
-        .containsExactlyInAnyOrder(recipientKey1, recipientKey2);
+    final ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), boxCaptor.capture());
 
-    // Check boxes are being added
-    assertThat(updated.getRecipientBoxes()).hasSize(2);
+    // the recipient and its box are added after the stored ones
+    final EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isEqualTo(recipientKey2.getKeyBytes());
+    assertThat(addedBox.getBox()).isEqualTo(recipientBox2.getData());
+    assertThat(addedBox.isPrepended()).isFalse();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
@@ -172,18 +171,15 @@ public class ResendManagerImplTest {
 
     resendManager.acceptOwnMessage(encodedPayload);
 
-    ArgumentCaptor<EncryptedTransaction> updatedTxCaptor =
-        ArgumentCaptor.forClass(EncryptedTransaction.class);
-
-    verify(encryptedTransactionDAO).update(updatedTxCaptor.capture());
+    final ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(any(MessageHash.class), boxCaptor.capture());
 
-    final EncodedPayload updated = updatedTxCaptor.getValue().getPayload();
-
-    // Check recipients are being added
-    assertThat(updated.getRecipientKeys()).containsExactlyInAnyOrder(recipientKey1, recipientKey2);
-
-    // Check boxes are being added
-    assertThat(updated.getRecipientBoxes()).hasSize(2);
+    // the recipient and its box are added after the stored ones
+    final EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isEqualTo(recipientKey2.getKeyBytes());
+    assertThat(addedBox.getBox()).isEqualTo(recipientBox2.getData());
+    assertThat(addedBox.isPrepended()).isFalse();
 
     verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     verify(enclave).getPublicKeys();
@@ -311,6 +307,103 @@ public class ResendManagerImplTest {
     verify(enclave).unencryptTransaction(existingEncodedPayload, senderKey);
   }
 
+  @Test
+  public void acceptOwnMessagesUsesOneEnclaveRequestForEachStep() {
+
+    final EncodedPayload firstCopy = payload(recipientKey1, recipientBox1);
+    final EncodedPayload secondCopy = payload(recipientKey2, recipientBox2);
+    final MessageHash hash = new MessageHash(cipherText);
+
+    when(encryptedTransactionDAO.findByHashes(any())).thenReturn(List.of());
+    when(enclave.unencryptTransactions(anyList(), anyList()))
+        .thenReturn(List.of("message".getBytes(), "message".getBytes()));
+    when(enclave.createNewRecipientBoxes(List.of(firstCopy), List.of(senderKey)))
+        .thenReturn(List.of("senderbox".getBytes()));
+    when(enclave.getPublicKeys()).thenReturn(Set.of(senderKey));
+
+    // the second copy sees the transaction saved by the first
+    final List<EncryptedTransaction> saved = new ArrayList<>();
+    when(encryptedTransactionDAO.save(any(EncryptedTransaction.class)))
+        .then(
+            invocation -> {
+              saved.add(invocation.getArgument(0));
+              return invocation.getArgument(0);
+            });
+    when(encryptedTransactionDAO.retrieveByHash(hash))
+        .then(invocation -> saved.stream().findFirst());
+
+    final List<EncodedPayload> failed = new ArrayList<>();
+    resendManager.acceptOwnMessages(
+        List.of(firstCopy, secondCopy), (payload, ex) -> failed.add(payload));
+
+    assertThat(failed).isEmpty();
+    assertThat(saved).hasSize(1);
+
+    final EncodedPayload stored = saved.get(0).getPayload();
+    assertThat(stored.getRecipientKeys()).containsExactly(recipientKey1, senderKey);
+    assertThat(stored.getRecipientBoxes())
+        .containsExactly(recipientBox1, RecipientBox.from("senderbox".getBytes()));
+
+    final ArgumentCaptor<EncryptedTransactionBox> boxCaptor =
+        ArgumentCaptor.forClass(EncryptedTransactionBox.class);
+    verify(encryptedTransactionDAO).addRecipientBox(eq(hash), boxCaptor.capture());
+
+    final EncryptedTransactionBox addedBox = boxCaptor.getValue();
+    assertThat(addedBox.getPublicKey()).isEqualTo(recipientKey2.getKeyBytes());
+    assertThat(addedBox.getBox()).isEqualTo(recipientBox2.getData());
+    assertThat(addedBox.isPrepended()).isFalse();
+
+    verify(encryptedTransactionDAO).findByHashes(Set.of(hash));
+    verify(encryptedTransactionDAO).save(any(EncryptedTransaction.class));
+    verify(encryptedTransactionDAO, times(2)).retrieveByHash(hash);
+    verify(enclave)
+        .unencryptTransactions(List.of(firstCopy, secondCopy), List.of(senderKey, senderKey));
+    verify(enclave).createNewRecipientBoxes(List.of(firstCopy), List.of(senderKey));
+    verify(enclave).getPublicKeys();
+  }
+
+  @Test
+  public void acceptOwnMessagesFallsBackToEachPayloadWhenBatchFails() {
+
+    final EncodedPayload valid = payload(recipientKey1, recipientBox1);
+    final EncodedPayload invalid = mock(EncodedPayload.class);
+    when(invalid.getCipherText()).thenReturn("OTHER".getBytes());
+    when(invalid.getSenderKey()).thenReturn(senderKey);
+
+    final EncryptedTransaction stored = new EncryptedTransaction(new MessageHash(cipherText), valid);
+    when(encryptedTransactionDAO.findByHashes(any())).thenReturn(List.of());
+    when(encryptedTransactionDAO.retrieveByHash(new MessageHash(cipherText)))
+        .thenReturn(Optional.of(stored));
+    when(enclave.unencryptTransactions(anyList(), anyList()))
+        .thenThrow(new EnclaveException("cannot decrypt"));
+    final EnclaveException failure = new EnclaveException("cannot decrypt");
+    when(enclave.unencryptTransaction(invalid, senderKey)).thenThrow(failure);
+    when(enclave.getPublicKeys()).thenReturn(Set.of(senderKey));
+
+    final Map<EncodedPayload, RuntimeException> failed = new IdentityHashMap<>();
+    resendManager.acceptOwnMessages(List.of(valid, invalid), failed::put);
+
+    assertThat(failed).containsOnlyKeys(invalid);
+    assertThat(failed.get(invalid)).isSameAs(failure);
+
+    verify(encryptedTransactionDAO).findByHashes(any());
+    verify(encryptedTransactionDAO).retrieveByHash(new MessageHash(cipherText));
+    verify(enclave).unencryptTransactions(anyList(), anyList());
+    verify(enclave).unencryptTransaction(valid, senderKey);
+    verify(enclave).unencryptTransaction(invalid, senderKey);
+    verify(enclave).getPublicKeys();
+  }
+
+  private EncodedPayload payload(final PublicKey recipientKey, final RecipientBox recipientBox) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(senderKey)
+        .withCipherText(cipherText)
+        .withRecipientKey(recipientKey)
+        .withRecipientBox(recipientBox.getData())
+        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+        .build();
+  }
+
   @Test
   public void constructWithMinimalArgs() {
     assertThat(new ResendManagerImpl(encryptedTransactionDAO, enclave, mock(PayloadDigest.class)))
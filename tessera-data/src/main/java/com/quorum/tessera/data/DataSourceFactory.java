@@ -1,6 +1,7 @@
 package com.quorum.tessera.data;
 
 import com.quorum.tessera.config.JdbcConfig;
+import java.util.List;
 import java.util.ServiceLoader;
 import javax.sql.DataSource;
 
@@ -8,6 +9,14 @@ public interface DataSourceFactory {
 
   DataSource create(JdbcConfig config);
 
+  /**
+   * Creates a data source for each of the configured shard urls, in the order they are listed
+   *
+   * @param config the jdbc configuration, with the shard urls
+   * @return a data source per shard
+   */
+  List<DataSource> createShards(JdbcConfig config);
+
   static DataSourceFactory create() {
     return ServiceLoader.load(DataSourceFactory.class).findFirst().get();
   }
@@ -104,6 +104,10 @@ public class EncryptedRawTransaction implements Serializable {
     return this.timestamp;
   }
 
+  public void setTimestamp(final long timestamp) {
+    this.timestamp = timestamp;
+  }
+
   public byte[] getSender() {
     return sender;
   }
@@ -2,15 +2,28 @@ package com.quorum.tessera.data;
 
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.*;
 import java.io.Serializable;
-import java.util.Objects;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * The JPA entity that contains the transaction information A simple key/value pair
  *
  * <p>The key is the transaction hash, and the value an a fully encoded {@link
  * com.quorum.tessera.enclave.EncodedPayload}
+ *
+ * <p>The payload of a loaded transaction is only decoded the first time it is requested, and
+ * callers that only need to know who the payload is addressed to can read its {@link
+ * EncodedPayloadHeader} without decoding the cipher text and recipient boxes.
+ *
+ * <p>Recipient boxes that are added to a transaction after it was stored are kept as {@link
+ * EncryptedTransactionBox} rows rather than in the encoded payload, and are merged in when the
+ * payload is read. Setting a new payload folds them back into the encoded payload.
  */
 @NamedQueries({
   @NamedQuery(
@@ -19,13 +32,58 @@ import java.util.Objects;
   @NamedQuery(
       name = "EncryptedTransaction.FindAll",
       query = "select et from EncryptedTransaction et order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindAllFrom",
+      query =
+          "select et from EncryptedTransaction et where et.timestamp >= :timestamp order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindAllAfter",
+      query =
+          "select et from EncryptedTransaction et where et.timestamp >= :timestamp and (et.timestamp > :timestamp or et.hash.hashBytes > :hash) order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindAllForKeyFrom",
+      query =
+          "select et from EncryptedTransaction et join et.recipients r where r.publicKey = :key and et.timestamp >= :timestamp order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindAllForKeyAfter",
+      query =
+          "select et from EncryptedTransaction et join et.recipients r where r.publicKey = :key and et.timestamp >= :timestamp and (et.timestamp > :timestamp or et.hash.hashBytes > :hash) order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.CountForKey",
+      query =
+          "select count(et) from EncryptedTransaction et join et.recipients r where r.publicKey = :key"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindUnindexedFrom",
+      query =
+          "select et from EncryptedTransaction et where not exists (select i from EncryptedTransaction i join i.recipients r where i = et) and et.timestamp >= :timestamp order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindUnindexedAfter",
+      query =
+          "select et from EncryptedTransaction et where not exists (select i from EncryptedTransaction i join i.recipients r where i = et) and et.timestamp >= :timestamp and (et.timestamp > :timestamp or et.hash.hashBytes > :hash) order by et.timestamp,et.hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.CountUnindexed",
+      query =
+          "select count(et) from EncryptedTransaction et where not exists (select i from EncryptedTransaction i join i.recipients r where i = et)"),
+  @NamedQuery(
+      name = "EncryptedTransaction.CountByHash",
+      query = "select count(et) from EncryptedTransaction et where et.hash.hashBytes = :hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.FindRecipientKeys",
+      query =
+          "select r.publicKey from EncryptedTransaction et join et.recipients r where et.hash.hashBytes = :hash"),
+  @NamedQuery(
+      name = "EncryptedTransaction.MaxBoxSequenceNumber",
+      query =
+          "select max(b.sequenceNumber) from EncryptedTransaction et join et.addedBoxes b where et.hash.hashBytes = :hash"),
   @NamedQuery(
       name = "EncryptedTransaction.Upcheck",
       query = "select count(c) from EncryptedTransaction c where 1 = 2")
 })
 @Entity
 @EntityListeners(EncryptedTransactionListener.class)
-@Table(name = "ENCRYPTED_TRANSACTION")
+@Table(
+    name = "ENCRYPTED_TRANSACTION",
+    indexes = {@Index(name = "ENCRYPTED_TRANSACTION_TSHASH", columnList = "TIMESTAMP,HASH")})
 public class EncryptedTransaction implements Serializable {
 
   @EmbeddedId
@@ -45,11 +103,29 @@ public class EncryptedTransaction implements Serializable {
   @Column(name = "TIMESTAMP", updatable = false)
   private long timestamp;
 
+  @ElementCollection
+  @CollectionTable(
+      name = "ENCRYPTED_TRANSACTION_RECIPIENT",
+      joinColumns = @JoinColumn(name = "HASH", referencedColumnName = "HASH"),
+      uniqueConstraints = @UniqueConstraint(columnNames = {"HASH", "PUBLIC_KEY"}),
+      indexes = @Index(name = "ENCRYPTED_TRANSACTION_RECIPIENT_KEY", columnList = "PUBLIC_KEY"))
+  private Set<EncryptedTransactionRecipient> recipients = new HashSet<>();
+
+  @ElementCollection
+  @CollectionTable(
+      name = "ENCRYPTED_TRANSACTION_BOX",
+      joinColumns = @JoinColumn(name = "HASH", referencedColumnName = "HASH"),
+      uniqueConstraints = @UniqueConstraint(columnNames = {"HASH", "SEQUENCE_NUMBER"}))
+  @OrderBy("sequenceNumber")
+  private List<EncryptedTransactionBox> addedBoxes = new ArrayList<>();
+
   @Transient private transient EncodedPayload payload;
 
+  @Transient private transient EncodedPayloadHeader header;
+
   public EncryptedTransaction(final MessageHash hash, final EncodedPayload payload) {
     this.hash = hash;
-    this.payload = payload;
+    setPayload(payload);
   }
 
   public EncryptedTransaction() {}
@@ -84,17 +160,94 @@ public class EncryptedTransaction implements Serializable {
   }
 
   public EncodedPayload getPayload() {
+    if (Objects.isNull(payload) && Objects.nonNull(encodedPayload)) {
+      payload = withAddedBoxes(payloadEncoder().decode(encodedPayload));
+    }
     return payload;
   }
 
+  /**
+   * Sets the decoded payload, which is encoded when the transaction is next written. Setting a
+   * payload also replaces the recipient index entries so they are written along with it, and
+   * removes any added boxes since the payload is expected to include them.
+   */
   public void setPayload(EncodedPayload payload) {
     this.payload = payload;
+    this.header = null;
+    if (Objects.nonNull(payload)) {
+      this.recipients = EncryptedTransactionRecipient.from(getHeader());
+      this.addedBoxes = new ArrayList<>();
+    }
+  }
+
+  private EncodedPayload withAddedBoxes(final EncodedPayload stored) {
+    if (addedBoxes.isEmpty()) {
+      return stored;
+    }
+
+    final List<PublicKey> recipientKeys = new ArrayList<>(stored.getRecipientKeys());
+    final List<byte[]> recipientBoxes =
+        stored.getRecipientBoxes().stream().map(RecipientBox::getData).collect(Collectors.toList());
+    addedBoxes.forEach(box -> box.addTo(stored.getPrivacyMode(), recipientKeys, recipientBoxes));
+
+    return EncodedPayload.Builder.from(stored)
+        .withNewRecipientKeys(recipientKeys)
+        .withRecipientBoxes(recipientBoxes)
+        .build();
+  }
+
+  public List<EncryptedTransactionBox> getAddedBoxes() {
+    return addedBoxes;
+  }
+
+  public void setAddedBoxes(List<EncryptedTransactionBox> addedBoxes) {
+    this.addedBoxes = addedBoxes;
+  }
+
+  public Set<EncryptedTransactionRecipient> getRecipients() {
+    return recipients;
+  }
+
+  public void setRecipients(Set<EncryptedTransactionRecipient> recipients) {
+    this.recipients = recipients;
+  }
+
+  /**
+   * The sender, recipients and privacy mode of the payload, read from the encoded bytes if the full
+   * payload has not been decoded yet
+   */
+  public EncodedPayloadHeader getHeader() {
+    if (Objects.isNull(header)) {
+      if (Objects.nonNull(payload)) {
+        header = EncodedPayloadHeader.from(payload);
+      } else if (Objects.nonNull(encodedPayload) && !addedBoxes.isEmpty()) {
+        // the added boxes may list more recipients, so are merged in with the full payload
+        header = EncodedPayloadHeader.from(getPayload());
+      } else if (Objects.nonNull(encodedPayload)) {
+        header = payloadEncoder().decodeHeader(encodedPayload);
+      }
+    }
+    return header;
+  }
+
+  /** Whether the payload has been set or decoded since the transaction was loaded */
+  boolean isPayloadDecoded() {
+    return Objects.nonNull(payload);
+  }
+
+  private PayloadEncoder payloadEncoder() {
+    return PayloadEncoder.create(
+        Optional.ofNullable(encodedPayloadCodec).orElse(EncodedPayloadCodec.LEGACY));
   }
 
   public long getTimestamp() {
     return this.timestamp;
   }
 
+  public void setTimestamp(final long timestamp) {
+    this.timestamp = timestamp;
+  }
+
   @Override
   public int hashCode() {
     return 47 * 3 + Objects.hashCode(this.hash);
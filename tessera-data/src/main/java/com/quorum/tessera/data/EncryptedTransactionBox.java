@@ -0,0 +1,154 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A recipient box that was added to a transaction after it was first stored, such as when the same
+ * transaction is pushed once for each of this node's recipient keys. Added boxes are stored as rows
+ * of their own so that adding one is a single small insert, and are merged into the stored payload
+ * when it is read.
+ *
+ * <p>A box is either prepended or appended to the boxes of the stored payload, along with the key
+ * it is for if there is one, and boxes are applied in the order they were added.
+ */
+@Embeddable
+public class EncryptedTransactionBox implements Serializable {
+
+  @Column(name = "SEQUENCE_NUMBER", nullable = false)
+  private int sequenceNumber;
+
+  @Column(name = "PUBLIC_KEY", length = 100)
+  private byte[] publicKey;
+
+  @Column(name = "BOX", nullable = false)
+  private byte[] box;
+
+  @Column(name = "PREPENDED", nullable = false)
+  private boolean prepended;
+
+  public EncryptedTransactionBox(
+      final byte[] publicKey, final byte[] box, final boolean prepended) {
+    this.publicKey = publicKey;
+    this.box = box;
+    this.prepended = prepended;
+  }
+
+  public EncryptedTransactionBox() {}
+
+  /**
+   * A box for a transaction that was sent by another node, which goes before the stored boxes
+   *
+   * @param recipient the key the box is for, or null if the payload lists no recipients
+   * @param box the box to add
+   * @return the box to add to the stored transaction
+   */
+  public static EncryptedTransactionBox prepended(
+      final PublicKey recipient, final RecipientBox box) {
+    return new EncryptedTransactionBox(keyBytes(recipient), box.getData(), true);
+  }
+
+  /**
+   * A box for a transaction that this node sent, which goes after the stored boxes
+   *
+   * @param recipient the key the box is for
+   * @param box the box to add
+   * @return the box to add to the stored transaction
+   */
+  public static EncryptedTransactionBox appended(
+      final PublicKey recipient, final RecipientBox box) {
+    return new EncryptedTransactionBox(keyBytes(recipient), box.getData(), false);
+  }
+
+  private static byte[] keyBytes(final PublicKey recipient) {
+    return Objects.isNull(recipient) ? null : recipient.getKeyBytes();
+  }
+
+  /**
+   * Adds this box, and the key it is for, to the boxes and keys of a payload in the same way that
+   * the payload would have been rebuilt in full. A PSV payload already lists every recipient, so
+   * the key of a prepended box is moved to the front to line up with the box.
+   *
+   * @param privacyMode the privacy mode of the payload
+   * @param recipientKeys the recipient keys of the payload, which are updated
+   * @param recipientBoxes the recipient boxes of the payload, which are updated
+   */
+  void addTo(
+      final PrivacyMode privacyMode,
+      final List<PublicKey> recipientKeys,
+      final List<byte[]> recipientBoxes) {
+    final PublicKey recipient = Objects.isNull(publicKey) ? null : PublicKey.from(publicKey);
+    if (!prepended) {
+      recipientBoxes.add(box);
+      if (Objects.nonNull(recipient)) {
+        recipientKeys.add(recipient);
+      }
+      return;
+    }
+
+    recipientBoxes.add(0, box);
+    if (Objects.nonNull(recipient)) {
+      if (privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION) {
+        recipientKeys.remove(recipient);
+      }
+      recipientKeys.add(0, recipient);
+    }
+  }
+
+  public int getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  public void setSequenceNumber(final int sequenceNumber) {
+    this.sequenceNumber = sequenceNumber;
+  }
+
+  public byte[] getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(final byte[] publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public byte[] getBox() {
+    return box;
+  }
+
+  public void setBox(final byte[] box) {
+    this.box = box;
+  }
+
+  public boolean isPrepended() {
+    return prepended;
+  }
+
+  public void setPrepended(final boolean prepended) {
+    this.prepended = prepended;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (!(o instanceof EncryptedTransactionBox)) {
+      return false;
+    }
+    final EncryptedTransactionBox that = (EncryptedTransactionBox) o;
+    return sequenceNumber == that.sequenceNumber
+        && prepended == that.prepended
+        && Arrays.equals(publicKey, that.publicKey)
+        && Arrays.equals(box, that.box);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        sequenceNumber, prepended, Arrays.hashCode(publicKey), Arrays.hashCode(box));
+  }
+}
@@ -1,10 +1,12 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.encryption.PublicKey;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 /** A data store for transactions that need to be retrieved later */
 public interface EncryptedTransactionDAO {
@@ -17,6 +19,19 @@ public interface EncryptedTransactionDAO {
    */
   EncryptedTransaction save(EncryptedTransaction entity);
 
+  /**
+   * Save a number of new Encrypted Transactions in a single database transaction, sending the rows
+   * to the database in batches
+   *
+   * <p>Transactions whose hash is already stored, or repeats the hash of an earlier entity in the
+   * collection, are not stored and are returned instead so the caller can decide how to handle
+   * them.
+   *
+   * @param entities The entities to be persisted
+   * @return The entities that were not persisted because a transaction with the same hash exists
+   */
+  List<EncryptedTransaction> saveAll(Collection<EncryptedTransaction> entities);
+
   /**
    * Update an existing Encrypted Transaction All fields are required to be non-null on the entity
    *
@@ -25,6 +40,30 @@ public interface EncryptedTransactionDAO {
    */
   EncryptedTransaction update(EncryptedTransaction entity);
 
+  /**
+   * Adds a recipient box, and the key it is for, to a stored transaction. The box is inserted as a
+   * row of its own rather than rewriting the stored payload, and is merged into the payload when
+   * the transaction is next read.
+   *
+   * @param hash the hash of the transaction to add the box to
+   * @param box the box to add
+   * @throws jakarta.persistence.EntityNotFoundException if the hash doesn't exist
+   */
+  void addRecipientBox(MessageHash hash, EncryptedTransactionBox box);
+
+  /**
+   * Adds a number of recipient boxes to a stored transaction in a single write, such as the boxes
+   * for every key of this node that another node pushed together. The boxes are added in order, as
+   * though each had been added with {@link #addRecipientBox(MessageHash, EncryptedTransactionBox)}.
+   *
+   * @param hash the hash of the transaction to add the boxes to
+   * @param boxes the boxes to add
+   * @throws jakarta.persistence.EntityNotFoundException if the hash doesn't exist
+   */
+  default void addRecipientBoxes(MessageHash hash, List<EncryptedTransactionBox> boxes) {
+    boxes.forEach(box -> addRecipientBox(hash, box));
+  }
+
   /**
    * Retrieve a transaction based on its hash
    *
@@ -50,6 +89,46 @@ public interface EncryptedTransactionDAO {
    */
   List<EncryptedTransaction> retrieveTransactions(int offset, int maxResult);
 
+  /**
+   * Streams the stored transactions in timestamp then hash order, starting immediately after the
+   * given position. Rows are read lazily, one page of {@code fetchSize} rows at a time, and each
+   * page is located from the last row of the previous one rather than by an offset, so reading a
+   * page costs the same wherever it is in the table.
+   *
+   * @param afterTimestamp the timestamp of the last transaction already read
+   * @param afterHash the hash of the last transaction already read, or null to start with the
+   *     first transaction stored at {@code afterTimestamp} or later
+   * @param fetchSize the number of rows to read per page, the configured JDBC fetch size is used if
+   *     zero or less
+   * @return the remaining transactions in order
+   */
+  Stream<EncryptedTransaction> streamAll(long afterTimestamp, MessageHash afterHash, int fetchSize);
+
+  /**
+   * Streams every stored transaction in timestamp then hash order
+   *
+   * @param fetchSize the number of rows to read per page
+   * @return all transactions in order
+   * @see #streamAll(long, MessageHash, int)
+   */
+  default Stream<EncryptedTransaction> streamAll(int fetchSize) {
+    return streamAll(Long.MIN_VALUE, null, fetchSize);
+  }
+
+  /**
+   * Streams the stored transactions that the given key is the sender or a listed recipient of, in
+   * timestamp then hash order, using the recipient index rather than decoding every payload
+   *
+   * <p>Only transactions that have been indexed are returned, so callers should check {@link
+   * #isRecipientIndexComplete()} first and fall back to {@link #streamAll(int)} if it is not.
+   *
+   * @param publicKey the key to find transactions for
+   * @param fetchSize the number of rows to read per page, the configured JDBC fetch size is used if
+   *     zero or less
+   * @return the transactions for the key in order
+   */
+  Stream<EncryptedTransaction> streamAll(PublicKey publicKey, int fetchSize);
+
   /**
    * Retrieve the total transaction count.
    *
@@ -57,6 +136,23 @@ public interface EncryptedTransactionDAO {
    */
   long transactionCount();
 
+  /**
+   * Retrieve the number of transactions that the given key is the sender or a listed recipient of,
+   * according to the recipient index
+   *
+   * @param publicKey the key to count transactions for
+   * @return the transaction count for the key
+   */
+  long transactionCount(PublicKey publicKey);
+
+  /**
+   * Check whether every stored transaction has entries in the recipient index. Transactions stored
+   * before the index was introduced are indexed by a background job once the node starts.
+   *
+   * @return true if lookups by key will find every transaction for that key
+   */
+  boolean isRecipientIndexComplete();
+
   /**
    * Deletes a transaction that has the given hash as its digest
    *
@@ -75,6 +171,15 @@ public interface EncryptedTransactionDAO {
    */
   <T> EncryptedTransaction save(EncryptedTransaction transaction, Callable<T> consumer);
 
+  /**
+   * Tells the data store that a transaction was committed to its database by other means, such as
+   * together with its pending deliveries, so that it is treated as if it had been saved here. A
+   * store that keeps no state of its own about saved transactions has nothing to do.
+   *
+   * @param transaction the entity that was persisted
+   */
+  default void stored(EncryptedTransaction transaction) {}
+
   /**
    * Check whether data store is available
    *
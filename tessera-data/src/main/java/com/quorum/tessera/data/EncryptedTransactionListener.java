@@ -1,5 +1,6 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.data.internal.PayloadCodecHolder;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
@@ -18,6 +19,11 @@ public class EncryptedTransactionListener {
   public void onUpdate(EncryptedTransaction encryptedTransaction) {
     LOGGER.debug("onUpdate {}", encryptedTransaction);
 
+    if (!encryptedTransaction.isPayloadDecoded()) {
+      // the payload has not been touched since it was loaded, so the stored bytes are current
+      return;
+    }
+
     final EncodedPayload encodedPayload = encryptedTransaction.getPayload();
     final EncodedPayloadCodec encodedPayloadCodec = encryptedTransaction.getEncodedPayloadCodec();
     final PayloadEncoder payloadEncoder = PayloadEncoder.create(encodedPayloadCodec);
@@ -30,7 +36,7 @@ public class EncryptedTransactionListener {
     LOGGER.debug("onSave {}", encryptedTransaction);
 
     final EncodedPayload encodedPayload = encryptedTransaction.getPayload();
-    final EncodedPayloadCodec encodedPayloadCodec = EncodedPayloadCodec.current();
+    final EncodedPayloadCodec encodedPayloadCodec = PayloadCodecHolder.INSTANCE.getCodec();
     final PayloadEncoder payloadEncoder = PayloadEncoder.create(encodedPayloadCodec);
     final byte[] encodedPayloadData = payloadEncoder.encode(encodedPayload);
     encryptedTransaction.setEncodedPayloadCodec(encodedPayloadCodec);
@@ -44,10 +50,8 @@ public class EncryptedTransactionListener {
     final EncodedPayloadCodec encodedPayloadCodec =
         Optional.ofNullable(encryptedTransaction.getEncodedPayloadCodec())
             .orElse(EncodedPayloadCodec.LEGACY);
-    final byte[] encodedPayloadData = encryptedTransaction.getEncodedPayload();
-    final PayloadEncoder payloadEncoder = PayloadEncoder.create(encodedPayloadCodec);
-    final EncodedPayload encodedPayload = payloadEncoder.decode(encodedPayloadData);
-    encryptedTransaction.setPayload(encodedPayload);
+    // the payload is decoded from the loaded bytes when it is first requested
+    encryptedTransaction.setPayload(null);
     encryptedTransaction.setEncodedPayloadCodec(encodedPayloadCodec);
   }
 }
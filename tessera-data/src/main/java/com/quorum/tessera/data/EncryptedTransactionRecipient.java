@@ -0,0 +1,68 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An entry in the index of public keys that stored transactions are addressed to, so that the
+ * transactions for a key can be found without decoding each payload
+ *
+ * <p>The sender is indexed along with the listed recipients, since resend requests ask for the
+ * transactions a key has sent. Only the key is indexed: the box for a recipient is found from its
+ * position in the recipient list of the payload, which is read in full whenever a box is needed.
+ */
+@Embeddable
+public class EncryptedTransactionRecipient implements Serializable {
+
+  @Column(name = "PUBLIC_KEY", nullable = false, length = 100)
+  private byte[] publicKey;
+
+  public EncryptedTransactionRecipient(final byte[] publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public EncryptedTransactionRecipient() {}
+
+  /**
+   * Creates the index entries for a payload, one for each distinct key that is either the sender
+   * or a listed recipient
+   *
+   * @param header the addressing fields of the payload to index
+   * @return the index entries for the payload
+   */
+  public static Set<EncryptedTransactionRecipient> from(final EncodedPayloadHeader header) {
+    final Set<PublicKey> keys = new LinkedHashSet<>();
+    Optional.ofNullable(header.getSenderKey()).ifPresent(keys::add);
+    keys.addAll(header.getRecipientKeys());
+
+    final Set<EncryptedTransactionRecipient> recipients = new HashSet<>();
+    keys.forEach(key -> recipients.add(new EncryptedTransactionRecipient(key.getKeyBytes())));
+    return recipients;
+  }
+
+  public byte[] getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(final byte[] publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (!(o instanceof EncryptedTransactionRecipient)) {
+      return false;
+    }
+    final EncryptedTransactionRecipient that = (EncryptedTransactionRecipient) o;
+    return Arrays.equals(publicKey, that.publicKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(publicKey);
+  }
+}
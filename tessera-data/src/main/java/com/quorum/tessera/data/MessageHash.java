@@ -25,6 +25,28 @@ public class MessageHash implements Serializable {
     return Arrays.copyOf(hashBytes, hashBytes.length);
   }
 
+  /**
+   * The shard this hash is stored in when transactions are split across a number of databases.
+   * Hashes are uniformly distributed, so each shard is given an equal range of the leading four
+   * bytes, in order. Doubling the number of shards splits each range in two, between shards {@code
+   * 2i} and {@code 2i+1}, so only half of the transactions of a shard move if its database is listed
+   * at one of those positions; appending the new shards instead moves most transactions.
+   *
+   * @param shardCount the number of shards
+   * @return the index of the shard, from 0 to {@code shardCount - 1}
+   */
+  public int shard(final int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+
+    long prefix = 0;
+    for (int i = 0; i < Integer.BYTES; i++) {
+      prefix = (prefix << 8) | (i < hashBytes.length ? hashBytes[i] & 0xFF : 0);
+    }
+    return (int) ((prefix * shardCount) >>> Integer.SIZE);
+  }
+
   @Override
   public boolean equals(final Object o) {
     return (o instanceof MessageHash) && Arrays.equals(hashBytes, ((MessageHash) o).hashBytes);
@@ -0,0 +1,159 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A push of a sent transaction to one of its remote recipients that has not yet been made, kept in
+ * the outbox until the recipient has accepted it
+ *
+ * <p>Deliveries are stored in the same database transaction as the transaction they push, and are
+ * numbered in the order they were queued so that the pushes to each recipient are made in the
+ * order the transactions were sent. A delivery that fails is tried again from {@link
+ * #getNextAttempt()}, and the deliveries queued for the same recipient after it wait until then.
+ */
+@NamedQueries({
+  @NamedQuery(
+      name = "PendingDelivery.FindDue",
+      query =
+          "select d from PendingDelivery d where d.nextAttempt <= :now and not exists (select e from PendingDelivery e where e.publicKey = d.publicKey and e.id < d.id and e.nextAttempt > :now) order by d.id"),
+  @NamedQuery(
+      name = "PendingDelivery.FindByHash",
+      query = "select d from PendingDelivery d where d.hash = :hash order by d.id"),
+  @NamedQuery(name = "PendingDelivery.Count", query = "select count(d) from PendingDelivery d"),
+  @NamedQuery(
+      name = "PendingDelivery.OldestQueuedAt",
+      query = "select min(d.queuedAt) from PendingDelivery d"),
+  @NamedQuery(
+      name = "PendingDelivery.Retry",
+      query =
+          "update PendingDelivery d set d.attempts = d.attempts + 1, d.nextAttempt = :nextAttempt, d.lastError = :lastError where d.id = :id"),
+  @NamedQuery(
+      name = "PendingDelivery.Delete",
+      query = "delete from PendingDelivery d where d.id = :id")
+})
+@Entity
+@Table(
+    name = "PENDING_DELIVERY",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"HASH", "PUBLIC_KEY"}),
+    indexes = {
+      @Index(name = "PENDING_DELIVERY_KEY", columnList = "PUBLIC_KEY"),
+      @Index(name = "PENDING_DELIVERY_HASH", columnList = "HASH")
+    })
+public class PendingDelivery implements Serializable {
+
+  public static final int MAX_ERROR_LENGTH = 500;
+
+  @Id
+  @Column(name = "ID", updatable = false)
+  private Long id;
+
+  @Column(name = "HASH", nullable = false, length = 100, updatable = false)
+  private byte[] hash;
+
+  @Column(name = "PUBLIC_KEY", nullable = false, length = 100, updatable = false)
+  private byte[] publicKey;
+
+  @Column(name = "QUEUED_AT", updatable = false)
+  private long queuedAt;
+
+  @Column(name = "ATTEMPTS")
+  private int attempts;
+
+  @Column(name = "NEXT_ATTEMPT")
+  private long nextAttempt;
+
+  @Column(name = "LAST_ERROR", length = MAX_ERROR_LENGTH)
+  private String lastError;
+
+  public PendingDelivery(final MessageHash hash, final PublicKey recipient) {
+    this.hash = hash.getHashBytes();
+    this.publicKey = recipient.getKeyBytes();
+  }
+
+  public PendingDelivery() {}
+
+  @PrePersist
+  public void onPersist() {
+    this.queuedAt = System.currentTimeMillis();
+    this.nextAttempt = queuedAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public MessageHash getHash() {
+    return new MessageHash(hash);
+  }
+
+  public PublicKey getRecipient() {
+    return PublicKey.from(publicKey);
+  }
+
+  public long getQueuedAt() {
+    return queuedAt;
+  }
+
+  public void setQueuedAt(final long queuedAt) {
+    this.queuedAt = queuedAt;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(final int attempts) {
+    this.attempts = attempts;
+  }
+
+  public long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(final long nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(final String lastError) {
+    this.lastError = lastError;
+  }
+
+  /**
+   * Shortens an error message to fit the column it is stored in
+   *
+   * @param message the message of the error a delivery failed with
+   * @return the message, cut to the length of the column if it is longer
+   */
+  public static String truncateError(final String message) {
+    if (Objects.isNull(message) || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (!(o instanceof PendingDelivery)) {
+      return false;
+    }
+    final PendingDelivery that = (PendingDelivery) o;
+    return Arrays.equals(hash, that.hash) && Arrays.equals(publicKey, that.publicKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(hash) + Arrays.hashCode(publicKey);
+  }
+}
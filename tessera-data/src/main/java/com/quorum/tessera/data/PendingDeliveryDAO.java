@@ -0,0 +1,92 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The outbox of sent transactions, which holds the pushes to remote recipients that are still to
+ * be made so that they can be made in the background rather than while the sender waits
+ */
+public interface PendingDeliveryDAO {
+
+  /**
+   * Save a new Encrypted Transaction together with the pushes of it that are to be made, in a
+   * single database transaction, so that either both are stored or neither is. The transaction is
+   * written without going through the {@link EncryptedTransactionDAO}, which must be told of it
+   * with {@link EncryptedTransactionDAO#stored(EncryptedTransaction)} once this returns.
+   *
+   * @param transaction the entity to be persisted
+   * @param deliveries the pushes of the transaction to its remote recipients
+   * @return the entity that was persisted
+   */
+  EncryptedTransaction save(EncryptedTransaction transaction, List<PendingDelivery> deliveries);
+
+  /**
+   * Retrieves the deliveries that are due to be tried, in the order they were queued. A delivery
+   * is left out while an earlier delivery to the same recipient is waiting to be tried again, so
+   * that each recipient receives its transactions in the order they were sent.
+   *
+   * @param now the current time in milliseconds
+   * @param maxResults the maximum number of deliveries to return
+   * @return the deliveries to try now
+   */
+  default List<PendingDelivery> findDue(long now, int maxResults) {
+    return findDue(now, Set.of(), maxResults);
+  }
+
+  /**
+   * Retrieves the deliveries that are due to be tried, as {@link #findDue(long, int)} does, leaving
+   * out those to the given recipients, such as recipients that pushes are still being made to
+   *
+   * @param now the current time in milliseconds
+   * @param excludedRecipients the recipients whose deliveries to leave out
+   * @param maxResults the maximum number of deliveries to return
+   * @return the deliveries to try now
+   */
+  List<PendingDelivery> findDue(long now, Set<PublicKey> excludedRecipients, int maxResults);
+
+  /**
+   * Retrieves the deliveries of a transaction that are still to be made
+   *
+   * @param hash the hash of the sent transaction
+   * @return the pending deliveries of the transaction, empty once all of them have been made
+   */
+  List<PendingDelivery> findByHash(MessageHash hash);
+
+  /**
+   * Removes a delivery from the outbox once the recipient has accepted it
+   *
+   * @param delivery the delivery that was made
+   */
+  void delivered(PendingDelivery delivery);
+
+  /**
+   * Records a failed attempt at a delivery, which is tried again at the given time
+   *
+   * @param delivery the delivery that failed
+   * @param nextAttempt the time in milliseconds at which to try the delivery again
+   * @param error the reason the delivery failed
+   */
+  void retryAt(PendingDelivery delivery, long nextAttempt, String error);
+
+  /**
+   * Retrieve the number of deliveries that are still to be made
+   *
+   * @return the pending delivery count
+   */
+  long pendingCount();
+
+  /**
+   * Retrieve the time the longest waiting delivery was queued at
+   *
+   * @return the time in milliseconds, or empty if there are no pending deliveries
+   */
+  Optional<Long> oldestQueuedAt();
+
+  static PendingDeliveryDAO create() {
+    return ServiceLoader.load(PendingDeliveryDAO.class).findFirst().get();
+  }
+}
@@ -0,0 +1,178 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-through {@link EncryptedTransactionDAO} that keeps recently used, decoded transactions in
+ * a {@link PayloadCache} in front of another implementation.
+ *
+ * <p>Saved transactions are added to the cache once the write has completed, while updates, added
+ * boxes and deletes evict the entry so the next read goes back to the underlying store.
+ */
+public class CachingEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(CachingEncryptedTransactionDAO.class);
+
+  private final EncryptedTransactionDAO delegate;
+
+  private final PayloadCache payloadCache;
+
+  public CachingEncryptedTransactionDAO(
+      final EncryptedTransactionDAO delegate, final PayloadCache payloadCache) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.payloadCache = Objects.requireNonNull(payloadCache);
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    final EncryptedTransaction saved = delegate.save(entity);
+    payloadCache.put(saved);
+    return saved;
+  }
+
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    final List<EncryptedTransaction> conflicts = delegate.saveAll(entities);
+    final Set<EncryptedTransaction> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+    rejected.addAll(conflicts);
+    entities.stream().filter(e -> !rejected.contains(e)).forEach(payloadCache::put);
+    return conflicts;
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    payloadCache.invalidate(entity.getHash());
+    try {
+      return delegate.update(entity);
+    } finally {
+      payloadCache.invalidate(entity.getHash());
+    }
+  }
+
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    payloadCache.invalidate(hash);
+    try {
+      delegate.addRecipientBox(hash, box);
+    } finally {
+      payloadCache.invalidate(hash);
+    }
+  }
+
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    payloadCache.invalidate(hash);
+    try {
+      delegate.addRecipientBoxes(hash, boxes);
+    } finally {
+      payloadCache.invalidate(hash);
+    }
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    final Optional<EncryptedTransaction> cached = payloadCache.get(hash);
+    if (cached.isPresent()) {
+      LOGGER.debug("Retrieved payload with hash {} from cache", hash);
+      return cached;
+    }
+
+    final long generation = payloadCache.generation();
+    final Optional<EncryptedTransaction> loaded = delegate.retrieveByHash(hash);
+    loaded.ifPresent(tx -> payloadCache.putIfUnchanged(tx, generation));
+    return loaded;
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    if (Objects.isNull(messageHashes) || messageHashes.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<EncryptedTransaction> results = new ArrayList<>(messageHashes.size());
+    final List<MessageHash> misses = new ArrayList<>();
+    for (final MessageHash hash : messageHashes) {
+      payloadCache.get(hash).ifPresentOrElse(results::add, () -> misses.add(hash));
+    }
+
+    if (!misses.isEmpty()) {
+      final long generation = payloadCache.generation();
+      final List<EncryptedTransaction> loaded = delegate.findByHashes(misses);
+      loaded.forEach(tx -> payloadCache.putIfUnchanged(tx, generation));
+      results.addAll(loaded);
+    }
+
+    return results;
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    // bulk reads are not cached, they would only evict the entries that are being reused
+    return delegate.retrieveTransactions(offset, maxResult);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      final long afterTimestamp, final MessageHash afterHash, final int fetchSize) {
+    return delegate.streamAll(afterTimestamp, afterHash, fetchSize);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    return delegate.streamAll(publicKey, fetchSize);
+  }
+
+  @Override
+  public long transactionCount() {
+    return delegate.transactionCount();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return delegate.transactionCount(publicKey);
+  }
+
+  @Override
+  public boolean isRecipientIndexComplete() {
+    return delegate.isRecipientIndexComplete();
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    payloadCache.invalidate(hash);
+    try {
+      delegate.delete(hash);
+    } finally {
+      payloadCache.invalidate(hash);
+    }
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    final EncryptedTransaction saved = delegate.save(transaction, consumer);
+    payloadCache.put(saved);
+    return saved;
+  }
+
+  @Override
+  public void stored(final EncryptedTransaction transaction) {
+    delegate.stored(transaction);
+    payloadCache.put(transaction);
+  }
+
+  @Override
+  public boolean upcheck() {
+    return delegate.upcheck();
+  }
+}
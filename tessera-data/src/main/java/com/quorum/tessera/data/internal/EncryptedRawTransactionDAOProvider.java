@@ -4,10 +4,14 @@ import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
 import com.quorum.tessera.data.DataSourceFactory;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreHolder;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +24,13 @@ public class EncryptedRawTransactionDAOProvider {
   public static EncryptedRawTransactionDAO provider() {
 
     Config config = ConfigFactory.create().getConfig();
+
+    if (Objects.nonNull(config.getJdbcConfig().getLogStoreDirectory())) {
+      return new LogStoreEncryptedRawTransactionDAO(
+          LogStoreHolder.INSTANCE.getLogStore(
+              Paths.get(config.getJdbcConfig().getLogStoreDirectory())));
+    }
+
     final DataSource dataSource = DataSourceFactory.create().create(config.getJdbcConfig());
 
     Map properties = new HashMap();
@@ -1,17 +1,24 @@
 package com.quorum.tessera.data.internal;
 
 import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.EncryptedTransactionRecipient;
 import com.quorum.tessera.data.EntityManagerTemplate;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,10 +27,52 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedTransactionDAOImpl.class);
 
+  static final int DEFAULT_FETCH_SIZE = 100;
+
+  static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+
+  static final int MAX_ADD_BOX_ATTEMPTS = 5;
+
+  private static final String FETCH_SIZE_HINT = "eclipselink.jdbc.fetch-size";
+
+  private static final String BATCH_HINT = "eclipselink.batch";
+
+  private static final String BATCH_TYPE_HINT = "eclipselink.batch.type";
+
+  private static final String LEFT_JOIN_FETCH_HINT = "eclipselink.left-join-fetch";
+
+  private static final String INSERT_BOX =
+      "INSERT INTO ENCRYPTED_TRANSACTION_BOX (HASH, SEQUENCE_NUMBER, BOX, PREPENDED)"
+          + " VALUES (?1, ?2, ?3, ?4)";
+
+  private static final String INSERT_BOX_WITH_KEY =
+      "INSERT INTO ENCRYPTED_TRANSACTION_BOX (HASH, SEQUENCE_NUMBER, BOX, PREPENDED, PUBLIC_KEY)"
+          + " VALUES (?1, ?2, ?3, ?4, ?5)";
+
+  private static final String INSERT_RECIPIENT =
+      "INSERT INTO ENCRYPTED_TRANSACTION_RECIPIENT (HASH, PUBLIC_KEY) VALUES (?1, ?2)";
+
   private EntityManagerTemplate entityManagerTemplate;
 
+  private final int fetchSize;
+
+  private final int writeBatchSize;
+
+  private volatile boolean recipientIndexComplete;
+
   public EncryptedTransactionDAOImpl(EntityManagerFactory entityManagerFactory) {
+    this(entityManagerFactory, 0);
+  }
+
+  public EncryptedTransactionDAOImpl(EntityManagerFactory entityManagerFactory, int fetchSize) {
+    this(entityManagerFactory, fetchSize, 0);
+  }
+
+  public EncryptedTransactionDAOImpl(
+      EntityManagerFactory entityManagerFactory, int fetchSize, int writeBatchSize) {
     this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+    this.fetchSize = fetchSize;
+    this.writeBatchSize = writeBatchSize > 0 ? writeBatchSize : DEFAULT_WRITE_BATCH_SIZE;
   }
 
   @Override
@@ -36,6 +85,78 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         });
   }
 
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    if (Objects.isNull(entities) || entities.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    try {
+      return entityManagerTemplate.execute(entityManager -> persistAll(entityManager, entities));
+    } catch (PersistenceException ex) {
+      // a transaction with one of the hashes may have been stored since they were checked, so
+      // store each one on its own to find out which
+      LOGGER.debug("Unable to store batch of {} transactions, retrying individually", entities.size());
+      return saveEach(entities);
+    }
+  }
+
+  private List<EncryptedTransaction> persistAll(
+      final EntityManager entityManager, final Collection<EncryptedTransaction> entities) {
+    final Set<MessageHash> seen = findExistingHashes(entityManager, entities);
+    final List<EncryptedTransaction> conflicts = new ArrayList<>();
+
+    int stored = 0;
+    for (final EncryptedTransaction entity : entities) {
+      if (!seen.add(entity.getHash())) {
+        conflicts.add(entity);
+        continue;
+      }
+      entityManager.persist(entity);
+      if (++stored % writeBatchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+
+    LOGGER.debug("Stored {} transactions, {} already existed", stored, conflicts.size());
+    return conflicts;
+  }
+
+  private Set<MessageHash> findExistingHashes(
+      final EntityManager entityManager, final Collection<EncryptedTransaction> entities) {
+    final List<MessageHash> hashes = new ArrayList<>(entities.size());
+    entities.forEach(entity -> hashes.add(entity.getHash()));
+
+    final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    final Set<MessageHash> existing = new HashSet<>();
+    for (int i = 0; i < hashes.size(); i += writeBatchSize) {
+      final List<MessageHash> chunk = hashes.subList(i, Math.min(i + writeBatchSize, hashes.size()));
+
+      final CriteriaQuery<MessageHash> query = criteriaBuilder.createQuery(MessageHash.class);
+      final Root<EncryptedTransaction> root = query.from(EncryptedTransaction.class);
+      query.select(root.get("hash")).where(root.get("hash").in(chunk));
+
+      existing.addAll(entityManager.createQuery(query).getResultList());
+    }
+    return existing;
+  }
+
+  private List<EncryptedTransaction> saveEach(final Collection<EncryptedTransaction> entities) {
+    final List<EncryptedTransaction> conflicts = new ArrayList<>();
+    for (final EncryptedTransaction entity : entities) {
+      try {
+        save(entity);
+      } catch (PersistenceException ex) {
+        if (retrieveByHash(entity.getHash()).isEmpty()) {
+          throw ex;
+        }
+        conflicts.add(entity);
+      }
+    }
+    return conflicts;
+  }
+
   @Override
   public EncryptedTransaction update(final EncryptedTransaction entity) {
     return entityManagerTemplate.execute(
@@ -51,14 +172,123 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         });
   }
 
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    addRecipientBoxes(hash, List.of(box));
+  }
+
+  /**
+   * Adds the boxes after the last one stored for the transaction. Several nodes sharing the
+   * database can read the same last sequence number, and all but one of them then fail on the
+   * unique (HASH, SEQUENCE_NUMBER) constraint. A write that fails after another one has added boxes
+   * is tried again with the new last sequence number.
+   */
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    for (int attempt = 1; ; attempt++) {
+      final Integer lastSequenceNumber = lastBoxSequenceNumber(hash);
+      try {
+        insertBoxes(hash, boxes, lastSequenceNumber);
+        return;
+      } catch (EntityNotFoundException ex) {
+        throw ex;
+      } catch (PersistenceException ex) {
+        if (attempt >= MAX_ADD_BOX_ATTEMPTS
+            || Objects.equals(lastBoxSequenceNumber(hash), lastSequenceNumber)) {
+          throw ex;
+        }
+        LOGGER.debug("Boxes were added to transaction {} concurrently, trying again", hash);
+      }
+    }
+  }
+
+  Integer lastBoxSequenceNumber(final MessageHash hash) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("EncryptedTransaction.MaxBoxSequenceNumber", Integer.class)
+                .setParameter("hash", hash.getHashBytes())
+                .getSingleResult());
+  }
+
+  private void insertBoxes(
+      final MessageHash hash,
+      final List<EncryptedTransactionBox> boxes,
+      final Integer lastSequenceNumber) {
+    entityManagerTemplate.execute(
+        entityManager -> {
+          final long count =
+              entityManager
+                  .createNamedQuery("EncryptedTransaction.CountByHash", Long.class)
+                  .setParameter("hash", hash.getHashBytes())
+                  .getSingleResult();
+          if (count == 0) {
+            throw new EntityNotFoundException();
+          }
+
+          int sequenceNumber = Objects.isNull(lastSequenceNumber) ? 0 : lastSequenceNumber + 1;
+
+          for (final EncryptedTransactionBox box : boxes) {
+            // inserted directly, as the entity would read and write back the stored payload
+            final Query insertBox;
+            if (Objects.isNull(box.getPublicKey())) {
+              insertBox = entityManager.createNativeQuery(INSERT_BOX);
+            } else {
+              insertBox =
+                  entityManager
+                      .createNativeQuery(INSERT_BOX_WITH_KEY)
+                      .setParameter(5, box.getPublicKey());
+            }
+            insertBox
+                .setParameter(1, hash.getHashBytes())
+                .setParameter(2, sequenceNumber)
+                .setParameter(3, box.getBox())
+                .setParameter(4, box.isPrepended())
+                .executeUpdate();
+
+            if (Objects.nonNull(box.getPublicKey())) {
+              indexRecipient(entityManager, hash, box.getPublicKey());
+            }
+
+            LOGGER.debug("Added recipient box {} to transaction {}", sequenceNumber, hash);
+            sequenceNumber++;
+          }
+          return boxes;
+        });
+  }
+
+  /**
+   * Adds a key to the recipient index of a transaction. Transactions that have not been indexed yet
+   * are left for {@link #indexRecipients()}, which reads the added boxes along with the payload.
+   */
+  private void indexRecipient(
+      final EntityManager entityManager, final MessageHash hash, final byte[] publicKey) {
+    final List<byte[]> indexed =
+        entityManager
+            .createNamedQuery("EncryptedTransaction.FindRecipientKeys", byte[].class)
+            .setParameter("hash", hash.getHashBytes())
+            .getResultList();
+    if (indexed.isEmpty() || indexed.stream().anyMatch(key -> Arrays.equals(key, publicKey))) {
+      return;
+    }
+
+    entityManager
+        .createNativeQuery(INSERT_RECIPIENT)
+        .setParameter(1, hash.getHashBytes())
+        .setParameter(2, publicKey)
+        .executeUpdate();
+  }
+
   @Override
   public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
     LOGGER.debug("Retrieving payload with hash {}", hash);
+    // the added boxes are joined in, as reading the payload or header checks for them
     return entityManagerTemplate.execute(
         entityManager ->
             entityManager
                 .createNamedQuery("EncryptedTransaction.FindByHash", EncryptedTransaction.class)
                 .setParameter("hash", hash.getHashBytes())
+                .setHint(LEFT_JOIN_FETCH_HINT, "et.addedBoxes")
                 .getResultStream()
                 .findAny());
   }
@@ -71,13 +301,96 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         maxResult);
     return entityManagerTemplate.execute(
         entityManager ->
-            entityManager
-                .createNamedQuery("EncryptedTransaction.FindAll", EncryptedTransaction.class)
+            withFetchSize(
+                    entityManager.createNamedQuery(
+                        "EncryptedTransaction.FindAll", EncryptedTransaction.class),
+                    maxResult)
                 .setFirstResult(offset)
                 .setMaxResults(maxResult)
                 .getResultList());
   }
 
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      long afterTimestamp, MessageHash afterHash, int fetchSize) {
+    return KeysetPageIterator.stream(
+        (timestamp, hash, maxResult) ->
+            retrievePage("EncryptedTransaction.FindAll", Map.of(), timestamp, hash, maxResult),
+        afterTimestamp,
+        afterHash,
+        pageSize(fetchSize));
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    final Map<String, Object> parameters = Map.of("key", publicKey.getKeyBytes());
+    return KeysetPageIterator.stream(
+        (timestamp, hash, maxResult) ->
+            retrievePage(
+                "EncryptedTransaction.FindAllForKey", parameters, timestamp, hash, maxResult),
+        Long.MIN_VALUE,
+        null,
+        pageSize(fetchSize));
+  }
+
+  private int pageSize(final int fetchSize) {
+    return fetchSize > 0 ? fetchSize : (this.fetchSize > 0 ? this.fetchSize : DEFAULT_FETCH_SIZE);
+  }
+
+  private List<EncryptedTransaction> retrievePage(
+      String queryName,
+      Map<String, Object> parameters,
+      long afterTimestamp,
+      MessageHash afterHash,
+      int maxResult) {
+    LOGGER.debug(
+        "Fetching batch(afterTimestamp:{},afterHash:{},maxResult:{}) EncryptedTransaction database rows",
+        afterTimestamp,
+        afterHash,
+        maxResult);
+    return entityManagerTemplate.execute(
+        entityManager ->
+            retrievePage(
+                entityManager, queryName, parameters, afterTimestamp, afterHash, maxResult));
+  }
+
+  private List<EncryptedTransaction> retrievePage(
+      EntityManager entityManager,
+      String queryName,
+      Map<String, Object> parameters,
+      long afterTimestamp,
+      MessageHash afterHash,
+      int maxResult) {
+    final TypedQuery<EncryptedTransaction> query;
+    if (Objects.isNull(afterHash)) {
+      query =
+          entityManager
+              .createNamedQuery(queryName + "From", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp);
+    } else {
+      query =
+          entityManager
+              .createNamedQuery(queryName + "After", EncryptedTransaction.class)
+              .setParameter("timestamp", afterTimestamp)
+              .setParameter("hash", afterHash.getHashBytes());
+    }
+    parameters.forEach(query::setParameter);
+    return withFetchSize(query, maxResult).setMaxResults(maxResult).getResultList();
+  }
+
+  private <T> TypedQuery<T> withFetchSize(TypedQuery<T> query, int maxResult) {
+    if (fetchSize > 0) {
+      // some drivers reject a fetch size larger than the row limit
+      query.setHint(FETCH_SIZE_HINT, Math.min(fetchSize, maxResult));
+    }
+    return withAddedBoxes(query);
+  }
+
+  /** Reads the added boxes of every transaction in the results with one query when first needed */
+  private static <T> TypedQuery<T> withAddedBoxes(TypedQuery<T> query) {
+    return query.setHint(BATCH_HINT, "et.addedBoxes").setHint(BATCH_TYPE_HINT, "IN");
+  }
+
   @Override
   public long transactionCount() {
     return entityManagerTemplate.execute(
@@ -91,6 +404,83 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         });
   }
 
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("EncryptedTransaction.CountForKey", Long.class)
+                .setParameter("key", publicKey.getKeyBytes())
+                .getSingleResult());
+  }
+
+  @Override
+  public boolean isRecipientIndexComplete() {
+    if (!recipientIndexComplete) {
+      final long unindexed =
+          entityManagerTemplate.execute(
+              entityManager ->
+                  entityManager
+                      .createNamedQuery("EncryptedTransaction.CountUnindexed", Long.class)
+                      .getSingleResult());
+      recipientIndexComplete = unindexed == 0;
+    }
+    return recipientIndexComplete;
+  }
+
+  /**
+   * Adds recipient index entries for the transactions stored before the index was introduced. Each
+   * page of transactions is indexed in its own database transaction, so this can run while the node
+   * is serving requests.
+   *
+   * @return the number of transactions that were indexed
+   */
+  public long indexRecipients() {
+    long indexed = 0;
+    long afterTimestamp = Long.MIN_VALUE;
+    MessageHash afterHash = null;
+    while (true) {
+      final long fromTimestamp = afterTimestamp;
+      final MessageHash fromHash = afterHash;
+      final List<EncryptedTransaction> page =
+          entityManagerTemplate.execute(
+              entityManager -> {
+                final List<EncryptedTransaction> transactions =
+                    retrievePage(
+                        entityManager,
+                        "EncryptedTransaction.FindUnindexed",
+                        Map.of(),
+                        fromTimestamp,
+                        fromHash,
+                        writeBatchSize);
+                transactions.forEach(this::indexRecipients);
+                return transactions;
+              });
+
+      indexed += page.size();
+      LOGGER.debug("Indexed recipients of {} transactions", indexed);
+      if (page.size() < writeBatchSize) {
+        break;
+      }
+
+      final EncryptedTransaction last = page.get(page.size() - 1);
+      afterTimestamp = last.getTimestamp();
+      afterHash = last.getHash();
+    }
+
+    LOGGER.info("Indexed recipients of {} previously stored transactions", indexed);
+    return indexed;
+  }
+
+  private void indexRecipients(final EncryptedTransaction transaction) {
+    try {
+      // only the addressing fields are decoded, and the payload itself is left untouched
+      transaction.setRecipients(EncryptedTransactionRecipient.from(transaction.getHeader()));
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Unable to index recipients of transaction {}", transaction.getHash(), ex);
+    }
+  }
+
   @Override
   public void delete(final MessageHash hash) {
 
@@ -158,9 +548,11 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
               criteriaBuilder.createQuery(EncryptedTransaction.class);
 
           Root<EncryptedTransaction> root = query.from(EncryptedTransaction.class);
+          root.alias("et");
 
-          return entityManager
-              .createQuery(query.select(root).where(root.get("hash").in(messageHashes)))
+          return withAddedBoxes(
+                  entityManager.createQuery(
+                      query.select(root).where(root.get("hash").in(messageHashes))))
               .getResultList();
         });
   }
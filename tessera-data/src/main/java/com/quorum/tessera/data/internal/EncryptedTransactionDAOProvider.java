@@ -2,12 +2,21 @@ package com.quorum.tessera.data.internal;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.data.DataSourceFactory;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStore;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreHolder;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,9 +30,67 @@ public class EncryptedTransactionDAOProvider {
 
     Config config = ConfigFactory.create().getConfig();
 
+    if (Objects.nonNull(config.getJdbcConfig().getLogStoreDirectory())) {
+      final LogStore logStore =
+          LogStoreHolder.INSTANCE.getLogStore(
+              Paths.get(config.getJdbcConfig().getLogStoreDirectory()));
+      PayloadCodecHolder.INSTANCE.configure(config.getJdbcConfig());
+      return withPayloadCache(
+          config.getJdbcConfig(), new LogStoreEncryptedTransactionDAO(logStore));
+    }
+
+    if (Objects.nonNull(config.getJdbcConfig().getShardUrls())
+        && !config.getJdbcConfig().getShardUrls().isEmpty()) {
+      return withPayloadCache(config.getJdbcConfig(), sharded(config.getJdbcConfig()));
+    }
+
     final DataSource dataSource = DataSourceFactory.create().create(config.getJdbcConfig());
 
-    Map properties = new HashMap();
+    final EncryptedTransactionDAOImpl encryptedTransactionDAO =
+        encryptedTransactionDAO(config.getJdbcConfig(), dataSource, Map.of());
+
+    PayloadCodecHolder.INSTANCE.configure(config.getJdbcConfig());
+    RecipientIndexBackfill.INSTANCE.start(encryptedTransactionDAO);
+
+    EncryptedTransactionDAO result = encryptedTransactionDAO;
+    if (config.getJdbcConfig().isDirectJdbc()) {
+      result = new JdbcEncryptedTransactionDAO(dataSource, result);
+    }
+    if (dataSource instanceof ReplicaRoutingDataSource) {
+      result =
+          new ReplicaRoutingEncryptedTransactionDAO(
+              result, (ReplicaRoutingDataSource) dataSource, pinWindow(config.getJdbcConfig()));
+    }
+    return withPayloadCache(config.getJdbcConfig(), result);
+  }
+
+  private static EncryptedTransactionDAO sharded(JdbcConfig jdbcConfig) {
+    final List<DataSource> dataSources = DataSourceFactory.create().createShards(jdbcConfig);
+
+    final List<EncryptedTransactionDAOImpl> shardDAOs = new ArrayList<>();
+    final List<EncryptedTransactionDAO> shards = new ArrayList<>();
+    for (int i = 0; i < dataSources.size(); i++) {
+      final DataSource dataSource = dataSources.get(i);
+      // each shard needs a session of its own, as they share the persistence unit
+      final EncryptedTransactionDAOImpl shardDAO =
+          encryptedTransactionDAO(
+              jdbcConfig, dataSource, Map.of("eclipselink.session-name", "tessera-shard-" + i));
+      shardDAOs.add(shardDAO);
+      shards.add(
+          jdbcConfig.isDirectJdbc()
+              ? new JdbcEncryptedTransactionDAO(dataSource, shardDAO)
+              : shardDAO);
+    }
+
+    PayloadCodecHolder.INSTANCE.configure(jdbcConfig);
+    RecipientIndexBackfill.INSTANCE.start(shardDAOs.toArray(EncryptedTransactionDAOImpl[]::new));
+
+    return new ShardedEncryptedTransactionDAO(shards);
+  }
+
+  private static EncryptedTransactionDAOImpl encryptedTransactionDAO(
+      JdbcConfig jdbcConfig, DataSource dataSource, Map<String, String> sessionProperties) {
+    Map properties = new HashMap(sessionProperties);
 
     properties.put("jakarta.persistence.nonJtaDataSource", dataSource);
 
@@ -33,15 +100,39 @@ public class EncryptedTransactionDAOProvider {
     properties.put("eclipselink.logging.parameters", "true");
     properties.put("eclipselink.logging.level.sql", "FINE");
 
+    properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+    if (jdbcConfig.getWriteBatchSize() > 0) {
+      properties.put(
+          "eclipselink.jdbc.batch-writing.size",
+          String.valueOf(jdbcConfig.getWriteBatchSize()));
+    }
+
     properties.put(
         "jakarta.persistence.schema-generation.database.action",
-        config.getJdbcConfig().isAutoCreateTables() ? "create" : "none");
+        jdbcConfig.isAutoCreateTables() ? "create" : "none");
 
     LOGGER.debug("Creating EntityManagerFactory from {}", properties);
     final EntityManagerFactory entityManagerFactory =
         Persistence.createEntityManagerFactory("tessera", properties);
     LOGGER.debug("Created EntityManagerFactory from {}", properties);
 
-    return new EncryptedTransactionDAOImpl(entityManagerFactory);
+    return new EncryptedTransactionDAOImpl(
+        entityManagerFactory, jdbcConfig.getFetchSize(), jdbcConfig.getWriteBatchSize());
+  }
+
+  private static Duration pinWindow(JdbcConfig jdbcConfig) {
+    if (jdbcConfig.getReadReplicaPinMillis() > 0) {
+      return Duration.ofMillis(jdbcConfig.getReadReplicaPinMillis());
+    }
+    return ReplicaRoutingEncryptedTransactionDAO.DEFAULT_PIN_WINDOW;
+  }
+
+  private static EncryptedTransactionDAO withPayloadCache(
+      JdbcConfig jdbcConfig, EncryptedTransactionDAO encryptedTransactionDAO) {
+    return PayloadCacheHolder.INSTANCE
+        .getPayloadCache(jdbcConfig)
+        .<EncryptedTransactionDAO>map(
+            payloadCache -> new CachingEncryptedTransactionDAO(encryptedTransactionDAO, payloadCache))
+        .orElse(encryptedTransactionDAO);
   }
 }
@@ -5,13 +5,24 @@ import com.quorum.tessera.config.util.EncryptedStringResolver;
 import com.quorum.tessera.data.DataSourceFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
 public enum HikariDataSourceFactory implements DataSourceFactory {
   INSTANCE;
 
+  /** Replicas are skipped quickly when down rather than waiting the default 30 seconds */
+  static final long REPLICA_CONNECTION_TIMEOUT_MILLIS = 2000;
+
   private DataSource dataSource;
 
+  private List<DataSource> shards;
+
   @Override
   public DataSource create(JdbcConfig config) {
     if (dataSource != null) {
@@ -19,18 +30,68 @@ public enum HikariDataSourceFactory implements DataSourceFactory {
     }
 
     final EncryptedStringResolver resolver = new EncryptedStringResolver();
+    final String password = resolver.resolve(config.getPassword());
 
-    final HikariConfig hikariConfig = new HikariConfig();
-    hikariConfig.setJdbcUrl(config.getUrl());
-    hikariConfig.setUsername(config.getUsername());
-    hikariConfig.setPassword(resolver.resolve(config.getPassword()));
+    final HikariDataSource primary =
+        new HikariDataSource(hikariConfig(config.getUrl(), config.getUsername(), password));
 
-    dataSource = new HikariDataSource(hikariConfig);
+    if (Objects.isNull(config.getReadReplicaUrls()) || config.getReadReplicaUrls().isEmpty()) {
+      dataSource = primary;
+      return dataSource;
+    }
+
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (String url : config.getReadReplicaUrls()) {
+      final HikariConfig hikariConfig = hikariConfig(url, config.getUsername(), password);
+      hikariConfig.setReadOnly(true);
+      hikariConfig.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MILLIS);
+      // a replica that is down at startup is tried again on later reads
+      hikariConfig.setInitializationFailTimeout(-1);
+      replicas.put(url, new HikariDataSource(hikariConfig));
+    }
+
+    final ReplicaRoutingDataSource replicaRoutingDataSource =
+        new ReplicaRoutingDataSource(primary, replicas, maxLag(config));
+    replicaRoutingDataSource.startProbing();
+    dataSource = replicaRoutingDataSource;
 
     return dataSource;
   }
 
+  @Override
+  public List<DataSource> createShards(JdbcConfig config) {
+    if (shards != null) {
+      return shards;
+    }
+
+    final EncryptedStringResolver resolver = new EncryptedStringResolver();
+    final String password = resolver.resolve(config.getPassword());
+
+    shards =
+        config.getShardUrls().stream()
+            .map(url -> new HikariDataSource(hikariConfig(url, config.getUsername(), password)))
+            .collect(Collectors.toUnmodifiableList());
+
+    return shards;
+  }
+
+  private static Duration maxLag(JdbcConfig config) {
+    if (config.getReadReplicaMaxLagMillis() > 0) {
+      return Duration.ofMillis(config.getReadReplicaMaxLagMillis());
+    }
+    return ReplicaRoutingDataSource.DEFAULT_MAX_LAG;
+  }
+
+  private static HikariConfig hikariConfig(String url, String username, String password) {
+    final HikariConfig hikariConfig = new HikariConfig();
+    hikariConfig.setJdbcUrl(url);
+    hikariConfig.setUsername(username);
+    hikariConfig.setPassword(password);
+    return hikariConfig;
+  }
+
   protected void clear() {
     dataSource = null;
+    shards = null;
   }
 }
@@ -0,0 +1,258 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.PersistenceException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EncryptedTransactionDAO} that runs the most frequent operations, looking transactions
+ * up by hash and saving new ones, as plain JDBC statements on the data source rather than through
+ * an entity manager. Lookups run without a database transaction, and {@link
+ * #findByHashes(Collection)} reads the transactions and their added boxes with one {@code IN}
+ * query for each chunk of hashes.
+ *
+ * <p>The transactions returned are the same as those the JPA implementation returns, and every
+ * other operation is passed on to it, as both work on the same tables.
+ */
+public class JdbcEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JdbcEncryptedTransactionDAO.class);
+
+  static final int IN_LIST_SIZE = 100;
+
+  private static final String SELECT_TRANSACTIONS =
+      "SELECT HASH, ENCODED_PAYLOAD, PAYLOAD_CODEC, TIMESTAMP FROM ENCRYPTED_TRANSACTION"
+          + " WHERE HASH IN (%s)";
+
+  private static final String SELECT_BOXES =
+      "SELECT HASH, SEQUENCE_NUMBER, PUBLIC_KEY, BOX, PREPENDED FROM ENCRYPTED_TRANSACTION_BOX"
+          + " WHERE HASH IN (%s) ORDER BY SEQUENCE_NUMBER";
+
+  private static final String INSERT_TRANSACTION =
+      "INSERT INTO ENCRYPTED_TRANSACTION (HASH, ENCODED_PAYLOAD, PAYLOAD_CODEC, TIMESTAMP)"
+          + " VALUES (?, ?, ?, ?)";
+
+  private static final String INSERT_RECIPIENT =
+      "INSERT INTO ENCRYPTED_TRANSACTION_RECIPIENT (HASH, PUBLIC_KEY) VALUES (?, ?)";
+
+  private final DataSource dataSource;
+
+  private final EncryptedTransactionDAO delegate;
+
+  private final EncryptedTransactionListener listener = new EncryptedTransactionListener();
+
+  public JdbcEncryptedTransactionDAO(
+      final DataSource dataSource, final EncryptedTransactionDAO delegate) {
+    this.dataSource = Objects.requireNonNull(dataSource);
+    this.delegate = Objects.requireNonNull(delegate);
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    return save(entity, () -> null);
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    listener.onSave(transaction);
+    transaction.onPersist();
+
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        insert(connection, transaction);
+        consumer.call();
+        connection.commit();
+      } catch (Exception ex) {
+        connection.rollback();
+        throw ex;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new PersistenceException(ex);
+    }
+
+    LOGGER.debug("Stored transaction {}", transaction.getHash());
+    return transaction;
+  }
+
+  private static void insert(final Connection connection, final EncryptedTransaction transaction)
+      throws SQLException {
+    final byte[] hash = transaction.getHash().getHashBytes();
+
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_TRANSACTION)) {
+      statement.setBytes(1, hash);
+      statement.setBytes(2, transaction.getEncodedPayload());
+      statement.setString(3, transaction.getEncodedPayloadCodec().name());
+      statement.setLong(4, transaction.getTimestamp());
+      statement.executeUpdate();
+    }
+
+    if (transaction.getRecipients().isEmpty()) {
+      return;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_RECIPIENT)) {
+      for (final EncryptedTransactionRecipient recipient : transaction.getRecipients()) {
+        statement.setBytes(1, hash);
+        statement.setBytes(2, recipient.getPublicKey());
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    LOGGER.debug("Retrieving payload with hash {}", hash);
+    return findByHashes(List.of(hash)).stream().findAny();
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    if (Objects.isNull(messageHashes) || messageHashes.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<MessageHash> hashes = new ArrayList<>(new LinkedHashSet<>(messageHashes));
+    final List<EncryptedTransaction> transactions = new ArrayList<>(hashes.size());
+    try (Connection connection = dataSource.getConnection()) {
+      for (int i = 0; i < hashes.size(); i += IN_LIST_SIZE) {
+        final int end = Math.min(i + IN_LIST_SIZE, hashes.size());
+        transactions.addAll(findByHashes(connection, hashes.subList(i, end)));
+      }
+    } catch (SQLException ex) {
+      throw new PersistenceException(ex);
+    }
+    return transactions;
+  }
+
+  private List<EncryptedTransaction> findByHashes(
+      final Connection connection, final List<MessageHash> hashes) throws SQLException {
+    final Map<MessageHash, EncryptedTransaction> found = new LinkedHashMap<>();
+    try (PreparedStatement statement = prepareInList(connection, SELECT_TRANSACTIONS, hashes);
+        ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        final EncryptedTransaction transaction = new EncryptedTransaction();
+        transaction.setHash(new MessageHash(resultSet.getBytes(1)));
+        transaction.setEncodedPayload(resultSet.getBytes(2));
+        transaction.setEncodedPayloadCodec(
+            Optional.ofNullable(resultSet.getString(3))
+                .map(EncodedPayloadCodec::valueOf)
+                .orElse(null));
+        transaction.setTimestamp(resultSet.getLong(4));
+        found.put(transaction.getHash(), transaction);
+      }
+    }
+    if (found.isEmpty()) {
+      return List.of();
+    }
+
+    final List<MessageHash> foundHashes = new ArrayList<>(found.keySet());
+    try (PreparedStatement statement = prepareInList(connection, SELECT_BOXES, foundHashes);
+        ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        final EncryptedTransactionBox box =
+            new EncryptedTransactionBox(
+                resultSet.getBytes(3), resultSet.getBytes(4), resultSet.getBoolean(5));
+        box.setSequenceNumber(resultSet.getInt(2));
+        found.get(new MessageHash(resultSet.getBytes(1))).getAddedBoxes().add(box);
+      }
+    }
+
+    found.values().forEach(listener::onLoad);
+    return new ArrayList<>(found.values());
+  }
+
+  private static PreparedStatement prepareInList(
+      final Connection connection, final String sql, final List<MessageHash> hashes)
+      throws SQLException {
+    final String parameters = hashes.stream().map(hash -> "?").collect(Collectors.joining(","));
+    final PreparedStatement statement = connection.prepareStatement(String.format(sql, parameters));
+    for (int i = 0; i < hashes.size(); i++) {
+      statement.setBytes(i + 1, hashes.get(i).getHashBytes());
+    }
+    return statement;
+  }
+
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    return delegate.saveAll(entities);
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    return delegate.update(entity);
+  }
+
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    delegate.addRecipientBox(hash, box);
+  }
+
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    delegate.addRecipientBoxes(hash, boxes);
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    return delegate.retrieveTransactions(offset, maxResult);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      final long afterTimestamp, final MessageHash afterHash, final int fetchSize) {
+    return delegate.streamAll(afterTimestamp, afterHash, fetchSize);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    return delegate.streamAll(publicKey, fetchSize);
+  }
+
+  @Override
+  public long transactionCount() {
+    return delegate.transactionCount();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return delegate.transactionCount(publicKey);
+  }
+
+  @Override
+  public boolean isRecipientIndexComplete() {
+    return delegate.isRecipientIndexComplete();
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    delegate.delete(hash);
+  }
+
+  @Override
+  public void stored(final EncryptedTransaction transaction) {
+    delegate.stored(transaction);
+  }
+
+  @Override
+  public boolean upcheck() {
+    return delegate.upcheck();
+  }
+}
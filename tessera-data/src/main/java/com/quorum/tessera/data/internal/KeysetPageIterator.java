@@ -0,0 +1,90 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over transactions in (timestamp, hash) order by repeatedly asking for the page of rows
+ * that follows the last row returned, rather than skipping an increasing number of rows.
+ */
+class KeysetPageIterator implements Iterator<EncryptedTransaction> {
+
+  @FunctionalInterface
+  interface PageQuery {
+
+    List<EncryptedTransaction> retrieve(long afterTimestamp, MessageHash afterHash, int maxResult);
+  }
+
+  private final PageQuery pageQuery;
+
+  private final int pageSize;
+
+  private long lastTimestamp;
+
+  private MessageHash lastHash;
+
+  private Iterator<EncryptedTransaction> page;
+
+  private boolean lastPage;
+
+  KeysetPageIterator(
+      final PageQuery pageQuery,
+      final long afterTimestamp,
+      final MessageHash afterHash,
+      final int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be greater than 0");
+    }
+    this.pageQuery = pageQuery;
+    this.lastTimestamp = afterTimestamp;
+    this.lastHash = afterHash;
+    this.pageSize = pageSize;
+  }
+
+  static Stream<EncryptedTransaction> stream(
+      final PageQuery pageQuery,
+      final long afterTimestamp,
+      final MessageHash afterHash,
+      final int pageSize) {
+    final Iterator<EncryptedTransaction> iterator =
+        new KeysetPageIterator(pageQuery, afterTimestamp, afterHash, pageSize);
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            iterator, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT),
+        false);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (page != null && page.hasNext()) {
+      return true;
+    }
+    if (lastPage) {
+      return false;
+    }
+
+    final List<EncryptedTransaction> results =
+        pageQuery.retrieve(lastTimestamp, lastHash, pageSize);
+    lastPage = results.size() < pageSize;
+    page = results.iterator();
+    return page.hasNext();
+  }
+
+  @Override
+  public EncryptedTransaction next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final EncryptedTransaction transaction = page.next();
+    lastTimestamp = transaction.getTimestamp();
+    lastHash = transaction.getHash();
+    return transaction;
+  }
+}
@@ -0,0 +1,232 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.RecipientBox;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, least-recently-used store of decoded transactions keyed by their hash.
+ *
+ * <p>Entries are bounded both by count and by an estimate of the memory held by the decoded
+ * payload. Transactions are copied on the way in and out, so callers are free to modify the
+ * entities they are given without affecting the cached state.
+ *
+ * <p>Entries are only invalidated by the writes made through this node. Where other nodes write to
+ * the same database an expiry bounds how long a transaction they changed, such as one they added a
+ * box to or deleted, is still read from the cache.
+ */
+public class PayloadCache implements PayloadCacheMXBean {
+
+  private static final int KEY_SIZE = 32;
+
+  private static final int ENTRY_OVERHEAD = 256;
+
+  private final int maxSize;
+
+  private final long maxWeight;
+
+  private final long expiryNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final Map<MessageHash, CachedTransaction> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long weight;
+
+  private long generation;
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  public PayloadCache(final int maxSize, final long maxWeight) {
+    this(maxSize, maxWeight, Duration.ZERO);
+  }
+
+  /**
+   * @param maxSize the maximum number of entries
+   * @param maxWeight the maximum estimated size in bytes of the entries, 0 for no limit
+   * @param expiry how long an entry is read before it is dropped, zero for no expiry
+   */
+  public PayloadCache(final int maxSize, final long maxWeight, final Duration expiry) {
+    this(maxSize, maxWeight, expiry, System::nanoTime);
+  }
+
+  PayloadCache(
+      final int maxSize, final long maxWeight, final Duration expiry, final LongSupplier nanoTime) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Payload cache size must be greater than 0");
+    }
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight <= 0 ? Long.MAX_VALUE : maxWeight;
+    this.expiryNanos = expiry.isZero() ? Long.MAX_VALUE : expiry.toNanos();
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+  }
+
+  public synchronized Optional<EncryptedTransaction> get(final MessageHash hash) {
+    final CachedTransaction cached = entries.get(hash);
+    if (cached == null) {
+      missCount.increment();
+      return Optional.empty();
+    }
+    if (nanoTime.getAsLong() - cached.cachedAt >= expiryNanos) {
+      // another node may have changed the transaction since it was cached
+      entries.remove(hash);
+      weight -= cached.weight;
+      evictionCount.increment();
+      missCount.increment();
+      return Optional.empty();
+    }
+    hitCount.increment();
+    return Optional.of(cached.toEntity());
+  }
+
+  /**
+   * The current invalidation generation, to be captured before reading from the underlying store
+   * and passed to {@link #putIfUnchanged(EncryptedTransaction, long)} afterwards
+   */
+  public synchronized long generation() {
+    return generation;
+  }
+
+  /** Caches a transaction that is known to reflect the latest stored state */
+  public synchronized void put(final EncryptedTransaction transaction) {
+    store(transaction);
+  }
+
+  /**
+   * Caches a transaction read from the underlying store, unless an invalidation happened since the
+   * read started, in which case the value may already be stale
+   */
+  public synchronized void putIfUnchanged(
+      final EncryptedTransaction transaction, final long readGeneration) {
+    if (readGeneration == generation) {
+      store(transaction);
+    }
+  }
+
+  public synchronized void invalidate(final MessageHash hash) {
+    generation++;
+    final CachedTransaction removed = entries.remove(hash);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+    weight = 0;
+  }
+
+  private void store(final EncryptedTransaction transaction) {
+    if (transaction.getHash() == null || transaction.getPayload() == null) {
+      return;
+    }
+
+    final MessageHash key = new MessageHash(transaction.getHash().getHashBytes());
+    final CachedTransaction cached = new CachedTransaction(key, transaction, nanoTime.getAsLong());
+    final CachedTransaction previous = entries.remove(key);
+    if (previous != null) {
+      weight -= previous.weight;
+    }
+
+    if (cached.weight > maxWeight) {
+      return;
+    }
+
+    entries.put(key, cached);
+    weight += cached.weight;
+
+    final Iterator<CachedTransaction> eldest = entries.values().iterator();
+    while ((entries.size() > maxSize || weight > maxWeight) && eldest.hasNext()) {
+      weight -= eldest.next().weight;
+      eldest.remove();
+      evictionCount.increment();
+    }
+  }
+
+  static long weigh(final EncodedPayload payload) {
+    long total = ENTRY_OVERHEAD;
+    total += Optional.ofNullable(payload.getCipherText()).map(b -> b.length).orElse(0);
+    total += Optional.ofNullable(payload.getExecHash()).map(b -> b.length).orElse(0);
+    for (final RecipientBox box : payload.getRecipientBoxes()) {
+      total += box.getData().length;
+    }
+    total += (long) KEY_SIZE * payload.getRecipientKeys().size();
+    total += (long) KEY_SIZE * payload.getMandatoryRecipients().size();
+    total += (long) KEY_SIZE * 4 * payload.getAffectedContractTransactions().size();
+    return total;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  private static final class CachedTransaction {
+
+    private final MessageHash hash;
+
+    private final EncodedPayload payload;
+
+    private final EncodedPayloadCodec codec;
+
+    private final long timestamp;
+
+    private final long weight;
+
+    private final long cachedAt;
+
+    private CachedTransaction(
+        final MessageHash hash, final EncryptedTransaction transaction, final long cachedAt) {
+      this.hash = Objects.requireNonNull(hash);
+      this.payload = Objects.requireNonNull(transaction.getPayload());
+      this.codec = transaction.getEncodedPayloadCodec();
+      this.timestamp = transaction.getTimestamp();
+      this.weight = weigh(payload);
+      this.cachedAt = cachedAt;
+    }
+
+    private EncryptedTransaction toEntity() {
+      final EncryptedTransaction entity =
+          new EncryptedTransaction(new MessageHash(hash.getHashBytes()), payload);
+      entity.setEncodedPayloadCodec(codec);
+      entity.setTimestamp(timestamp);
+      return entity;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.config.JdbcConfig;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the single {@link PayloadCache} shared by every {@link CachingEncryptedTransactionDAO}, so
+ * that writes made through one DAO instance invalidate the entries seen by all the others.
+ */
+enum PayloadCacheHolder {
+  INSTANCE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadCacheHolder.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=PayloadCache";
+
+  private PayloadCache payloadCache;
+
+  synchronized Optional<PayloadCache> getPayloadCache(JdbcConfig jdbcConfig) {
+    if (jdbcConfig.getPayloadCacheSize() <= 0) {
+      return Optional.empty();
+    }
+    if (payloadCache == null) {
+      payloadCache =
+          new PayloadCache(
+              jdbcConfig.getPayloadCacheSize(),
+              jdbcConfig.getPayloadCacheMaxWeight(),
+              Duration.ofMillis(Math.max(0, jdbcConfig.getPayloadCacheExpiryMillis())));
+      register(payloadCache);
+    }
+    return Optional.of(payloadCache);
+  }
+
+  private static void register(PayloadCache payloadCache) {
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(payloadCache, new ObjectName(OBJECT_NAME));
+    } catch (JMException ex) {
+      LOGGER.warn("Unable to register payload cache metrics. {}", ex.getMessage());
+      LOGGER.debug("", ex);
+    }
+  }
+
+  synchronized void clear() {
+    if (payloadCache == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+    } catch (JMException ex) {
+      LOGGER.debug("", ex);
+    }
+    payloadCache = null;
+  }
+}
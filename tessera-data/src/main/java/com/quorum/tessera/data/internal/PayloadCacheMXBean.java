@@ -0,0 +1,15 @@
+package com.quorum.tessera.data.internal;
+
+/** Management view of the statistics gathered by a {@link PayloadCache} */
+public interface PayloadCacheMXBean {
+
+  long getHitCount();
+
+  long getMissCount();
+
+  long getEvictionCount();
+
+  int getSize();
+
+  long getWeight();
+}
@@ -0,0 +1,45 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadDictionary;
+import com.quorum.tessera.enclave.PayloadDictionaryHolder;
+import java.nio.file.Paths;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the codec that new transactions are stored with, which is compact or compressed when the
+ * JDBC config asks for it. Rows already stored keep the codec they were written with.
+ */
+public enum PayloadCodecHolder {
+  INSTANCE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadCodecHolder.class);
+
+  private volatile EncodedPayloadCodec codec = EncodedPayloadCodec.current();
+
+  synchronized void configure(JdbcConfig jdbcConfig) {
+    Optional.ofNullable(jdbcConfig.getPayloadDictionary())
+        .map(Paths::get)
+        .map(PayloadDictionary::read)
+        .ifPresent(
+            dictionary -> {
+              LOGGER.info("Using payload dictionary {}", Integer.toHexString(dictionary.getId()));
+              PayloadDictionaryHolder.INSTANCE.setDictionary(dictionary);
+            });
+
+    if (jdbcConfig.isCompressPayloads()) {
+      codec = EncodedPayloadCodec.CBOR_V2_DEFLATE;
+    } else if (jdbcConfig.isCompactPayloads()) {
+      codec = EncodedPayloadCodec.CBOR_V2;
+    } else {
+      codec = EncodedPayloadCodec.current();
+    }
+  }
+
+  public EncodedPayloadCodec getCodec() {
+    return codec;
+  }
+}
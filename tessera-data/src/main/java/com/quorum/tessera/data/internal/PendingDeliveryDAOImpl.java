@@ -0,0 +1,145 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** A JPA implementation of {@link PendingDeliveryDAO} */
+public class PendingDeliveryDAOImpl implements PendingDeliveryDAO {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PendingDeliveryDAOImpl.class);
+
+  /**
+   * The number given to the last delivery queued. Numbers are taken from the clock in microseconds
+   * so that deliveries queued after a restart are numbered after those queued before it.
+   */
+  private static final AtomicLong LAST_ID = new AtomicLong();
+
+  /** The query of PendingDelivery.FindDue without its ordering, for adding further conditions */
+  private static final String FIND_DUE =
+      "select d from PendingDelivery d where d.nextAttempt <= :now and not exists (select e from"
+          + " PendingDelivery e where e.publicKey = d.publicKey and e.id < d.id and e.nextAttempt"
+          + " > :now)";
+
+  private final EntityManagerTemplate entityManagerTemplate;
+
+  public PendingDeliveryDAOImpl(final EntityManagerFactory entityManagerFactory) {
+    this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+  }
+
+  @Override
+  public EncryptedTransaction save(
+      final EncryptedTransaction transaction, final List<PendingDelivery> deliveries) {
+    return entityManagerTemplate.execute(
+        entityManager -> {
+          entityManager.persist(transaction);
+          for (final PendingDelivery delivery : deliveries) {
+            delivery.setId(nextId());
+            entityManager.persist(delivery);
+          }
+          LOGGER.debug(
+              "Stored transaction {} with {} pending deliveries",
+              transaction.getHash(),
+              deliveries.size());
+          return transaction;
+        });
+  }
+
+  @Override
+  public List<PendingDelivery> findDue(
+      final long now, final Set<PublicKey> excludedRecipients, final int maxResults) {
+    if (excludedRecipients.isEmpty()) {
+      return entityManagerTemplate.execute(
+          entityManager ->
+              entityManager
+                  .createNamedQuery("PendingDelivery.FindDue", PendingDelivery.class)
+                  .setParameter("now", now)
+                  .setMaxResults(maxResults)
+                  .getResultList());
+    }
+
+    // compared one at a time, as binary columns cannot be matched reliably with an IN list
+    final List<PublicKey> excluded = List.copyOf(excludedRecipients);
+    final StringBuilder query = new StringBuilder(FIND_DUE);
+    for (int i = 0; i < excluded.size(); i++) {
+      query.append(" and d.publicKey <> :excluded").append(i);
+    }
+    query.append(" order by d.id");
+
+    return entityManagerTemplate.execute(
+        entityManager -> {
+          final TypedQuery<PendingDelivery> typedQuery =
+              entityManager
+                  .createQuery(query.toString(), PendingDelivery.class)
+                  .setParameter("now", now)
+                  .setMaxResults(maxResults);
+          for (int i = 0; i < excluded.size(); i++) {
+            typedQuery.setParameter("excluded" + i, excluded.get(i).getKeyBytes());
+          }
+          return typedQuery.getResultList();
+        });
+  }
+
+  @Override
+  public List<PendingDelivery> findByHash(final MessageHash hash) {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("PendingDelivery.FindByHash", PendingDelivery.class)
+                .setParameter("hash", hash.getHashBytes())
+                .getResultList());
+  }
+
+  @Override
+  public void delivered(final PendingDelivery delivery) {
+    entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("PendingDelivery.Delete")
+                .setParameter("id", delivery.getId())
+                .executeUpdate());
+  }
+
+  @Override
+  public void retryAt(final PendingDelivery delivery, final long nextAttempt, final String error) {
+    entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("PendingDelivery.Retry")
+                .setParameter("nextAttempt", nextAttempt)
+                .setParameter("lastError", PendingDelivery.truncateError(error))
+                .setParameter("id", delivery.getId())
+                .executeUpdate());
+  }
+
+  @Override
+  public long pendingCount() {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            entityManager
+                .createNamedQuery("PendingDelivery.Count", Long.class)
+                .getSingleResult());
+  }
+
+  @Override
+  public Optional<Long> oldestQueuedAt() {
+    return entityManagerTemplate.execute(
+        entityManager ->
+            Optional.ofNullable(
+                entityManager
+                    .createNamedQuery("PendingDelivery.OldestQueuedAt", Long.class)
+                    .getSingleResult()));
+  }
+
+  static long nextId() {
+    final long now = System.currentTimeMillis() * 1000;
+    return LAST_ID.updateAndGet(last -> Math.max(now, last + 1));
+  }
+}
@@ -0,0 +1,57 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.data.DataSourceFactory;
+import com.quorum.tessera.data.PendingDeliveryDAO;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class PendingDeliveryDAOProvider {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PendingDeliveryDAOProvider.class);
+
+  public static PendingDeliveryDAO provider() {
+
+    Config config = ConfigFactory.create().getConfig();
+    JdbcConfig jdbcConfig = config.getJdbcConfig();
+
+    // the deliveries are committed with the transaction, so must be in the same database
+    if (Objects.nonNull(jdbcConfig.getLogStoreDirectory())
+        || (Objects.nonNull(jdbcConfig.getShardUrls()) && !jdbcConfig.getShardUrls().isEmpty())) {
+      throw new IllegalStateException(
+          "jdbc.outboxDelivery needs transactions to be stored in the database at jdbc.url,"
+              + " it cannot be used with a log store or shards");
+    }
+
+    final DataSource dataSource = DataSourceFactory.create().create(jdbcConfig);
+
+    Map properties = new HashMap();
+
+    properties.put("jakarta.persistence.nonJtaDataSource", dataSource);
+
+    properties.put(
+        "eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
+    properties.put("eclipselink.logging.level", "FINE");
+    properties.put("eclipselink.logging.parameters", "true");
+    properties.put("eclipselink.logging.level.sql", "FINE");
+
+    properties.put(
+        "jakarta.persistence.schema-generation.database.action",
+        jdbcConfig.isAutoCreateTables() ? "create" : "none");
+
+    LOGGER.debug("Creating EntityManagerFactory from {}", properties);
+    final EntityManagerFactory entityManagerFactory =
+        Persistence.createEntityManagerFactory("tessera", properties);
+    LOGGER.debug("Created EntityManagerFactory from {}", properties);
+
+    return new PendingDeliveryDAOImpl(entityManagerFactory);
+  }
+}
@@ -0,0 +1,48 @@
+package com.quorum.tessera.data.internal;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexes the recipients of transactions stored before the recipient index was introduced, on a
+ * background thread so the node can start serving requests straight away. Only one backfill runs
+ * at a time however many DAO instances are created.
+ */
+enum RecipientIndexBackfill {
+  INSTANCE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecipientIndexBackfill.class);
+
+  static final String THREAD_NAME = "recipient-index-backfill";
+
+  private Thread thread;
+
+  synchronized void start(EncryptedTransactionDAOImpl... encryptedTransactionDAOs) {
+    if (thread != null && thread.isAlive()) {
+      return;
+    }
+    // the databases of sharded transactions are indexed one after another
+    thread =
+        new Thread(
+            () -> Arrays.stream(encryptedTransactionDAOs).forEach(RecipientIndexBackfill::run),
+            THREAD_NAME);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void run(EncryptedTransactionDAOImpl encryptedTransactionDAO) {
+    try {
+      if (encryptedTransactionDAO.isRecipientIndexComplete()) {
+        return;
+      }
+      LOGGER.info("Indexing the recipients of previously stored transactions");
+      encryptedTransactionDAO.indexRecipients();
+    } catch (RuntimeException ex) {
+      LOGGER.warn(
+          "Unable to index the recipients of stored transactions, resend requests will scan all transactions. {}",
+          ex.getMessage());
+      LOGGER.debug("", ex);
+    }
+  }
+}
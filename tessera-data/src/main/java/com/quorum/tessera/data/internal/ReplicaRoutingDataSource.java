@@ -0,0 +1,291 @@
+package com.quorum.tessera.data.internal;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data source that hands out connections to the primary database, except inside {@link
+ * #readFromReplica(Supplier)} where connections are taken from the read replicas in turn.
+ *
+ * <p>A replica that cannot give a connection is skipped until {@link #RETRY_INTERVAL_MILLIS} has
+ * passed, after which the next read tries it again. If no replica is available the primary is
+ * used, so reads never fail only because the replicas are down.
+ *
+ * <p>Once {@link #startProbing()} is called each replica is also checked every {@link
+ * #PROBE_INTERVAL_MILLIS}. A replica whose connections are not valid, or whose newest stored
+ * transaction is further behind the newest on the primary than the maximum lag, is skipped until a
+ * later check finds it has caught up.
+ */
+public class ReplicaRoutingDataSource implements DataSource, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  static final long RETRY_INTERVAL_MILLIS = 5000;
+
+  static final long PROBE_INTERVAL_MILLIS = 5000;
+
+  static final Duration DEFAULT_MAX_LAG = Duration.ofSeconds(10);
+
+  private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+  private static final String NEWEST_TIMESTAMP =
+      "SELECT MAX(TIMESTAMP) FROM ENCRYPTED_TRANSACTION";
+
+  private final DataSource primary;
+
+  private final List<Replica> replicas;
+
+  private final long maxLagMillis;
+
+  private ScheduledExecutorService prober;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  private final ThreadLocal<Boolean> readOnly = ThreadLocal.withInitial(() -> false);
+
+  /**
+   * @param primary the data source of the primary database
+   * @param replicas the data sources of the read replicas, keyed by a name used in log messages
+   */
+  public ReplicaRoutingDataSource(
+      final DataSource primary, final Map<String, DataSource> replicas) {
+    this(primary, replicas, DEFAULT_MAX_LAG);
+  }
+
+  /**
+   * @param primary the data source of the primary database
+   * @param replicas the data sources of the read replicas, keyed by a name used in log messages
+   * @param maxLag how far behind the primary a replica can be and still be read from
+   */
+  public ReplicaRoutingDataSource(
+      final DataSource primary, final Map<String, DataSource> replicas, final Duration maxLag) {
+    this.primary = Objects.requireNonNull(primary);
+    this.replicas = new ArrayList<>();
+    replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    this.maxLagMillis = maxLag.toMillis();
+  }
+
+  /** Checks the health and lag of the replicas in the background until the data source is closed */
+  public synchronized void startProbing() {
+    if (Objects.nonNull(prober) || replicas.isEmpty()) {
+      return;
+    }
+    prober =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "read-replica-probe");
+              thread.setDaemon(true);
+              return thread;
+            });
+    prober.scheduleWithFixedDelay(this::probe, 0, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /** Checks each replica once, marking those that are unhealthy or too far behind to be skipped */
+  void probe() {
+    // without the newest transaction on the primary the lag is unknown, so only health is checked
+    Optional<Long> primaryNewest = Optional.empty();
+    try (Connection connection = primary.getConnection()) {
+      primaryNewest = Optional.of(newestTimestamp(connection));
+    } catch (SQLException ex) {
+      LOGGER.debug("Unable to read the newest transaction on the primary: {}", ex.getMessage());
+    }
+
+    for (final Replica replica : replicas) {
+      final boolean healthy = isHealthy(replica, primaryNewest);
+      if (healthy && !replica.healthy) {
+        LOGGER.info("Read replica {} is healthy again, reading from it", replica.name);
+      }
+      replica.healthy = healthy;
+    }
+  }
+
+  private boolean isHealthy(final Replica replica, final Optional<Long> primaryNewest) {
+    try (Connection connection = replica.dataSource.getConnection()) {
+      if (!connection.isValid(PROBE_TIMEOUT_SECONDS)) {
+        return unhealthy(replica, "is not valid");
+      }
+      if (primaryNewest.isEmpty()) {
+        return true;
+      }
+      final long lag = primaryNewest.get() - newestTimestamp(connection);
+      if (lag > maxLagMillis) {
+        return unhealthy(replica, "is " + lag + "ms behind the primary");
+      }
+      return true;
+    } catch (SQLException | RuntimeException ex) {
+      return unhealthy(replica, "could not be checked: " + ex.getMessage());
+    }
+  }
+
+  /** Logs why a replica is skipped, as a warning only when it was healthy until now */
+  private static boolean unhealthy(final Replica replica, final String reason) {
+    if (replica.healthy) {
+      LOGGER.warn("Read replica {} {}, reading from the primary", replica.name, reason);
+    } else {
+      LOGGER.debug("Read replica {} {}", replica.name, reason);
+    }
+    return false;
+  }
+
+  /** The timestamp of the newest stored transaction, 0 if there are none */
+  private static long newestTimestamp(final Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(NEWEST_TIMESTAMP)) {
+      return resultSet.next() ? resultSet.getLong(1) : 0;
+    }
+  }
+
+  /**
+   * Runs a read-only operation with connections taken from the read replicas. The operation must
+   * only read, as writes to a replica fail or are lost.
+   *
+   * @param operation the operation to run
+   * @return the result of the operation
+   */
+  public <T> T readFromReplica(final Supplier<T> operation) {
+    if (readOnly.get()) {
+      return operation.get();
+    }
+
+    readOnly.set(true);
+    try {
+      return operation.get();
+    } finally {
+      readOnly.remove();
+    }
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (readOnly.get()) {
+      final Connection connection = replicaConnection();
+      if (Objects.nonNull(connection)) {
+        return connection;
+      }
+    }
+    return primary.getConnection();
+  }
+
+  private Connection replicaConnection() {
+    if (replicas.isEmpty()) {
+      return null;
+    }
+
+    final long now = System.nanoTime();
+    final int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+    for (int i = 0; i < replicas.size(); i++) {
+      final Replica replica = replicas.get((start + i) % replicas.size());
+      if (!replica.healthy || now - replica.unavailableUntil < 0) {
+        continue;
+      }
+      try {
+        return replica.dataSource.getConnection();
+      } catch (SQLException ex) {
+        LOGGER.warn(
+            "Read replica {} is unavailable, retrying in {}ms: {}",
+            replica.name,
+            RETRY_INTERVAL_MILLIS,
+            ex.getMessage());
+        replica.unavailableUntil = now + TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS);
+      }
+    }
+
+    LOGGER.debug("No read replica is available, reading from the primary");
+    return null;
+  }
+
+  @Override
+  public Connection getConnection(final String username, final String password)
+      throws SQLException {
+    return primary.getConnection(username, password);
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return primary.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(final PrintWriter out) throws SQLException {
+    primary.setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(final int seconds) throws SQLException {
+    primary.setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return primary.getLoginTimeout();
+  }
+
+  @Override
+  public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return primary.getParentLogger();
+  }
+
+  @Override
+  public <T> T unwrap(final Class<T> type) throws SQLException {
+    if (type.isInstance(this)) {
+      return type.cast(this);
+    }
+    return primary.unwrap(type);
+  }
+
+  @Override
+  public boolean isWrapperFor(final Class<?> type) throws SQLException {
+    return type.isInstance(this) || primary.isWrapperFor(type);
+  }
+
+  @Override
+  public void close() throws Exception {
+    synchronized (this) {
+      if (Objects.nonNull(prober)) {
+        prober.shutdownNow();
+      }
+    }
+    for (final DataSource dataSource : dataSources()) {
+      if (dataSource instanceof AutoCloseable) {
+        ((AutoCloseable) dataSource).close();
+      }
+    }
+  }
+
+  private List<DataSource> dataSources() {
+    final List<DataSource> dataSources = new ArrayList<>();
+    dataSources.add(primary);
+    replicas.forEach(replica -> dataSources.add(replica.dataSource));
+    return dataSources;
+  }
+
+  private static final class Replica {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private volatile long unavailableUntil = System.nanoTime();
+
+    private volatile boolean healthy = true;
+
+    private Replica(final String name, final DataSource dataSource) {
+      this.name = name;
+      this.dataSource = Objects.requireNonNull(dataSource);
+    }
+  }
+}
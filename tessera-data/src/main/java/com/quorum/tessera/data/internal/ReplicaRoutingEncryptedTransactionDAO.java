@@ -0,0 +1,234 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.PersistenceException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EncryptedTransactionDAO} that sends lookups and counts to the read replicas of a {@link
+ * ReplicaRoutingDataSource}, and everything else to the primary.
+ *
+ * <p>A transaction that was just written may not have reached the replicas yet, so it is read from
+ * the primary for a short window after each write to it. Transactions that a replica does not have,
+ * and reads that fail on a replica, are read from the primary as well, so a sender can always
+ * receive what it has just sent.
+ */
+public class ReplicaRoutingEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ReplicaRoutingEncryptedTransactionDAO.class);
+
+  static final Duration DEFAULT_PIN_WINDOW = Duration.ofSeconds(5);
+
+  private static final int PURGE_INTERVAL = 1024;
+
+  private final EncryptedTransactionDAO delegate;
+
+  private final ReplicaRoutingDataSource dataSource;
+
+  private final long pinNanos;
+
+  private final Map<MessageHash, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+  private final AtomicLong pins = new AtomicLong();
+
+  public ReplicaRoutingEncryptedTransactionDAO(
+      final EncryptedTransactionDAO delegate,
+      final ReplicaRoutingDataSource dataSource,
+      final Duration pinWindow) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.dataSource = Objects.requireNonNull(dataSource);
+    this.pinNanos = pinWindow.toNanos();
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    try {
+      return delegate.save(entity);
+    } finally {
+      pin(entity.getHash());
+    }
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    try {
+      return delegate.save(transaction, consumer);
+    } finally {
+      pin(transaction.getHash());
+    }
+  }
+
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    try {
+      return delegate.saveAll(entities);
+    } finally {
+      entities.forEach(entity -> pin(entity.getHash()));
+    }
+  }
+
+  @Override
+  public void stored(final EncryptedTransaction transaction) {
+    try {
+      delegate.stored(transaction);
+    } finally {
+      pin(transaction.getHash());
+    }
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    try {
+      return delegate.update(entity);
+    } finally {
+      pin(entity.getHash());
+    }
+  }
+
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    try {
+      delegate.addRecipientBox(hash, box);
+    } finally {
+      pin(hash);
+    }
+  }
+
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    try {
+      delegate.addRecipientBoxes(hash, boxes);
+    } finally {
+      pin(hash);
+    }
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    try {
+      delegate.delete(hash);
+    } finally {
+      pin(hash);
+    }
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    if (isPinned(hash)) {
+      return delegate.retrieveByHash(hash);
+    }
+
+    final Optional<EncryptedTransaction> fromReplica =
+        fromReplica(() -> delegate.retrieveByHash(hash));
+    if (fromReplica.isPresent()) {
+      return fromReplica;
+    }
+    return delegate.retrieveByHash(hash);
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    final Map<Boolean, List<MessageHash>> byPinned =
+        messageHashes.stream().distinct().collect(Collectors.partitioningBy(this::isPinned));
+
+    final List<EncryptedTransaction> found = new ArrayList<>();
+    if (!byPinned.get(false).isEmpty()) {
+      found.addAll(fromReplica(() -> delegate.findByHashes(byPinned.get(false))));
+    }
+
+    final Set<MessageHash> foundHashes =
+        found.stream().map(EncryptedTransaction::getHash).collect(Collectors.toSet());
+    final List<MessageHash> fromPrimary =
+        messageHashes.stream()
+            .distinct()
+            .filter(hash -> !foundHashes.contains(hash))
+            .collect(Collectors.toList());
+    if (!fromPrimary.isEmpty()) {
+      found.addAll(delegate.findByHashes(fromPrimary));
+    }
+    return found;
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    return fromReplica(() -> delegate.retrieveTransactions(offset, maxResult));
+  }
+
+  @Override
+  public long transactionCount() {
+    return fromReplica(delegate::transactionCount);
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return fromReplica(() -> delegate.transactionCount(publicKey));
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      final long afterTimestamp, final MessageHash afterHash, final int fetchSize) {
+    // streams read lazily after this call returns, so are always read from the primary
+    return delegate.streamAll(afterTimestamp, afterHash, fetchSize);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    return delegate.streamAll(publicKey, fetchSize);
+  }
+
+  @Override
+  public boolean isRecipientIndexComplete() {
+    return delegate.isRecipientIndexComplete();
+  }
+
+  @Override
+  public boolean upcheck() {
+    return delegate.upcheck();
+  }
+
+  private <T> T fromReplica(final Supplier<T> read) {
+    try {
+      return dataSource.readFromReplica(read);
+    } catch (PersistenceException ex) {
+      LOGGER.warn("Read from replica failed, reading from the primary: {}", ex.getMessage());
+      LOGGER.debug(null, ex);
+      return read.get();
+    }
+  }
+
+  private void pin(final MessageHash hash) {
+    final long now = System.nanoTime();
+    pinnedUntil.put(hash, now + pinNanos);
+
+    if (pins.incrementAndGet() % PURGE_INTERVAL == 0) {
+      pinnedUntil.values().removeIf(until -> until - now <= 0);
+    }
+  }
+
+  private boolean isPinned(final MessageHash hash) {
+    final Long until = pinnedUntil.get(hash);
+    if (Objects.isNull(until)) {
+      return false;
+    }
+    if (until - System.nanoTime() > 0) {
+      return true;
+    }
+    pinnedUntil.remove(hash, until);
+    return false;
+  }
+}
@@ -0,0 +1,284 @@
+package com.quorum.tessera.data.internal;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.PersistenceException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EncryptedTransactionDAO} that splits transactions across a number of shards, each
+ * another implementation on a database of its own, by {@link MessageHash#shard(int)}.
+ *
+ * <p>Operations on a single transaction go to the shard that holds it. Lookups and saves of many
+ * transactions are split by shard and run against the shards at the same time, while pages and
+ * streams of all transactions are merged from every shard in timestamp then hash order.
+ */
+public class ShardedEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ShardedEncryptedTransactionDAO.class);
+
+  static final Comparator<EncryptedTransaction> ORDER =
+      Comparator.comparingLong(EncryptedTransaction::getTimestamp)
+          .thenComparing(tx -> tx.getHash().getHashBytes(), Arrays::compareUnsigned);
+
+  private final List<EncryptedTransactionDAO> shards;
+
+  private final ExecutorService executor;
+
+  public ShardedEncryptedTransactionDAO(final List<EncryptedTransactionDAO> shards) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    this.shards = List.copyOf(shards);
+
+    final AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            shards.size(),
+            runnable -> {
+              final Thread thread =
+                  new Thread(runnable, "transaction-shard-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    LOGGER.info("Splitting stored transactions across {} shards", shards.size());
+  }
+
+  private EncryptedTransactionDAO shardOf(final MessageHash hash) {
+    return shards.get(hash.shard(shards.size()));
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    return shardOf(entity.getHash()).save(entity);
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    return shardOf(transaction.getHash()).save(transaction, consumer);
+  }
+
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    return scatter(entities, EncryptedTransaction::getHash, EncryptedTransactionDAO::saveAll);
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    return shardOf(entity.getHash()).update(entity);
+  }
+
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    shardOf(hash).addRecipientBox(hash, box);
+  }
+
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    shardOf(hash).addRecipientBoxes(hash, boxes);
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    shardOf(hash).delete(hash);
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    return shardOf(hash).retrieveByHash(hash);
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    return scatter(messageHashes, Function.identity(), EncryptedTransactionDAO::findByHashes);
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    try (Stream<EncryptedTransaction> all =
+        merge(shard -> shard.streamAll(Long.MIN_VALUE, null, maxResult))) {
+      return all.skip(offset).limit(maxResult).collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      final long afterTimestamp, final MessageHash afterHash, final int fetchSize) {
+    return merge(shard -> shard.streamAll(afterTimestamp, afterHash, fetchSize));
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    return merge(shard -> shard.streamAll(publicKey, fetchSize));
+  }
+
+  @Override
+  public long transactionCount() {
+    return gather(EncryptedTransactionDAO::transactionCount).stream()
+        .mapToLong(Long::longValue)
+        .sum();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return gather(shard -> shard.transactionCount(publicKey)).stream()
+        .mapToLong(Long::longValue)
+        .sum();
+  }
+
+  @Override
+  public boolean isRecipientIndexComplete() {
+    return gather(EncryptedTransactionDAO::isRecipientIndexComplete).stream()
+        .allMatch(Boolean::booleanValue);
+  }
+
+  @Override
+  public boolean upcheck() {
+    return gather(EncryptedTransactionDAO::upcheck).stream().allMatch(Boolean::booleanValue);
+  }
+
+  /** Splits the items by the shard they belong to, and runs the operation on each shard's part */
+  private <I, R> List<R> scatter(
+      final Collection<I> items,
+      final Function<I, MessageHash> hash,
+      final ShardOperation<I, R> operation) {
+    final Map<Integer, List<I>> byShard =
+        items.stream()
+            .collect(
+                Collectors.groupingBy(
+                    item -> hash.apply(item).shard(shards.size()),
+                    TreeMap::new,
+                    Collectors.toList()));
+
+    final List<Supplier<List<R>>> calls = new ArrayList<>();
+    byShard.forEach((index, part) -> calls.add(() -> operation.apply(shards.get(index), part)));
+
+    return run(calls).stream().flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  /** Runs the operation against every shard */
+  private <R> List<R> gather(final Function<EncryptedTransactionDAO, R> operation) {
+    return run(
+        shards.stream()
+            .<Supplier<R>>map(shard -> () -> operation.apply(shard))
+            .collect(Collectors.toList()));
+  }
+
+  private <R> List<R> run(final List<Supplier<R>> calls) {
+    if (calls.size() == 1) {
+      return List.of(calls.get(0).get());
+    }
+
+    final List<CompletableFuture<R>> futures =
+        calls.stream()
+            .map(call -> CompletableFuture.supplyAsync(call, executor))
+            .collect(Collectors.toList());
+    try {
+      return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new PersistenceException(ex.getCause());
+    }
+  }
+
+  private Stream<EncryptedTransaction> merge(
+      final Function<EncryptedTransactionDAO, Stream<EncryptedTransaction>> stream) {
+    final List<Stream<EncryptedTransaction>> streams =
+        shards.stream().map(stream).collect(Collectors.toList());
+    if (streams.size() == 1) {
+      return streams.get(0);
+    }
+
+    final Iterator<EncryptedTransaction> merged = new MergingIterator(streams);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                merged, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(() -> streams.forEach(Stream::close));
+  }
+
+  @FunctionalInterface
+  private interface ShardOperation<I, R> {
+    List<R> apply(EncryptedTransactionDAO shard, List<I> items);
+  }
+
+  /**
+   * Merges streams that are each in {@link #ORDER}, reading each stream only as far as the merged
+   * result has been read
+   */
+  private static final class MergingIterator implements Iterator<EncryptedTransaction> {
+
+    private final List<Stream<EncryptedTransaction>> streams;
+
+    private PriorityQueue<Head> heads;
+
+    private MergingIterator(final List<Stream<EncryptedTransaction>> streams) {
+      this.streams = streams;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads().isEmpty();
+    }
+
+    @Override
+    public EncryptedTransaction next() {
+      final Head head = heads().poll();
+      if (Objects.isNull(head)) {
+        throw new NoSuchElementException();
+      }
+      if (head.iterator.hasNext()) {
+        heads.add(new Head(head.iterator.next(), head.iterator));
+      }
+      return head.transaction;
+    }
+
+    private PriorityQueue<Head> heads() {
+      if (Objects.isNull(heads)) {
+        heads =
+            new PriorityQueue<>(streams.size(), Comparator.comparing(h -> h.transaction, ORDER));
+        for (final Stream<EncryptedTransaction> stream : streams) {
+          final Iterator<EncryptedTransaction> iterator = stream.iterator();
+          if (iterator.hasNext()) {
+            heads.add(new Head(iterator.next(), iterator));
+          }
+        }
+      }
+      return heads;
+    }
+  }
+
+  private static final class Head {
+
+    private final EncryptedTransaction transaction;
+
+    private final Iterator<EncryptedTransaction> iterator;
+
+    private Head(
+        final EncryptedTransaction transaction, final Iterator<EncryptedTransaction> iterator) {
+      this.transaction = transaction;
+      this.iterator = iterator;
+    }
+  }
+}
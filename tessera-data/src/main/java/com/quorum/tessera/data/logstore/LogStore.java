@@ -0,0 +1,491 @@
+package com.quorum.tessera.data.logstore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of records kept in memory-mapped segment files. Records are only ever added,
+ * so a record is read straight from the mapped segment at the location it was appended at, and
+ * the stores built on the log keep their own in-memory indexes of those locations, rebuilt by
+ * {@link #replay(RecordVisitor) replaying} the log when it is opened.
+ *
+ * <p>Appending a record does not wait for it to reach the disk. A writer calls {@link #sync(long)}
+ * once it has appended everything it needs to be durable, and concurrent writers share a single
+ * flush: the first writer to sync flushes every record appended so far, and the writers that ask
+ * while it does so wait for it rather than flushing again.
+ *
+ * <p>Each record is framed by its length, a CRC-32 of its type and body, and its type. A record
+ * that was only partly written when the process stopped fails its checksum, and it and anything
+ * after it in the last segment are discarded when the log is opened.
+ *
+ * <p>The directory is locked while the log is open, so only one process can use it at a time.
+ */
+public class LogStore implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogStore.class);
+
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final String LOCK_FILE = "LOCK";
+
+  private final Path directory;
+
+  private final int segmentSize;
+
+  private final FileChannel lockChannel;
+
+  private final FileLock lock;
+
+  private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+  private final Object appendLock = new Object();
+
+  private final ReentrantLock syncLock = new ReentrantLock();
+
+  private final Condition synced = syncLock.newCondition();
+
+  private volatile Segment active;
+
+  private long syncedTo;
+
+  private boolean syncing;
+
+  private volatile boolean open;
+
+  public LogStore(final Path directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public LogStore(final Path directory, final int segmentSize) {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size must be larger than a record header");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+
+    try {
+      Files.createDirectories(directory);
+      this.lockChannel =
+          FileChannel.open(
+              directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      this.lock = tryLock(lockChannel);
+      if (Objects.isNull(lock)) {
+        lockChannel.close();
+        throw new IllegalStateException("Log store " + directory + " is already in use");
+      }
+
+      for (final Path file : segmentFiles()) {
+        final Segment segment = Segment.open(file);
+        segments.put(segment.id, segment);
+      }
+      if (segments.isEmpty()) {
+        segments.put(0, Segment.create(segmentPath(0), segmentSize));
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    this.active = recover();
+    this.syncedTo = active.location(active.writeOffset);
+    this.open = true;
+    LOGGER.info("Opened log store {} with {} segments", directory, segments.size());
+  }
+
+  private static FileLock tryLock(final FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException ex) {
+      // already locked by this process
+      return null;
+    }
+  }
+
+  /**
+   * Finds the end of the records in each segment, discarding a record that was only partly written
+   * at the end of the last segment
+   */
+  private Segment recover() {
+    for (final Segment segment : segments.values()) {
+      final int end = segment.scan(null);
+      final boolean last = segment == segments.lastEntry().getValue();
+      if (end < segment.capacity() && !segment.isEndOfRecords(end)) {
+        if (!last) {
+          throw new IllegalStateException(
+              String.format(
+                  "Log store segment %s is corrupt at offset %d", segment.path, end));
+        }
+        LOGGER.warn("Discarding incomplete record at offset {} of {}", end, segment.path);
+        segment.clear(end);
+      }
+      segment.writeOffset = end;
+    }
+    return segments.lastEntry().getValue();
+  }
+
+  /**
+   * Appends a record to the log. The record is readable as soon as this returns, but is only
+   * durable once {@link #sync(long)} has been called with its location.
+   *
+   * @param type the type of the record, which must not be zero
+   * @param body the body of the record
+   * @return the location of the record
+   */
+  public long append(final byte type, final ByteBuffer body) {
+    if (type == 0) {
+      throw new IllegalArgumentException("Record type must not be zero");
+    }
+    final int length = body.remaining();
+
+    synchronized (appendLock) {
+      checkOpen();
+      Segment segment = active;
+      if (segment.capacity() - segment.writeOffset < HEADER_SIZE + length) {
+        segment = roll(HEADER_SIZE + length);
+      }
+
+      final int offset = segment.writeOffset;
+      segment.write(offset, type, body);
+      segment.writeOffset = offset + HEADER_SIZE + length;
+      return segment.location(offset);
+    }
+  }
+
+  /** Starts a new segment, large enough for a record of the given size */
+  private Segment roll(final int recordSize) {
+    final Segment previous = active;
+    previous.force(previous.writeOffset);
+
+    final int id = previous.id + 1;
+    final Segment segment;
+    try {
+      segment = Segment.create(segmentPath(id), Math.max(segmentSize, recordSize));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    segments.put(id, segment);
+    active = segment;
+    LOGGER.debug("Started log store segment {}", segment.path);
+    return segment;
+  }
+
+  /**
+   * Waits until the record at the given location, and every record appended before it, is on disk.
+   * If another writer is already flushing, this waits for that flush and then flushes any records
+   * it did not cover, so that writers that sync together share a flush.
+   *
+   * @param location the location of the last record that needs to be durable
+   */
+  public void sync(final long location) {
+    syncLock.lock();
+    try {
+      while (syncedTo <= location) {
+        if (syncing) {
+          synced.awaitUninterruptibly();
+          continue;
+        }
+
+        syncing = true;
+        long flushedTo = syncedTo;
+        syncLock.unlock();
+        try {
+          flushedTo = flush();
+        } finally {
+          syncLock.lock();
+          syncing = false;
+          syncedTo = Math.max(syncedTo, flushedTo);
+          synced.signalAll();
+        }
+      }
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /** Forces the appended records of the active segment to disk, earlier ones were when it rolled */
+  private long flush() {
+    final Segment segment;
+    final int end;
+    synchronized (appendLock) {
+      checkOpen();
+      segment = active;
+      end = segment.writeOffset;
+    }
+    segment.force(end);
+    return segment.location(end);
+  }
+
+  /**
+   * Reads the body of the record at the given location
+   *
+   * @param location the location returned when the record was appended
+   * @return a read-only view of the body of the record, which stays valid while the log is open
+   */
+  public ByteBuffer read(final long location) {
+    checkOpen();
+    final Segment segment = segments.get(Segment.id(location));
+    if (Objects.isNull(segment)) {
+      throw new IllegalArgumentException("No log store segment for location " + location);
+    }
+    return segment.body(Segment.offset(location));
+  }
+
+  /**
+   * Visits every record in the log, in the order they were appended
+   *
+   * @param visitor the visitor to pass each record to
+   */
+  public void replay(final RecordVisitor visitor) {
+    checkOpen();
+    segments.values().forEach(segment -> segment.scan(visitor));
+  }
+
+  /**
+   * Deletes the segments that hold only records from before the given location. The active segment
+   * is never deleted, and the records of a deleted segment must not be read again.
+   *
+   * @param location the location of the first record that is still needed
+   * @return the number of segments deleted
+   */
+  public int discardBefore(final long location) {
+    int discarded = 0;
+    synchronized (appendLock) {
+      checkOpen();
+      for (final Segment segment : segments.headMap(Segment.id(location)).values()) {
+        if (segment == active) {
+          break;
+        }
+        try {
+          Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+        segments.remove(segment.id);
+        discarded++;
+        LOGGER.debug("Deleted log store segment {}", segment.path);
+      }
+    }
+    return discarded;
+  }
+
+  /** Whether the log is open and can be read and appended to */
+  public boolean isOpen() {
+    return open;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  private void checkOpen() {
+    if (!open) {
+      throw new IllegalStateException("Log store " + directory + " is closed");
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (appendLock) {
+      if (!open) {
+        return;
+      }
+      active.force(active.writeOffset);
+      open = false;
+    }
+
+    try {
+      lock.release();
+      lockChannel.close();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    LOGGER.info("Closed log store {}", directory);
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private Path segmentPath(final int id) {
+    return directory.resolve(String.format("%010d%s", id, SEGMENT_SUFFIX));
+  }
+
+  /** Receives the records of the log as it is replayed */
+  @FunctionalInterface
+  public interface RecordVisitor {
+
+    /**
+     * @param location the location of the record
+     * @param type the type of the record
+     * @param body a read-only view of the body of the record
+     */
+    void visit(long location, byte type, ByteBuffer body);
+  }
+
+  /**
+   * A segment file, mapped in full. The file is created at its full size, and the unwritten space
+   * at its end is zeros, which reads as a header with no type.
+   */
+  static final class Segment {
+
+    private final int id;
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private int writeOffset;
+
+    private int forcedTo;
+
+    private Segment(final int id, final Path path, final MappedByteBuffer buffer) {
+      this.id = id;
+      this.path = path;
+      this.buffer = buffer;
+    }
+
+    static Segment create(final Path path, final int size) throws IOException {
+      try (FileChannel channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        final Segment segment = map(path, channel, size);
+        // the new file is only found again if its directory entry is durable too
+        channel.force(true);
+        return segment;
+      }
+    }
+
+    static Segment open(final Path path) throws IOException {
+      try (FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        return map(path, channel, Math.toIntExact(channel.size()));
+      }
+    }
+
+    private static Segment map(final Path path, final FileChannel channel, final int size)
+        throws IOException {
+      final String name = path.getFileName().toString();
+      final int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+      return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static int id(final long location) {
+      return (int) (location >>> Integer.SIZE);
+    }
+
+    static int offset(final long location) {
+      return (int) location;
+    }
+
+    long location(final int offset) {
+      return ((long) id << Integer.SIZE) | offset;
+    }
+
+    int capacity() {
+      return buffer.capacity();
+    }
+
+    void write(final int offset, final byte type, final ByteBuffer body) {
+      final int length = body.remaining();
+      buffer.put(offset + HEADER_SIZE, body, body.position(), length);
+      buffer.putInt(offset + Integer.BYTES, checksum(type, offset + HEADER_SIZE, length));
+      buffer.put(offset + Integer.BYTES + Integer.BYTES, type);
+      // the length goes last, so a record is never seen before the rest of it is written
+      buffer.putInt(offset, length);
+    }
+
+    ByteBuffer body(final int offset) {
+      final int length = buffer.getInt(offset);
+      return buffer.slice(offset + HEADER_SIZE, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads the records of the segment in order until one is missing or fails its checksum
+     *
+     * @param visitor the visitor to pass each record to, or null to only find the end
+     * @return the offset after the last complete record
+     */
+    int scan(final RecordVisitor visitor) {
+      int offset = 0;
+      while (capacity() - offset >= HEADER_SIZE) {
+        final int length = buffer.getInt(offset);
+        final byte type = buffer.get(offset + Integer.BYTES + Integer.BYTES);
+        if (type == 0
+            || length < 0
+            || length > capacity() - offset - HEADER_SIZE
+            || buffer.getInt(offset + Integer.BYTES)
+                != checksum(type, offset + HEADER_SIZE, length)) {
+          break;
+        }
+
+        if (Objects.nonNull(visitor)) {
+          visitor.visit(location(offset), type, body(offset));
+        }
+        offset += HEADER_SIZE + length;
+      }
+      return offset;
+    }
+
+    /** Whether the given offset is followed by the zeros of unwritten space */
+    boolean isEndOfRecords(final int offset) {
+      for (int i = offset; i < Math.min(capacity(), offset + HEADER_SIZE); i++) {
+        if (buffer.get(i) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void clear(final int offset) {
+      for (int i = offset; i < capacity(); i++) {
+        buffer.put(i, (byte) 0);
+      }
+      force(capacity());
+    }
+
+    private int checksum(final byte type, final int offset, final int length) {
+      final CRC32 crc32 = new CRC32();
+      crc32.update(type);
+      crc32.update(buffer.slice(offset, length));
+      return (int) crc32.getValue();
+    }
+
+    void force(final int end) {
+      synchronized (this) {
+        if (end > forcedTo) {
+          buffer.force(forcedTo, end - forcedTo);
+          forcedTo = end;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.quorum.tessera.data.logstore;
+
+import com.quorum.tessera.data.EncryptedRawTransaction;
+import com.quorum.tessera.data.EncryptedRawTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link EncryptedRawTransactionDAO} that keeps raw transactions in a {@link
+ * LogStore}, indexed in memory by hash and in timestamp then hash order
+ *
+ * @see LogStoreEncryptedTransactionDAO
+ */
+public class LogStoreEncryptedRawTransactionDAO implements EncryptedRawTransactionDAO {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(LogStoreEncryptedRawTransactionDAO.class);
+
+  private final LogStore logStore;
+
+  private final Map<MessageHash, Entry> entries = new ConcurrentHashMap<>();
+
+  private final ConcurrentNavigableMap<TimestampHashKey, MessageHash> timestampIndex =
+      new ConcurrentSkipListMap<>();
+
+  private final Object writeLock = new Object();
+
+  public LogStoreEncryptedRawTransactionDAO(final LogStore logStore) {
+    this.logStore = logStore;
+    logStore.replay(this::replay);
+    LOGGER.info(
+        "Read {} raw transactions from log store {}", entries.size(), logStore.getDirectory());
+  }
+
+  private void replay(final long location, final byte type, final ByteBuffer body) {
+    if (type == RecordType.RAW_TRANSACTION.getId()) {
+      index(location, body);
+    } else if (type == RecordType.RAW_TRANSACTION_DELETED.getId()) {
+      unindex(new MessageHash(Records.getBytes(body)));
+    }
+  }
+
+  @Override
+  public EncryptedRawTransaction save(final EncryptedRawTransaction entity) {
+    LOGGER.debug("Persisting EncryptedRawTransaction with hash {}", entity.getHash());
+    entity.onPersist();
+
+    final long location;
+    synchronized (writeLock) {
+      if (entries.containsKey(entity.getHash())) {
+        throw new EntityExistsException("Raw transaction " + entity.getHash() + " exists");
+      }
+      location = append(entity);
+    }
+    logStore.sync(location);
+    return entity;
+  }
+
+  /**
+   * Copies raw transactions read from another store, keeping their timestamps. Transactions that
+   * are already stored are skipped, so an interrupted copy can be run again.
+   *
+   * @param transactions the raw transactions to copy
+   * @return the number of raw transactions that were copied
+   */
+  public int copyAll(final Collection<EncryptedRawTransaction> transactions) {
+    int copied = 0;
+    long last = -1;
+    synchronized (writeLock) {
+      for (final EncryptedRawTransaction transaction : transactions) {
+        if (entries.containsKey(transaction.getHash())) {
+          continue;
+        }
+        last = append(transaction);
+        copied++;
+      }
+    }
+
+    if (last >= 0) {
+      logStore.sync(last);
+    }
+    return copied;
+  }
+
+  @Override
+  public Optional<EncryptedRawTransaction> retrieveByHash(final MessageHash hash) {
+    LOGGER.debug("Retrieving payload with hash {}", hash);
+    return Optional.ofNullable(entries.get(hash)).map(entry -> read(entry.location));
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    LOGGER.info("Deleting transaction with hash {}", hash);
+
+    final long location;
+    synchronized (writeLock) {
+      if (!entries.containsKey(hash)) {
+        throw new EntityNotFoundException();
+      }
+      final byte[] hashBytes = hash.getHashBytes();
+      final ByteBuffer body = ByteBuffer.allocate(Records.sizeOf(hashBytes));
+      Records.putBytes(body, hashBytes);
+      location = logStore.append(RecordType.RAW_TRANSACTION_DELETED.getId(), body.flip());
+      unindex(hash);
+    }
+    logStore.sync(location);
+  }
+
+  @Override
+  public boolean upcheck() {
+    return logStore.isOpen();
+  }
+
+  @Override
+  public long transactionCount() {
+    return entries.size();
+  }
+
+  @Override
+  public List<EncryptedRawTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    LOGGER.debug(
+        "Fetching batch(offset:{}, maxResult:{}) of EncryptedRawTransaction entries",
+        offset,
+        maxResult);
+    return timestampIndex.values().stream()
+        .skip(offset)
+        .limit(maxResult)
+        .map(this::retrieveByHash)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  private long append(final EncryptedRawTransaction transaction) {
+    final byte[] hash = transaction.getHash().getHashBytes();
+    final ByteBuffer body =
+        ByteBuffer.allocate(
+            Records.sizeOf(hash)
+                + Long.BYTES
+                + Records.sizeOf(transaction.getEncryptedPayload())
+                + Records.sizeOf(transaction.getEncryptedKey())
+                + Records.sizeOf(transaction.getNonce())
+                + Records.sizeOf(transaction.getSender()));
+    Records.putBytes(body, hash).putLong(transaction.getTimestamp());
+    Records.putBytes(body, transaction.getEncryptedPayload());
+    Records.putBytes(body, transaction.getEncryptedKey());
+    Records.putBytes(body, transaction.getNonce());
+    Records.putBytes(body, transaction.getSender());
+
+    final long location = logStore.append(RecordType.RAW_TRANSACTION.getId(), body.flip());
+    index(location, logStore.read(location));
+    return location;
+  }
+
+  private void index(final long location, final ByteBuffer body) {
+    final MessageHash hash = new MessageHash(Records.getBytes(body));
+    final long timestamp = body.getLong();
+
+    Optional.ofNullable(entries.put(hash, new Entry(location, timestamp)))
+        .ifPresent(
+            previous -> timestampIndex.remove(TimestampHashKey.of(previous.timestamp, hash)));
+    timestampIndex.put(TimestampHashKey.of(timestamp, hash), hash);
+  }
+
+  private void unindex(final MessageHash hash) {
+    Optional.ofNullable(entries.remove(hash))
+        .ifPresent(entry -> timestampIndex.remove(TimestampHashKey.of(entry.timestamp, hash)));
+  }
+
+  private EncryptedRawTransaction read(final long location) {
+    final ByteBuffer body = logStore.read(location);
+    final MessageHash hash = new MessageHash(Records.getBytes(body));
+    final long timestamp = body.getLong();
+
+    final EncryptedRawTransaction transaction =
+        new EncryptedRawTransaction(
+            hash,
+            Records.getBytes(body),
+            Records.getBytes(body),
+            Records.getBytes(body),
+            Records.getBytes(body));
+    transaction.setTimestamp(timestamp);
+    return transaction;
+  }
+
+  private static final class Entry {
+
+    private final long location;
+
+    private final long timestamp;
+
+    private Entry(final long location, final long timestamp) {
+      this.location = location;
+      this.timestamp = timestamp;
+    }
+  }
+}
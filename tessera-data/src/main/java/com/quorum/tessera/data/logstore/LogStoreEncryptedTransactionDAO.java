@@ -0,0 +1,453 @@
+package com.quorum.tessera.data.logstore;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link EncryptedTransactionDAO} that keeps transactions in a {@link
+ * LogStore} rather than the database. Each write appends a record to the log, and the transactions
+ * are found through two in-memory indexes, one by hash and one in timestamp then hash order, which
+ * are rebuilt from the log when the DAO is created.
+ *
+ * <p>There is no index of recipient keys, so finding the transactions for a key reads the header
+ * of every stored payload.
+ */
+public class LogStoreEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(LogStoreEncryptedTransactionDAO.class);
+
+  private final LogStore logStore;
+
+  private final EncryptedTransactionListener listener = new EncryptedTransactionListener();
+
+  private final Map<MessageHash, Entry> entries = new ConcurrentHashMap<>();
+
+  private final ConcurrentNavigableMap<TimestampHashKey, MessageHash> timestampIndex =
+      new ConcurrentSkipListMap<>();
+
+  /** Hashes that are being saved along with a callback, which are not readable until it succeeds */
+  private final Set<MessageHash> pending = new HashSet<>();
+
+  private final Object writeLock = new Object();
+
+  public LogStoreEncryptedTransactionDAO(final LogStore logStore) {
+    this.logStore = logStore;
+    logStore.replay(this::replay);
+    LOGGER.info("Read {} transactions from log store {}", entries.size(), logStore.getDirectory());
+  }
+
+  private void replay(final long location, final byte type, final ByteBuffer body) {
+    if (type == RecordType.TRANSACTION.getId()) {
+      index(location, body);
+    } else if (type == RecordType.TRANSACTION_BOX.getId()) {
+      final MessageHash hash = new MessageHash(Records.getBytes(body));
+      entries.computeIfPresent(hash, (h, entry) -> entry.withBox(location));
+    } else if (type == RecordType.TRANSACTION_DELETED.getId()) {
+      unindex(new MessageHash(Records.getBytes(body)));
+    }
+  }
+
+  @Override
+  public EncryptedTransaction save(final EncryptedTransaction entity) {
+    return save(entity, () -> null);
+  }
+
+  @Override
+  public <T> EncryptedTransaction save(
+      final EncryptedTransaction transaction, final Callable<T> consumer) {
+    encode(transaction);
+
+    synchronized (writeLock) {
+      if (entries.containsKey(transaction.getHash()) || !pending.add(transaction.getHash())) {
+        throw new EntityExistsException("Transaction " + transaction.getHash() + " exists");
+      }
+    }
+
+    // the record is only appended once the callback succeeds, so a failed save never reaches the
+    // log, even if another writer syncs it in the meantime
+    try {
+      consumer.call();
+    } catch (Exception ex) {
+      synchronized (writeLock) {
+        pending.remove(transaction.getHash());
+      }
+      if (ex instanceof RuntimeException) {
+        throw (RuntimeException) ex;
+      }
+      throw new PersistenceException(ex);
+    }
+
+    final long location;
+    synchronized (writeLock) {
+      pending.remove(transaction.getHash());
+      location = append(transaction);
+      index(location, logStore.read(location));
+    }
+    logStore.sync(location);
+    LOGGER.debug("Stored transaction {}", transaction.getHash());
+    return transaction;
+  }
+
+  @Override
+  public List<EncryptedTransaction> saveAll(final Collection<EncryptedTransaction> entities) {
+    if (Objects.isNull(entities) || entities.isEmpty()) {
+      return Collections.emptyList();
+    }
+    entities.forEach(this::encode);
+
+    final List<EncryptedTransaction> conflicts = new ArrayList<>();
+    long last = -1;
+    synchronized (writeLock) {
+      for (final EncryptedTransaction entity : entities) {
+        if (entries.containsKey(entity.getHash()) || pending.contains(entity.getHash())) {
+          conflicts.add(entity);
+          continue;
+        }
+        last = append(entity);
+        index(last, logStore.read(last));
+      }
+    }
+
+    if (last >= 0) {
+      logStore.sync(last);
+    }
+    LOGGER.debug(
+        "Stored {} transactions, {} already existed",
+        entities.size() - conflicts.size(),
+        conflicts.size());
+    return conflicts;
+  }
+
+  /**
+   * Copies transactions read from another store, keeping their timestamps, encoded payloads and
+   * added boxes as they are. Transactions that are already stored are skipped, so an interrupted
+   * copy can be run again.
+   *
+   * @param transactions the transactions to copy
+   * @return the number of transactions that were copied
+   */
+  public int copyAll(final Collection<EncryptedTransaction> transactions) {
+    int copied = 0;
+    long last = -1;
+    synchronized (writeLock) {
+      for (final EncryptedTransaction transaction : transactions) {
+        if (entries.containsKey(transaction.getHash())) {
+          continue;
+        }
+        final long location = append(transaction);
+        index(location, logStore.read(location));
+        last = location;
+        for (final EncryptedTransactionBox box : transaction.getAddedBoxes()) {
+          last = appendBox(transaction.getHash(), box);
+        }
+        copied++;
+      }
+    }
+
+    if (last >= 0) {
+      logStore.sync(last);
+    }
+    return copied;
+  }
+
+  @Override
+  public EncryptedTransaction update(final EncryptedTransaction entity) {
+    final long location;
+    synchronized (writeLock) {
+      final Entry existing =
+          Optional.ofNullable(entries.get(entity.getHash()))
+              .orElseThrow(EntityNotFoundException::new);
+
+      final EncryptedTransaction updated = new EncryptedTransaction();
+      updated.setHash(entity.getHash());
+      updated.setTimestamp(existing.timestamp);
+      updated.setEncodedPayloadCodec(existing.codec);
+      updated.setEncodedPayload(
+          PayloadEncoder.create(existing.codec).encode(entity.getPayload()));
+
+      location = append(updated);
+      index(location, logStore.read(location));
+    }
+
+    logStore.sync(location);
+    LOGGER.debug("Updated transaction {}", entity.getHash());
+    return read(location, List.of());
+  }
+
+  @Override
+  public void addRecipientBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    final long location;
+    synchronized (writeLock) {
+      if (!entries.containsKey(hash)) {
+        throw new EntityNotFoundException();
+      }
+      location = appendBox(hash, box);
+    }
+    logStore.sync(location);
+    LOGGER.debug("Added recipient box to transaction {}", hash);
+  }
+
+  @Override
+  public void addRecipientBoxes(final MessageHash hash, final List<EncryptedTransactionBox> boxes) {
+    long location = -1;
+    synchronized (writeLock) {
+      if (!entries.containsKey(hash)) {
+        throw new EntityNotFoundException();
+      }
+      for (final EncryptedTransactionBox box : boxes) {
+        location = appendBox(hash, box);
+      }
+    }
+    // the boxes are synced together, by syncing the last of them
+    if (location >= 0) {
+      logStore.sync(location);
+    }
+    LOGGER.debug("Added {} recipient boxes to transaction {}", boxes.size(), hash);
+  }
+
+  @Override
+  public void delete(final MessageHash hash) {
+    LOGGER.info("Deleting transaction with hash {}", hash);
+
+    final long location;
+    synchronized (writeLock) {
+      if (!entries.containsKey(hash)) {
+        throw new EntityNotFoundException();
+      }
+      location = appendDeleted(hash);
+    }
+    logStore.sync(location);
+  }
+
+  @Override
+  public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+    LOGGER.debug("Retrieving payload with hash {}", hash);
+    return Optional.ofNullable(entries.get(hash)).map(this::read);
+  }
+
+  @Override
+  public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+    if (Objects.isNull(messageHashes) || messageHashes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return messageHashes.stream()
+        .map(this::retrieveByHash)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+    return timestampIndex.values().stream()
+        .skip(offset)
+        .limit(maxResult)
+        .map(this::retrieveByHash)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  /** Streams the transactions from the index, so the fetch size does not apply */
+  @Override
+  public Stream<EncryptedTransaction> streamAll(
+      final long afterTimestamp, final MessageHash afterHash, final int fetchSize) {
+    final NavigableMap<TimestampHashKey, MessageHash> remaining =
+        Objects.isNull(afterHash)
+            ? timestampIndex.tailMap(TimestampHashKey.first(afterTimestamp), true)
+            : timestampIndex.tailMap(TimestampHashKey.of(afterTimestamp, afterHash), false);
+    return remaining.values().stream().map(this::retrieveByHash).flatMap(Optional::stream);
+  }
+
+  @Override
+  public Stream<EncryptedTransaction> streamAll(final PublicKey publicKey, final int fetchSize) {
+    return streamAll(fetchSize).filter(transaction -> isFor(transaction, publicKey));
+  }
+
+  private static boolean isFor(final EncryptedTransaction transaction, final PublicKey publicKey) {
+    final EncodedPayloadHeader header = transaction.getHeader();
+    return publicKey.equals(header.getSenderKey())
+        || header.getRecipientKeys().contains(publicKey);
+  }
+
+  @Override
+  public long transactionCount() {
+    return entries.size();
+  }
+
+  @Override
+  public long transactionCount(final PublicKey publicKey) {
+    return streamAll(publicKey, 0).count();
+  }
+
+  /** Transactions for a key are found by reading every payload, so none can be missed */
+  @Override
+  public boolean isRecipientIndexComplete() {
+    return true;
+  }
+
+  @Override
+  public boolean upcheck() {
+    return logStore.isOpen();
+  }
+
+  private void encode(final EncryptedTransaction transaction) {
+    listener.onSave(transaction);
+    transaction.onPersist();
+  }
+
+  private long append(final EncryptedTransaction transaction) {
+    final byte[] hash = transaction.getHash().getHashBytes();
+    final byte[] codec =
+        Optional.ofNullable(transaction.getEncodedPayloadCodec())
+            .map(EncodedPayloadCodec::name)
+            .map(name -> name.getBytes(StandardCharsets.UTF_8))
+            .orElse(null);
+    final byte[] encodedPayload = transaction.getEncodedPayload();
+
+    final ByteBuffer body =
+        ByteBuffer.allocate(
+            Records.sizeOf(hash)
+                + Long.BYTES
+                + Records.sizeOf(codec)
+                + Records.sizeOf(encodedPayload));
+    Records.putBytes(body, hash).putLong(transaction.getTimestamp());
+    Records.putBytes(body, codec);
+    Records.putBytes(body, encodedPayload);
+    return logStore.append(RecordType.TRANSACTION.getId(), body.flip());
+  }
+
+  private long appendBox(final MessageHash hash, final EncryptedTransactionBox box) {
+    final byte[] hashBytes = hash.getHashBytes();
+    final ByteBuffer body =
+        ByteBuffer.allocate(
+            Records.sizeOf(hashBytes)
+                + Records.sizeOf(box.getPublicKey())
+                + Records.sizeOf(box.getBox())
+                + Byte.BYTES);
+    Records.putBytes(body, hashBytes);
+    Records.putBytes(body, box.getPublicKey());
+    Records.putBytes(body, box.getBox()).put((byte) (box.isPrepended() ? 1 : 0));
+
+    final long location = logStore.append(RecordType.TRANSACTION_BOX.getId(), body.flip());
+    entries.computeIfPresent(hash, (h, entry) -> entry.withBox(location));
+    return location;
+  }
+
+  private long appendDeleted(final MessageHash hash) {
+    final byte[] hashBytes = hash.getHashBytes();
+    final ByteBuffer body = ByteBuffer.allocate(Records.sizeOf(hashBytes));
+    Records.putBytes(body, hashBytes);
+
+    final long location = logStore.append(RecordType.TRANSACTION_DELETED.getId(), body.flip());
+    unindex(hash);
+    return location;
+  }
+
+  /** Indexes a transaction record, replacing the entry and added boxes of an earlier version */
+  private void index(final long location, final ByteBuffer body) {
+    final MessageHash hash = new MessageHash(Records.getBytes(body));
+    final long timestamp = body.getLong();
+    final byte[] codec = Records.getBytes(body);
+
+    final Entry entry =
+        new Entry(
+            location,
+            timestamp,
+            Objects.isNull(codec)
+                ? EncodedPayloadCodec.LEGACY
+                : EncodedPayloadCodec.valueOf(new String(codec, StandardCharsets.UTF_8)),
+            List.of());
+    Optional.ofNullable(entries.put(hash, entry))
+        .ifPresent(
+            previous -> timestampIndex.remove(TimestampHashKey.of(previous.timestamp, hash)));
+    timestampIndex.put(TimestampHashKey.of(timestamp, hash), hash);
+  }
+
+  private void unindex(final MessageHash hash) {
+    Optional.ofNullable(entries.remove(hash))
+        .ifPresent(entry -> timestampIndex.remove(TimestampHashKey.of(entry.timestamp, hash)));
+  }
+
+  private EncryptedTransaction read(final Entry entry) {
+    return read(entry.location, entry.boxes);
+  }
+
+  private EncryptedTransaction read(final long location, final List<Long> boxLocations) {
+    final ByteBuffer body = logStore.read(location);
+
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(new MessageHash(Records.getBytes(body)));
+    transaction.setTimestamp(body.getLong());
+    final byte[] codec = Records.getBytes(body);
+    if (Objects.nonNull(codec)) {
+      transaction.setEncodedPayloadCodec(
+          EncodedPayloadCodec.valueOf(new String(codec, StandardCharsets.UTF_8)));
+    }
+    transaction.setEncodedPayload(Records.getBytes(body));
+
+    final List<EncryptedTransactionBox> boxes = new ArrayList<>(boxLocations.size());
+    for (final long boxLocation : boxLocations) {
+      final EncryptedTransactionBox box = readBox(boxLocation);
+      box.setSequenceNumber(boxes.size());
+      boxes.add(box);
+    }
+    transaction.setAddedBoxes(boxes);
+
+    listener.onLoad(transaction);
+    return transaction;
+  }
+
+  private EncryptedTransactionBox readBox(final long location) {
+    final ByteBuffer body = logStore.read(location);
+    Records.getBytes(body);
+    final byte[] publicKey = Records.getBytes(body);
+    final byte[] box = Records.getBytes(body);
+    return new EncryptedTransactionBox(publicKey, box, body.get() == 1);
+  }
+
+  /** The location of the current version of a transaction, and of the boxes added to it since */
+  private static final class Entry {
+
+    private final long location;
+
+    private final long timestamp;
+
+    private final EncodedPayloadCodec codec;
+
+    private final List<Long> boxes;
+
+    private Entry(
+        final long location,
+        final long timestamp,
+        final EncodedPayloadCodec codec,
+        final List<Long> boxes) {
+      this.location = location;
+      this.timestamp = timestamp;
+      this.codec = codec;
+      this.boxes = boxes;
+    }
+
+    Entry withBox(final long boxLocation) {
+      final List<Long> withBox = new ArrayList<>(boxes);
+      withBox.add(boxLocation);
+      return new Entry(location, timestamp, codec, List.copyOf(withBox));
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.quorum.tessera.data.logstore;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the open {@link LogStore} of each directory, so that the transaction and raw transaction
+ * stores share the log, as a directory can only be opened once.
+ */
+public enum LogStoreHolder {
+  INSTANCE;
+
+  private final Map<Path, LogStore> logStores = new HashMap<>();
+
+  public synchronized LogStore getLogStore(final Path directory) {
+    return logStores.computeIfAbsent(directory.toAbsolutePath().normalize(), LogStore::new);
+  }
+
+  synchronized void clear() {
+    logStores.values().forEach(LogStore::close);
+    logStores.clear();
+  }
+}
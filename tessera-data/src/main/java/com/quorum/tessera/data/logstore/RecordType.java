@@ -0,0 +1,23 @@
+package com.quorum.tessera.data.logstore;
+
+/**
+ * The types of record written to a {@link LogStore}. The ids are written with each record, so must
+ * never be renumbered.
+ */
+enum RecordType {
+  TRANSACTION(1),
+  TRANSACTION_BOX(2),
+  TRANSACTION_DELETED(3),
+  RAW_TRANSACTION(4),
+  RAW_TRANSACTION_DELETED(5);
+
+  private final byte id;
+
+  RecordType(final int id) {
+    this.id = (byte) id;
+  }
+
+  byte getId() {
+    return id;
+  }
+}
@@ -0,0 +1,32 @@
+package com.quorum.tessera.data.logstore;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/** Reads and writes the length-prefixed fields that record bodies are made of */
+final class Records {
+
+  private Records() {}
+
+  static int sizeOf(final byte[] value) {
+    return Integer.BYTES + (Objects.isNull(value) ? 0 : value.length);
+  }
+
+  /** Writes a byte array prefixed by its length, or a length of -1 for null */
+  static ByteBuffer putBytes(final ByteBuffer buffer, final byte[] value) {
+    if (Objects.isNull(value)) {
+      return buffer.putInt(-1);
+    }
+    return buffer.putInt(value.length).put(value);
+  }
+
+  static byte[] getBytes(final ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] value = new byte[length];
+    buffer.get(value);
+    return value;
+  }
+}
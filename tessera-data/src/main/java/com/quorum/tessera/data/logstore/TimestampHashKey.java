@@ -0,0 +1,47 @@
+package com.quorum.tessera.data.logstore;
+
+import com.quorum.tessera.data.MessageHash;
+import java.util.Arrays;
+
+/**
+ * A key of the time-ordered indexes of a {@link LogStore}, which order transactions by timestamp
+ * then hash as the database queries do
+ */
+final class TimestampHashKey implements Comparable<TimestampHashKey> {
+
+  private static final byte[] FIRST_HASH = new byte[0];
+
+  private final long timestamp;
+
+  private final byte[] hash;
+
+  private TimestampHashKey(final long timestamp, final byte[] hash) {
+    this.timestamp = timestamp;
+    this.hash = hash;
+  }
+
+  static TimestampHashKey of(final long timestamp, final MessageHash hash) {
+    return new TimestampHashKey(timestamp, hash.getHashBytes());
+  }
+
+  /** A key that sorts before every transaction with the given timestamp */
+  static TimestampHashKey first(final long timestamp) {
+    return new TimestampHashKey(timestamp, FIRST_HASH);
+  }
+
+  @Override
+  public int compareTo(final TimestampHashKey other) {
+    final int byTimestamp = Long.compare(timestamp, other.timestamp);
+    return byTimestamp != 0 ? byTimestamp : Arrays.compareUnsigned(hash, other.hash);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    return (o instanceof TimestampHashKey) && compareTo((TimestampHashKey) o) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(timestamp) + Arrays.hashCode(hash);
+  }
+}
@@ -1,5 +1,6 @@
 package com.quorum.tessera.data.staging;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
@@ -15,6 +16,18 @@ public interface StagingEntityDAO {
    */
   StagingTransaction save(StagingTransaction entity);
 
+  /**
+   * Save a number of new Staging Transactions in a single database transaction, sending the rows
+   * to the database in batches
+   *
+   * <p>If the batch cannot be written as a whole, each transaction is retried on its own and the
+   * ones that still fail are returned.
+   *
+   * @param entities The entities to be persisted
+   * @return The entities that could not be persisted
+   */
+  List<StagingTransaction> saveAll(Collection<StagingTransaction> entities);
+
   /**
    * Update an Encrypted Transaction All fields are required to be non-null on the entity
    *
@@ -3,11 +3,17 @@ package com.quorum.tessera.data.staging.internal;
 import com.quorum.tessera.data.EntityManagerTemplate;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
 import com.quorum.tessera.data.staging.StagingTransaction;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,10 +23,19 @@ public class StagingEntityDAOImpl implements StagingEntityDAO {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StagingEntityDAOImpl.class);
 
+  static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+
   private EntityManagerTemplate entityManagerTemplate;
 
+  private final int writeBatchSize;
+
   public StagingEntityDAOImpl(EntityManagerFactory entityManagerFactory) {
+    this(entityManagerFactory, 0);
+  }
+
+  public StagingEntityDAOImpl(EntityManagerFactory entityManagerFactory, int writeBatchSize) {
     this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+    this.writeBatchSize = writeBatchSize > 0 ? writeBatchSize : DEFAULT_WRITE_BATCH_SIZE;
   }
 
   @Override
@@ -35,6 +50,48 @@ public class StagingEntityDAOImpl implements StagingEntityDAO {
         });
   }
 
+  @Override
+  public List<StagingTransaction> saveAll(final Collection<StagingTransaction> entities) {
+    if (Objects.isNull(entities) || entities.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    try {
+      entityManagerTemplate.execute(entityManager -> persistAll(entityManager, entities));
+      return Collections.emptyList();
+    } catch (PersistenceException ex) {
+      LOGGER.debug(
+          "Unable to store batch of {} staging transactions, retrying individually",
+          entities.size());
+    }
+
+    final List<StagingTransaction> failed = new ArrayList<>();
+    for (final StagingTransaction entity : entities) {
+      try {
+        save(entity);
+      } catch (PersistenceException ex) {
+        LOGGER.warn("Unable to store StagingTransaction with hash {}", entity.getHash());
+        LOGGER.debug("", ex);
+        failed.add(entity);
+      }
+    }
+    return failed;
+  }
+
+  private int persistAll(
+      final EntityManager entityManager, final Collection<StagingTransaction> entities) {
+    int stored = 0;
+    for (final StagingTransaction entity : entities) {
+      entityManager.persist(entity);
+      if (++stored % writeBatchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    LOGGER.debug("Persisting {} StagingTransaction entities", stored);
+    return stored;
+  }
+
   @Override
   public StagingTransaction update(StagingTransaction entity) {
 
@@ -32,6 +32,13 @@ public class StagingEntityDAOProvider {
     properties.put("eclipselink.logging.parameters", "true");
     properties.put("eclipselink.logging.level.sql", "FINE");
 
+    properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+    if (config.getJdbcConfig().getWriteBatchSize() > 0) {
+      properties.put(
+          "eclipselink.jdbc.batch-writing.size",
+          String.valueOf(config.getJdbcConfig().getWriteBatchSize()));
+    }
+
     properties.put(
         "jakarta.persistence.schema-generation.database.action",
         config.getJdbcConfig().isAutoCreateTables() ? "drop-and-create" : "none");
@@ -44,7 +51,9 @@ public class StagingEntityDAOProvider {
         Persistence.createEntityManagerFactory("tessera-recover", properties);
     LOGGER.debug("Created EntityManagerFactory from {}", properties);
 
-    StagingEntityDAO stagingEntityDAO = new StagingEntityDAOImpl(entityManagerFactory);
+    StagingEntityDAO stagingEntityDAO =
+        new StagingEntityDAOImpl(
+            entityManagerFactory, config.getJdbcConfig().getWriteBatchSize());
     LOGGER.debug("Created StagingEntityDAO {}", stagingEntityDAO);
 
     return stagingEntityDAO;
@@ -1,5 +1,6 @@
 open module tessera.data {
   requires java.instrument;
+  requires java.management;
   requires jakarta.persistence;
   requires org.bouncycastle.provider;
   requires org.slf4j;
@@ -18,6 +19,9 @@ open module tessera.data {
 
   exports com.quorum.tessera.data;
   exports com.quorum.tessera.data.staging;
+  exports com.quorum.tessera.data.logstore to
+      tessera.migration.logstore,
+      tessera.transaction;
 
   uses com.quorum.tessera.enclave.PayloadDigest;
   uses com.quorum.tessera.data.EncryptedTransactionDAO;
@@ -25,6 +29,7 @@ open module tessera.data {
   uses com.quorum.tessera.data.staging.StagingEntityDAO;
   uses com.quorum.tessera.data.DataSourceFactory;
   uses com.quorum.tessera.data.PrivacyGroupDAO;
+  uses com.quorum.tessera.data.PendingDeliveryDAO;
 
   provides com.quorum.tessera.data.EncryptedTransactionDAO with
       com.quorum.tessera.data.internal.EncryptedTransactionDAOProvider;
@@ -34,6 +39,8 @@ open module tessera.data {
       com.quorum.tessera.data.staging.internal.StagingEntityDAOProvider;
   provides com.quorum.tessera.data.PrivacyGroupDAO with
       com.quorum.tessera.data.internal.PrivacyGroupDAOProvider;
+  provides com.quorum.tessera.data.PendingDeliveryDAO with
+      com.quorum.tessera.data.internal.PendingDeliveryDAOProvider;
   provides com.quorum.tessera.data.DataSourceFactory with
       com.quorum.tessera.data.internal.DataSourceFactoryProvider;
 }
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import org.junit.After;
 import org.junit.Before;
@@ -52,12 +53,48 @@ public class EncryptedTransactionListenerTest {
 
     encryptedTransactionListener.onLoad(encryptedTransaction);
 
+    assertThat(encryptedTransaction.getPayload()).isEqualTo(payload);
+    assertThat(encryptedTransaction.getPayload()).isSameAs(payload);
+
     verify(payloadEncoder).decode(payloadData);
 
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
+  }
 
-    assertThat(encryptedTransaction.getPayload()).isEqualTo(payload);
+  @Test
+  public void onLoadDoesNotDecodePayload() {
+
+    byte[] payloadData = "PayloadData".getBytes();
+
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setEncodedPayload(payloadData);
+
+    encryptedTransactionListener.onLoad(encryptedTransaction);
+
+    assertThat(encryptedTransaction.getEncodedPayload()).isSameAs(payloadData);
+    assertThat(encryptedTransaction.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR);
+  }
+
+  @Test
+  public void headerIsDecodedWithoutPayload() {
+
+    byte[] payloadData = "PayloadData".getBytes();
+    EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
+    when(payloadEncoder.decodeHeader(payloadData)).thenReturn(header);
+
+    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setEncodedPayload(payloadData);
+
+    encryptedTransactionListener.onLoad(encryptedTransaction);
+
+    assertThat(encryptedTransaction.getHeader()).isSameAs(header);
+    assertThat(encryptedTransaction.getHeader()).isSameAs(header);
+
+    verify(payloadEncoder).decodeHeader(payloadData);
+
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
   }
 
   @Test
@@ -72,12 +109,13 @@ public class EncryptedTransactionListenerTest {
 
     encryptedTransactionListener.onLoad(encryptedTransaction);
 
+    assertThat(encryptedTransaction.getPayload()).isEqualTo(payload);
+
     verify(payloadEncoder).decode(payloadData);
 
     payloadEncoderFactoryFunction.verify(
         () -> PayloadEncoder.create(eq(EncodedPayloadCodec.LEGACY)));
 
-    assertThat(encryptedTransaction.getPayload()).isEqualTo(payload);
     assertThat(encryptedTransaction.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.LEGACY);
   }
 
@@ -2,8 +2,15 @@ package com.quorum.tessera.data;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
 import java.util.Objects;
 import org.junit.Test;
 
@@ -65,4 +72,140 @@ public class EncryptedTransactionTest {
 
     assertThat(et.hashCode()).isEqualTo(et.hashCode());
   }
+
+  @Test
+  public void settingPayloadIndexesSenderAndRecipients() {
+
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(sender);
+    when(payload.getRecipientKeys()).thenReturn(List.of(recipient, sender, recipient));
+
+    final EncryptedTransaction encryptedTransaction =
+        new EncryptedTransaction(mock(MessageHash.class), payload);
+
+    assertThat(encryptedTransaction.getRecipients())
+        .containsExactlyInAnyOrder(
+            new EncryptedTransactionRecipient(recipient.getKeyBytes()),
+            new EncryptedTransactionRecipient(sender.getKeyBytes()));
+  }
+
+  @Test
+  public void senderIsIndexedWithoutRecipients() {
+
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(sender);
+    when(payload.getRecipientKeys()).thenReturn(List.of());
+
+    final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setPayload(payload);
+
+    assertThat(encryptedTransaction.getRecipients())
+        .containsExactly(new EncryptedTransactionRecipient(sender.getKeyBytes()));
+  }
+
+  @Test
+  public void addedBoxesAreMergedIntoStoredPayload() {
+
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+    final PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+    final PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+    final EncryptedTransaction encryptedTransaction =
+        stored(payload(PrivacyMode.STANDARD_PRIVATE, List.of(recipient1), "box1"));
+    encryptedTransaction.setAddedBoxes(
+        List.of(
+            EncryptedTransactionBox.prepended(recipient2, RecipientBox.from("box2".getBytes())),
+            EncryptedTransactionBox.appended(recipient3, RecipientBox.from("box3".getBytes()))));
+
+    final EncodedPayload result = encryptedTransaction.getPayload();
+
+    assertThat(result.getSenderKey()).isEqualTo(sender);
+    assertThat(result.getRecipientKeys()).containsExactly(recipient2, recipient1, recipient3);
+    assertThat(result.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("box2".getBytes()),
+            RecipientBox.from("box1".getBytes()),
+            RecipientBox.from("box3".getBytes()));
+    assertThat(encryptedTransaction.getHeader().getRecipientKeys())
+        .containsExactly(recipient2, recipient1, recipient3);
+  }
+
+  @Test
+  public void addedBoxForPsvMovesItsRecipientToTheFront() {
+
+    final PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+    final PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+
+    final EncryptedTransaction encryptedTransaction =
+        stored(
+            payload(PrivacyMode.PRIVATE_STATE_VALIDATION, List.of(recipient1, recipient2), "box1"));
+    encryptedTransaction.setAddedBoxes(
+        List.of(
+            EncryptedTransactionBox.prepended(recipient2, RecipientBox.from("box2".getBytes()))));
+
+    final EncodedPayload result = encryptedTransaction.getPayload();
+
+    assertThat(result.getRecipientKeys()).containsExactly(recipient2, recipient1);
+    assertThat(result.getRecipientBoxes())
+        .containsExactly(RecipientBox.from("box2".getBytes()), RecipientBox.from("box1".getBytes()));
+  }
+
+  @Test
+  public void addedBoxWithoutRecipient() {
+
+    final EncryptedTransaction encryptedTransaction =
+        stored(payload(PrivacyMode.STANDARD_PRIVATE, List.of(), "box1"));
+    encryptedTransaction.setAddedBoxes(
+        List.of(EncryptedTransactionBox.prepended(null, RecipientBox.from("box2".getBytes()))));
+
+    final EncodedPayload result = encryptedTransaction.getPayload();
+
+    assertThat(result.getRecipientKeys()).isEmpty();
+    assertThat(result.getRecipientBoxes())
+        .containsExactly(RecipientBox.from("box2".getBytes()), RecipientBox.from("box1".getBytes()));
+  }
+
+  @Test
+  public void settingPayloadRemovesAddedBoxes() {
+
+    final EncodedPayload payload =
+        payload(PrivacyMode.STANDARD_PRIVATE, List.of(PublicKey.from("key".getBytes())), "box");
+    final EncryptedTransaction encryptedTransaction = stored(payload);
+    encryptedTransaction.setAddedBoxes(
+        List.of(EncryptedTransactionBox.appended(null, RecipientBox.from("box2".getBytes()))));
+
+    encryptedTransaction.setPayload(payload);
+
+    assertThat(encryptedTransaction.getAddedBoxes()).isEmpty();
+    assertThat(encryptedTransaction.getPayload()).isSameAs(payload);
+  }
+
+  private static EncodedPayload payload(
+      final PrivacyMode privacyMode, final List<PublicKey> recipients, final String box) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("sender".getBytes()))
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withPrivacyMode(privacyMode)
+        .withExecHash(
+            privacyMode == PrivacyMode.PRIVATE_STATE_VALIDATION ? "execHash".getBytes() : null)
+        .withRecipientKeys(recipients)
+        .withRecipientBoxes(List.of(box.getBytes()))
+        .build();
+  }
+
+  private static EncryptedTransaction stored(final EncodedPayload payload) {
+    final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+    encryptedTransaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    encryptedTransaction.setEncodedPayload(
+        PayloadEncoder.create(EncodedPayloadCodec.CBOR).encode(payload));
+    return encryptedTransaction;
+  }
 }
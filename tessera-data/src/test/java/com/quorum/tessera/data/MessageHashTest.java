@@ -3,6 +3,7 @@ package com.quorum.tessera.data;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Arrays;
+import java.util.Random;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
@@ -63,4 +64,31 @@ public class MessageHashTest {
     hash.setHashBytes("I LOVE SPARROWS".getBytes());
     assertThat(hash).isEqualTo(hash).hasSameHashCodeAs(hash);
   }
+
+  @Test
+  public void shardIsTakenFromLeadingBytes() {
+    assertThat(new MessageHash(new byte[] {0x00, 0x00, 0x00, 0x00, 0x7f}).shard(4)).isZero();
+    assertThat(new MessageHash(new byte[] {0x3f, -1, -1, -1}).shard(4)).isZero();
+    assertThat(new MessageHash(new byte[] {0x40}).shard(4)).isEqualTo(1);
+    assertThat(new MessageHash(new byte[] {-1, -1, -1, -1}).shard(4)).isEqualTo(3);
+    assertThat(new MessageHash(new byte[] {-1}).shard(1)).isZero();
+  }
+
+  @Test
+  public void doublingShardsSplitsEachShardInTwo() {
+    final Random random = new Random(1);
+    for (int i = 0; i < 1000; i++) {
+      final byte[] bytes = new byte[64];
+      random.nextBytes(bytes);
+      final MessageHash hash = new MessageHash(bytes);
+
+      assertThat(hash.shard(6) / 2).isEqualTo(hash.shard(3));
+    }
+  }
+
+  @Test
+  public void shardCountMustBePositive() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    Assertions.assertThatIllegalArgumentException().isThrownBy(() -> hash.shard(0));
+  }
 }
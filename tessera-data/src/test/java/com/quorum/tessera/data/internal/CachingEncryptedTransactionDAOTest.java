@@ -0,0 +1,247 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.Utils;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingEncryptedTransactionDAOTest {
+
+  private EncryptedTransactionDAO delegate;
+
+  private PayloadCache payloadCache;
+
+  private CachingEncryptedTransactionDAO cachingEncryptedTransactionDAO;
+
+  @Before
+  public void beforeTest() {
+    delegate = mock(EncryptedTransactionDAO.class);
+    payloadCache = new PayloadCache(10, 0);
+    cachingEncryptedTransactionDAO = new CachingEncryptedTransactionDAO(delegate, payloadCache);
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(delegate);
+  }
+
+  private static EncryptedTransaction transaction() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from(new byte[32]))
+            .withCipherText(Utils.cipherText())
+            .withCipherTextNonce(new byte[24])
+            .withRecipientNonce(new byte[24])
+            .build();
+    return new EncryptedTransaction(Utils.createHash(), payload);
+  }
+
+  @Test
+  public void retrieveByHashReadsThrough() {
+    final EncryptedTransaction transaction = transaction();
+    final MessageHash hash = transaction.getHash();
+    when(delegate.retrieveByHash(hash)).thenReturn(Optional.of(transaction));
+
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(hash)).contains(transaction);
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(hash)).contains(transaction);
+
+    verify(delegate).retrieveByHash(hash);
+    assertThat(payloadCache.getHitCount()).isEqualTo(1);
+    assertThat(payloadCache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retrieveByHashNotFoundIsNotCached() {
+    final MessageHash hash = Utils.createHash();
+    when(delegate.retrieveByHash(hash)).thenReturn(Optional.empty());
+
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+
+    verify(delegate, times(2)).retrieveByHash(hash);
+  }
+
+  @Test
+  public void saveWarmsCache() {
+    final EncryptedTransaction transaction = transaction();
+    when(delegate.save(transaction)).thenReturn(transaction);
+
+    assertThat(cachingEncryptedTransactionDAO.save(transaction)).isSameAs(transaction);
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(transaction.getHash()))
+        .contains(transaction);
+
+    verify(delegate).save(transaction);
+  }
+
+  @Test
+  public void saveAllWarmsCacheForStoredTransactionsOnly() {
+    final EncryptedTransaction stored = transaction();
+    final EncryptedTransaction conflict = transaction();
+    final List<EncryptedTransaction> transactions = List.of(stored, conflict);
+    when(delegate.saveAll(transactions)).thenReturn(List.of(conflict));
+
+    assertThat(cachingEncryptedTransactionDAO.saveAll(transactions)).containsExactly(conflict);
+
+    assertThat(payloadCache.get(stored.getHash())).contains(stored);
+    assertThat(payloadCache.get(conflict.getHash())).isEmpty();
+
+    verify(delegate).saveAll(transactions);
+  }
+
+  @Test
+  public void saveWithCallbackWarmsCache() throws Exception {
+    final EncryptedTransaction transaction = transaction();
+    final Callable<Object> callback = mock(Callable.class);
+    when(delegate.save(transaction, callback)).thenReturn(transaction);
+
+    cachingEncryptedTransactionDAO.save(transaction, callback);
+
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(transaction.getHash()))
+        .contains(transaction);
+    verify(delegate).save(transaction, callback);
+  }
+
+  @Test
+  public void transactionStoredElsewhereWarmsCache() {
+    final EncryptedTransaction transaction = transaction();
+
+    cachingEncryptedTransactionDAO.stored(transaction);
+
+    assertThat(cachingEncryptedTransactionDAO.retrieveByHash(transaction.getHash()))
+        .contains(transaction);
+    verify(delegate).stored(transaction);
+  }
+
+  @Test
+  public void failedSaveWithCallbackIsNotCached() {
+    final EncryptedTransaction transaction = transaction();
+    final Callable<Object> callback = mock(Callable.class);
+    when(delegate.save(transaction, callback)).thenThrow(new RuntimeException("publish failed"));
+
+    final Throwable throwable =
+        catchThrowable(() -> cachingEncryptedTransactionDAO.save(transaction, callback));
+
+    assertThat(throwable).hasMessage("publish failed");
+    assertThat(payloadCache.getSize()).isZero();
+    verify(delegate).save(transaction, callback);
+  }
+
+  @Test
+  public void updateInvalidates() {
+    final EncryptedTransaction transaction = transaction();
+    payloadCache.put(transaction);
+    when(delegate.update(transaction)).thenReturn(transaction);
+
+    cachingEncryptedTransactionDAO.update(transaction);
+
+    assertThat(payloadCache.getSize()).isZero();
+    verify(delegate).update(transaction);
+  }
+
+  @Test
+  public void addRecipientBoxInvalidates() {
+    final EncryptedTransaction transaction = transaction();
+    payloadCache.put(transaction);
+    final EncryptedTransactionBox box = mock(EncryptedTransactionBox.class);
+
+    cachingEncryptedTransactionDAO.addRecipientBox(transaction.getHash(), box);
+
+    assertThat(payloadCache.getSize()).isZero();
+    verify(delegate).addRecipientBox(transaction.getHash(), box);
+  }
+
+  @Test
+  public void addRecipientBoxesInvalidates() {
+    final EncryptedTransaction transaction = transaction();
+    payloadCache.put(transaction);
+    final List<EncryptedTransactionBox> boxes = List.of(mock(EncryptedTransactionBox.class));
+
+    cachingEncryptedTransactionDAO.addRecipientBoxes(transaction.getHash(), boxes);
+
+    assertThat(payloadCache.getSize()).isZero();
+    verify(delegate).addRecipientBoxes(transaction.getHash(), boxes);
+  }
+
+  @Test
+  public void deleteInvalidates() {
+    final EncryptedTransaction transaction = transaction();
+    payloadCache.put(transaction);
+
+    cachingEncryptedTransactionDAO.delete(transaction.getHash());
+
+    assertThat(payloadCache.getSize()).isZero();
+    verify(delegate).delete(transaction.getHash());
+  }
+
+  @Test
+  public void findByHashesOnlyLoadsMisses() {
+    final EncryptedTransaction cached = transaction();
+    final EncryptedTransaction uncached = transaction();
+    payloadCache.put(cached);
+    when(delegate.findByHashes(List.of(uncached.getHash()))).thenReturn(List.of(uncached));
+
+    final List<EncryptedTransaction> results =
+        cachingEncryptedTransactionDAO.findByHashes(List.of(cached.getHash(), uncached.getHash()));
+
+    assertThat(results).containsExactlyInAnyOrder(cached, uncached);
+    assertThat(payloadCache.getSize()).isEqualTo(2);
+    verify(delegate).findByHashes(List.of(uncached.getHash()));
+  }
+
+  @Test
+  public void findByHashesAllCached() {
+    final EncryptedTransaction cached = transaction();
+    payloadCache.put(cached);
+
+    assertThat(cachingEncryptedTransactionDAO.findByHashes(List.of(cached.getHash())))
+        .containsExactly(cached);
+  }
+
+  @Test
+  public void findByHashesEmpty() {
+    assertThat(cachingEncryptedTransactionDAO.findByHashes(List.of())).isEmpty();
+    assertThat(cachingEncryptedTransactionDAO.findByHashes(null)).isEmpty();
+  }
+
+  @Test
+  public void passThroughOperations() {
+    when(delegate.retrieveTransactions(0, 10)).thenReturn(List.of());
+    when(delegate.transactionCount()).thenReturn(5L);
+    when(delegate.upcheck()).thenReturn(true);
+    when(delegate.streamAll(1L, null, 10)).thenReturn(Stream.empty());
+    final PublicKey publicKey = PublicKey.from("key".getBytes());
+    when(delegate.streamAll(publicKey, 10)).thenReturn(Stream.empty());
+    when(delegate.transactionCount(publicKey)).thenReturn(2L);
+    when(delegate.isRecipientIndexComplete()).thenReturn(true);
+
+    assertThat(cachingEncryptedTransactionDAO.retrieveTransactions(0, 10)).isEmpty();
+    assertThat(cachingEncryptedTransactionDAO.transactionCount()).isEqualTo(5L);
+    assertThat(cachingEncryptedTransactionDAO.upcheck()).isTrue();
+    assertThat(cachingEncryptedTransactionDAO.streamAll(1L, null, 10)).isEmpty();
+    assertThat(cachingEncryptedTransactionDAO.streamAll(publicKey, 10)).isEmpty();
+    assertThat(cachingEncryptedTransactionDAO.transactionCount(publicKey)).isEqualTo(2L);
+    assertThat(cachingEncryptedTransactionDAO.isRecipientIndexComplete()).isTrue();
+
+    verify(delegate).retrieveTransactions(0, 10);
+    verify(delegate).transactionCount();
+    verify(delegate).upcheck();
+    verify(delegate).streamAll(1L, null, 10);
+    verify(delegate).streamAll(publicKey, 10);
+    verify(delegate).transactionCount(publicKey);
+    verify(delegate).isRecipientIndexComplete();
+  }
+}
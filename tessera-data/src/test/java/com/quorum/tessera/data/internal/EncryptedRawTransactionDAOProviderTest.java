@@ -10,17 +10,22 @@ import com.quorum.tessera.config.ConfigFactory;
 import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.data.DataSourceFactory;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedRawTransactionDAO;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import java.util.Collection;
 import java.util.List;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 @RunWith(Parameterized.class)
 public class EncryptedRawTransactionDAOProviderTest {
 
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
   private boolean autocreateTables;
 
   public EncryptedRawTransactionDAOProviderTest(boolean autocreateTables) {
@@ -65,6 +70,28 @@ public class EncryptedRawTransactionDAOProviderTest {
     }
   }
 
+  @Test
+  public void providesLogStoreDaoWhenDirectoryConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.getLogStoreDirectory()).thenReturn(workDir.getRoot().toString());
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      EncryptedRawTransactionDAO result = EncryptedRawTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(LogStoreEncryptedRawTransactionDAO.class);
+
+      mockedPersistence.verifyNoInteractions();
+    }
+  }
+
   @Parameterized.Parameters
   public static Collection<Boolean> autoCreateTables() {
     return List.of(true, false);
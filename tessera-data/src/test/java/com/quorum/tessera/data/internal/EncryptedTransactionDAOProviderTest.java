@@ -10,17 +10,23 @@ import com.quorum.tessera.config.ConfigFactory;
 import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.data.DataSourceFactory;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.logstore.LogStoreEncryptedTransactionDAO;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import java.util.Collection;
 import java.util.List;
+import javax.sql.DataSource;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 @RunWith(Parameterized.class)
 public class EncryptedTransactionDAOProviderTest {
 
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
   private boolean autocreateTables;
 
   public EncryptedTransactionDAOProviderTest(boolean autocreateTables) {
@@ -65,6 +71,155 @@ public class EncryptedTransactionDAOProviderTest {
     }
   }
 
+  @Test
+  public void providesCachingDaoWhenPayloadCacheConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(jdbcConfig.getPayloadCacheSize()).thenReturn(100);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      mockedDataSourceFactory
+          .when(DataSourceFactory::create)
+          .thenReturn(mock(DataSourceFactory.class));
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isNotNull().isExactlyInstanceOf(CachingEncryptedTransactionDAO.class);
+      assertThat(PayloadCacheHolder.INSTANCE.getPayloadCache(jdbcConfig)).isPresent();
+    } finally {
+      PayloadCacheHolder.INSTANCE.clear();
+    }
+  }
+
+  @Test
+  public void providesJdbcDaoWhenDirectJdbcConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(jdbcConfig.isDirectJdbc()).thenReturn(true);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      DataSourceFactory dataSourceFactory = mock(DataSourceFactory.class);
+      when(dataSourceFactory.create(jdbcConfig)).thenReturn(mock(DataSource.class));
+      mockedDataSourceFactory.when(DataSourceFactory::create).thenReturn(dataSourceFactory);
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(JdbcEncryptedTransactionDAO.class);
+    }
+  }
+
+  @Test
+  public void providesReplicaRoutingDaoWhenReadReplicasConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      DataSourceFactory dataSourceFactory = mock(DataSourceFactory.class);
+      when(dataSourceFactory.create(jdbcConfig)).thenReturn(mock(ReplicaRoutingDataSource.class));
+      mockedDataSourceFactory.when(DataSourceFactory::create).thenReturn(dataSourceFactory);
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(ReplicaRoutingEncryptedTransactionDAO.class);
+    }
+  }
+
+  @Test
+  public void providesShardedDaoWhenShardsConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.isAutoCreateTables()).thenReturn(autocreateTables);
+      when(jdbcConfig.getShardUrls()).thenReturn(List.of("jdbc:h2:mem:one", "jdbc:h2:mem:two"));
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      DataSourceFactory dataSourceFactory = mock(DataSourceFactory.class);
+      when(dataSourceFactory.createShards(jdbcConfig))
+          .thenReturn(List.of(mock(DataSource.class), mock(DataSource.class)));
+      mockedDataSourceFactory.when(DataSourceFactory::create).thenReturn(dataSourceFactory);
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(ShardedEncryptedTransactionDAO.class);
+
+      mockedPersistence.verify(
+          () -> Persistence.createEntityManagerFactory(anyString(), anyMap()), times(2));
+      verify(dataSourceFactory, never()).create(jdbcConfig);
+    }
+  }
+
+  @Test
+  public void providesLogStoreDaoWhenDirectoryConfigured() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      Config config = mock(Config.class);
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.getLogStoreDirectory()).thenReturn(workDir.getRoot().toString());
+      when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+      ConfigFactory configFactory = mock(ConfigFactory.class);
+      when(configFactory.getConfig()).thenReturn(config);
+
+      mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+
+      EncryptedTransactionDAO result = EncryptedTransactionDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(LogStoreEncryptedTransactionDAO.class);
+
+      mockedPersistence.verifyNoInteractions();
+    }
+  }
+
   @Parameterized.Parameters
   public static Collection<Boolean> autoCreateTables() {
     return List.of(true, false);
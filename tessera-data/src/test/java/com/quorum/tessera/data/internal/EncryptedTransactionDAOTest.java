@@ -8,7 +8,11 @@ import static org.mockito.Mockito.when;
 import com.quorum.tessera.data.*;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
 import jakarta.persistence.*;
 import java.util.*;
 import java.util.concurrent.Callable;
@@ -57,6 +61,8 @@ public class EncryptedTransactionDAOTest {
 
     EntityManager entityManager = entityManagerFactory.createEntityManager();
     entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("delete from ENCRYPTED_TRANSACTION_RECIPIENT").executeUpdate();
+    entityManager.createNativeQuery("delete from ENCRYPTED_TRANSACTION_BOX").executeUpdate();
     entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
     entityManager.getTransaction().commit();
   }
@@ -170,7 +176,7 @@ public class EncryptedTransactionDAOTest {
       entityManager.getTransaction().rollback();
     }
     verify(payloadEncoder, times(2)).encode(any());
-    verify(payloadEncoder, times(3)).decode(any());
+    verify(payloadEncoder, times(2)).decode(any());
     verifyNoMoreInteractions(payloadEncoder);
   }
 
@@ -249,7 +255,6 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "I Love Sparrows".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
 
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
@@ -282,11 +287,430 @@ public class EncryptedTransactionDAOTest {
       assertThat(retrievedList).hasSameSizeAs(payloads);
       assertThat(retrievedList).hasSameElementsAs(payloads);
     }
-    verify(payloadEncoder, times(50)).decode(payloadData);
+    // payloads are only decoded when they are read
+    verify(payloadEncoder, never()).decode(payloadData);
     verify(payloadEncoder, times(50)).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
 
+  @Test
+  public void streamAllReturnsAllInTimestampAndHashOrder() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    final byte[] payloadData = "I Love Sparrows".getBytes();
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+      entityManager.getTransaction().begin();
+      final List<EncryptedTransaction> payloads =
+          IntStream.range(0, 50)
+              .mapToObj(i -> UUID.randomUUID().toString().getBytes())
+              .map(MessageHash::new)
+              .map(
+                  hash -> {
+                    EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+                    encryptedTransaction.setHash(hash);
+                    encryptedTransaction.setPayload(encodedPayload);
+                    return encryptedTransaction;
+                  })
+              .peek(entityManager::persist)
+              .collect(Collectors.toList());
+
+      entityManager.getTransaction().commit();
+
+      final List<EncryptedTransaction> streamed =
+          encryptedTransactionDAO.streamAll(7).collect(Collectors.toList());
+
+      assertThat(streamed).hasSameSizeAs(payloads).hasSameElementsAs(payloads);
+      assertThat(streamed)
+          .isSortedAccordingTo(
+              Comparator.comparingLong(EncryptedTransaction::getTimestamp)
+                  .thenComparing(tx -> tx.getHash().getHashBytes(), Arrays::compare));
+
+      final EncryptedTransaction cursor = streamed.get(19);
+      final List<EncryptedTransaction> resumed =
+          encryptedTransactionDAO
+              .streamAll(cursor.getTimestamp(), cursor.getHash(), 7)
+              .collect(Collectors.toList());
+
+      assertThat(resumed).containsExactlyElementsOf(streamed.subList(20, 50));
+    }
+  }
+
+  @Test
+  public void streamAllOnEmptyTableReturnsEmptyStream() {
+    assertThat(encryptedTransactionDAO.streamAll(10)).isEmpty();
+  }
+
+  @Test
+  public void saveAllStoresEveryTransaction() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    final byte[] payloadData = "PAYLOADATA".getBytes();
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransactionDAO dao = new EncryptedTransactionDAOImpl(entityManagerFactory, 10, 3);
+
+      final List<EncryptedTransaction> transactions =
+          IntStream.range(0, 10)
+              .mapToObj(i -> new MessageHash(new byte[] {(byte) i}))
+              .map(hash -> new EncryptedTransaction(hash, encodedPayload))
+              .collect(Collectors.toList());
+
+      final List<EncryptedTransaction> conflicts = dao.saveAll(transactions);
+
+      assertThat(conflicts).isEmpty();
+      assertThat(transactions).allMatch(tx -> tx.getTimestamp() != 0);
+      assertThat(dao.transactionCount()).isEqualTo(10);
+    }
+  }
+
+  @Test
+  public void saveAllReturnsTransactionsWhoseHashIsAlreadyStored() {
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    final byte[] payloadData = "PAYLOADATA".getBytes();
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransaction existing =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload);
+      encryptedTransactionDAO.save(existing);
+
+      final EncryptedTransaction alreadyStored =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), encodedPayload);
+      final EncryptedTransaction first =
+          new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload);
+      final EncryptedTransaction repeated =
+          new EncryptedTransaction(new MessageHash(new byte[] {2}), encodedPayload);
+      final EncryptedTransaction other =
+          new EncryptedTransaction(new MessageHash(new byte[] {3}), encodedPayload);
+
+      final List<EncryptedTransaction> conflicts =
+          encryptedTransactionDAO.saveAll(List.of(alreadyStored, first, repeated, other));
+
+      assertThat(conflicts).containsExactly(alreadyStored, repeated);
+      assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  public void saveAllWithNoTransactionsDoesNothing() {
+    assertThat(encryptedTransactionDAO.saveAll(List.of())).isEmpty();
+    assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+  }
+
+  @Test
+  public void streamAllForKeyReturnsTransactionsSentToOrFromKey() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+
+    final EncodedPayload fromAlice = mockPayload(alice, bob, carol);
+    final EncodedPayload fromBob = mockPayload(bob, alice);
+    final EncodedPayload fromCarol = mockPayload(carol, carol);
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    when(payloadEncoder.encode(any())).thenReturn("PAYLOADATA".getBytes());
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransaction first =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), fromAlice);
+      final EncryptedTransaction second =
+          new EncryptedTransaction(new MessageHash(new byte[] {2}), fromBob);
+      final EncryptedTransaction third =
+          new EncryptedTransaction(new MessageHash(new byte[] {3}), fromCarol);
+      encryptedTransactionDAO.saveAll(List.of(first, second, third));
+
+      assertThat(encryptedTransactionDAO.isRecipientIndexComplete()).isTrue();
+
+      assertThat(encryptedTransactionDAO.transactionCount(alice)).isEqualTo(2);
+      assertThat(encryptedTransactionDAO.streamAll(alice, 10).map(EncryptedTransaction::getHash))
+          .containsExactlyInAnyOrder(first.getHash(), second.getHash());
+
+      assertThat(encryptedTransactionDAO.transactionCount(carol)).isEqualTo(2);
+      assertThat(encryptedTransactionDAO.streamAll(carol, 1).map(EncryptedTransaction::getHash))
+          .containsExactlyInAnyOrder(first.getHash(), third.getHash());
+
+      final PublicKey unknown = PublicKey.from("unknown".getBytes());
+      assertThat(encryptedTransactionDAO.transactionCount(unknown)).isZero();
+      assertThat(encryptedTransactionDAO.streamAll(unknown, 10)).isEmpty();
+    }
+  }
+
+  @Test
+  public void updateReindexesRecipients() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    when(payloadEncoder.encode(any())).thenReturn("PAYLOADATA".getBytes());
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final EncryptedTransaction transaction =
+          new EncryptedTransaction(new MessageHash(new byte[] {1}), mockPayload(alice, bob));
+      encryptedTransactionDAO.save(transaction);
+
+      transaction.setPayload(mockPayload(alice, carol, bob));
+      encryptedTransactionDAO.update(transaction);
+
+      assertThat(encryptedTransactionDAO.transactionCount(carol)).isEqualTo(1);
+      assertThat(encryptedTransactionDAO.transactionCount(bob)).isEqualTo(1);
+
+      EntityManager entityManager = entityManagerFactory.createEntityManager();
+      final EncryptedTransaction stored =
+          entityManager.find(EncryptedTransaction.class, transaction.getHash());
+      assertThat(stored.getRecipients())
+          .containsExactlyInAnyOrder(
+              new EncryptedTransactionRecipient(alice.getKeyBytes()),
+              new EncryptedTransactionRecipient(carol.getKeyBytes()),
+              new EncryptedTransactionRecipient(bob.getKeyBytes()));
+      entityManager.close();
+    }
+  }
+
+  @Test
+  public void indexRecipientsBackfillsTransactionsStoredWithoutIndex() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+
+    final byte[] payloadData = "PAYLOADATA".getBytes();
+    final EncodedPayload encodedPayload = mockPayload(alice, bob);
+    final EncodedPayloadHeader header = EncodedPayloadHeader.from(encodedPayload);
+    PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
+    when(payloadEncoder.decodeHeader(payloadData)).thenReturn(header);
+
+    try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
+      createEncoderFunction
+          .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
+          .thenReturn(payloadEncoder);
+
+      final List<EncryptedTransaction> transactions =
+          IntStream.range(0, 5)
+              .mapToObj(i -> new MessageHash(new byte[] {(byte) i}))
+              .map(hash -> new EncryptedTransaction(hash, encodedPayload))
+              .collect(Collectors.toList());
+      encryptedTransactionDAO.saveAll(transactions);
+
+      // rows written before the index existed
+      EntityManager entityManager = entityManagerFactory.createEntityManager();
+      entityManager.getTransaction().begin();
+      entityManager
+          .createNativeQuery("delete from ENCRYPTED_TRANSACTION_RECIPIENT")
+          .executeUpdate();
+      entityManager.getTransaction().commit();
+      entityManager.close();
+
+      final EncryptedTransactionDAOImpl dao =
+          new EncryptedTransactionDAOImpl(entityManagerFactory, 10, 2);
+
+      assertThat(dao.isRecipientIndexComplete()).isFalse();
+      assertThat(dao.transactionCount(bob)).isZero();
+
+      assertThat(dao.indexRecipients()).isEqualTo(5);
+
+      assertThat(dao.isRecipientIndexComplete()).isTrue();
+      assertThat(dao.transactionCount(bob)).isEqualTo(5);
+      assertThat(dao.streamAll(alice, 3).map(EncryptedTransaction::getHash))
+          .containsExactlyInAnyOrderElementsOf(
+              transactions.stream().map(EncryptedTransaction::getHash).collect(Collectors.toList()));
+    }
+    verify(payloadEncoder, never()).decode(any());
+  }
+
+  @Test
+  public void addRecipientBoxLeavesStoredPayloadUntouched() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+    final PublicKey dave = PublicKey.from("dave".getBytes());
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(alice)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(bob))
+            .withRecipientBoxes(List.of("bobBox".getBytes()))
+            .build();
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload));
+    final byte[] storedPayload =
+        encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload();
+
+    encryptedTransactionDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.prepended(carol, RecipientBox.from("carolBox".getBytes())));
+    encryptedTransactionDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.appended(dave, RecipientBox.from("daveBox".getBytes())));
+
+    final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(hash).get();
+    assertThat(retrieved.getEncodedPayload()).isEqualTo(storedPayload);
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(carol, bob, dave);
+    assertThat(retrieved.getPayload().getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("carolBox".getBytes()),
+            RecipientBox.from("bobBox".getBytes()),
+            RecipientBox.from("daveBox".getBytes()));
+
+    // the added boxes are read for pages of transactions too
+    assertThat(encryptedTransactionDAO.findByHashes(List.of(hash)))
+        .singleElement()
+        .extracting(tx -> tx.getPayload().getRecipientKeys())
+        .isEqualTo(List.of(carol, bob, dave));
+    assertThat(encryptedTransactionDAO.streamAll(dave, 10).map(EncryptedTransaction::getHash))
+        .containsExactly(hash);
+    assertThat(encryptedTransactionDAO.transactionCount(carol)).isEqualTo(1);
+
+    // a full update folds the added boxes into the stored payload
+    encryptedTransactionDAO.update(retrieved);
+
+    final EncryptedTransaction updated = encryptedTransactionDAO.retrieveByHash(hash).get();
+    assertThat(updated.getAddedBoxes()).isEmpty();
+    assertThat(updated.getPayload()).isEqualTo(retrieved.getPayload());
+  }
+
+  @Test
+  public void addRecipientBoxesAddsEachBoxInOrder() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+    final PublicKey dave = PublicKey.from("dave".getBytes());
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(alice)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(bob))
+            .withRecipientBoxes(List.of("bobBox".getBytes()))
+            .build();
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload));
+
+    encryptedTransactionDAO.addRecipientBoxes(
+        hash,
+        List.of(
+            EncryptedTransactionBox.prepended(dave, RecipientBox.from("daveBox".getBytes())),
+            EncryptedTransactionBox.prepended(carol, RecipientBox.from("carolBox".getBytes()))));
+
+    final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(hash).get();
+    assertThat(retrieved.getAddedBoxes())
+        .extracting(EncryptedTransactionBox::getSequenceNumber)
+        .containsExactly(0, 1);
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(carol, dave, bob);
+    assertThat(retrieved.getPayload().getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("carolBox".getBytes()),
+            RecipientBox.from("daveBox".getBytes()),
+            RecipientBox.from("bobBox".getBytes()));
+    assertThat(encryptedTransactionDAO.transactionCount(dave)).isEqualTo(1);
+    assertThat(encryptedTransactionDAO.transactionCount(carol)).isEqualTo(1);
+  }
+
+  @Test
+  public void addRecipientBoxRetriesWhenAnotherNodeTookTheSequenceNumber() {
+
+    final PublicKey alice = PublicKey.from("alice".getBytes());
+    final PublicKey bob = PublicKey.from("bob".getBytes());
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+    final PublicKey dave = PublicKey.from("dave".getBytes());
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(alice)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(bob))
+            .withRecipientBoxes(List.of("bobBox".getBytes()))
+            .build();
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload));
+
+    // another node adds a box after this one has read the last sequence number
+    final EncryptedTransactionDAOImpl racingDAO =
+        new EncryptedTransactionDAOImpl(entityManagerFactory) {
+          private boolean raced;
+
+          @Override
+          Integer lastBoxSequenceNumber(final MessageHash messageHash) {
+            final Integer lastSequenceNumber = super.lastBoxSequenceNumber(messageHash);
+            if (!raced) {
+              raced = true;
+              encryptedTransactionDAO.addRecipientBox(
+                  messageHash,
+                  EncryptedTransactionBox.appended(
+                      carol, RecipientBox.from("carolBox".getBytes())));
+            }
+            return lastSequenceNumber;
+          }
+        };
+
+    racingDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.appended(dave, RecipientBox.from("daveBox".getBytes())));
+
+    final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(hash).get();
+    assertThat(retrieved.getAddedBoxes())
+        .extracting(EncryptedTransactionBox::getSequenceNumber)
+        .containsExactly(0, 1);
+    assertThat(retrieved.getPayload().getRecipientKeys()).containsExactly(bob, carol, dave);
+  }
+
+  @Test
+  public void addRecipientBoxToUnknownTransactionThrowsEntityNotFoundException() {
+    final EncryptedTransactionBox box =
+        EncryptedTransactionBox.appended(
+            PublicKey.from("key".getBytes()), RecipientBox.from("box".getBytes()));
+
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(
+            () -> encryptedTransactionDAO.addRecipientBox(new MessageHash(new byte[] {1}), box));
+  }
+
+  private static EncodedPayload mockPayload(final PublicKey sender, final PublicKey... recipients) {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payload.getSenderKey()).thenReturn(sender);
+    when(payload.getRecipientKeys()).thenReturn(List.of(recipients));
+    when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    return payload;
+  }
+
   @Test
   public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -324,7 +748,6 @@ public class EncryptedTransactionDAOTest {
       Long result2 = (Long) countQuery.setParameter("hash", messageHash).getSingleResult();
       assertThat(result2).isZero();
     }
-    verify(payloadEncoder).decode(payloadData);
     verify(payloadEncoder).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
@@ -373,6 +796,38 @@ public class EncryptedTransactionDAOTest {
     verifyNoMoreInteractions(payloadEncoder);
   }
 
+  @Test
+  public void retrieveByHashLoadsAddedBoxesWithTheTransaction() {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from("alice".getBytes()))
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(PublicKey.from("bob".getBytes())))
+            .withRecipientBoxes(List.of("bobBox".getBytes()))
+            .build();
+    final MessageHash withoutBoxes = new MessageHash(new byte[] {1});
+    final MessageHash withBoxes = new MessageHash(new byte[] {2});
+    encryptedTransactionDAO.save(new EncryptedTransaction(withoutBoxes, payload));
+    encryptedTransactionDAO.save(new EncryptedTransaction(withBoxes, payload));
+    encryptedTransactionDAO.addRecipientBox(
+        withBoxes,
+        EncryptedTransactionBox.prepended(
+            PublicKey.from("carol".getBytes()), RecipientBox.from("carolBox".getBytes())));
+
+    final PersistenceUnitUtil persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+    final EncryptedTransaction retrievedWithoutBoxes =
+        encryptedTransactionDAO.retrieveByHash(withoutBoxes).get();
+    assertThat(persistenceUnitUtil.isLoaded(retrievedWithoutBoxes, "addedBoxes")).isTrue();
+    assertThat(retrievedWithoutBoxes.getAddedBoxes()).isEmpty();
+
+    final EncryptedTransaction retrievedWithBoxes =
+        encryptedTransactionDAO.retrieveByHash(withBoxes).get();
+    assertThat(persistenceUnitUtil.isLoaded(retrievedWithBoxes, "addedBoxes")).isTrue();
+    assertThat(retrievedWithBoxes.getAddedBoxes()).hasSize(1);
+  }
+
   @Test
   public void retrieveByHashThrowsExceptionWhenNotPresent() {
     MessageHash searchHash = new MessageHash(UUID.randomUUID().toString().getBytes());
@@ -390,7 +845,6 @@ public class EncryptedTransactionDAOTest {
     final byte[] payloadData = "PAYLOADATA".getBytes();
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-    when(payloadEncoder.decode(payloadData)).thenReturn(encodedPayload);
     try (var createEncoderFunction = mockStatic(PayloadEncoder.class)) {
       createEncoderFunction
           .when(() -> PayloadEncoder.create(EncodedPayloadCodec.current()))
@@ -412,7 +866,6 @@ public class EncryptedTransactionDAOTest {
       assertThat(retrieved).isNotNull();
       assertThat(retrieved.getTimestamp()).isNotZero().isGreaterThan(0L);
     }
-    verify(payloadEncoder).decode(payloadData);
     verify(payloadEncoder).encode(encodedPayload);
     verifyNoMoreInteractions(payloadEncoder);
   }
@@ -496,6 +949,7 @@ public class EncryptedTransactionDAOTest {
       assertThat(result).isNotNull();
       assertThat(result.getEncodedPayload()).containsExactly(payloadData);
       assertThat(result.getHash()).isEqualTo(transactionHash);
+      assertThat(result.getPayload()).isSameAs(encodedPayload);
 
       verify(callback).call();
     }
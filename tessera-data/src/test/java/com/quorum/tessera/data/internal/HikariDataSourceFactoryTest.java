@@ -9,6 +9,7 @@ import com.quorum.tessera.data.DataSourceFactory;
 import com.zaxxer.hikari.HikariDataSource;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.List;
 import javax.sql.DataSource;
 import org.junit.After;
 import org.junit.Before;
@@ -82,4 +83,44 @@ public class HikariDataSourceFactoryTest {
     assertThat(hikariDataSource.getUsername()).isEqualTo(username);
     assertThat(hikariDataSource.getPassword()).isEqualTo("dbpassword");
   }
+
+  @Test
+  public void createWithReadReplicas() throws Exception {
+
+    JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+    when(jdbcConfig.getUsername()).thenReturn("junit");
+    when(jdbcConfig.getPassword()).thenReturn("junitpw");
+    when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:primary");
+    when(jdbcConfig.getReadReplicaUrls())
+        .thenReturn(List.of("jdbc:h2:mem:replica1", "jdbc:h2:mem:replica2"));
+
+    DataSource dataSource = dataSourceFactory.create(jdbcConfig);
+
+    assertThat(dataSource).isExactlyInstanceOf(ReplicaRoutingDataSource.class);
+    assertThat(dataSource.unwrap(HikariDataSource.class).getJdbcUrl())
+        .isEqualTo("jdbc:h2:mem:primary");
+
+    ReplicaRoutingDataSource.class.cast(dataSource).close();
+  }
+
+  @Test
+  public void createShards() {
+
+    JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+    when(jdbcConfig.getUsername()).thenReturn("junit");
+    when(jdbcConfig.getPassword()).thenReturn("junitpw");
+    when(jdbcConfig.getShardUrls()).thenReturn(List.of("jdbc:h2:mem:shard1", "jdbc:h2:mem:shard2"));
+
+    List<DataSource> shards = dataSourceFactory.createShards(jdbcConfig);
+
+    assertThat(shards)
+        .hasSize(2)
+        .extracting(dataSource -> HikariDataSource.class.cast(dataSource).getJdbcUrl())
+        .containsExactly("jdbc:h2:mem:shard1", "jdbc:h2:mem:shard2");
+    assertThat(dataSourceFactory.createShards(jdbcConfig))
+        .describedAs("Second call returns same instances")
+        .isSameAs(shards);
+
+    shards.forEach(dataSource -> HikariDataSource.class.cast(dataSource).close());
+  }
 }
@@ -0,0 +1,233 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class JdbcEncryptedTransactionDAOTest {
+
+  private static final PublicKey ALICE = PublicKey.from("alice".getBytes());
+
+  private static final PublicKey BOB = PublicKey.from("bob".getBytes());
+
+  private final TestConfig testConfig;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private HikariDataSource dataSource;
+
+  private EncryptedTransactionDAO jpaDAO;
+
+  private JdbcEncryptedTransactionDAO jdbcDAO;
+
+  public JdbcEncryptedTransactionDAOTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+    Map properties = new HashMap();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put("eclipselink.cache.shared.default", "false");
+    properties.put("jakarta.persistence.schema-generation.database.action", "create");
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(testConfig.getUrl());
+    dataSource.setUsername("junit");
+    dataSource.setPassword("");
+    dataSource.setMaximumPoolSize(2);
+
+    jpaDAO = new EncryptedTransactionDAOImpl(entityManagerFactory);
+    jdbcDAO = new JdbcEncryptedTransactionDAO(dataSource, jpaDAO);
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createNativeQuery("delete from ENCRYPTED_TRANSACTION_RECIPIENT").executeUpdate();
+    entityManager.createNativeQuery("delete from ENCRYPTED_TRANSACTION_BOX").executeUpdate();
+    entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.getTransaction().commit();
+
+    dataSource.close();
+  }
+
+  @Test
+  public void savedTransactionIsReadTheSameByBothImplementations() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    final EncryptedTransaction saved = jdbcDAO.save(new EncryptedTransaction(hash, payload()));
+
+    final EncryptedTransaction viaJpa = jpaDAO.retrieveByHash(hash).get();
+    final EncryptedTransaction viaJdbc = jdbcDAO.retrieveByHash(hash).get();
+
+    assertThat(viaJdbc.getEncodedPayload()).isEqualTo(viaJpa.getEncodedPayload());
+    assertThat(viaJdbc.getEncodedPayloadCodec()).isEqualTo(viaJpa.getEncodedPayloadCodec());
+    assertThat(viaJdbc.getTimestamp())
+        .isEqualTo(viaJpa.getTimestamp())
+        .isEqualTo(saved.getTimestamp());
+    assertThat(viaJdbc.getPayload()).isEqualTo(viaJpa.getPayload()).isEqualTo(payload());
+
+    // the recipient index rows are written along with the transaction
+    assertThat(jpaDAO.transactionCount(BOB)).isEqualTo(1);
+  }
+
+  @Test
+  public void retrieveByHashReturnsEmptyWhenNotPresent() {
+    assertThat(jdbcDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+  }
+
+  @Test
+  public void addedBoxesAreReadInOrder() {
+    final PublicKey carol = PublicKey.from("carol".getBytes());
+    final PublicKey dave = PublicKey.from("dave".getBytes());
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    jpaDAO.save(new EncryptedTransaction(hash, payload()));
+
+    jdbcDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.prepended(carol, RecipientBox.from("carolBox".getBytes())));
+    jdbcDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.appended(dave, RecipientBox.from("daveBox".getBytes())));
+
+    final EncryptedTransaction viaJdbc = jdbcDAO.retrieveByHash(hash).get();
+    assertThat(viaJdbc.getAddedBoxes())
+        .isEqualTo(jpaDAO.retrieveByHash(hash).get().getAddedBoxes());
+    assertThat(viaJdbc.getPayload().getRecipientKeys()).containsExactly(carol, BOB, dave);
+  }
+
+  @Test
+  public void findByHashesReadsEveryChunk() {
+    final List<MessageHash> hashes =
+        IntStream.range(0, JdbcEncryptedTransactionDAO.IN_LIST_SIZE * 2 + 5)
+            .mapToObj(i -> new MessageHash(UUID.randomUUID().toString().getBytes()))
+            .collect(Collectors.toList());
+    jpaDAO.saveAll(
+        hashes.stream()
+            .map(hash -> new EncryptedTransaction(hash, payload()))
+            .collect(Collectors.toList()));
+    jpaDAO.addRecipientBox(
+        hashes.get(150),
+        EncryptedTransactionBox.appended(ALICE, RecipientBox.from("aliceBox".getBytes())));
+
+    final List<MessageHash> requested = new ArrayList<>(hashes);
+    requested.add(new MessageHash("missing".getBytes()));
+    requested.add(hashes.get(0));
+
+    final List<EncryptedTransaction> results = jdbcDAO.findByHashes(requested);
+
+    assertThat(results)
+        .extracting(EncryptedTransaction::getHash)
+        .containsExactlyInAnyOrderElementsOf(hashes);
+    assertThat(results)
+        .filteredOn(tx -> tx.getHash().equals(hashes.get(150)))
+        .singleElement()
+        .extracting(tx -> tx.getPayload().getRecipientKeys())
+        .isEqualTo(List.of(BOB, ALICE));
+  }
+
+  @Test
+  public void findByHashesEmpty() {
+    assertThat(jdbcDAO.findByHashes(List.of())).isEmpty();
+  }
+
+  @Test
+  public void cannotSaveSameHashTwice() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    jdbcDAO.save(new EncryptedTransaction(hash, payload()));
+
+    final Throwable throwable =
+        catchThrowable(() -> jdbcDAO.save(new EncryptedTransaction(hash, payload())));
+
+    assertThat(throwable)
+        .isInstanceOf(PersistenceException.class)
+        .hasMessageContaining(testConfig.getUniqueConstraintViolationMessage());
+  }
+
+  @Test
+  public void callbackFailureRollsBackSave() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                jdbcDAO.save(
+                    new EncryptedTransaction(hash, payload()),
+                    () -> {
+                      throw new Exception("callback failed");
+                    }));
+
+    assertThat(throwable)
+        .isInstanceOf(PersistenceException.class)
+        .hasCauseExactlyInstanceOf(Exception.class);
+    assertThat(jdbcDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(jpaDAO.transactionCount(BOB)).isZero();
+  }
+
+  @Test
+  public void callbackRuntimeExceptionIsRethrown() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    final IllegalStateException exception = new IllegalStateException("callback failed");
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                jdbcDAO.save(
+                    new EncryptedTransaction(hash, payload()),
+                    () -> {
+                      throw exception;
+                    }));
+
+    assertThat(throwable).isSameAs(exception);
+    assertThat(jdbcDAO.retrieveByHash(hash)).isEmpty();
+  }
+
+  @Test
+  public void otherOperationsUseDelegate() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+    jdbcDAO.save(new EncryptedTransaction(hash, payload()));
+
+    assertThat(jdbcDAO.transactionCount()).isEqualTo(1);
+    assertThat(jdbcDAO.retrieveTransactions(0, 10)).hasSize(1);
+    assertThat(jdbcDAO.upcheck()).isTrue();
+
+    jdbcDAO.delete(hash);
+    assertThat(jdbcDAO.retrieveByHash(hash)).isEmpty();
+  }
+
+  private static EncodedPayload payload() {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(ALICE)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(BOB))
+        .withRecipientBoxes(List.of("bobBox".getBytes()))
+        .build();
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
@@ -0,0 +1,180 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.Utils;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.encryption.PublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class PayloadCacheTest {
+
+  private static EncryptedTransaction transaction(int cipherTextSize) {
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(PublicKey.from(new byte[32]))
+            .withCipherText(new byte[cipherTextSize])
+            .withCipherTextNonce(new byte[24])
+            .withRecipientNonce(new byte[24])
+            .withRecipientBoxes(List.of(new byte[48]))
+            .withRecipientKeys(List.of(PublicKey.from(new byte[32])))
+            .build();
+    final EncryptedTransaction transaction =
+        new EncryptedTransaction(Utils.createHash(), payload);
+    transaction.setEncodedPayloadCodec(EncodedPayloadCodec.CBOR);
+    transaction.setTimestamp(1234L);
+    return transaction;
+  }
+
+  @Test
+  public void sizeMustBePositive() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new PayloadCache(0, 0));
+  }
+
+  @Test
+  public void getReturnsCopyOfCachedTransaction() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+    final EncryptedTransaction transaction = transaction(10);
+
+    payloadCache.put(transaction);
+
+    final EncryptedTransaction result = payloadCache.get(transaction.getHash()).get();
+    assertThat(result).isNotSameAs(transaction).isEqualTo(transaction);
+    assertThat(result.getPayload()).isSameAs(transaction.getPayload());
+    assertThat(result.getEncodedPayloadCodec()).isEqualTo(EncodedPayloadCodec.CBOR);
+    assertThat(result.getTimestamp()).isEqualTo(1234L);
+
+    result.setPayload(null);
+    assertThat(payloadCache.get(transaction.getHash()).get().getPayload()).isNotNull();
+
+    assertThat(payloadCache.getHitCount()).isEqualTo(2);
+    assertThat(payloadCache.getMissCount()).isZero();
+  }
+
+  @Test
+  public void missIsCounted() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+
+    assertThat(payloadCache.get(Utils.createHash())).isEmpty();
+    assertThat(payloadCache.getMissCount()).isEqualTo(1);
+    assertThat(payloadCache.getHitCount()).isZero();
+  }
+
+  @Test
+  public void expiredEntryIsReadAgain() {
+    final AtomicLong now = new AtomicLong();
+    final PayloadCache payloadCache = new PayloadCache(10, 0, Duration.ofSeconds(1), now::get);
+    final EncryptedTransaction transaction = transaction(10);
+
+    payloadCache.put(transaction);
+    now.set(Duration.ofMillis(999).toNanos());
+    assertThat(payloadCache.get(transaction.getHash())).isPresent();
+
+    now.set(Duration.ofSeconds(1).toNanos());
+    assertThat(payloadCache.get(transaction.getHash())).isEmpty();
+    assertThat(payloadCache.getSize()).isZero();
+    assertThat(payloadCache.getWeight()).isZero();
+    assertThat(payloadCache.getEvictionCount()).isEqualTo(1);
+    assertThat(payloadCache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvictedWhenFull() {
+    final PayloadCache payloadCache = new PayloadCache(2, 0);
+    final EncryptedTransaction first = transaction(10);
+    final EncryptedTransaction second = transaction(10);
+    final EncryptedTransaction third = transaction(10);
+
+    payloadCache.put(first);
+    payloadCache.put(second);
+    payloadCache.get(first.getHash());
+    payloadCache.put(third);
+
+    assertThat(payloadCache.getSize()).isEqualTo(2);
+    assertThat(payloadCache.getEvictionCount()).isEqualTo(1);
+    assertThat(payloadCache.get(first.getHash())).isPresent();
+    assertThat(payloadCache.get(second.getHash())).isEmpty();
+    assertThat(payloadCache.get(third.getHash())).isPresent();
+  }
+
+  @Test
+  public void entriesAreBoundedByWeight() {
+    final EncryptedTransaction first = transaction(1000);
+    final EncryptedTransaction second = transaction(1000);
+    final long weight = PayloadCache.weigh(first.getPayload());
+
+    final PayloadCache payloadCache = new PayloadCache(10, weight + 1);
+    payloadCache.put(first);
+    payloadCache.put(second);
+
+    assertThat(payloadCache.getSize()).isEqualTo(1);
+    assertThat(payloadCache.getWeight()).isEqualTo(weight);
+    assertThat(payloadCache.getEvictionCount()).isEqualTo(1);
+    assertThat(payloadCache.get(second.getHash())).isPresent();
+  }
+
+  @Test
+  public void entryHeavierThanMaxWeightIsNotCached() {
+    final EncryptedTransaction transaction = transaction(1000);
+    final PayloadCache payloadCache = new PayloadCache(10, 100);
+
+    payloadCache.put(transaction);
+
+    assertThat(payloadCache.getSize()).isZero();
+    assertThat(payloadCache.getWeight()).isZero();
+  }
+
+  @Test
+  public void invalidateRemovesEntry() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+    final EncryptedTransaction transaction = transaction(10);
+    payloadCache.put(transaction);
+
+    payloadCache.invalidate(new MessageHash(transaction.getHash().getHashBytes()));
+
+    assertThat(payloadCache.get(transaction.getHash())).isEmpty();
+    assertThat(payloadCache.getWeight()).isZero();
+  }
+
+  @Test
+  public void putIfUnchangedIgnoredAfterInvalidation() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+    final EncryptedTransaction transaction = transaction(10);
+
+    final long generation = payloadCache.generation();
+    payloadCache.invalidate(transaction.getHash());
+    payloadCache.putIfUnchanged(transaction, generation);
+
+    assertThat(payloadCache.getSize()).isZero();
+
+    payloadCache.putIfUnchanged(transaction, payloadCache.generation());
+    assertThat(payloadCache.getSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void clearRemovesEverything() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+    payloadCache.put(transaction(10));
+    payloadCache.put(transaction(10));
+
+    payloadCache.clear();
+
+    assertThat(payloadCache.getSize()).isZero();
+    assertThat(payloadCache.getWeight()).isZero();
+  }
+
+  @Test
+  public void transactionWithoutPayloadIsIgnored() {
+    final PayloadCache payloadCache = new PayloadCache(10, 0);
+    payloadCache.put(new EncryptedTransaction(Utils.createHash(), null));
+
+    assertThat(payloadCache.getSize()).isZero();
+  }
+}
@@ -0,0 +1,63 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadDictionary;
+import com.quorum.tessera.enclave.PayloadDictionaryHolder;
+import com.quorum.tessera.encryption.PublicKey;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PayloadCodecHolderTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  @After
+  public void afterTest() {
+    PayloadCodecHolder.INSTANCE.configure(new JdbcConfig());
+  }
+
+  @Test
+  public void currentCodecByDefault() {
+    PayloadCodecHolder.INSTANCE.configure(new JdbcConfig());
+
+    assertThat(PayloadCodecHolder.INSTANCE.getCodec()).isEqualTo(EncodedPayloadCodec.current());
+  }
+
+  @Test
+  public void compactCodecWhenConfigured() {
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setCompactPayloads(true);
+
+    PayloadCodecHolder.INSTANCE.configure(jdbcConfig);
+
+    assertThat(PayloadCodecHolder.INSTANCE.getCodec()).isEqualTo(EncodedPayloadCodec.CBOR_V2);
+  }
+
+  @Test
+  public void compressedCodecWithDictionary() throws IOException {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    final Path dictionaryFile = workDir.newFile().toPath();
+    Files.writeString(dictionaryFile, key.encodeToBase64());
+
+    final JdbcConfig jdbcConfig = new JdbcConfig();
+    jdbcConfig.setCompressPayloads(true);
+    jdbcConfig.setPayloadDictionary(dictionaryFile.toString());
+
+    PayloadCodecHolder.INSTANCE.configure(jdbcConfig);
+
+    assertThat(PayloadCodecHolder.INSTANCE.getCodec())
+        .isEqualTo(EncodedPayloadCodec.CBOR_V2_DEFLATE);
+    assertThat(PayloadDictionaryHolder.INSTANCE.getDictionary())
+        .map(PayloadDictionary::getId)
+        .contains(PayloadDictionary.of(List.of(key)).getId());
+  }
+}
@@ -0,0 +1,79 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.data.DataSourceFactory;
+import com.quorum.tessera.data.PendingDeliveryDAO;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.util.List;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class PendingDeliveryDAOProviderTest {
+
+  @Test
+  public void defaultConstructorForCoverage() {
+    assertThat(new PendingDeliveryDAOProvider()).isNotNull();
+  }
+
+  @Test
+  public void provides() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedDataSourceFactory = mockStatic(DataSourceFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      mockedPersistence
+          .when(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()))
+          .thenReturn(mock(EntityManagerFactory.class));
+
+      mockConfig(mockedConfigFactory, mock(JdbcConfig.class));
+
+      mockedDataSourceFactory
+          .when(DataSourceFactory::create)
+          .thenReturn(mock(DataSourceFactory.class));
+
+      PendingDeliveryDAO result = PendingDeliveryDAOProvider.provider();
+      assertThat(result).isExactlyInstanceOf(PendingDeliveryDAOImpl.class);
+
+      mockedPersistence.verify(() -> Persistence.createEntityManagerFactory(anyString(), anyMap()));
+      mockedPersistence.verifyNoMoreInteractions();
+    }
+  }
+
+  @Test
+  public void shardedStoresAreRejected() {
+    try (var mockedConfigFactory = mockStatic(ConfigFactory.class);
+        var mockedPersistence = mockStatic(Persistence.class)) {
+
+      JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+      when(jdbcConfig.getShardUrls()).thenReturn(List.of("jdbc:h2:mem:first"));
+      mockConfig(mockedConfigFactory, jdbcConfig);
+
+      final Throwable throwable = catchThrowable(PendingDeliveryDAOProvider::provider);
+
+      assertThat(throwable)
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("jdbc.outboxDelivery");
+      mockedPersistence.verifyNoInteractions();
+    }
+  }
+
+  private static void mockConfig(
+      MockedStatic<ConfigFactory> mockedConfigFactory, JdbcConfig jdbcConfig) {
+    Config config = mock(Config.class);
+    when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+    ConfigFactory configFactory = mock(ConfigFactory.class);
+    when(configFactory.getConfig()).thenReturn(config);
+
+    mockedConfigFactory.when(ConfigFactory::create).thenReturn(configFactory);
+  }
+}
@@ -0,0 +1,189 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.quorum.tessera.data.*;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.*;
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class PendingDeliveryDAOTest {
+
+  private EntityManagerFactory entityManagerFactory;
+
+  private PendingDeliveryDAO pendingDeliveryDAO;
+
+  private TestConfig testConfig;
+
+  private final PublicKey first = PublicKey.from("first".getBytes());
+
+  private final PublicKey second = PublicKey.from("second".getBytes());
+
+  public PendingDeliveryDAOTest(TestConfig testConfig) {
+    this.testConfig = testConfig;
+  }
+
+  @Before
+  public void onSetUp() {
+
+    Map properties = new HashMap();
+    properties.put("jakarta.persistence.jdbc.url", testConfig.getUrl());
+    properties.put("jakarta.persistence.jdbc.user", "junit");
+    properties.put("jakarta.persistence.jdbc.password", "");
+    properties.put(
+        "eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
+    properties.put("eclipselink.logging.level", "FINE");
+    properties.put("eclipselink.logging.parameters", "true");
+    properties.put("eclipselink.logging.level.sql", "FINE");
+    properties.put("jakarta.persistence.schema-generation.database.action", "drop-and-create");
+
+    entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+
+    pendingDeliveryDAO = new PendingDeliveryDAOImpl(entityManagerFactory);
+  }
+
+  @After
+  public void onTearDown() {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+    entityManager.getTransaction().begin();
+    entityManager.createQuery("delete from PendingDelivery").executeUpdate();
+    entityManager.createNativeQuery("delete from ENCRYPTED_TRANSACTION_RECIPIENT").executeUpdate();
+    entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+    entityManager.getTransaction().commit();
+  }
+
+  @Test
+  public void savesTransactionWithItsDeliveries() {
+    final MessageHash hash = new MessageHash(new byte[] {1});
+
+    pendingDeliveryDAO.save(
+        transaction(hash),
+        List.of(new PendingDelivery(hash, first), new PendingDelivery(hash, second)));
+
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    assertThat(entityManager.find(EncryptedTransaction.class, hash)).isNotNull();
+
+    final List<PendingDelivery> deliveries = pendingDeliveryDAO.findByHash(hash);
+    assertThat(deliveries).extracting(PendingDelivery::getRecipient).containsExactly(first, second);
+    assertThat(deliveries)
+        .allSatisfy(
+            delivery -> {
+              assertThat(delivery.getHash()).isEqualTo(hash);
+              assertThat(delivery.getAttempts()).isZero();
+              assertThat(delivery.getNextAttempt()).isEqualTo(delivery.getQueuedAt());
+            });
+    assertThat(pendingDeliveryDAO.pendingCount()).isEqualTo(2);
+    assertThat(pendingDeliveryDAO.oldestQueuedAt()).contains(deliveries.get(0).getQueuedAt());
+  }
+
+  @Test
+  public void deliveriesAreNotSavedWithoutTheirTransaction() {
+    final MessageHash hash = new MessageHash(new byte[] {2});
+    pendingDeliveryDAO.save(transaction(hash), List.of());
+
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                pendingDeliveryDAO.save(
+                    transaction(hash), List.of(new PendingDelivery(hash, first))));
+
+    assertThat(throwable).isInstanceOf(PersistenceException.class);
+    assertThat(pendingDeliveryDAO.findByHash(hash)).isEmpty();
+    assertThat(pendingDeliveryDAO.pendingCount()).isZero();
+    assertThat(pendingDeliveryDAO.oldestQueuedAt()).isEmpty();
+  }
+
+  @Test
+  public void deliveriesAreNumberedInTheOrderTheyAreQueued() {
+    final long first = PendingDeliveryDAOImpl.nextId();
+    final long second = PendingDeliveryDAOImpl.nextId();
+
+    assertThat(second).isGreaterThan(first);
+    assertThat(first).isGreaterThanOrEqualTo((System.currentTimeMillis() - 1000) * 1000);
+  }
+
+  @Test
+  public void laterDeliveriesToARecipientWaitForAnEarlierRetry() {
+    final MessageHash earlier = new MessageHash(new byte[] {3});
+    final MessageHash later = new MessageHash(new byte[] {4});
+    pendingDeliveryDAO.save(
+        transaction(earlier),
+        List.of(new PendingDelivery(earlier, first), new PendingDelivery(earlier, second)));
+    pendingDeliveryDAO.save(
+        transaction(later),
+        List.of(new PendingDelivery(later, first), new PendingDelivery(later, second)));
+
+    final long now = System.currentTimeMillis() + 1;
+    final List<PendingDelivery> due = pendingDeliveryDAO.findDue(now, 10);
+    assertThat(due)
+        .extracting(PendingDelivery::getHash, PendingDelivery::getRecipient)
+        .containsExactly(
+            tuple(earlier, first),
+            tuple(earlier, second),
+            tuple(later, first),
+            tuple(later, second));
+    assertThat(pendingDeliveryDAO.findDue(now, 1)).containsExactly(due.get(0));
+    assertThat(pendingDeliveryDAO.findDue(now, Set.of(first), 10))
+        .extracting(PendingDelivery::getHash, PendingDelivery::getRecipient)
+        .containsExactly(tuple(earlier, second), tuple(later, second));
+    assertThat(pendingDeliveryDAO.findDue(now, Set.of(first, second), 10)).isEmpty();
+
+    pendingDeliveryDAO.retryAt(due.get(0), now + 1000, "Unable to push payload");
+    pendingDeliveryDAO.delivered(due.get(1));
+
+    assertThat(pendingDeliveryDAO.findDue(now, 10))
+        .extracting(PendingDelivery::getHash, PendingDelivery::getRecipient)
+        .containsExactly(tuple(later, second));
+    assertThat(pendingDeliveryDAO.findDue(now + 1000, 10))
+        .extracting(PendingDelivery::getHash, PendingDelivery::getRecipient)
+        .containsExactly(tuple(earlier, first), tuple(later, first), tuple(later, second));
+
+    final PendingDelivery retried = pendingDeliveryDAO.findByHash(earlier).get(0);
+    assertThat(retried.getRecipient()).isEqualTo(first);
+    assertThat(retried.getAttempts()).isEqualTo(1);
+    assertThat(retried.getNextAttempt()).isEqualTo(now + 1000);
+    assertThat(retried.getLastError()).isEqualTo("Unable to push payload");
+    assertThat(pendingDeliveryDAO.pendingCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void longErrorsAreTruncated() {
+    final MessageHash hash = new MessageHash(new byte[] {5});
+    pendingDeliveryDAO.save(transaction(hash), List.of(new PendingDelivery(hash, first)));
+
+    final PendingDelivery delivery = pendingDeliveryDAO.findByHash(hash).get(0);
+    pendingDeliveryDAO.retryAt(delivery, 0, "x".repeat(PendingDelivery.MAX_ERROR_LENGTH + 1));
+
+    assertThat(pendingDeliveryDAO.findByHash(hash).get(0).getLastError())
+        .hasSize(PendingDelivery.MAX_ERROR_LENGTH);
+    assertThat(PendingDelivery.truncateError(null)).isNull();
+  }
+
+  private static EncryptedTransaction transaction(final MessageHash hash) {
+    final PublicKey sender = PublicKey.from("sender".getBytes());
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(sender)
+            .withCipherText("cipherText".getBytes())
+            .withCipherTextNonce("nonce".getBytes())
+            .withRecipientNonce("recipientNonce".getBytes())
+            .withRecipientKeys(List.of(sender))
+            .withRecipientBoxes(List.of("box".getBytes()))
+            .build();
+    return new EncryptedTransaction(hash, payload);
+  }
+
+  @Parameterized.Parameters(name = "DB {0}")
+  public static Collection<TestConfig> connectionDetails() {
+    return List.of(TestConfig.values());
+  }
+}
@@ -0,0 +1,253 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaRoutingDataSourceTest {
+
+  private DataSource primary;
+
+  private DataSource first;
+
+  private DataSource second;
+
+  private Connection primaryConnection;
+
+  private Connection firstConnection;
+
+  private Connection secondConnection;
+
+  private ReplicaRoutingDataSource dataSource;
+
+  @Before
+  public void beforeTest() throws SQLException {
+    primary = mock(DataSource.class);
+    first = mock(DataSource.class);
+    second = mock(DataSource.class);
+    primaryConnection = mock(Connection.class);
+    firstConnection = mock(Connection.class);
+    secondConnection = mock(Connection.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(first.getConnection()).thenReturn(firstConnection);
+    when(second.getConnection()).thenReturn(secondConnection);
+
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("first", first);
+    replicas.put("second", second);
+    dataSource = new ReplicaRoutingDataSource(primary, replicas);
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(primary, first, second);
+  }
+
+  @Test
+  public void connectionsComeFromPrimaryOutsideReadFromReplica() throws SQLException {
+    assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    verify(primary).getConnection();
+  }
+
+  @Test
+  public void readsTakeReplicasInTurn() throws SQLException {
+    assertThat(readConnection()).isSameAs(firstConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+    assertThat(readConnection()).isSameAs(firstConnection);
+
+    // the routing only lasts for the read
+    assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+
+    verify(first, times(2)).getConnection();
+    verify(second).getConnection();
+    verify(primary).getConnection();
+  }
+
+  @Test
+  public void nestedReadsStayOnReplicas() throws SQLException {
+    final Connection connection =
+        dataSource.<Connection>readFromReplica(
+            () -> {
+              dataSource.readFromReplica(() -> null);
+              return connection();
+            });
+
+    assertThat(connection).isSameAs(firstConnection);
+    verify(first).getConnection();
+  }
+
+  @Test
+  public void unavailableReplicaIsSkippedUntilRetryInterval() throws SQLException {
+    when(first.getConnection()).thenThrow(new SQLException("down"));
+
+    assertThat(readConnection()).isSameAs(secondConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+
+    verify(first).getConnection();
+    verify(second, times(3)).getConnection();
+  }
+
+  @Test
+  public void readsFallBackToPrimaryWhenNoReplicaIsAvailable() throws SQLException {
+    when(first.getConnection()).thenThrow(new SQLException("down"));
+    when(second.getConnection()).thenThrow(new SQLException("down"));
+
+    assertThat(readConnection()).isSameAs(primaryConnection);
+    assertThat(readConnection()).isSameAs(primaryConnection);
+
+    verify(first).getConnection();
+    verify(second).getConnection();
+    verify(primary, times(2)).getConnection();
+  }
+
+  @Test
+  public void replicaTooFarBehindIsSkippedUntilItCatchesUp() throws SQLException {
+    dataSource = routing(Duration.ofSeconds(10));
+    newest(primaryConnection, 60_000L);
+    newest(firstConnection, 30_000L);
+    newest(secondConnection, 55_000L);
+    when(firstConnection.isValid(anyInt())).thenReturn(true);
+    when(secondConnection.isValid(anyInt())).thenReturn(true);
+
+    dataSource.probe();
+
+    assertThat(readConnection()).isSameAs(secondConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+
+    newest(firstConnection, 60_000L);
+    dataSource.probe();
+
+    assertThat(readConnection()).isSameAs(firstConnection);
+
+    verify(primary, times(2)).getConnection();
+    verify(first, times(3)).getConnection();
+    verify(second, times(4)).getConnection();
+  }
+
+  @Test
+  public void invalidReplicaIsSkipped() throws SQLException {
+    newest(primaryConnection, 0L);
+    newest(secondConnection, 0L);
+    when(firstConnection.isValid(anyInt())).thenReturn(false);
+    when(secondConnection.isValid(anyInt())).thenReturn(true);
+
+    dataSource.probe();
+
+    assertThat(readConnection()).isSameAs(secondConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+
+    verify(primary).getConnection();
+    verify(first).getConnection();
+    verify(second, times(3)).getConnection();
+  }
+
+  @Test
+  public void readsFallBackToPrimaryWhenEveryReplicaIsBehind() throws SQLException {
+    newest(primaryConnection, 60_000L);
+    newest(firstConnection, 0L);
+    newest(secondConnection, 0L);
+    when(firstConnection.isValid(anyInt())).thenReturn(true);
+    when(secondConnection.isValid(anyInt())).thenReturn(true);
+
+    dataSource.probe();
+
+    assertThat(readConnection()).isSameAs(primaryConnection);
+
+    verify(primary, times(2)).getConnection();
+    verify(first).getConnection();
+    verify(second).getConnection();
+  }
+
+  @Test
+  public void onlyHealthIsCheckedWhenPrimaryCannotBeRead() throws SQLException {
+    when(primary.getConnection())
+        .thenThrow(new SQLException("down"))
+        .thenReturn(primaryConnection);
+    when(firstConnection.isValid(anyInt())).thenReturn(true);
+    when(secondConnection.isValid(anyInt())).thenReturn(true);
+
+    dataSource.probe();
+
+    assertThat(readConnection()).isSameAs(firstConnection);
+    assertThat(readConnection()).isSameAs(secondConnection);
+
+    verify(primary).getConnection();
+    verify(first, times(2)).getConnection();
+    verify(second, times(2)).getConnection();
+    verify(firstConnection, never()).createStatement();
+  }
+
+  @Test
+  public void withoutReplicasReadsUsePrimary() throws SQLException {
+    final ReplicaRoutingDataSource noReplicas = new ReplicaRoutingDataSource(primary, Map.of());
+
+    final Connection connection = noReplicas.readFromReplica(() -> connection(noReplicas));
+
+    assertThat(connection).isSameAs(primaryConnection);
+
+    verify(primary).getConnection();
+  }
+
+  @Test
+  public void unwrapsToItself() throws SQLException {
+    assertThat(dataSource.isWrapperFor(ReplicaRoutingDataSource.class)).isTrue();
+    assertThat(dataSource.unwrap(ReplicaRoutingDataSource.class)).isSameAs(dataSource);
+  }
+
+  @Test
+  public void closeClosesEveryPool() throws Exception {
+    final HikariDataSource primaryPool = mock(HikariDataSource.class);
+    final HikariDataSource replicaPool = mock(HikariDataSource.class);
+
+    new ReplicaRoutingDataSource(primaryPool, Map.of("replica", replicaPool)).close();
+
+    verify(primaryPool).close();
+    verify(replicaPool).close();
+  }
+
+  private ReplicaRoutingDataSource routing(final Duration maxLag) {
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("first", first);
+    replicas.put("second", second);
+    return new ReplicaRoutingDataSource(primary, replicas, maxLag);
+  }
+
+  private static void newest(final Connection connection, final long timestamp)
+      throws SQLException {
+    final Statement statement = mock(Statement.class);
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeQuery(anyString())).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getLong(1)).thenReturn(timestamp);
+  }
+
+  private Connection readConnection() {
+    return dataSource.readFromReplica(this::connection);
+  }
+
+  private Connection connection() {
+    return connection(dataSource);
+  }
+
+  private static Connection connection(final DataSource dataSource) {
+    try {
+      return dataSource.getConnection();
+    } catch (SQLException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
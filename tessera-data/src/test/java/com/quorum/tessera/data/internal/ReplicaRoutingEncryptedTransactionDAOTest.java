@@ -0,0 +1,201 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.PersistenceException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaRoutingEncryptedTransactionDAOTest {
+
+  private static final MessageHash HASH = new MessageHash(new byte[] {1});
+
+  private static final MessageHash OTHER_HASH = new MessageHash(new byte[] {2});
+
+  private EncryptedTransactionDAO delegate;
+
+  private ReplicaRoutingDataSource dataSource;
+
+  private ReplicaRoutingEncryptedTransactionDAO dao;
+
+  @Before
+  public void beforeTest() {
+    delegate = mock(EncryptedTransactionDAO.class);
+    dataSource = mock(ReplicaRoutingDataSource.class);
+    when(dataSource.readFromReplica(any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+    dao = new ReplicaRoutingEncryptedTransactionDAO(delegate, dataSource, Duration.ofMinutes(1));
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(delegate, dataSource);
+  }
+
+  @Test
+  public void retrieveByHashReadsFromReplica() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(dataSource).readFromReplica(any());
+    verify(delegate).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void retrieveByHashReadsFromPrimaryWhenReplicaDoesNotHaveTransaction() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.empty(), Optional.of(transaction));
+
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(dataSource).readFromReplica(any());
+    verify(delegate, times(2)).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void retrieveByHashReadsFromPrimaryWhenReplicaFails() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.retrieveByHash(HASH))
+        .thenThrow(new PersistenceException("replica down"))
+        .thenReturn(Optional.of(transaction));
+
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(dataSource).readFromReplica(any());
+    verify(delegate, times(2)).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void writtenTransactionIsReadFromPrimaryWithinPinWindow() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.save(transaction)).thenReturn(transaction);
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+
+    dao.save(transaction);
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(delegate).save(transaction);
+    verify(delegate).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void transactionStoredElsewhereIsReadFromPrimaryWithinPinWindow() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+
+    dao.stored(transaction);
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(delegate).stored(transaction);
+    verify(delegate).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void writtenTransactionIsReadFromReplicaAfterPinWindow() {
+    dao = new ReplicaRoutingEncryptedTransactionDAO(delegate, dataSource, Duration.ZERO);
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+
+    dao.addRecipientBox(HASH, mock(EncryptedTransactionBox.class));
+    assertThat(dao.retrieveByHash(HASH)).containsSame(transaction);
+
+    verify(delegate).addRecipientBox(eq(HASH), any());
+    verify(dataSource).readFromReplica(any());
+    verify(delegate).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void failedWriteStillPinsTransaction() {
+    final EncryptedTransaction transaction = transaction(HASH);
+    when(delegate.save(eq(transaction), any())).thenThrow(new PersistenceException("failed"));
+    when(delegate.retrieveByHash(HASH)).thenReturn(Optional.empty());
+
+    try {
+      dao.save(transaction, () -> null);
+    } catch (PersistenceException ex) {
+      // expected
+    }
+    assertThat(dao.retrieveByHash(HASH)).isEmpty();
+
+    verify(delegate).save(eq(transaction), any());
+    verify(delegate).retrieveByHash(HASH);
+  }
+
+  @Test
+  public void findByHashesReadsPinnedAndMissingTransactionsFromPrimary() {
+    final MessageHash missing = new MessageHash(new byte[] {3});
+    final EncryptedTransaction pinned = transaction(HASH);
+    final EncryptedTransaction other = transaction(OTHER_HASH);
+    final EncryptedTransaction lagging = transaction(missing);
+    when(delegate.update(pinned)).thenReturn(pinned);
+    when(delegate.findByHashes(List.of(OTHER_HASH, missing))).thenReturn(List.of(other));
+    when(delegate.findByHashes(List.of(HASH, missing))).thenReturn(List.of(pinned, lagging));
+
+    dao.update(pinned);
+    assertThat(dao.findByHashes(List.of(HASH, OTHER_HASH, missing, OTHER_HASH)))
+        .containsExactlyInAnyOrder(pinned, other, lagging);
+
+    verify(delegate).update(pinned);
+    verify(dataSource).readFromReplica(any());
+    verify(delegate).findByHashes(List.of(OTHER_HASH, missing));
+    verify(delegate).findByHashes(List.of(HASH, missing));
+  }
+
+  @Test
+  public void countsAndPagesReadFromReplica() {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    when(delegate.transactionCount()).thenReturn(2L);
+    when(delegate.transactionCount(key)).thenReturn(1L);
+    when(delegate.retrieveTransactions(0, 10)).thenReturn(List.of());
+
+    assertThat(dao.transactionCount()).isEqualTo(2);
+    assertThat(dao.transactionCount(key)).isEqualTo(1);
+    assertThat(dao.retrieveTransactions(0, 10)).isEmpty();
+
+    verify(dataSource, times(3)).readFromReplica(any());
+    verify(delegate).transactionCount();
+    verify(delegate).transactionCount(key);
+    verify(delegate).retrieveTransactions(0, 10);
+  }
+
+  @Test
+  public void streamsAndWritesUsePrimary() {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    final EncryptedTransaction transaction = transaction(HASH);
+
+    dao.streamAll(0L, null, 10);
+    dao.streamAll(key, 10);
+    dao.saveAll(List.of(transaction));
+    dao.delete(OTHER_HASH);
+    dao.isRecipientIndexComplete();
+    dao.upcheck();
+
+    verify(delegate).streamAll(0L, null, 10);
+    verify(delegate).streamAll(key, 10);
+    verify(delegate).saveAll(List.of(transaction));
+    verify(delegate).delete(OTHER_HASH);
+    verify(delegate).isRecipientIndexComplete();
+    verify(delegate).upcheck();
+  }
+
+  private static EncryptedTransaction transaction(final MessageHash hash) {
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(hash);
+    return transaction;
+  }
+}
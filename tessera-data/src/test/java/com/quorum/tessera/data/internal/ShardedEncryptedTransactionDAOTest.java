@@ -0,0 +1,217 @@
+package com.quorum.tessera.data.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.PersistenceException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedEncryptedTransactionDAOTest {
+
+  // hashes starting with a byte below 0x80 are in the first of two shards
+  private static final MessageHash LOW = new MessageHash(new byte[] {0x10});
+
+  private static final MessageHash LOWER = new MessageHash(new byte[] {0x01});
+
+  private static final MessageHash HIGH = new MessageHash(new byte[] {(byte) 0x90});
+
+  private EncryptedTransactionDAO first;
+
+  private EncryptedTransactionDAO second;
+
+  private ShardedEncryptedTransactionDAO dao;
+
+  @Before
+  public void beforeTest() {
+    first = mock(EncryptedTransactionDAO.class);
+    second = mock(EncryptedTransactionDAO.class);
+    dao = new ShardedEncryptedTransactionDAO(List.of(first, second));
+  }
+
+  @After
+  public void afterTest() {
+    verifyNoMoreInteractions(first, second);
+  }
+
+  @Test
+  public void singleTransactionOperationsGoToOneShard() throws Exception {
+    final EncryptedTransaction low = transaction(LOW, 1);
+    final EncryptedTransaction high = transaction(HIGH, 1);
+    final EncryptedTransactionBox box = mock(EncryptedTransactionBox.class);
+    when(first.save(low)).thenReturn(low);
+    when(second.retrieveByHash(HIGH)).thenReturn(Optional.of(high));
+
+    assertThat(dao.save(low)).isSameAs(low);
+    dao.save(high, () -> null);
+    dao.update(low);
+    dao.addRecipientBox(HIGH, box);
+    dao.addRecipientBoxes(LOW, List.of(box));
+    dao.delete(LOW);
+    assertThat(dao.retrieveByHash(HIGH)).containsSame(high);
+
+    verify(first).save(low);
+    verify(second).save(eq(high), any());
+    verify(first).update(low);
+    verify(second).addRecipientBox(HIGH, box);
+    verify(first).addRecipientBoxes(LOW, List.of(box));
+    verify(first).delete(LOW);
+    verify(second).retrieveByHash(HIGH);
+  }
+
+  @Test
+  public void findByHashesAsksEachShardForItsHashes() {
+    final EncryptedTransaction low = transaction(LOW, 1);
+    final EncryptedTransaction high = transaction(HIGH, 1);
+    when(first.findByHashes(List.of(LOW, LOWER))).thenReturn(List.of(low));
+    when(second.findByHashes(List.of(HIGH))).thenReturn(List.of(high));
+
+    assertThat(dao.findByHashes(List.of(LOW, HIGH, LOWER))).containsExactly(low, high);
+
+    verify(first).findByHashes(List.of(LOW, LOWER));
+    verify(second).findByHashes(List.of(HIGH));
+  }
+
+  @Test
+  public void findByHashesOnOneShardOnlyAsksThatShard() {
+    when(first.findByHashes(List.of(LOW))).thenReturn(List.of());
+
+    assertThat(dao.findByHashes(List.of(LOW))).isEmpty();
+    assertThat(dao.findByHashes(List.of())).isEmpty();
+
+    verify(first).findByHashes(List.of(LOW));
+  }
+
+  @Test
+  public void saveAllReturnsConflictsFromEveryShard() {
+    final EncryptedTransaction low = transaction(LOW, 1);
+    final EncryptedTransaction high = transaction(HIGH, 1);
+    when(first.saveAll(List.of(low))).thenReturn(List.of());
+    when(second.saveAll(List.of(high))).thenReturn(List.of(high));
+
+    assertThat(dao.saveAll(List.of(high, low))).containsExactly(high);
+
+    verify(first).saveAll(List.of(low));
+    verify(second).saveAll(List.of(high));
+  }
+
+  @Test
+  public void shardFailureIsRethrown() {
+    final PersistenceException exception = new PersistenceException("shard down");
+    when(first.findByHashes(any())).thenReturn(List.of());
+    when(second.findByHashes(any())).thenThrow(exception);
+
+    assertThat(catchThrowable(() -> dao.findByHashes(List.of(LOW, HIGH)))).isSameAs(exception);
+
+    verify(first).findByHashes(List.of(LOW));
+    verify(second).findByHashes(List.of(HIGH));
+  }
+
+  @Test
+  public void countsAreSummedAcrossShards() {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    when(first.transactionCount()).thenReturn(2L);
+    when(second.transactionCount()).thenReturn(3L);
+    when(first.transactionCount(key)).thenReturn(1L);
+    when(second.transactionCount(key)).thenReturn(0L);
+
+    assertThat(dao.transactionCount()).isEqualTo(5);
+    assertThat(dao.transactionCount(key)).isEqualTo(1);
+
+    verify(first).transactionCount();
+    verify(second).transactionCount();
+    verify(first).transactionCount(key);
+    verify(second).transactionCount(key);
+  }
+
+  @Test
+  public void checksRequireEveryShard() {
+    when(first.upcheck()).thenReturn(true);
+    when(second.upcheck()).thenReturn(false);
+    when(first.isRecipientIndexComplete()).thenReturn(true);
+    when(second.isRecipientIndexComplete()).thenReturn(true);
+
+    assertThat(dao.upcheck()).isFalse();
+    assertThat(dao.isRecipientIndexComplete()).isTrue();
+
+    verify(first).upcheck();
+    verify(second).upcheck();
+    verify(first).isRecipientIndexComplete();
+    verify(second).isRecipientIndexComplete();
+  }
+
+  @Test
+  public void streamsAreMergedInTimestampThenHashOrder() {
+    final AtomicBoolean firstClosed = new AtomicBoolean();
+    final AtomicBoolean secondClosed = new AtomicBoolean();
+    when(first.streamAll(5L, LOW, 10))
+        .thenReturn(
+            Stream.of(transaction(LOWER, 10), transaction(LOW, 10), transaction(LOW, 30))
+                .onClose(() -> firstClosed.set(true)));
+    when(second.streamAll(5L, LOW, 10))
+        .thenReturn(
+            Stream.of(transaction(HIGH, 5), transaction(HIGH, 20))
+                .onClose(() -> secondClosed.set(true)));
+
+    try (Stream<EncryptedTransaction> stream = dao.streamAll(5L, LOW, 10)) {
+      assertThat(stream.map(tx -> tx.getTimestamp() + ":" + tx.getHash()))
+          .containsExactly(
+              "5:" + HIGH, "10:" + LOWER, "10:" + LOW, "20:" + HIGH, "30:" + LOW);
+    }
+    assertThat(firstClosed).isTrue();
+    assertThat(secondClosed).isTrue();
+
+    verify(first).streamAll(5L, LOW, 10);
+    verify(second).streamAll(5L, LOW, 10);
+  }
+
+  @Test
+  public void streamForKeyIsMergedFromEveryShard() {
+    final PublicKey key = PublicKey.from("key".getBytes());
+    when(first.streamAll(key, 10)).thenReturn(Stream.of(transaction(LOW, 2)));
+    when(second.streamAll(key, 10)).thenReturn(Stream.empty());
+
+    assertThat(dao.streamAll(key, 10).map(EncryptedTransaction::getHash)).containsExactly(LOW);
+
+    verify(first).streamAll(key, 10);
+    verify(second).streamAll(key, 10);
+  }
+
+  @Test
+  public void retrieveTransactionsPagesThroughMergedOrder() {
+    when(first.streamAll(Long.MIN_VALUE, null, 2))
+        .thenReturn(Stream.of(transaction(LOW, 1), transaction(LOW, 3), transaction(LOW, 5)));
+    when(second.streamAll(Long.MIN_VALUE, null, 2))
+        .thenReturn(Stream.of(transaction(HIGH, 2), transaction(HIGH, 4)));
+
+    final List<Long> page =
+        dao.retrieveTransactions(1, 2).stream()
+            .map(EncryptedTransaction::getTimestamp)
+            .collect(Collectors.toList());
+
+    assertThat(page).containsExactly(2L, 3L);
+
+    verify(first).streamAll(Long.MIN_VALUE, null, 2);
+    verify(second).streamAll(Long.MIN_VALUE, null, 2);
+  }
+
+  private static EncryptedTransaction transaction(final MessageHash hash, final long timestamp) {
+    final EncryptedTransaction transaction = new EncryptedTransaction();
+    transaction.setHash(hash);
+    transaction.setTimestamp(timestamp);
+    return transaction;
+  }
+}
@@ -0,0 +1,104 @@
+package com.quorum.tessera.data.logstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.quorum.tessera.data.EncryptedRawTransaction;
+import com.quorum.tessera.data.MessageHash;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStoreEncryptedRawTransactionDAOTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path directory;
+
+  private LogStore logStore;
+
+  private LogStoreEncryptedRawTransactionDAO rawTransactionDAO;
+
+  @Before
+  public void beforeTest() {
+    directory = workDir.getRoot().toPath();
+    logStore = new LogStore(directory);
+    rawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+  }
+
+  @After
+  public void afterTest() {
+    logStore.close();
+  }
+
+  @Test
+  public void saveRetrieveAndReplay() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+
+    rawTransactionDAO.save(rawTransaction(hash));
+
+    final EncryptedRawTransaction retrieved = reopen().retrieveByHash(hash).get();
+    assertThat(retrieved.getEncryptedPayload()).isEqualTo("payload".getBytes());
+    assertThat(retrieved.getEncryptedKey()).isEqualTo("key".getBytes());
+    assertThat(retrieved.getNonce()).isEqualTo("nonce".getBytes());
+    assertThat(retrieved.getSender()).isEqualTo("sender".getBytes());
+    assertThat(retrieved.getTimestamp()).isPositive();
+    assertThat(rawTransactionDAO.transactionCount()).isEqualTo(1);
+    assertThat(rawTransactionDAO.upcheck()).isTrue();
+  }
+
+  @Test
+  public void saveExistingHashIsRejected() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    rawTransactionDAO.save(rawTransaction(hash));
+
+    assertThatExceptionOfType(EntityExistsException.class)
+        .isThrownBy(() -> rawTransactionDAO.save(rawTransaction(hash)));
+  }
+
+  @Test
+  public void deleteIsReplayed() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    rawTransactionDAO.save(rawTransaction(hash));
+
+    rawTransactionDAO.delete(hash);
+
+    assertThat(reopen().retrieveByHash(hash)).isEmpty();
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(() -> rawTransactionDAO.delete(hash));
+  }
+
+  @Test
+  public void copiedTransactionsAreRetrievedInTimestampOrder() {
+    final EncryptedRawTransaction later = rawTransaction(new MessageHash(new byte[] {1}));
+    later.setTimestamp(200);
+    final EncryptedRawTransaction earlier = rawTransaction(new MessageHash(new byte[] {2}));
+    earlier.setTimestamp(100);
+
+    assertThat(rawTransactionDAO.copyAll(List.of(later, earlier))).isEqualTo(2);
+    assertThat(rawTransactionDAO.copyAll(List.of(later))).isZero();
+
+    assertThat(reopen().retrieveTransactions(0, 10))
+        .extracting(EncryptedRawTransaction::getTimestamp)
+        .containsExactly(100L, 200L);
+    assertThat(rawTransactionDAO.retrieveTransactions(1, 10)).hasSize(1);
+  }
+
+  private LogStoreEncryptedRawTransactionDAO reopen() {
+    logStore.close();
+    logStore = new LogStore(directory);
+    rawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+    return rawTransactionDAO;
+  }
+
+  private static EncryptedRawTransaction rawTransaction(final MessageHash hash) {
+    return new EncryptedRawTransaction(
+        hash, "payload".getBytes(), "key".getBytes(), "nonce".getBytes(), "sender".getBytes());
+  }
+}
@@ -0,0 +1,301 @@
+package com.quorum.tessera.data.logstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionBox;
+import com.quorum.tessera.data.EncryptedTransactionListener;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RecipientBox;
+import com.quorum.tessera.encryption.PublicKey;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityNotFoundException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStoreEncryptedTransactionDAOTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private final PublicKey alice = PublicKey.from("alice".getBytes());
+
+  private final PublicKey bob = PublicKey.from("bob".getBytes());
+
+  private final PublicKey carol = PublicKey.from("carol".getBytes());
+
+  private Path directory;
+
+  private LogStore logStore;
+
+  private LogStoreEncryptedTransactionDAO transactionDAO;
+
+  @Before
+  public void beforeTest() {
+    directory = workDir.getRoot().toPath();
+    logStore = new LogStore(directory);
+    transactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+  }
+
+  @After
+  public void afterTest() {
+    logStore.close();
+  }
+
+  @Test
+  public void saveAndRetrieve() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    final EncodedPayload payload = payload(alice, bob);
+
+    transactionDAO.save(new EncryptedTransaction(hash, payload));
+
+    final EncryptedTransaction retrieved = transactionDAO.retrieveByHash(hash).get();
+    assertThat(retrieved.getPayload()).isEqualTo(payload);
+    assertThat(retrieved.getTimestamp()).isPositive();
+    assertThat(transactionDAO.transactionCount()).isEqualTo(1);
+    assertThat(transactionDAO.retrieveByHash(new MessageHash("other".getBytes()))).isEmpty();
+    assertThat(transactionDAO.upcheck()).isTrue();
+  }
+
+  @Test
+  public void saveExistingHashIsRejected() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    transactionDAO.save(new EncryptedTransaction(hash, payload(alice, bob)));
+
+    assertThatExceptionOfType(EntityExistsException.class)
+        .isThrownBy(
+            () -> transactionDAO.save(new EncryptedTransaction(hash, payload(alice, carol))));
+  }
+
+  @Test
+  public void failedCallbackLeavesNothingStored() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(
+            () ->
+                transactionDAO.save(
+                    new EncryptedTransaction(hash, payload(alice, bob)),
+                    () -> {
+                      assertThat(transactionDAO.retrieveByHash(hash)).isEmpty();
+                      assertThat(recordCount()).isZero();
+                      throw new IllegalStateException("publish failed");
+                    }));
+
+    assertThat(transactionDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(recordCount()).isZero();
+    assertThat(reopen().retrieveByHash(hash)).isEmpty();
+  }
+
+  @Test
+  public void recordIsAppendedOnceCallbackSucceeds() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+
+    transactionDAO.save(
+        new EncryptedTransaction(hash, payload(alice, bob)),
+        () -> {
+          assertThat(recordCount()).isZero();
+          return null;
+        });
+
+    assertThat(recordCount()).isEqualTo(1);
+    assertThat(reopen().retrieveByHash(hash)).isPresent();
+  }
+
+  private int recordCount() {
+    final AtomicInteger count = new AtomicInteger();
+    logStore.replay((location, type, body) -> count.incrementAndGet());
+    return count.get();
+  }
+
+  @Test
+  public void saveAllReturnsConflicts() {
+    final MessageHash first = new MessageHash("first".getBytes());
+    final MessageHash second = new MessageHash("second".getBytes());
+    transactionDAO.save(new EncryptedTransaction(first, payload(alice, bob)));
+
+    final EncryptedTransaction duplicate = new EncryptedTransaction(first, payload(alice, carol));
+    final List<EncryptedTransaction> conflicts =
+        transactionDAO.saveAll(
+            List.of(duplicate, new EncryptedTransaction(second, payload(alice, carol))));
+
+    assertThat(conflicts).containsExactly(duplicate);
+    assertThat(transactionDAO.transactionCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void streamAllInTimestampThenHashOrder() {
+    final List<MessageHash> hashes =
+        List.of(
+            new MessageHash(new byte[] {3}),
+            new MessageHash(new byte[] {1}),
+            new MessageHash(new byte[] {(byte) 0xff}),
+            new MessageHash(new byte[] {2}));
+    for (int i = 0; i < hashes.size(); i++) {
+      final EncryptedTransaction transaction =
+          new EncryptedTransaction(hashes.get(i), payload(alice, bob));
+      transaction.setTimestamp(i < 2 ? 100 : 200);
+      transactionDAO.copyAll(List.of(withEncodedPayload(transaction)));
+    }
+
+    assertThat(transactionDAO.streamAll(10).map(EncryptedTransaction::getHash))
+        .containsExactly(hashes.get(1), hashes.get(0), hashes.get(3), hashes.get(2));
+    assertThat(transactionDAO.streamAll(100, hashes.get(0), 10).map(EncryptedTransaction::getHash))
+        .containsExactly(hashes.get(3), hashes.get(2));
+    assertThat(transactionDAO.streamAll(200, null, 10).map(EncryptedTransaction::getHash))
+        .containsExactly(hashes.get(3), hashes.get(2));
+    assertThat(transactionDAO.retrieveTransactions(1, 2))
+        .extracting(EncryptedTransaction::getHash)
+        .containsExactly(hashes.get(0), hashes.get(3));
+  }
+
+  @Test
+  public void transactionsForKey() {
+    final MessageHash first = new MessageHash("first".getBytes());
+    final MessageHash second = new MessageHash("second".getBytes());
+    transactionDAO.save(new EncryptedTransaction(first, payload(alice, bob)));
+    transactionDAO.save(new EncryptedTransaction(second, payload(bob, carol)));
+
+    assertThat(transactionDAO.isRecipientIndexComplete()).isTrue();
+    assertThat(transactionDAO.streamAll(bob, 0).map(EncryptedTransaction::getHash))
+        .containsExactlyInAnyOrder(first, second);
+    assertThat(transactionDAO.transactionCount(carol)).isEqualTo(1);
+    assertThat(transactionDAO.transactionCount(alice)).isEqualTo(1);
+  }
+
+  @Test
+  public void addedBoxesAreMergedAndReplayed() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    transactionDAO.save(new EncryptedTransaction(hash, payload(alice, bob)));
+
+    transactionDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.prepended(carol, RecipientBox.from("carolBox".getBytes())));
+
+    final EncodedPayload merged = transactionDAO.retrieveByHash(hash).get().getPayload();
+    assertThat(merged.getRecipientKeys()).containsExactly(carol, bob);
+    assertThat(merged.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("carolBox".getBytes()), RecipientBox.from("bobBox".getBytes()));
+
+    assertThat(reopen().retrieveByHash(hash).get().getPayload()).isEqualTo(merged);
+  }
+
+  @Test
+  public void boxesAddedTogetherAreReplayedInOrder() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    transactionDAO.save(new EncryptedTransaction(hash, payload(alice, bob)));
+
+    transactionDAO.addRecipientBoxes(
+        hash,
+        List.of(
+            EncryptedTransactionBox.prepended(carol, RecipientBox.from("carolBox".getBytes())),
+            EncryptedTransactionBox.prepended(alice, RecipientBox.from("aliceBox".getBytes()))));
+
+    final EncodedPayload merged = reopen().retrieveByHash(hash).get().getPayload();
+    assertThat(merged.getRecipientKeys()).containsExactly(alice, carol, bob);
+    assertThat(merged.getRecipientBoxes())
+        .containsExactly(
+            RecipientBox.from("aliceBox".getBytes()),
+            RecipientBox.from("carolBox".getBytes()),
+            RecipientBox.from("bobBox".getBytes()));
+  }
+
+  @Test
+  public void addRecipientBoxToUnknownTransaction() {
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(
+            () ->
+                transactionDAO.addRecipientBox(
+                    new MessageHash("unknown".getBytes()),
+                    EncryptedTransactionBox.appended(carol, RecipientBox.from("box".getBytes()))));
+  }
+
+  @Test
+  public void updateReplacesPayloadAndAddedBoxes() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    transactionDAO.save(new EncryptedTransaction(hash, payload(alice, bob)));
+    final long timestamp = transactionDAO.retrieveByHash(hash).get().getTimestamp();
+    transactionDAO.addRecipientBox(
+        hash, EncryptedTransactionBox.appended(carol, RecipientBox.from("carolBox".getBytes())));
+
+    final EncryptedTransaction updated = new EncryptedTransaction(hash, payload(alice, carol));
+    transactionDAO.update(updated);
+
+    final EncryptedTransaction retrieved = reopen().retrieveByHash(hash).get();
+    assertThat(retrieved.getPayload()).isEqualTo(payload(alice, carol));
+    assertThat(retrieved.getAddedBoxes()).isEmpty();
+    assertThat(retrieved.getTimestamp()).isEqualTo(timestamp);
+  }
+
+  @Test
+  public void deleteIsReplayed() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    transactionDAO.save(new EncryptedTransaction(hash, payload(alice, bob)));
+
+    transactionDAO.delete(hash);
+
+    assertThat(transactionDAO.retrieveByHash(hash)).isEmpty();
+    assertThat(reopen().transactionCount()).isZero();
+    assertThatExceptionOfType(EntityNotFoundException.class)
+        .isThrownBy(() -> transactionDAO.delete(hash));
+  }
+
+  @Test
+  public void copyAllKeepsStoredFieldsAndSkipsExisting() {
+    final MessageHash hash = new MessageHash("hash".getBytes());
+    final EncryptedTransaction transaction =
+        withEncodedPayload(new EncryptedTransaction(hash, payload(alice, bob)));
+    transaction.setTimestamp(1234);
+    transaction.setAddedBoxes(
+        List.of(EncryptedTransactionBox.appended(carol, RecipientBox.from("carolBox".getBytes()))));
+
+    assertThat(transactionDAO.copyAll(List.of(transaction))).isEqualTo(1);
+    assertThat(transactionDAO.copyAll(List.of(transaction))).isZero();
+
+    final EncryptedTransaction copied = reopen().retrieveByHash(hash).get();
+    assertThat(copied.getTimestamp()).isEqualTo(1234);
+    assertThat(copied.getEncodedPayload()).isEqualTo(transaction.getEncodedPayload());
+    assertThat(copied.getPayload().getRecipientKeys()).containsExactly(bob, carol);
+  }
+
+  @Test
+  public void findByHashes() {
+    final MessageHash first = new MessageHash("first".getBytes());
+    transactionDAO.save(new EncryptedTransaction(first, payload(alice, bob)));
+
+    assertThat(transactionDAO.findByHashes(List.of()).isEmpty()).isTrue();
+    assertThat(transactionDAO.findByHashes(List.of(first, new MessageHash("other".getBytes()))))
+        .extracting(EncryptedTransaction::getHash)
+        .containsExactly(first);
+  }
+
+  private LogStoreEncryptedTransactionDAO reopen() {
+    logStore.close();
+    logStore = new LogStore(directory);
+    transactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+    return transactionDAO;
+  }
+
+  private static EncryptedTransaction withEncodedPayload(final EncryptedTransaction transaction) {
+    new EncryptedTransactionListener().onSave(transaction);
+    return transaction;
+  }
+
+  private static EncodedPayload payload(final PublicKey sender, final PublicKey recipient) {
+    return EncodedPayload.Builder.create()
+        .withSenderKey(sender)
+        .withCipherText("cipherText".getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(recipient))
+        .withRecipientBoxes(List.of((new String(recipient.getKeyBytes()) + "Box").getBytes()))
+        .build();
+  }
+}
@@ -0,0 +1,222 @@
+package com.quorum.tessera.data.logstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogStoreTest {
+
+  @Rule public TemporaryFolder workDir = new TemporaryFolder();
+
+  private Path directory;
+
+  private LogStore logStore;
+
+  @Before
+  public void beforeTest() {
+    directory = workDir.getRoot().toPath().resolve("store");
+    logStore = new LogStore(directory, 64);
+  }
+
+  @After
+  public void afterTest() {
+    logStore.close();
+  }
+
+  @Test
+  public void appendedRecordsAreReadBack() {
+    final long first = logStore.append((byte) 1, body("first"));
+    final long second = logStore.append((byte) 2, body("second"));
+    logStore.sync(second);
+
+    assertThat(text(logStore.read(first))).isEqualTo("first");
+    assertThat(text(logStore.read(second))).isEqualTo("second");
+    assertThat(second).isGreaterThan(first);
+  }
+
+  @Test
+  public void recordsAreReplayedInOrderWhenReopened() {
+    final List<String> written = new ArrayList<>();
+    long last = 0;
+    for (int i = 0; i < 10; i++) {
+      written.add("record" + i);
+      last = logStore.append((byte) 1, body("record" + i));
+    }
+    logStore.sync(last);
+    logStore.close();
+
+    logStore = new LogStore(directory, 64);
+    final List<String> replayed = new ArrayList<>();
+    logStore.replay((location, type, body) -> replayed.add(text(body)));
+
+    assertThat(replayed).isEqualTo(written);
+  }
+
+  @Test
+  public void segmentsRollWhenFull() throws IOException {
+    long last = 0;
+    for (int i = 0; i < 10; i++) {
+      last = logStore.append((byte) 1, body("record" + i));
+    }
+    logStore.sync(last);
+
+    assertThat(segmentFiles()).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  public void segmentsBeforeALocationAreDiscarded() throws IOException {
+    final List<Long> locations = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      locations.add(logStore.append((byte) 1, body("record" + i)));
+    }
+    final long last = locations.get(locations.size() - 1);
+    logStore.sync(last);
+    final int segments = segmentFiles().size();
+
+    final int discarded = logStore.discardBefore(last);
+
+    assertThat(discarded).isEqualTo(segments - 1);
+    assertThat(segmentFiles()).hasSize(1);
+    assertThat(text(logStore.read(last))).isEqualTo("record9");
+
+    logStore.close();
+    logStore = new LogStore(directory, 64);
+    final List<String> replayed = new ArrayList<>();
+    logStore.replay((location, type, body) -> replayed.add(text(body)));
+    assertThat(replayed).last().isEqualTo("record9");
+    assertThat(replayed).doesNotContain("record0");
+  }
+
+  @Test
+  public void activeSegmentIsNeverDiscarded() throws IOException {
+    final long location = logStore.append((byte) 1, body("record"));
+    logStore.sync(location);
+
+    assertThat(logStore.discardBefore(Long.MAX_VALUE)).isZero();
+    assertThat(segmentFiles()).hasSize(1);
+  }
+
+  @Test
+  public void recordLargerThanASegmentHasASegmentOfItsOwn() {
+    final String large = "x".repeat(200);
+
+    final long location = logStore.append((byte) 1, body(large));
+    logStore.sync(location);
+
+    assertThat(text(logStore.read(location))).isEqualTo(large);
+  }
+
+  @Test
+  public void incompleteRecordIsDiscardedWhenReopened() throws IOException {
+    final long location = logStore.append((byte) 1, body("complete"));
+    logStore.sync(location);
+    logStore.close();
+
+    // a header that claims more bytes than were written, as a crash part way through would leave
+    try (FileChannel channel =
+        FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+      final ByteBuffer torn = ByteBuffer.allocate(LogStore.HEADER_SIZE + 2);
+      torn.putInt(20).putInt(12345).put((byte) 1).put((byte) 'x').put((byte) 'y').flip();
+      channel.write(torn, LogStore.HEADER_SIZE + "complete".length());
+    }
+
+    logStore = new LogStore(directory, 64);
+    final List<String> replayed = new ArrayList<>();
+    logStore.replay((l, type, body) -> replayed.add(text(body)));
+    assertThat(replayed).containsExactly("complete");
+
+    final long next = logStore.append((byte) 1, body("next"));
+    assertThat(text(logStore.read(next))).isEqualTo("next");
+  }
+
+  @Test
+  public void concurrentWritersShareSyncs() throws Exception {
+    logStore.close();
+    logStore = new LogStore(directory);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Long>> writes = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final String text = "record" + i;
+        writes.add(
+            executor.submit(
+                () -> {
+                  final long location = logStore.append((byte) 1, body(text));
+                  logStore.sync(location);
+                  return location;
+                }));
+      }
+      for (Future<Long> write : writes) {
+        write.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    final List<String> replayed = new ArrayList<>();
+    logStore.replay((l, type, body) -> replayed.add(text(body)));
+    assertThat(replayed).hasSize(200);
+  }
+
+  @Test
+  public void directoryCanOnlyBeOpenedOnce() {
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> new LogStore(directory, 64))
+        .withMessageContaining("already in use");
+  }
+
+  @Test
+  public void closedStoreIsNotReadable() {
+    final long location = logStore.append((byte) 1, body("record"));
+    logStore.close();
+
+    assertThat(logStore.isOpen()).isFalse();
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> logStore.read(location));
+  }
+
+  @Test
+  public void recordTypeMustNotBeZero() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> logStore.append((byte) 0, body("record")));
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.toString().endsWith(".log"))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static ByteBuffer body(final String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String text(final ByteBuffer body) {
+    final byte[] bytes = new byte[body.remaining()];
+    body.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
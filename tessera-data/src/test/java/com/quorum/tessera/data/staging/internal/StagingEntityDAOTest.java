@@ -297,6 +297,32 @@ public class StagingEntityDAOTest {
     retrieved.getAffectedContractTransactions().forEach(a -> assertThat(a.getId()).isNotNull());
   }
 
+  @Test
+  public void testSaveAll() {
+
+    final StagingEntityDAO dao = new StagingEntityDAOImpl(entityManagerFactory, 2);
+
+    final List<StagingTransaction> stagingTransactions =
+        Stream.generate(Utils::createHashStr)
+            .limit(5)
+            .map(
+                txHash -> {
+                  final StagingTransaction stagingTransaction = new StagingTransaction();
+                  stagingTransaction.setHash(txHash);
+                  stagingTransaction.setPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+                  stagingTransaction.setEncodedPayloadCodec(CODEC);
+                  stagingTransaction.setPayload(payloadData);
+                  return stagingTransaction;
+                })
+            .collect(Collectors.toList());
+
+    final List<StagingTransaction> failed = dao.saveAll(stagingTransactions);
+
+    assertThat(failed).isEmpty();
+    assertThat(dao.countAll()).isEqualTo(transactions.size() + 5L);
+    stagingTransactions.forEach(t -> assertThat(dao.retrieveByHash(t.getHash())).isPresent());
+  }
+
   public Map<String, StagingTransaction> createFixtures() {
 
     final EntityManager entityManager = entityManagerFactory.createEntityManager();
@@ -1,6 +1,7 @@
 package com.quorum.tessera.launcher;
 
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
 import com.quorum.tessera.config.util.IntervalPropertyHelper;
 import com.quorum.tessera.discovery.EnclaveKeySynchroniser;
 import com.quorum.tessera.enclave.Enclave;
@@ -11,8 +12,10 @@ import com.quorum.tessera.p2p.resend.TransactionRequester;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.service.ServiceContainer;
 import com.quorum.tessera.threading.TesseraScheduledExecutor;
+import com.quorum.tessera.transaction.publish.OutboxDispatcher;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.concurrent.ScheduledExecutorService;
 import org.slf4j.Logger;
@@ -91,6 +94,24 @@ public class ScheduledServiceFactory {
             intervalPropertyHelper.partyInfoInterval(),
             5000L));
 
+    final boolean outboxDelivery =
+        Optional.ofNullable(config.getJdbcConfig()).filter(JdbcConfig::isOutboxDelivery).isPresent();
+    if (outboxDelivery) {
+      LOGGER.info("Creating OutboxDispatcher");
+      final OutboxDispatcher outboxDispatcher =
+          OutboxDispatcher.create(
+              intervalPropertyHelper.outboxDispatchInterval(),
+              intervalPropertyHelper.outboxMaxRetryDelay());
+      LOGGER.info("Created OutboxDispatcher {}", outboxDispatcher);
+
+      tesseraScheduledExecutors.add(
+          new TesseraScheduledExecutor(
+              java.util.concurrent.Executors.newSingleThreadScheduledExecutor(),
+              outboxDispatcher,
+              intervalPropertyHelper.outboxDispatchInterval(),
+              5000L));
+    }
+
     tesseraScheduledExecutors.forEach(TesseraScheduledExecutor::start);
 
     LOGGER.info("Creating Enclave");
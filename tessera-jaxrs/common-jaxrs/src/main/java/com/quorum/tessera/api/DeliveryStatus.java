@@ -0,0 +1,77 @@
+package com.quorum.tessera.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Model representation of a JSON body on outgoing HTTP responses
+ *
+ * <p>A push of a sent transaction to one of its recipients that is still waiting in the outbox
+ */
+public class DeliveryStatus {
+
+  @Schema(description = "public key of the recipient the push is to", format = "base64")
+  private String recipient;
+
+  @Schema(description = "number of times the push has failed")
+  private int attempts;
+
+  @Schema(description = "when the push was queued, in milliseconds since the epoch")
+  private long queuedAt;
+
+  @Schema(description = "when the push will next be made, in milliseconds since the epoch")
+  private long nextAttempt;
+
+  @Schema(description = "the error the last attempt failed with, if there was one")
+  private String lastError;
+
+  public DeliveryStatus(
+      String recipient, int attempts, long queuedAt, long nextAttempt, String lastError) {
+    this.recipient = recipient;
+    this.attempts = attempts;
+    this.queuedAt = queuedAt;
+    this.nextAttempt = nextAttempt;
+    this.lastError = lastError;
+  }
+
+  public DeliveryStatus() {}
+
+  public String getRecipient() {
+    return recipient;
+  }
+
+  public void setRecipient(String recipient) {
+    this.recipient = recipient;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public long getQueuedAt() {
+    return queuedAt;
+  }
+
+  public void setQueuedAt(long queuedAt) {
+    this.queuedAt = queuedAt;
+  }
+
+  public long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(long nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = lastError;
+  }
+}
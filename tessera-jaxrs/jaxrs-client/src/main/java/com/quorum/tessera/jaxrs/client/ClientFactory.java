@@ -72,11 +72,14 @@ public class ClientFactory implements RestClientFactory {
     clientBuilder.connectTimeout(timeout, TimeUnit.MILLISECONDS);
     clientBuilder.readTimeout(timeout, TimeUnit.MILLISECONDS);
     clientBuilder.register(VersionHeaderDecorator.class);
+    clientBuilder.register(EncodedPayloadProvider.class);
 
     if (config.isUnixSocket()) {
       Configuration clientConfig = createUnixServerSocketConfig();
       URI unixfile = config.getServerUri();
-      return ClientBuilder.newClient(clientConfig).property("unixfile", unixfile);
+      return ClientBuilder.newClient(clientConfig)
+          .register(EncodedPayloadProvider.class)
+          .property("unixfile", unixfile);
 
     } else if (config.isSsl()) {
       final SSLContext sslContext =
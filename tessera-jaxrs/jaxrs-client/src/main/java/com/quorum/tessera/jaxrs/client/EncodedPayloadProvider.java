@@ -0,0 +1,128 @@
+package com.quorum.tessera.jaxrs.client;
+
+import static java.util.Collections.emptyList;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.shared.Constants;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes an {@link EncodedPayload} entity straight to the entity stream, and reads one from it,
+ * without first encoding it to a separate byte array.
+ *
+ * <p>The codec is named by the {@value #CODEC_PARAMETER} parameter of the media type, see {@link
+ * #mediaType(EncodedPayloadCodec)}. When it is not given, a payload is read with the codec
+ * preferred by the API versions the sender advertised, as the {@code /push} endpoint always has,
+ * and written as {@link EncodedPayloadCodec#LEGACY}.
+ */
+@Provider
+public class EncodedPayloadProvider
+    implements MessageBodyReader<EncodedPayload>, MessageBodyWriter<EncodedPayload> {
+
+  public static final String CODEC_PARAMETER = "codec";
+
+  /**
+   * @param codec the codec the payload is encoded with
+   * @return the octet stream media type, naming the codec
+   */
+  public static MediaType mediaType(final EncodedPayloadCodec codec) {
+    return new MediaType(
+        MediaType.APPLICATION_OCTET_STREAM_TYPE.getType(),
+        MediaType.APPLICATION_OCTET_STREAM_TYPE.getSubtype(),
+        Map.of(CODEC_PARAMETER, codec.name()));
+  }
+
+  @Override
+  public boolean isReadable(
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    return EncodedPayload.class.isAssignableFrom(type);
+  }
+
+  @Override
+  public EncodedPayload readFrom(
+      final Class<EncodedPayload> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType,
+      final MultivaluedMap<String, String> httpHeaders,
+      final InputStream entityStream)
+      throws IOException {
+    final EncodedPayloadCodec codec =
+        codec(mediaType)
+            .orElseGet(
+                () -> {
+                  final Set<String> versions =
+                      Optional.ofNullable(httpHeaders.get(Constants.API_VERSION_HEADER))
+                          .orElse(emptyList())
+                          .stream()
+                          .filter(Objects::nonNull)
+                          .flatMap(v -> Arrays.stream(v.split(",")))
+                          .collect(Collectors.toSet());
+                  return EncodedPayloadCodec.getPreferredCodec(versions);
+                });
+
+    // decoders read the payload from an array, which may be a view over it
+    return PayloadEncoder.create(codec).decode(entityStream.readAllBytes());
+  }
+
+  @Override
+  public boolean isWriteable(
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    return EncodedPayload.class.isAssignableFrom(type);
+  }
+
+  @Override
+  public void writeTo(
+      final EncodedPayload payload,
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType,
+      final MultivaluedMap<String, Object> httpHeaders,
+      final OutputStream entityStream)
+      throws IOException {
+    final EncodedPayloadCodec codec = codec(mediaType).orElse(EncodedPayloadCodec.LEGACY);
+    PayloadEncoder.create(codec).encode(payload, entityStream);
+  }
+
+  /**
+   * @param mediaType the media type of an entity, which may be null
+   * @return the codec named by the media type, if it names one
+   * @throws BadRequestException if the codec it names is not known
+   */
+  public static Optional<EncodedPayloadCodec> codec(final MediaType mediaType) {
+    return Optional.ofNullable(mediaType)
+        .map(MediaType::getParameters)
+        .map(parameters -> parameters.get(CODEC_PARAMETER))
+        .map(
+            name ->
+                Arrays.stream(EncodedPayloadCodec.values())
+                    .filter(c -> c.name().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestException("Unknown payload codec " + name)));
+  }
+}
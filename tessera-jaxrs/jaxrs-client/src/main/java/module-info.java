@@ -1,6 +1,7 @@
 module tessera.jaxrs.client {
   requires jakarta.ws.rs;
   requires tessera.config;
+  requires tessera.enclave.api;
   requires tessera.security;
   requires tessera.shared;
   requires tessera.context;
@@ -46,6 +46,7 @@ public class ClientFactoryTest {
 
     Client client = factory.buildFrom(serverConfig);
     assertThat(client).isNotNull();
+    assertThat(client.getConfiguration().isRegistered(EncodedPayloadProvider.class)).isTrue();
   }
 
   @Test
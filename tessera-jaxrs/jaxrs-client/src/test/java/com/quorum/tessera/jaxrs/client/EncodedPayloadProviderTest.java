@@ -0,0 +1,134 @@
+package com.quorum.tessera.jaxrs.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.shared.Constants;
+import com.quorum.tessera.version.BaseVersion;
+import com.quorum.tessera.version.CBORSupportVersion;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class EncodedPayloadProviderTest {
+
+  private final EncodedPayloadProvider provider = new EncodedPayloadProvider();
+
+  private final EncodedPayload payload =
+      EncodedPayload.Builder.create()
+          .withSenderKey(PublicKey.from("sender".getBytes()))
+          .withCipherText("text".getBytes())
+          .withCipherTextNonce(new Nonce("cipherTextNonce".getBytes()))
+          .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+          .withRecipientBoxes(List.of("box".getBytes()))
+          .withRecipientKeys(List.of(PublicKey.from("recipient".getBytes())))
+          .build();
+
+  @Test
+  public void writesWithTheCodecOfTheMediaType() throws IOException {
+    for (EncodedPayloadCodec codec : EncodedPayloadCodec.values()) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+      provider.writeTo(
+          payload,
+          EncodedPayload.class,
+          EncodedPayload.class,
+          null,
+          EncodedPayloadProvider.mediaType(codec),
+          new MultivaluedHashMap<>(),
+          output);
+
+      assertThat(output.toByteArray()).isEqualTo(PayloadEncoder.create(codec).encode(payload));
+    }
+  }
+
+  @Test
+  public void writesLegacyWithoutACodec() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    provider.writeTo(
+        payload,
+        EncodedPayload.class,
+        EncodedPayload.class,
+        null,
+        MediaType.TEXT_PLAIN_TYPE,
+        new MultivaluedHashMap<>(),
+        output);
+
+    assertThat(output.toByteArray())
+        .isEqualTo(PayloadEncoder.create(EncodedPayloadCodec.LEGACY).encode(payload));
+  }
+
+  @Test
+  public void readsWithTheCodecOfTheMediaType() throws IOException {
+    final byte[] encoded = PayloadEncoder.create(EncodedPayloadCodec.CBOR).encode(payload);
+
+    final EncodedPayload result =
+        provider.readFrom(
+            EncodedPayload.class,
+            EncodedPayload.class,
+            null,
+            EncodedPayloadProvider.mediaType(EncodedPayloadCodec.CBOR),
+            new MultivaluedHashMap<>(),
+            new ByteArrayInputStream(encoded));
+
+    assertThat(result).isEqualTo(payload);
+  }
+
+  @Test
+  public void readsWithTheCodecPreferredByTheSenderWithoutACodec() throws IOException {
+    final byte[] encoded = PayloadEncoder.create(EncodedPayloadCodec.CBOR).encode(payload);
+    final MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.add(
+        Constants.API_VERSION_HEADER,
+        BaseVersion.API_VERSION_1 + "," + CBORSupportVersion.API_VERSION_5);
+
+    final EncodedPayload result =
+        provider.readFrom(
+            EncodedPayload.class,
+            EncodedPayload.class,
+            null,
+            MediaType.APPLICATION_OCTET_STREAM_TYPE,
+            headers,
+            new ByteArrayInputStream(encoded));
+
+    assertThat(result).isEqualTo(payload);
+  }
+
+  @Test
+  public void unknownCodecIsRejected() {
+    final Throwable throwable =
+        catchThrowable(
+            () ->
+                provider.readFrom(
+                    EncodedPayload.class,
+                    EncodedPayload.class,
+                    null,
+                    new MediaType("application", "octet-stream", Map.of("codec", "UNKNOWN")),
+                    new MultivaluedHashMap<>(),
+                    new ByteArrayInputStream(new byte[0])));
+
+    assertThat(throwable).isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  public void onlyPayloadsAreHandled() {
+    final MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM_TYPE;
+
+    assertThat(provider.isReadable(EncodedPayload.class, null, null, mediaType)).isTrue();
+    assertThat(provider.isWriteable(EncodedPayload.class, null, null, mediaType)).isTrue();
+    assertThat(provider.isReadable(byte[].class, null, null, mediaType)).isFalse();
+    assertThat(provider.isWriteable(byte[].class, null, null, mediaType)).isFalse();
+  }
+}
@@ -11,6 +11,7 @@ import com.quorum.tessera.context.RuntimeContext;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.discovery.NodeUri;
 import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
 import com.quorum.tessera.p2p.partyinfo.PartyInfoParser;
 import com.quorum.tessera.p2p.partyinfo.PartyStore;
 import com.quorum.tessera.privacygroup.PrivacyGroupManager;
@@ -111,17 +112,25 @@ public class P2PRestApp extends TesseraRestApplication
 
     final PrivacyGroupResource privacyGroupResource = new PrivacyGroupResource(privacyGroupManager);
 
+    final EncodedPayloadProvider encodedPayloadProvider = new EncodedPayloadProvider();
+
     if (runtimeContext.isRecoveryMode()) {
       final RecoveryResource recoveryResource =
           new RecoveryResource(transactionManager, batchResendManager);
-      return Set.of(partyInfoResource, iPWhitelistFilter, recoveryResource, upCheckResource);
+      return Set.of(
+          partyInfoResource,
+          iPWhitelistFilter,
+          recoveryResource,
+          upCheckResource,
+          encodedPayloadProvider);
     }
     return Set.of(
         partyInfoResource,
         iPWhitelistFilter,
         transactionResource,
         privacyGroupResource,
-        upCheckResource);
+        upCheckResource,
+        encodedPayloadProvider);
   }
 
   @Override
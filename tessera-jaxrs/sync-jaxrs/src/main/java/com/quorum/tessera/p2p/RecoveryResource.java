@@ -2,16 +2,13 @@ package com.quorum.tessera.p2p;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
-import static java.util.Collections.emptyList;
 
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
-import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.p2p.recovery.PushBatchRequest;
 import com.quorum.tessera.recovery.workflow.BatchResendManager;
-import com.quorum.tessera.shared.Constants;
 import com.quorum.tessera.transaction.TransactionManager;
 import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,12 +17,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.Consumes;
-import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Response;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,23 +70,10 @@ public class RecoveryResource {
   @POST
   @Path("push")
   @Consumes(APPLICATION_OCTET_STREAM)
-  public Response push(
-      final byte[] payload, @HeaderParam(Constants.API_VERSION_HEADER) final List<String> headers) {
+  public Response push(final EncodedPayload encodedPayload) {
 
     LOGGER.debug("Received push request during recovery mode");
 
-    final Set<String> versions =
-        Optional.ofNullable(headers).orElse(emptyList()).stream()
-            .filter(Objects::nonNull)
-            .flatMap(v -> Arrays.stream(v.split(",")))
-            .collect(Collectors.toSet());
-
-    final EncodedPayloadCodec codec = EncodedPayloadCodec.getPreferredCodec(versions);
-
-    final PayloadEncoder payloadEncoder = PayloadEncoder.create(codec);
-
-    final EncodedPayload encodedPayload = payloadEncoder.decode(payload);
-
     if (encodedPayload.getPrivacyMode() != PrivacyMode.STANDARD_PRIVATE) {
       return Response.status(Response.Status.FORBIDDEN)
           .entity("Transactions with enhanced privacy are not accepted during recovery mode")
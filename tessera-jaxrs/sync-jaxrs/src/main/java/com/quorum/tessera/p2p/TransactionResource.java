@@ -1,13 +1,16 @@
 package com.quorum.tessera.p2p;
 
 import static jakarta.ws.rs.core.MediaType.*;
-import static java.util.Collections.emptyList;
 
 import com.quorum.tessera.base64.Base64Codec;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
+import com.quorum.tessera.p2p.recovery.PushBatchRequest;
+import com.quorum.tessera.p2p.recovery.PushBatchResponse;
 import com.quorum.tessera.p2p.recovery.ResendBatchRequest;
 import com.quorum.tessera.p2p.resend.ResendRequest;
 import com.quorum.tessera.recovery.resend.ResendBatchResponse;
@@ -17,6 +20,7 @@ import com.quorum.tessera.shared.Constants;
 import com.quorum.tessera.transaction.TransactionManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -25,6 +29,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -84,8 +90,6 @@ public class TransactionResource {
 
     LOGGER.debug("Received resend request");
 
-    final PayloadEncoder payloadEncoder = PayloadEncoder.create(EncodedPayloadCodec.LEGACY);
-
     final PublicKey recipient =
         Optional.of(resendRequest)
             .map(ResendRequest::getPublicKey)
@@ -112,10 +116,9 @@ public class TransactionResource {
     final com.quorum.tessera.recovery.resend.ResendResponse response =
         legacyResendManager.resend(request);
 
+    // written with the LEGACY codec by the EncodedPayloadProvider
     final Response.ResponseBuilder builder = Response.ok();
-    Optional.ofNullable(response.getPayload())
-        .map(payloadEncoder::encode)
-        .ifPresent(builder::entity);
+    Optional.ofNullable(response.getPayload()).ifPresent(builder::entity);
     return builder.build();
   }
 
@@ -177,31 +180,79 @@ public class TransactionResource {
       responseCode = "403",
       description =
           "server is in recovery mode and encoded payload is not a Standard Private transaction")
+  @Parameter(
+      in = ParameterIn.HEADER,
+      name = Constants.API_VERSION_HEADER,
+      description = "client's supported API versions, which select the codec of the payload",
+      array = @ArraySchema(schema = @Schema(type = "string")))
   @POST
   @Path("push")
   @Consumes(APPLICATION_OCTET_STREAM)
   public Response push(
-      @Schema(description = "encoded payload") final byte[] payload,
-      @HeaderParam(Constants.API_VERSION_HEADER)
-          @Parameter(
-              description = "client's supported API versions",
-              array = @ArraySchema(schema = @Schema(type = "string")))
-          final List<String> headers) {
+      @Schema(description = "encoded payload", type = "string", format = "binary")
+          final EncodedPayload payload) {
 
     LOGGER.debug("Received push request");
 
-    final Set<String> versions =
-        Optional.ofNullable(headers).orElse(emptyList()).stream()
-            .filter(Objects::nonNull)
-            .flatMap(v -> Arrays.stream(v.split(",")))
-            .collect(Collectors.toSet());
+    final MessageHash messageHash = transactionManager.acceptPayload(payload);
+    LOGGER.debug("Push request generated hash {}", messageHash);
+    return Response.status(Response.Status.CREATED).entity(Objects.toString(messageHash)).build();
+  }
 
-    final EncodedPayloadCodec codec = EncodedPayloadCodec.getPreferredCodec(versions);
+  // not the recovery /pushBatch, which stages payloads, so that a node in recovery mode does not
+  // answer a live batch as though it had stored it
+  @Operation(
+      summary = "/pushPayloads",
+      operationId = "pushPayloads",
+      description =
+          "store batch of encoded payloads to the server's database, encoded with the codec named by the codec parameter of the content type, or LEGACY")
+  @ApiResponse(
+      responseCode = "200",
+      description = "batch processed, listing the payloads that could not be stored",
+      content =
+          @Content(
+              mediaType = APPLICATION_JSON,
+              schema = @Schema(implementation = PushBatchResponse.class)))
+  @POST
+  @Path("pushPayloads")
+  @Consumes(APPLICATION_JSON)
+  @Produces(APPLICATION_JSON)
+  public Response pushPayloads(
+      @Valid @NotNull final PushBatchRequest pushBatchRequest,
+      @Parameter(hidden = true) @HeaderParam(HttpHeaders.CONTENT_TYPE)
+          final MediaType contentType) {
 
+    LOGGER.debug("Received push batch request");
+
+    final EncodedPayloadCodec codec =
+        EncodedPayloadProvider.codec(contentType).orElse(EncodedPayloadCodec.LEGACY);
     final PayloadEncoder payloadEncoder = PayloadEncoder.create(codec);
+    final List<EncodedPayload> payloads =
+        pushBatchRequest.getEncodedPayloads().stream()
+            .map(payloadEncoder::decode)
+            .collect(Collectors.toList());
 
-    final MessageHash messageHash = transactionManager.storePayload(payloadEncoder.decode(payload));
-    LOGGER.debug("Push request generated hash {}", messageHash);
-    return Response.status(Response.Status.CREATED).entity(Objects.toString(messageHash)).build();
+    // each payload succeeds or fails on its own, so one bad payload does not fail the others
+    final Map<EncodedPayload, Integer> indexes = new IdentityHashMap<>();
+    for (int i = payloads.size() - 1; i >= 0; i--) {
+      indexes.put(payloads.get(i), i);
+    }
+    final SortedSet<Integer> failedIndexes = new TreeSet<>();
+    transactionManager.storePayloads(
+        payloads,
+        (payload, ex) -> {
+          final int index = indexes.get(payload);
+          LOGGER.warn("Unable to store pushed payload {} of batch: {}", index, ex.getMessage());
+          LOGGER.debug("", ex);
+          failedIndexes.add(index);
+        });
+
+    if (!failedIndexes.isEmpty()) {
+      LOGGER.warn("Unable to store {} of {} pushed payloads", failedIndexes.size(), payloads.size());
+    }
+    LOGGER.debug("Push batch of {} payloads processed", payloads.size());
+    return Response.status(Response.Status.OK)
+        .entity(new PushBatchResponse(List.copyOf(failedIndexes)))
+        .build();
   }
 }
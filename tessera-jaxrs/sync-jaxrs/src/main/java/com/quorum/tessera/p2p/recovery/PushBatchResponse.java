@@ -0,0 +1,30 @@
+package com.quorum.tessera.p2p.recovery;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/** Model representation of the outcome of storing a batch of pushed payloads */
+public class PushBatchResponse {
+
+  @ArraySchema(
+      schema =
+          @Schema(
+              description = "positions in the request of the payloads that could not be stored",
+              type = "integer"))
+  private List<Integer> failedIndexes;
+
+  public PushBatchResponse() {}
+
+  public PushBatchResponse(List<Integer> failedIndexes) {
+    this.failedIndexes = failedIndexes;
+  }
+
+  public List<Integer> getFailedIndexes() {
+    return failedIndexes;
+  }
+
+  public void setFailedIndexes(List<Integer> failedIndexes) {
+    this.failedIndexes = failedIndexes;
+  }
+}
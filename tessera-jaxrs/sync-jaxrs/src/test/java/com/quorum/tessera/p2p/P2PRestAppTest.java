@@ -15,6 +15,7 @@ import com.quorum.tessera.privacygroup.PrivacyGroupManager;
 import com.quorum.tessera.recovery.workflow.BatchResendManager;
 import com.quorum.tessera.recovery.workflow.LegacyResendManager;
 import com.quorum.tessera.transaction.TransactionManager;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
 import jakarta.ws.rs.client.Client;
 import java.net.URI;
 import java.util.List;
@@ -94,7 +95,7 @@ public class P2PRestAppTest {
       mockedStaticRuntimeContext.when(RuntimeContext::getInstance).thenReturn(runtimeContext);
 
       Set<Object> results = p2PRestApp.getSingletons();
-      assertThat(results).hasSize(5);
+      assertThat(results).hasSize(6);
       results.forEach(
           o ->
               assertThat(o)
@@ -103,7 +104,8 @@ public class P2PRestAppTest {
                       PartyInfoResource.class,
                       IPWhitelistFilter.class,
                       TransactionResource.class,
-                      UpCheckResource.class));
+                      UpCheckResource.class,
+                      EncodedPayloadProvider.class));
 
       mockedStaticRuntimeContext.verify(RuntimeContext::getInstance);
       mockedStaticRuntimeContext.verifyNoMoreInteractions();
@@ -125,7 +127,7 @@ public class P2PRestAppTest {
       mockedStaticRuntimeContext.when(RuntimeContext::getInstance).thenReturn(runtimeContext);
 
       Set<Object> results = p2PRestApp.getSingletons();
-      assertThat(results).hasSize(4);
+      assertThat(results).hasSize(5);
       results.forEach(
           o ->
               assertThat(o)
@@ -134,7 +136,8 @@ public class P2PRestAppTest {
                       UpCheckResource.class,
                       PartyInfoResource.class,
                       IPWhitelistFilter.class,
-                      RecoveryResource.class));
+                      RecoveryResource.class,
+                      EncodedPayloadProvider.class));
 
       mockedStaticRuntimeContext.verify(RuntimeContext::getInstance);
       mockedStaticRuntimeContext.verifyNoMoreInteractions();
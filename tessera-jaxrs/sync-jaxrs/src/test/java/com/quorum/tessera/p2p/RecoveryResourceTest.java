@@ -70,33 +70,23 @@ public class RecoveryResourceTest {
 
   @Test
   public void pushAllowedForStandardPrivate() {
-    final byte[] someData = "SomeData".getBytes();
     final EncodedPayload payload = mock(EncodedPayload.class);
     when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
-    when(payloadEncoder.decode(someData)).thenReturn(payload);
 
-    final Response result = recoveryResource.push(someData, null);
+    final Response result = recoveryResource.push(payload);
 
     assertThat(result.getStatus()).isEqualTo(201);
     assertThat(result.hasEntity()).isTrue();
     verify(transactionManager).storePayload(payload);
-    verify(payloadEncoder).decode(someData);
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
 
   @Test
   public void pushNotAllowedForEnhancedPrivacy() {
-    final byte[] someData = "SomeData".getBytes();
     final EncodedPayload payload = mock(EncodedPayload.class);
     when(payload.getPrivacyMode()).thenReturn(PrivacyMode.PRIVATE_STATE_VALIDATION);
-    when(payloadEncoder.decode(someData)).thenReturn(payload);
 
-    final Response result = recoveryResource.push(someData, null);
+    final Response result = recoveryResource.push(payload);
 
     assertThat(result.getStatus()).isEqualTo(403);
-    verify(payloadEncoder).decode(someData);
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
 }
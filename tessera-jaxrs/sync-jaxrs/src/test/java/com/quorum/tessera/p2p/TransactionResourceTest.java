@@ -6,15 +6,19 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.p2p.recovery.PushBatchRequest;
+import com.quorum.tessera.p2p.recovery.PushBatchResponse;
 import com.quorum.tessera.p2p.recovery.ResendBatchRequest;
 import com.quorum.tessera.p2p.resend.ResendRequest;
 import com.quorum.tessera.recovery.resend.ResendBatchResponse;
 import com.quorum.tessera.recovery.workflow.BatchResendManager;
 import com.quorum.tessera.recovery.workflow.LegacyResendManager;
 import com.quorum.tessera.transaction.TransactionManager;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.Base64;
 import java.util.List;
+import java.util.function.BiConsumer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -65,19 +69,84 @@ public class TransactionResourceTest {
 
   @Test
   public void push() {
-    final byte[] someData = "SomeData".getBytes();
     final EncodedPayload payload = mock(EncodedPayload.class);
-    when(payloadEncoder.decode(someData)).thenReturn(payload);
 
-    final Response result = transactionResource.push(someData, List.of("4.0,5.0"));
+    final Response result = transactionResource.push(payload);
 
     assertThat(result.getStatus()).isEqualTo(201);
     assertThat(result.hasEntity()).isTrue();
-    verify(transactionManager).storePayload(payload);
-    verify(payloadEncoder).decode(someData);
+    verify(transactionManager).acceptPayload(payload);
+  }
+
+  @Test
+  public void pushPayloads() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final EncodedPayload otherPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.decode("payload".getBytes())).thenReturn(payload);
+    when(payloadEncoder.decode("otherPayload".getBytes())).thenReturn(otherPayload);
+
+    final Response result =
+        transactionResource.pushPayloads(
+            new PushBatchRequest(List.of("payload".getBytes(), "otherPayload".getBytes())),
+            null);
 
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
+    assertThat(result.getStatus()).isEqualTo(200);
+    assertThat(((PushBatchResponse) result.getEntity()).getFailedIndexes()).isEmpty();
+    verify(transactionManager).storePayloads(eq(List.of(payload, otherPayload)), any());
+    verify(payloadEncoder, times(2)).decode(any());
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
+  }
+
+  @Test
+  public void pushPayloadsReportsEachPayloadThatFailed() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    final EncodedPayload failing = mock(EncodedPayload.class);
+    final EncodedPayload otherPayload = mock(EncodedPayload.class);
+    when(payloadEncoder.decode("payload".getBytes())).thenReturn(payload);
+    when(payloadEncoder.decode("failing".getBytes())).thenReturn(failing);
+    when(payloadEncoder.decode("otherPayload".getBytes())).thenReturn(otherPayload);
+
+    doAnswer(
+            invocation -> {
+              final BiConsumer<EncodedPayload, RuntimeException> errorHandler =
+                  invocation.getArgument(1);
+              errorHandler.accept(failing, new RuntimeException("unable to store"));
+              return null;
+            })
+        .when(transactionManager)
+        .storePayloads(anyList(), any());
+
+    final Response result =
+        transactionResource.pushPayloads(
+            new PushBatchRequest(
+                List.of(
+                    "payload".getBytes(), "failing".getBytes(), "otherPayload".getBytes())),
+            MediaType.APPLICATION_JSON_TYPE);
+
+    assertThat(result.getStatus()).isEqualTo(200);
+    assertThat(result.getEntity())
+        .isInstanceOfSatisfying(
+            PushBatchResponse.class,
+            response -> assertThat(response.getFailedIndexes()).containsExactly(1));
+    verify(transactionManager).storePayloads(eq(List.of(payload, failing, otherPayload)), any());
+    verify(payloadEncoder, times(3)).decode(any());
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.LEGACY));
+  }
+
+  @Test
+  public void pushPayloadsDecodesWithTheCodecOfTheContentType() {
+    final EncodedPayload payload = mock(EncodedPayload.class);
+    when(payloadEncoder.decode("payload".getBytes())).thenReturn(payload);
+
+    final Response result =
+        transactionResource.pushPayloads(
+            new PushBatchRequest(List.of("payload".getBytes())),
+            MediaType.valueOf("application/json;codec=CBOR"));
+
+    assertThat(result.getStatus()).isEqualTo(200);
+    verify(transactionManager).storePayloads(eq(List.of(payload)), any());
+    verify(payloadEncoder).decode(any());
+    payloadEncoderFactoryFunction.verify(() -> PayloadEncoder.create(EncodedPayloadCodec.CBOR));
   }
 
   @Test
@@ -94,18 +163,12 @@ public class TransactionResourceTest {
     when(legacyResendManager.resend(any(com.quorum.tessera.recovery.resend.ResendRequest.class)))
         .thenReturn(resendResponse);
 
-    when(payloadEncoder.encode(payload)).thenReturn("SUCCESS".getBytes());
-
     Response result = transactionResource.resend(resendRequest);
 
     assertThat(result.getStatus()).isEqualTo(200);
-    assertThat(result.getEntity()).isEqualTo("SUCCESS".getBytes());
+    assertThat(result.getEntity()).isSameAs(payload);
 
-    verify(payloadEncoder).encode(payload);
     verify(legacyResendManager).resend(any(com.quorum.tessera.recovery.resend.ResendRequest.class));
-
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
 
   @Test
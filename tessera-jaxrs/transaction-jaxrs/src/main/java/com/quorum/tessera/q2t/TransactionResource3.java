@@ -4,6 +4,7 @@ import static com.quorum.tessera.version.MultiTenancyVersion.MIME_TYPE_JSON_2_1;
 import static com.quorum.tessera.version.PrivacyGroupVersion.MIME_TYPE_JSON_3;
 import static jakarta.ws.rs.core.MediaType.*;
 
+import com.quorum.tessera.api.DeliveryStatus;
 import com.quorum.tessera.api.ReceiveResponse;
 import com.quorum.tessera.api.SendRequest;
 import com.quorum.tessera.api.SendResponse;
@@ -492,4 +493,45 @@ public class TransactionResource3 {
 
     return Response.ok(participantList).build();
   }
+
+  @Operation(
+      summary = "/transaction/{hash}/deliveries",
+      operationId = "getPendingDeliveries",
+      description =
+          "get the pushes of a sent transaction that are still waiting in the outbox; empty once every recipient has the transaction")
+  @ApiResponse(
+      responseCode = "200",
+      description = "pushes still to be made",
+      content =
+          @Content(
+              mediaType = APPLICATION_JSON,
+              array = @ArraySchema(schema = @Schema(implementation = DeliveryStatus.class))))
+  @GET
+  @Path("/transaction/{hash}/deliveries")
+  @Produces(APPLICATION_JSON)
+  public Response getPendingDeliveries(
+      @Parameter(
+              description = "hash indicating encrypted payload to get pending pushes for",
+              schema = @Schema(format = "base64"))
+          @ValidBase64
+          @PathParam("hash")
+          final String ptmHash) {
+    LOGGER.debug("Received pending deliveries API request for key {}", ptmHash);
+
+    final MessageHash transactionHash = new MessageHash(base64Decoder.decode(ptmHash));
+
+    final DeliveryStatus[] deliveries =
+        transactionManager.getPendingDeliveries(transactionHash).stream()
+            .map(
+                delivery ->
+                    new DeliveryStatus(
+                        delivery.getRecipient().encodeToBase64(),
+                        delivery.getAttempts(),
+                        delivery.getQueuedAt(),
+                        delivery.getNextAttempt(),
+                        delivery.getLastError()))
+            .toArray(DeliveryStatus[]::new);
+
+    return Response.ok(deliveries).build();
+  }
 }
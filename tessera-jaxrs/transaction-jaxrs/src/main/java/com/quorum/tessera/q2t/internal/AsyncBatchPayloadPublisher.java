@@ -1,14 +1,18 @@
 package com.quorum.tessera.q2t.internal;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.RecipientPayloads;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
-import java.util.List;
+import com.quorum.tessera.version.GroupedPushVersion;
+import java.util.*;
 import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,19 +27,30 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
 
   private final PayloadPublisher publisher;
 
+  private final Discovery discovery;
+
   public AsyncBatchPayloadPublisher(
       ExecutorFactory executorFactory,
       CancellableCountDownLatchFactory countDownLatchFactory,
-      PayloadPublisher publisher) {
+      PayloadPublisher publisher,
+      Discovery discovery) {
     this.executor = executorFactory.createCachedThreadPool();
     this.countDownLatchFactory = countDownLatchFactory;
     this.publisher = publisher;
+    this.discovery = discovery;
   }
 
   /**
    * Asynchronously strips (leaving data intended only for that particular recipient) and publishes
    * the payload to each recipient identified by the provided keys.
    *
+   * <p>The fields every recipient is sent, including the cipher text, are encoded once for each
+   * codec the recipients use rather than once for each recipient; see {@link RecipientPayloads}.
+   *
+   * <p>Recipients hosted by the same node are pushed together when that node advertises {@link
+   * GroupedPushVersion}, so the node receives one payload holding all of their boxes. Other nodes
+   * are pushed once for each of their recipients.
+   *
    * <p>This method blocks until all pushes return successfully; if a push fails with an exception,
    * the method exits immediately and does not wait for the remaining responses.
    *
@@ -48,16 +63,18 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
       return;
     }
 
-    final CancellableCountDownLatch latch = countDownLatchFactory.create(recipientKeys.size());
+    final List<List<PublicKey>> groups = groupByNode(recipientKeys);
+    final CancellableCountDownLatch latch = countDownLatchFactory.create(groups.size());
+    final RecipientPayloads recipientPayloads = RecipientPayloads.of(payload);
 
-    recipientKeys.forEach(
-        recipient ->
+    groups.forEach(
+        recipients ->
             executor.execute(
                 () -> {
                   try {
-                    final EncodedPayload outgoing =
-                        EncodedPayload.Builder.forRecipient(payload, recipient).build();
-                    publisher.publishPayload(outgoing, recipient);
+                    final EncodedPayload outgoing = recipientPayloads.forRecipients(recipients);
+                    // any of the recipients identifies the node they are hosted by
+                    publisher.publishPayload(outgoing, recipients.get(0));
                     latch.countDown();
                   } catch (RuntimeException e) {
                     LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
@@ -71,4 +88,46 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
       throw new BatchPublishPayloadException(e);
     }
   }
+
+  /**
+   * Groups together the recipients hosted by each node that accepts grouped pushes, leaving every
+   * other recipient in a group of its own. Groups are in the order their first recipient is listed.
+   */
+  private List<List<PublicKey>> groupByNode(final List<PublicKey> recipientKeys) {
+    final List<List<PublicKey>> groups = new ArrayList<>();
+    final Map<String, List<PublicKey>> groupsByUrl = new HashMap<>();
+    for (final PublicKey recipient : recipientKeys) {
+      final Optional<String> url = groupedPushUrl(recipient);
+      if (url.isEmpty()) {
+        groups.add(List.of(recipient));
+        continue;
+      }
+      groupsByUrl
+          .computeIfAbsent(
+              url.get(),
+              u -> {
+                final List<PublicKey> group = new ArrayList<>();
+                groups.add(group);
+                return group;
+              })
+          .add(recipient);
+    }
+    return groups;
+  }
+
+  private Optional<String> groupedPushUrl(final PublicKey recipient) {
+    final NodeInfo nodeInfo;
+    try {
+      nodeInfo = discovery.getRemoteNodeInfo(recipient);
+    } catch (RuntimeException ex) {
+      // pushed on its own, so the failure is reported for the recipient as it would be otherwise
+      LOGGER.debug("Unable to find node for recipient {}", recipient.encodeToBase64(), ex);
+      return Optional.empty();
+    }
+
+    if (!nodeInfo.supportedApiVersions().contains(GroupedPushVersion.API_VERSION_7)) {
+      return Optional.empty();
+    }
+    return Optional.of(nodeInfo.getUrl());
+  }
 }
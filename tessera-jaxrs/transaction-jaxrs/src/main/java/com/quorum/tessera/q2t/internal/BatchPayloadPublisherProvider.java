@@ -1,5 +1,6 @@
 package com.quorum.tessera.q2t.internal;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
@@ -11,6 +12,8 @@ public class BatchPayloadPublisherProvider {
     ExecutorFactory executorFactory = new ExecutorFactory();
     CancellableCountDownLatchFactory countDownLatchFactory = new CancellableCountDownLatchFactory();
     PayloadPublisher payloadPublisher = PayloadPublisher.create();
-    return new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, payloadPublisher);
+    Discovery discovery = Discovery.create();
+    return new AsyncBatchPayloadPublisher(
+        executorFactory, countDownLatchFactory, payloadPublisher, discovery);
   }
 }
@@ -2,6 +2,7 @@ package com.quorum.tessera.q2t.internal;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.ConfigFactory;
+import com.quorum.tessera.config.util.IntervalPropertyHelper;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
@@ -17,6 +18,15 @@ public class PayloadPublisherProvider {
     ClientFactory clientFactory = new ClientFactory();
     Client client = clientFactory.buildFrom(config.getP2PServerConfig());
 
+    IntervalPropertyHelper properties =
+        new IntervalPropertyHelper(config.getP2PServerConfig().getProperties());
+    if (properties.pushBatchDelay() > 0) {
+      PushCoalescer pushCoalescer =
+          PushCoalescerHolder.INSTANCE.getPushCoalescer(
+              client, properties.pushBatchDelay(), properties.pushBatchSize());
+      return new RestPayloadPublisher(client, partyInfoService, pushCoalescer);
+    }
+
     return new RestPayloadPublisher(client, partyInfoService);
   }
 }
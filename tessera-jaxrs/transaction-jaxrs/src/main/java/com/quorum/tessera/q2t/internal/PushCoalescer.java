@@ -0,0 +1,351 @@
+package com.quorum.tessera.q2t.internal;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonReader;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the payloads pushed to each node for a short time, so that pushes made close together are
+ * sent to the node as a single {@code /pushPayloads} request rather than one {@code /push} each.
+ * Payloads are batched by the codec they are pushed with, which is named by the media type of the
+ * request as it is for {@code /push}.
+ *
+ * <p>A node's payloads are sent once the first of them has been held for the configured delay, or
+ * as soon as the configured number of them are held. Each caller is blocked until the node has
+ * answered the batch holding its payload. It fails if the node lists its payload as not stored, or
+ * if the whole batch fails, but not because another payload in the batch was rejected. A node that
+ * does not serve {@code /pushPayloads}, such as one in recovery mode, leaves each caller to push its
+ * payload on its own.
+ */
+class PushCoalescer implements PushCoalescerMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PushCoalescer.class);
+
+  /** The longest a close waits for the batches being sent */
+  static final long CLOSE_TIMEOUT = 10000L;
+
+  private final Client client;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final ExecutorService executor;
+
+  private final long delayMillis;
+
+  private final int maxBatchSize;
+
+  /** The payloads held for each node and codec, removed once they are sent */
+  private final Map<QueueKey, NodeQueue> queues = new ConcurrentHashMap<>();
+
+  private final AtomicInteger queueDepth = new AtomicInteger();
+
+  private final LongAdder batchCount = new LongAdder();
+
+  private final LongAdder pushCount = new LongAdder();
+
+  private final LongAdder addedLatencyNanos = new LongAdder();
+
+  PushCoalescer(
+      final Client client,
+      final ScheduledExecutorService scheduler,
+      final ExecutorService executor,
+      final long delayMillis,
+      final int maxBatchSize) {
+    if (delayMillis <= 0 || maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Push batch delay and size must be positive");
+    }
+    this.client = Objects.requireNonNull(client);
+    this.scheduler = Objects.requireNonNull(scheduler);
+    this.executor = Objects.requireNonNull(executor);
+    this.delayMillis = delayMillis;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Pushes a payload to a node along with any others pushed to it around the same time
+   *
+   * @param targetUrl the url of the node
+   * @param codec the codec to encode the payload with
+   * @param payload the payload to push
+   * @return false if the node does not accept batches, so the payload was not pushed
+   * @throws PublishPayloadException if the node did not store the payload
+   * @throws NodeOfflineException if the node could not be reached
+   */
+  boolean push(
+      final String targetUrl, final EncodedPayloadCodec codec, final EncodedPayload payload) {
+    final PendingPush pending = new PendingPush(payload);
+    final QueueKey key = new QueueKey(targetUrl, codec);
+    // a queue that has just sent its payloads is removed, so is replaced by a new one
+    while (!queues.computeIfAbsent(key, NodeQueue::new).add(pending)) {
+      Thread.onSpinWait();
+    }
+
+    try {
+      return pending.acknowledged.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new PublishPayloadException("Interrupted while pushing payload to " + targetUrl);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new PublishPayloadException("Unable to push payload to recipient url " + targetUrl);
+    }
+  }
+
+  private void send(final QueueKey key, final List<PendingPush> batch) {
+    final String targetUrl = key.targetUrl;
+    final long sentAt = System.nanoTime();
+    batch.forEach(pending -> addedLatencyNanos.add(sentAt - pending.queuedAt));
+    batchCount.increment();
+    pushCount.add(batch.size());
+
+    LOGGER.info("Publishing batch of {} messages to {}", batch.size(), targetUrl);
+    try {
+      // base64 strings of the encoded payloads, as for the recovery /pushBatch
+      final PayloadEncoder payloadEncoder = PayloadEncoder.create(key.codec);
+      final Base64.Encoder base64 = Base64.getEncoder();
+      final JsonArrayBuilder encodedPayloads = Json.createArrayBuilder();
+      batch.forEach(
+          pending ->
+              encodedPayloads.add(base64.encodeToString(payloadEncoder.encode(pending.payload))));
+      final String body =
+          Json.createObjectBuilder().add("encodedPayloads", encodedPayloads).build().toString();
+
+      try (Response response =
+          client
+              .target(targetUrl)
+              .path("/pushPayloads")
+              .request()
+              .post(Entity.entity(body, mediaType(key.codec)))) {
+
+        if (Response.Status.NOT_FOUND.getStatusCode() == response.getStatus()) {
+          LOGGER.info("{} does not accept batches, pushing each payload on its own", targetUrl);
+          batch.forEach(pending -> pending.acknowledged.complete(false));
+          return;
+        }
+
+        if (Response.Status.OK.getStatusCode() != response.getStatus()) {
+          throw new PublishPayloadException(
+              "Unable to push payload batch to recipient url " + targetUrl);
+        }
+
+        final Set<Integer> failedIndexes = failedIndexes(response);
+        for (int i = 0; i < batch.size(); i++) {
+          if (failedIndexes.contains(i)) {
+            batch
+                .get(i)
+                .acknowledged
+                .completeExceptionally(
+                    new PublishPayloadException(
+                        "Unable to push payload to recipient url " + targetUrl));
+          } else {
+            batch.get(i).acknowledged.complete(true);
+          }
+        }
+        LOGGER.info(
+            "Published batch to {}, {} of {} payloads not stored",
+            targetUrl,
+            failedIndexes.size(),
+            batch.size());
+      }
+    } catch (ProcessingException ex) {
+      LOGGER.debug("", ex);
+      final NodeOfflineException offline = new NodeOfflineException(URI.create(targetUrl));
+      batch.forEach(pending -> pending.acknowledged.completeExceptionally(offline));
+    } catch (RuntimeException ex) {
+      batch.forEach(pending -> pending.acknowledged.completeExceptionally(ex));
+    }
+  }
+
+  /** JSON naming the codec of the payloads, as {@link EncodedPayloadProvider#mediaType} does */
+  static MediaType mediaType(final EncodedPayloadCodec codec) {
+    return new MediaType(
+        MediaType.APPLICATION_JSON_TYPE.getType(),
+        MediaType.APPLICATION_JSON_TYPE.getSubtype(),
+        Map.of(EncodedPayloadProvider.CODEC_PARAMETER, codec.name()));
+  }
+
+  /** The positions of the payloads that the node could not store, as listed in its response */
+  private static Set<Integer> failedIndexes(final Response response) {
+    if (!response.hasEntity()) {
+      return Set.of();
+    }
+    final String body = response.readEntity(String.class);
+    if (body.isBlank()) {
+      return Set.of();
+    }
+    try (JsonReader reader = Json.createReader(new StringReader(body))) {
+      final JsonArray failedIndexes = reader.readObject().getJsonArray("failedIndexes");
+      if (Objects.isNull(failedIndexes)) {
+        return Set.of();
+      }
+      return failedIndexes.getValuesAs(JsonNumber.class).stream()
+          .map(JsonNumber::intValue)
+          .collect(Collectors.toSet());
+    }
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  @Override
+  public long getBatchCount() {
+    return batchCount.sum();
+  }
+
+  @Override
+  public long getPushCount() {
+    return pushCount.sum();
+  }
+
+  @Override
+  public double getAverageBatchSize() {
+    final long batches = batchCount.sum();
+    return batches == 0 ? 0 : (double) pushCount.sum() / batches;
+  }
+
+  @Override
+  public double getAverageAddedLatencyMillis() {
+    final long pushes = pushCount.sum();
+    return pushes == 0 ? 0 : addedLatencyNanos.sum() / 1_000_000.0 / pushes;
+  }
+
+  /**
+   * Sends the payloads that are held at once, then stops the threads that send them. Pushes made
+   * after this fail.
+   */
+  void close() {
+    scheduler.shutdownNow();
+    queues.values().forEach(NodeQueue::sendHeld);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        LOGGER.warn("Batches of pushes were still being sent when the coalescer was stopped");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** The payloads held for a single node and codec, until they are sent */
+  private final class NodeQueue {
+
+    private final QueueKey key;
+
+    private final List<PendingPush> pending = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduledSend;
+
+    private boolean sent;
+
+    private NodeQueue(final QueueKey key) {
+      this.key = key;
+    }
+
+    /** @return false if the queue has sent its payloads, so the push must go in a new one */
+    private synchronized boolean add(final PendingPush push) {
+      if (sent) {
+        return false;
+      }
+      pending.add(push);
+      queueDepth.incrementAndGet();
+
+      if (pending.size() >= maxBatchSize) {
+        final List<PendingPush> batch = take();
+        executor.execute(() -> send(key, batch));
+      } else if (pending.size() == 1) {
+        scheduledSend = scheduler.schedule(this::sendHeld, delayMillis, TimeUnit.MILLISECONDS);
+      }
+      return true;
+    }
+
+    private void sendHeld() {
+      final List<PendingPush> batch;
+      synchronized (this) {
+        if (sent || pending.isEmpty()) {
+          return;
+        }
+        batch = take();
+      }
+      executor.execute(() -> send(key, batch));
+    }
+
+    private List<PendingPush> take() {
+      if (Objects.nonNull(scheduledSend)) {
+        scheduledSend.cancel(false);
+        scheduledSend = null;
+      }
+      sent = true;
+      queues.remove(key, this);
+      queueDepth.addAndGet(-pending.size());
+      return pending;
+    }
+  }
+
+  private static final class QueueKey {
+
+    private final String targetUrl;
+
+    private final EncodedPayloadCodec codec;
+
+    private QueueKey(final String targetUrl, final EncodedPayloadCodec codec) {
+      this.targetUrl = Objects.requireNonNull(targetUrl);
+      this.codec = Objects.requireNonNull(codec);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof QueueKey)) {
+        return false;
+      }
+      final QueueKey other = (QueueKey) o;
+      return targetUrl.equals(other.targetUrl) && codec == other.codec;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(targetUrl, codec);
+    }
+  }
+
+  private static final class PendingPush {
+
+    private final EncodedPayload payload;
+
+    private final long queuedAt = System.nanoTime();
+
+    private final CompletableFuture<Boolean> acknowledged = new CompletableFuture<>();
+
+    private PendingPush(final EncodedPayload payload) {
+      this.payload = payload;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.quorum.tessera.q2t.internal;
+
+import jakarta.ws.rs.client.Client;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the single {@link PushCoalescer} shared by every {@link RestPayloadPublisher}, so that
+ * pushes to a node are batched together whichever publisher makes them.
+ */
+enum PushCoalescerHolder {
+  INSTANCE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PushCoalescerHolder.class);
+
+  static final String OBJECT_NAME = "com.quorum.tessera:type=PushCoalescer";
+
+  private PushCoalescer pushCoalescer;
+
+  synchronized PushCoalescer getPushCoalescer(Client client, long delayMillis, int maxBatchSize) {
+    if (pushCoalescer == null) {
+      final ScheduledExecutorService scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                final Thread thread = new Thread(runnable, "push-coalescer");
+                thread.setDaemon(true);
+                return thread;
+              });
+      final ExecutorService executor = Executors.newCachedThreadPool();
+      pushCoalescer = new PushCoalescer(client, scheduler, executor, delayMillis, maxBatchSize);
+      register(pushCoalescer);
+
+      // sends the pushes still held rather than leaving their callers waiting as the node stops
+      Runtime.getRuntime()
+          .addShutdownHook(new Thread(pushCoalescer::close, "push-coalescer-close"));
+      LOGGER.info(
+          "Holding pushes for up to {}ms or {} payloads to send them to each node together",
+          delayMillis,
+          maxBatchSize);
+    }
+    return pushCoalescer;
+  }
+
+  private static void register(PushCoalescer pushCoalescer) {
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(pushCoalescer, new ObjectName(OBJECT_NAME));
+    } catch (JMException ex) {
+      LOGGER.warn("Unable to register push coalescer metrics. {}", ex.getMessage());
+      LOGGER.debug("", ex);
+    }
+  }
+}
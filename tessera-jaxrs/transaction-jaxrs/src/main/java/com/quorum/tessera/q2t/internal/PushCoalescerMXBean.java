@@ -0,0 +1,15 @@
+package com.quorum.tessera.q2t.internal;
+
+/** Management view of the statistics gathered by a {@link PushCoalescer} */
+public interface PushCoalescerMXBean {
+
+  int getQueueDepth();
+
+  long getBatchCount();
+
+  long getPushCount();
+
+  double getAverageBatchSize();
+
+  double getAverageAddedLatencyMillis();
+}
@@ -3,9 +3,9 @@ package com.quorum.tessera.q2t.internal;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
-import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedException;
@@ -14,10 +14,10 @@ import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import com.quorum.tessera.version.EnhancedPrivacyVersion;
 import com.quorum.tessera.version.MandatoryRecipientsVersion;
+import com.quorum.tessera.version.PushBatchVersion;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
-import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
 import java.util.Objects;
@@ -33,9 +33,20 @@ public class RestPayloadPublisher implements PayloadPublisher {
 
   private final Discovery discovery;
 
+  private final PushCoalescer pushCoalescer;
+
   RestPayloadPublisher(Client client, Discovery discovery) {
+    this(client, discovery, null);
+  }
+
+  /**
+   * @param pushCoalescer sends the pushes to nodes that accept batches of them, or null to push
+   *     every payload on its own
+   */
+  RestPayloadPublisher(Client client, Discovery discovery, PushCoalescer pushCoalescer) {
     this.client = Objects.requireNonNull(client);
     this.discovery = Objects.requireNonNull(discovery);
+    this.pushCoalescer = pushCoalescer;
   }
 
   @Override
@@ -45,7 +56,6 @@ public class RestPayloadPublisher implements PayloadPublisher {
     final Set<String> supportedApiVersions = remoteNodeInfo.supportedApiVersions();
     final EncodedPayloadCodec preferredCodec =
         EncodedPayloadCodec.getPreferredCodec(supportedApiVersions);
-    final PayloadEncoder payloadEncoder = PayloadEncoder.create(preferredCodec);
 
     if (PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()
         && !supportedApiVersions.contains(EnhancedPrivacyVersion.API_VERSION_2)) {
@@ -62,16 +72,22 @@ public class RestPayloadPublisher implements PayloadPublisher {
     }
 
     final String targetUrl = remoteNodeInfo.getUrl();
-    LOGGER.info("Publishing message to {}", targetUrl);
 
-    final byte[] encoded = payloadEncoder.encode(payload);
+    if (Objects.nonNull(pushCoalescer)
+        && supportedApiVersions.contains(PushBatchVersion.API_VERSION_8)
+        && pushCoalescer.push(targetUrl, preferredCodec, payload)) {
+      return;
+    }
+
+    LOGGER.info("Publishing message to {}", targetUrl);
 
+    // encoded straight to the request stream by the EncodedPayloadProvider
     try (Response response =
         client
             .target(targetUrl)
             .path("/push")
             .request()
-            .post(Entity.entity(encoded, MediaType.APPLICATION_OCTET_STREAM_TYPE))) {
+            .post(Entity.entity(payload, EncodedPayloadProvider.mediaType(preferredCodec)))) {
 
       if (Response.Status.OK.getStatusCode() != response.getStatus()
           && Response.Status.CREATED.getStatusCode() != response.getStatus()) {
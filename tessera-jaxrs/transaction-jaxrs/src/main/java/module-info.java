@@ -1,6 +1,7 @@
 module tessera.transaction.jaxrs {
   requires jakarta.validation;
   requires jakarta.ws.rs;
+  requires java.management;
   requires org.slf4j;
   requires tessera.config;
   requires tessera.encryption.api;
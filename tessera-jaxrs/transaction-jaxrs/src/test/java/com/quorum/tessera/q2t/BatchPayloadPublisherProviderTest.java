@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.q2t.internal.BatchPayloadPublisherProvider;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
@@ -14,14 +15,17 @@ public class BatchPayloadPublisherProviderTest {
   @Test
   public void provider() {
 
-    try (var payloadPublisherMockedStatic = mockStatic(PayloadPublisher.class)) {
+    try (var payloadPublisherMockedStatic = mockStatic(PayloadPublisher.class);
+        var discoveryMockedStatic = mockStatic(Discovery.class)) {
       payloadPublisherMockedStatic
           .when(PayloadPublisher::create)
           .thenReturn(mock(PayloadPublisher.class));
+      discoveryMockedStatic.when(Discovery::create).thenReturn(mock(Discovery.class));
 
       BatchPayloadPublisher result = BatchPayloadPublisherProvider.provider();
       assertThat(result).isNotNull();
       payloadPublisherMockedStatic.verify(PayloadPublisher::create);
+      discoveryMockedStatic.verify(Discovery::create);
     }
   }
 }
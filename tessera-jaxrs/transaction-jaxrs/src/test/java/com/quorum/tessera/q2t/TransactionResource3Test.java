@@ -1,13 +1,16 @@
 package com.quorum.tessera.q2t;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.api.DeliveryStatus;
 import com.quorum.tessera.api.SendRequest;
 import com.quorum.tessera.api.SendResponse;
 import com.quorum.tessera.api.SendSignedRequest;
 import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.PendingDelivery;
 import com.quorum.tessera.enclave.PrivacyGroup;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
@@ -664,4 +667,34 @@ public class TransactionResource3Test {
     assertThat(response.getEntity()).isEqualTo("BASE64ENCODEKEY");
     verify(transactionManager).getParticipants(any(MessageHash.class));
   }
+
+  @Test
+  public void getPendingDeliveries() {
+    final MessageHash hash = new MessageHash("DUMMY_HASH".getBytes());
+    final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+
+    final PendingDelivery delivery = new PendingDelivery(hash, recipient);
+    delivery.setAttempts(2);
+    delivery.setQueuedAt(1000L);
+    delivery.setNextAttempt(5000L);
+    delivery.setLastError("Connection refused");
+
+    when(transactionManager.getPendingDeliveries(hash)).thenReturn(List.of(delivery));
+
+    final Response response =
+        transactionResource.getPendingDeliveries(
+            Base64.getEncoder().encodeToString(hash.getHashBytes()));
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat((DeliveryStatus[]) response.getEntity())
+        .extracting(
+            DeliveryStatus::getRecipient,
+            DeliveryStatus::getAttempts,
+            DeliveryStatus::getQueuedAt,
+            DeliveryStatus::getNextAttempt,
+            DeliveryStatus::getLastError)
+        .containsExactly(
+            tuple(recipient.encodeToBase64(), 2, 1000L, 5000L, "Connection refused"));
+    verify(transactionManager).getPendingDeliveries(hash);
+  }
 }
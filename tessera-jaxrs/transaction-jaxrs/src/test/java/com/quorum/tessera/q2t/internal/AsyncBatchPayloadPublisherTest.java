@@ -4,14 +4,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import com.quorum.tessera.version.CBORV2SupportVersion;
+import com.quorum.tessera.version.GroupedPushVersion;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -34,6 +38,8 @@ public class AsyncBatchPayloadPublisherTest {
 
   private PayloadPublisher publisher;
 
+  private Discovery discovery;
+
   @Before
   public void onSetup() {
     this.executorFactory = mock(ExecutorFactory.class);
@@ -45,8 +51,12 @@ public class AsyncBatchPayloadPublisherTest {
     when(countDownLatchFactory.create(anyInt())).thenReturn(countDownLatch);
 
     this.publisher = mock(PayloadPublisher.class);
+    this.discovery = mock(Discovery.class);
+    when(discovery.getRemoteNodeInfo(any(PublicKey.class)))
+        .thenReturn(nodeInfo("http://other.com", CBORV2SupportVersion.API_VERSION_6));
     this.asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
+        new AsyncBatchPayloadPublisher(
+            executorFactory, countDownLatchFactory, publisher, discovery);
   }
 
   @After
@@ -55,6 +65,13 @@ public class AsyncBatchPayloadPublisherTest {
         executor, executorFactory, countDownLatch, countDownLatchFactory, publisher);
   }
 
+  private static NodeInfo nodeInfo(final String url, final String... supportedApiVersions) {
+    return NodeInfo.Builder.create()
+        .withUrl(url)
+        .withSupportedApiVersions(List.of(supportedApiVersions))
+        .build();
+  }
+
   @Test
   public void publishPayloadUsesThreadForEachRecipient() throws InterruptedException {
     final EncodedPayload payload = mock(EncodedPayload.class);
@@ -78,7 +95,8 @@ public class AsyncBatchPayloadPublisherTest {
     when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
 
     asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
+        new AsyncBatchPayloadPublisher(
+            executorFactory, countDownLatchFactory, publisher, discovery);
 
     final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
     final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
@@ -105,12 +123,74 @@ public class AsyncBatchPayloadPublisherTest {
 
     verify(executorFactory, times(2)).createCachedThreadPool();
     verify(countDownLatchFactory).create(2);
-    verify(publisher).publishPayload(any(), eq(recipient));
-    verify(publisher).publishPayload(any(), eq(otherRecipient));
+    verify(publisher)
+        .publishPayload(EncodedPayload.Builder.forRecipient(payload, recipient).build(), recipient);
+    verify(publisher)
+        .publishPayload(
+            EncodedPayload.Builder.forRecipient(payload, otherRecipient).build(), otherRecipient);
     verify(countDownLatch, times(2)).countDown();
     verify(countDownLatch).await();
   }
 
+  @Test
+  public void publishPayloadGroupsRecipientsOfNodesThatAcceptGroupedPushes()
+      throws InterruptedException {
+    final Executor realExecutor = Executors.newSingleThreadExecutor();
+    when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
+
+    asyncPublisher =
+        new AsyncBatchPayloadPublisher(
+            executorFactory, countDownLatchFactory, publisher, discovery);
+
+    final PublicKey first = PublicKey.from("FIRST".getBytes());
+    final PublicKey other = PublicKey.from("OTHER".getBytes());
+    final PublicKey second = PublicKey.from("SECOND".getBytes());
+    final PublicKey unknown = PublicKey.from("UNKNOWN".getBytes());
+
+    final NodeInfo groupingNode = nodeInfo("http://grouping.com", GroupedPushVersion.API_VERSION_7);
+    when(discovery.getRemoteNodeInfo(first)).thenReturn(groupingNode);
+    when(discovery.getRemoteNodeInfo(second)).thenReturn(groupingNode);
+    when(discovery.getRemoteNodeInfo(unknown)).thenThrow(new RuntimeException("unknown"));
+
+    final List<PublicKey> recipients = List.of(first, other, second, unknown);
+
+    final EncodedPayload payload =
+        EncodedPayload.Builder.create()
+            .withSenderKey(mock(PublicKey.class))
+            .withRecipientKeys(recipients)
+            .withRecipientBoxes(
+                List.of(
+                    "box1".getBytes(), "box2".getBytes(), "box3".getBytes(), "box4".getBytes()))
+            .build();
+
+    doAnswer(
+            invocation -> {
+              // sleep main thread so publish threads can work
+              Thread.sleep(200);
+              return null;
+            })
+        .when(countDownLatch)
+        .await();
+
+    asyncPublisher.publishPayload(payload, recipients);
+
+    verify(executorFactory, times(2)).createCachedThreadPool();
+    verify(countDownLatchFactory).create(3);
+    verify(publisher)
+        .publishPayload(
+            EncodedPayload.Builder.from(payload)
+                .withNewRecipientKeys(List.of(first, second))
+                .withRecipientBoxes(List.of("box1".getBytes(), "box3".getBytes()))
+                .build(),
+            first);
+    verify(publisher)
+        .publishPayload(EncodedPayload.Builder.forRecipient(payload, other).build(), other);
+    verify(publisher)
+        .publishPayload(EncodedPayload.Builder.forRecipient(payload, unknown).build(), unknown);
+    verify(countDownLatch, times(3)).countDown();
+    verify(countDownLatch).await();
+  }
+
   @Test
   public void publishPayloadNoRecipientsDoesNothing() {
     final EncodedPayload payload = mock(EncodedPayload.class);
@@ -150,7 +230,8 @@ public class AsyncBatchPayloadPublisherTest {
     when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
 
     asyncPublisher =
-        new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher);
+        new AsyncBatchPayloadPublisher(
+            executorFactory, countDownLatchFactory, publisher, discovery);
 
     final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
     final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
@@ -8,6 +8,7 @@ import com.quorum.tessera.config.ConfigFactory;
 import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import java.util.Map;
 import org.junit.Test;
 
 public class PayloadPublisherProviderTest {
@@ -19,6 +20,7 @@ public class PayloadPublisherProviderTest {
     Config config = mock(Config.class);
     ServerConfig serverConfig = mock(ServerConfig.class);
     when(config.getP2PServerConfig()).thenReturn(serverConfig);
+    when(serverConfig.getProperties()).thenReturn(Map.of());
     when(configFactory.getConfig()).thenReturn(config);
 
     try (var configFactoryMockedStatic = mockStatic(ConfigFactory.class);
@@ -38,6 +40,31 @@ public class PayloadPublisherProviderTest {
     }
   }
 
+  @Test
+  public void providerWithPushBatching() {
+
+    ConfigFactory configFactory = mock(ConfigFactory.class);
+    Config config = mock(Config.class);
+    ServerConfig serverConfig = mock(ServerConfig.class);
+    when(config.getP2PServerConfig()).thenReturn(serverConfig);
+    when(serverConfig.getProperties())
+        .thenReturn(Map.of("pushBatchDelay", "5", "pushBatchSize", "20"));
+    when(configFactory.getConfig()).thenReturn(config);
+
+    try (var configFactoryMockedStatic = mockStatic(ConfigFactory.class);
+        var discoveryMockedStatic = mockStatic(Discovery.class)) {
+
+      configFactoryMockedStatic.when(ConfigFactory::create).thenReturn(configFactory);
+      discoveryMockedStatic.when(Discovery::create).thenReturn(mock(Discovery.class));
+
+      PayloadPublisher payloadPublisher = PayloadPublisherProvider.provider();
+      assertThat(payloadPublisher)
+          .isExactlyInstanceOf(RestPayloadPublisher.class)
+          .extracting("pushCoalescer")
+          .isSameAs(PushCoalescerHolder.INSTANCE.getPushCoalescer(null, 5, 20));
+    }
+  }
+
   @Test
   public void defaultConstructorForCoverage() {
     assertThat(new PayloadPublisherProvider()).isNotNull();
@@ -0,0 +1,255 @@
+package com.quorum.tessera.q2t.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadCodec;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import jakarta.json.Json;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.StringReader;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class PushCoalescerTest {
+
+  private static final String TARGET_URL = "http://other.com";
+
+  private Client client;
+
+  private Invocation.Builder invocationBuilder;
+
+  private ScheduledExecutorService scheduler;
+
+  private ExecutorService executor;
+
+  @Before
+  public void onSetup() {
+    client = mock(Client.class);
+    final WebTarget webTarget = mock(WebTarget.class);
+    invocationBuilder = mock(Invocation.Builder.class);
+    when(client.target(TARGET_URL)).thenReturn(webTarget);
+    when(webTarget.path("/pushPayloads")).thenReturn(webTarget);
+    when(webTarget.request()).thenReturn(invocationBuilder);
+
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void onTearDown() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void pushesHeldForTheDelayAreSentTogether() throws Exception {
+    when(invocationBuilder.post(any())).thenReturn(Response.ok().build());
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 200, 10);
+
+    final List<EncodedPayload> payloads = List.of(payload("first"), payload("second"));
+    final List<Future<?>> pushes =
+        payloads.stream()
+            .map(payload -> executor.submit(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload)))
+            .collect(Collectors.toList());
+    for (final Future<?> push : pushes) {
+      push.get(5, TimeUnit.SECONDS);
+    }
+
+    final ArgumentCaptor<Entity<String>> entityCaptor = ArgumentCaptor.forClass(Entity.class);
+    verify(invocationBuilder).post(entityCaptor.capture());
+    assertThat(entityCaptor.getValue().getMediaType())
+        .isEqualTo(PushCoalescer.mediaType(EncodedPayloadCodec.LEGACY));
+    assertThat(MediaType.APPLICATION_JSON_TYPE.isCompatible(entityCaptor.getValue().getMediaType()))
+        .isTrue();
+    assertThat(decode(entityCaptor.getValue().getEntity(), EncodedPayloadCodec.LEGACY))
+        .containsExactlyInAnyOrderElementsOf(payloads);
+
+    assertThat(pushCoalescer.getQueueDepth()).isZero();
+    assertThat(pushCoalescer.getBatchCount()).isEqualTo(1);
+    assertThat(pushCoalescer.getPushCount()).isEqualTo(2);
+    assertThat(pushCoalescer.getAverageBatchSize()).isEqualTo(2);
+    assertThat(pushCoalescer.getAverageAddedLatencyMillis()).isPositive();
+  }
+
+  @Test
+  public void fullBatchIsSentWithoutWaitingForTheDelay() throws Exception {
+    when(invocationBuilder.post(any())).thenReturn(Response.ok().build());
+    final PushCoalescer pushCoalescer =
+        new PushCoalescer(client, scheduler, executor, TimeUnit.HOURS.toMillis(1), 2);
+
+    final Future<?> first = executor.submit(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("a")));
+    final Future<?> second = executor.submit(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("b")));
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+
+    verify(invocationBuilder).post(any());
+    assertThat(pushCoalescer.getBatchCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void pushesAreBatchedAndEncodedByTheirCodec() throws Exception {
+    when(invocationBuilder.post(any())).thenReturn(Response.ok().build());
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 200, 10);
+
+    final Future<?> legacy =
+        executor.submit(
+            () -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("legacy")));
+    final Future<?> cbor =
+        executor.submit(
+            () -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.CBOR, payload("cbor")));
+    legacy.get(5, TimeUnit.SECONDS);
+    cbor.get(5, TimeUnit.SECONDS);
+
+    final ArgumentCaptor<Entity<String>> entityCaptor = ArgumentCaptor.forClass(Entity.class);
+    verify(invocationBuilder, times(2)).post(entityCaptor.capture());
+    final Entity<String> cborEntity =
+        entityCaptor.getAllValues().stream()
+            .filter(e -> e.getMediaType().equals(PushCoalescer.mediaType(EncodedPayloadCodec.CBOR)))
+            .findFirst()
+            .orElseThrow();
+    assertThat(decode(cborEntity.getEntity(), EncodedPayloadCodec.CBOR))
+        .containsExactly(payload("cbor"));
+    assertThat(pushCoalescer.getBatchCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void pushesAfterABatchIsSentAreHeldForTheNextOne() throws Exception {
+    when(invocationBuilder.post(any())).thenReturn(Response.ok().build());
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 1, 10);
+
+    assertThat(pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("a"))).isTrue();
+    assertThat(pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("b"))).isTrue();
+
+    verify(invocationBuilder, times(2)).post(any());
+    assertThat(pushCoalescer.getBatchCount()).isEqualTo(2);
+    assertThat(pushCoalescer.getQueueDepth()).isZero();
+  }
+
+  @Test
+  public void closeSendsHeldPushes() throws Exception {
+    when(invocationBuilder.post(any())).thenReturn(Response.ok().build());
+    final PushCoalescer pushCoalescer =
+        new PushCoalescer(client, scheduler, executor, TimeUnit.HOURS.toMillis(1), 10);
+
+    final Future<Boolean> held =
+        executor.submit(
+            () -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("held")));
+    while (pushCoalescer.getQueueDepth() == 0) {
+      Thread.sleep(10);
+    }
+    pushCoalescer.close();
+
+    assertThat(held.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(scheduler.isShutdown()).isTrue();
+    assertThat(executor.isShutdown()).isTrue();
+  }
+
+  @Test
+  public void failedBatchFailsEveryPush() {
+    when(invocationBuilder.post(any())).thenReturn(Response.serverError().build());
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 1, 10);
+
+    final Throwable throwable =
+        catchThrowable(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("payload")));
+
+    assertThat(throwable)
+        .isExactlyInstanceOf(PublishPayloadException.class)
+        .hasMessage("Unable to push payload batch to recipient url " + TARGET_URL);
+  }
+
+  @Test
+  public void payloadNotStoredByNodeFailsOnlyItsOwnPush() throws Exception {
+    final Response response = mock(Response.class);
+    when(response.getStatus()).thenReturn(200);
+    when(response.hasEntity()).thenReturn(true);
+    when(response.readEntity(String.class)).thenReturn("{\"failedIndexes\":[1]}");
+    when(invocationBuilder.post(any())).thenReturn(response);
+    final PushCoalescer pushCoalescer =
+        new PushCoalescer(client, scheduler, executor, TimeUnit.HOURS.toMillis(1), 2);
+
+    final Future<?> stored = executor.submit(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("a")));
+    while (pushCoalescer.getQueueDepth() == 0) {
+      Thread.sleep(10);
+    }
+    final Future<?> rejected = executor.submit(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("b")));
+
+    stored.get(5, TimeUnit.SECONDS);
+    final Throwable throwable = catchThrowable(() -> rejected.get(5, TimeUnit.SECONDS));
+
+    assertThat(throwable)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseExactlyInstanceOf(PublishPayloadException.class);
+    verify(invocationBuilder).post(any());
+  }
+
+  @Test
+  public void nodeWithoutBatchEndpointLeavesPushesToBeSentOnTheirOwn() {
+    when(invocationBuilder.post(any())).thenReturn(Response.status(404).build());
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 1, 10);
+
+    assertThat(pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("payload"))).isFalse();
+  }
+
+  @Test
+  public void unreachableNodeIsReportedOffline() {
+    when(invocationBuilder.post(any())).thenThrow(new ProcessingException("unreachable"));
+    final PushCoalescer pushCoalescer = new PushCoalescer(client, scheduler, executor, 1, 10);
+
+    final Throwable throwable =
+        catchThrowable(() -> pushCoalescer.push(TARGET_URL, EncodedPayloadCodec.LEGACY, payload("payload")));
+
+    assertThat(throwable).isExactlyInstanceOf(NodeOfflineException.class);
+  }
+
+  @Test
+  public void delayAndSizeMustBePositive() {
+    assertThat(catchThrowable(() -> new PushCoalescer(client, scheduler, executor, 0, 10)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new PushCoalescer(client, scheduler, executor, 10, 0)))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<EncodedPayload> decode(final String body, final EncodedPayloadCodec codec) {
+    final PayloadEncoder payloadEncoder = PayloadEncoder.create(codec);
+    try (JsonReader reader = Json.createReader(new StringReader(body))) {
+      return reader.readObject().getJsonArray("encodedPayloads").stream()
+          .map(JsonString.class::cast)
+          .map(JsonString::getString)
+          .map(Base64.getDecoder()::decode)
+          .map(payloadEncoder::decode)
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static EncodedPayload payload(final String cipherText) {
+    final PublicKey recipient = PublicKey.from("recipient".getBytes());
+    return EncodedPayload.Builder.create()
+        .withSenderKey(PublicKey.from("sender".getBytes()))
+        .withCipherText(cipherText.getBytes())
+        .withCipherTextNonce("nonce".getBytes())
+        .withRecipientNonce("recipientNonce".getBytes())
+        .withRecipientKeys(List.of(recipient))
+        .withRecipientBoxes(List.of("box".getBytes()))
+        .build();
+  }
+}
@@ -7,9 +7,9 @@ import static org.mockito.Mockito.*;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.EncodedPayloadCodec;
-import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.enclave.PrivacyMode;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.jaxrs.client.EncodedPayloadProvider;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.partyinfo.node.Recipient;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
@@ -17,12 +17,12 @@ import com.quorum.tessera.transaction.exception.MandatoryRecipientsNotSupportedE
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import com.quorum.tessera.version.EnhancedPrivacyVersion;
+import com.quorum.tessera.version.PushBatchVersion;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,17 +31,11 @@ import org.assertj.core.api.Assertions;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.MockedStatic;
 
 public class RestPayloadPublisherTest {
 
   private Client client;
 
-  private PayloadEncoder payloadEncoder;
-
-  private final MockedStatic<PayloadEncoder> payloadEncoderFactoryFunction =
-      mockStatic(PayloadEncoder.class);
-
   private Discovery discovery;
 
   private RestPayloadPublisher payloadPublisher;
@@ -49,23 +43,13 @@ public class RestPayloadPublisherTest {
   @Before
   public void beforeTest() {
     client = mock(Client.class);
-    payloadEncoder = mock(PayloadEncoder.class);
     discovery = mock(Discovery.class);
     payloadPublisher = new RestPayloadPublisher(client, discovery);
-
-    payloadEncoderFactoryFunction
-        .when(() -> PayloadEncoder.create(any(EncodedPayloadCodec.class)))
-        .thenReturn(payloadEncoder);
   }
 
   @After
   public void afterTest() {
-    try {
-      verifyNoMoreInteractions(client, payloadEncoder, discovery);
-      payloadEncoderFactoryFunction.verifyNoMoreInteractions();
-    } finally {
-      payloadEncoderFactoryFunction.close();
-    }
+    verifyNoMoreInteractions(client, discovery);
   }
 
   @Test
@@ -86,9 +70,6 @@ public class RestPayloadPublisherTest {
 
         when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
 
-        final byte[] payloadData = "Payload".getBytes();
-        when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
-
         WebTarget webTarget = mock(WebTarget.class);
         when(client.target(targetUrl)).thenReturn(webTarget);
         when(webTarget.path("/push")).thenReturn(webTarget);
@@ -97,7 +78,8 @@ public class RestPayloadPublisherTest {
 
         Response response = Response.status(expectedResponseStatus).build();
         when(invocationBuilder.post(
-                Entity.entity(payloadData, MediaType.APPLICATION_OCTET_STREAM_TYPE)))
+                Entity.entity(
+                    encodedPayload, EncodedPayloadProvider.mediaType(EncodedPayloadCodec.LEGACY))))
             .thenReturn(response);
         when(webTarget.request()).thenReturn(invocationBuilder);
 
@@ -118,9 +100,6 @@ public class RestPayloadPublisherTest {
     int iterations = Response.Status.values().length * PrivacyMode.values().length;
     verify(client, times(iterations)).target(targetUrl);
     verify(discovery, times(iterations)).getRemoteNodeInfo(publicKey);
-    verify(payloadEncoder, times(iterations)).encode(encodedPayload);
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)), times(iterations));
   }
 
   @Test
@@ -135,8 +114,6 @@ public class RestPayloadPublisherTest {
 
       EncodedPayload encodedPayload = mock(EncodedPayload.class);
       when(encodedPayload.getPrivacyMode()).thenReturn(pair.getKey());
-      byte[] payloadData = "Some Data".getBytes();
-      when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
 
       PublicKey recipientKey = mock(PublicKey.class);
       NodeInfo nodeInfo = mock(NodeInfo.class);
@@ -156,9 +133,63 @@ public class RestPayloadPublisherTest {
           .hasMessageContaining("Transactions with enhanced privacy is not currently supported");
       verify(discovery).getRemoteNodeInfo(eq(recipientKey));
     }
+  }
+
+  @Test
+  public void publishToNodeThatAcceptsBatchesIsCoalesced() {
+    final PushCoalescer pushCoalescer = mock(PushCoalescer.class);
+    payloadPublisher = new RestPayloadPublisher(client, discovery, pushCoalescer);
+
+    final String targetUrl = "http://someplace.com";
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    final PublicKey publicKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(PushBatchVersion.API_VERSION_8));
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
+    when(pushCoalescer.push(targetUrl, EncodedPayloadCodec.LEGACY, encodedPayload))
+        .thenReturn(true);
+
+    payloadPublisher.publishPayload(encodedPayload, publicKey);
 
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)), times(2));
+    verify(pushCoalescer).push(targetUrl, EncodedPayloadCodec.LEGACY, encodedPayload);
+    verify(discovery).getRemoteNodeInfo(publicKey);
+    verifyNoMoreInteractions(pushCoalescer);
+  }
+
+  @Test
+  public void publishToNodeThatDoesNotServeBatchesIsPushedOnItsOwn() {
+    final PushCoalescer pushCoalescer = mock(PushCoalescer.class);
+    payloadPublisher = new RestPayloadPublisher(client, discovery, pushCoalescer);
+
+    final String targetUrl = "http://someplace.com";
+    final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+    final PublicKey publicKey = mock(PublicKey.class);
+
+    final NodeInfo nodeInfo = mock(NodeInfo.class);
+    when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(PushBatchVersion.API_VERSION_8));
+    when(nodeInfo.getUrl()).thenReturn(targetUrl);
+    when(discovery.getRemoteNodeInfo(publicKey)).thenReturn(nodeInfo);
+    when(pushCoalescer.push(targetUrl, EncodedPayloadCodec.LEGACY, encodedPayload))
+        .thenReturn(false);
+
+    final WebTarget webTarget = mock(WebTarget.class);
+    when(client.target(targetUrl)).thenReturn(webTarget);
+    when(webTarget.path("/push")).thenReturn(webTarget);
+    final Invocation.Builder invocationBuilder = mock(Invocation.Builder.class);
+    when(webTarget.request()).thenReturn(invocationBuilder);
+    when(invocationBuilder.post(any())).thenReturn(Response.status(Response.Status.CREATED).build());
+
+    payloadPublisher.publishPayload(encodedPayload, publicKey);
+
+    verify(pushCoalescer).push(targetUrl, EncodedPayloadCodec.LEGACY, encodedPayload);
+    verify(invocationBuilder).post(any());
+    verify(client).target(targetUrl);
+    verify(discovery).getRemoteNodeInfo(publicKey);
+    verifyNoMoreInteractions(pushCoalescer);
   }
 
   @Test
@@ -181,7 +212,6 @@ public class RestPayloadPublisherTest {
 
     final EncodedPayload payload = mock(EncodedPayload.class);
     when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
-    when(payloadEncoder.encode(payload)).thenReturn("SomeData".getBytes());
 
     RestPayloadPublisher restPayloadPublisher = new RestPayloadPublisher(client, discovery);
 
@@ -192,10 +222,7 @@ public class RestPayloadPublisherTest {
       assertThat(ex).hasMessageContaining(targetUri);
       verify(client).target(targetUri);
       verify(discovery).getRemoteNodeInfo(eq(recipientKey));
-      verify(payloadEncoder).encode(payload);
       verify(discovery).getRemoteNodeInfo(eq(recipientKey));
-      payloadEncoderFactoryFunction.verify(
-          () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
     }
   }
 
@@ -206,8 +233,6 @@ public class RestPayloadPublisherTest {
 
     EncodedPayload encodedPayload = mock(EncodedPayload.class);
     when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.MANDATORY_RECIPIENTS);
-    byte[] payloadData = "Some Data".getBytes();
-    when(payloadEncoder.encode(encodedPayload)).thenReturn(payloadData);
 
     PublicKey recipientKey = mock(PublicKey.class);
     NodeInfo nodeInfo = mock(NodeInfo.class);
@@ -225,8 +250,5 @@ public class RestPayloadPublisherTest {
             "Transactions with mandatory recipients are not currently supported on recipient");
 
     verify(discovery).getRemoteNodeInfo(eq(recipientKey));
-
-    payloadEncoderFactoryFunction.verify(
-        () -> PayloadEncoder.create(any(EncodedPayloadCodec.class)));
   }
 }
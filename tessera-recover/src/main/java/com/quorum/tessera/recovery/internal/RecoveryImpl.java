@@ -116,22 +116,27 @@ class RecoveryImpl implements Recovery {
               .collect(
                   Collectors.groupingBy(StagingTransaction::getHash, LinkedHashMap::new, toList()));
 
+      final List<EncodedPayload> payloads = new ArrayList<>(transactions.size());
       grouped.forEach(
           (key, value) ->
               value.stream()
                   .filter(
                       t -> {
-                        payloadCount.incrementAndGet();
-                        EncodedPayload encodedPayload = t.getEncodedPayload();
-                        try {
-                          transactionManager.storePayload(encodedPayload);
-                        } catch (PrivacyViolationException | PersistenceException ex) {
-                          LOGGER.error("An error occurred during batch resend sync stage.", ex);
-                          syncFailureCount.incrementAndGet();
-                        }
+                        payloads.add(t.getEncodedPayload());
                         return PrivacyMode.PRIVATE_STATE_VALIDATION == t.getPrivacyMode();
                       })
                   .findFirst());
+
+      payloadCount.addAndGet(payloads.size());
+      transactionManager.storePayloads(
+          payloads,
+          (payload, ex) -> {
+            if (!(ex instanceof PrivacyViolationException || ex instanceof PersistenceException)) {
+              throw ex;
+            }
+            LOGGER.error("An error occurred during batch resend sync stage.", ex);
+            syncFailureCount.incrementAndGet();
+          });
     }
 
     if (syncFailureCount.get() > 0) {
@@ -2,8 +2,10 @@ package com.quorum.tessera.recovery.workflow;
 
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.partyinfo.node.Recipient;
+import java.util.Objects;
 import java.util.Set;
 
 public class BatchWorkflowContext {
@@ -31,10 +33,31 @@ public class BatchWorkflowContext {
     return this;
   }
 
+  /**
+   * The payload being processed, which unless set explicitly is decoded from the encrypted
+   * transaction on first use
+   */
   public EncodedPayload getEncodedPayload() {
+    if (Objects.isNull(encodedPayload) && Objects.nonNull(encryptedTransaction)) {
+      encodedPayload = encryptedTransaction.getPayload();
+    }
     return encodedPayload;
   }
 
+  /**
+   * The sender, recipients and privacy mode of the payload being processed, which for a payload
+   * that has not been decoded yet are read without decoding the rest of it
+   */
+  public EncodedPayloadHeader getPayloadHeader() {
+    if (Objects.nonNull(encodedPayload)) {
+      return EncodedPayloadHeader.from(encodedPayload);
+    }
+    if (Objects.nonNull(encryptedTransaction)) {
+      return encryptedTransaction.getHeader();
+    }
+    return null;
+  }
+
   public void setEncodedPayload(EncodedPayload encodedPayload) {
     this.encodedPayload = encodedPayload;
   }
@@ -1,14 +1,18 @@
 package com.quorum.tessera.recovery.workflow;
 
 import com.quorum.tessera.enclave.Enclave;
-import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.encryption.PublicKey;
 import java.util.Objects;
+import java.util.Set;
 
 public class FilterPayload implements BatchWorkflowFilter {
 
   private Enclave enclave;
 
+  /** Fetched on first use, a workflow is created for each resend request */
+  private Set<PublicKey> localKeys;
+
   public FilterPayload(Enclave enclave) {
     this.enclave = enclave;
   }
@@ -16,16 +20,23 @@ public class FilterPayload implements BatchWorkflowFilter {
   @Override
   public boolean filter(BatchWorkflowContext context) {
 
-    EncodedPayload encodedPayload = context.getEncodedPayload();
+    EncodedPayloadHeader header = context.getPayloadHeader();
     PublicKey recipientPublicKey = context.getRecipientKey();
 
     final boolean isCurrentNodeSender =
-        encodedPayload.getRecipientKeys().contains(recipientPublicKey)
-            && enclave.getPublicKeys().contains(encodedPayload.getSenderKey());
+        header.getRecipientKeys().contains(recipientPublicKey)
+            && localKeys().contains(header.getSenderKey());
 
     final boolean isRequestedNodeSender =
-        Objects.equals(encodedPayload.getSenderKey(), recipientPublicKey);
+        Objects.equals(header.getSenderKey(), recipientPublicKey);
 
     return isCurrentNodeSender || isRequestedNodeSender;
   }
+
+  private Set<PublicKey> localKeys() {
+    if (Objects.isNull(localKeys)) {
+      localKeys = enclave.getPublicKeys();
+    }
+    return localKeys;
+  }
 }
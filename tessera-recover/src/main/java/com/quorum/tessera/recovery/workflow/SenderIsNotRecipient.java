@@ -3,6 +3,7 @@ package com.quorum.tessera.recovery.workflow;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.encryption.PublicKey;
 import java.util.Objects;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,6 +13,9 @@ public class SenderIsNotRecipient implements BatchWorkflowFilter {
 
   private final Enclave enclave;
 
+  /** Fetched on first use, a workflow is created for each resend request */
+  private Set<PublicKey> localKeys;
+
   public SenderIsNotRecipient(final Enclave enclave) {
     this.enclave = Objects.requireNonNull(enclave);
   }
@@ -20,7 +24,11 @@ public class SenderIsNotRecipient implements BatchWorkflowFilter {
   public boolean filter(final BatchWorkflowContext context) {
     final PublicKey recipientKey = context.getRecipientKey();
 
-    final boolean valid = !enclave.getPublicKeys().contains(recipientKey);
+    if (Objects.isNull(localKeys)) {
+      localKeys = enclave.getPublicKeys();
+    }
+
+    final boolean valid = !localKeys.contains(recipientKey);
 
     if (!valid) {
       // we are trying to send something to ourselves - don't do it
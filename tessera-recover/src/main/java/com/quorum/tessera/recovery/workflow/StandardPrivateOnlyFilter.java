@@ -1,6 +1,6 @@
 package com.quorum.tessera.recovery.workflow;
 
-import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.enclave.PrivacyMode;
 import java.util.Objects;
 
@@ -8,9 +8,9 @@ public class StandardPrivateOnlyFilter implements BatchWorkflowFilter {
 
   @Override
   public boolean filter(final BatchWorkflowContext context) {
-    final EncodedPayload payload = context.getEncodedPayload();
+    final EncodedPayloadHeader header = context.getPayloadHeader();
 
-    return Objects.nonNull(payload)
-        && Objects.equals(payload.getPrivacyMode(), PrivacyMode.STANDARD_PRIVATE);
+    return Objects.nonNull(header)
+        && Objects.equals(header.getPrivacyMode(), PrivacyMode.STANDARD_PRIVATE);
   }
 }
@@ -1,7 +1,9 @@
 package com.quorum.tessera.recovery.workflow.internal;
 
+import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
+import com.quorum.tessera.data.staging.StagingTransaction;
 import com.quorum.tessera.data.staging.StagingTransactionUtils;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.recovery.resend.PushBatchRequest;
@@ -11,10 +13,12 @@ import com.quorum.tessera.recovery.workflow.BatchResendManager;
 import com.quorum.tessera.recovery.workflow.BatchWorkflow;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowContext;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowFactory;
+import jakarta.persistence.PersistenceException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BatchResendManagerImpl implements BatchResendManager {
 
@@ -39,10 +43,6 @@ public class BatchResendManagerImpl implements BatchResendManager {
     this.batchWorkflowFactory = batchWorkflowFactory;
   }
 
-  static int calculateBatchCount(long maxResults, long total) {
-    return (int) Math.ceil((double) total / maxResults);
-  }
-
   @Override
   public ResendBatchResponse resendBatch(ResendBatchRequest request) {
 
@@ -50,20 +50,25 @@ public class BatchResendManagerImpl implements BatchResendManager {
     final byte[] publicKeyData = Base64.getDecoder().decode(request.getPublicKey());
     final PublicKey recipientPublicKey = PublicKey.from(publicKeyData);
 
-    final long transactionCount = encryptedTransactionDAO.transactionCount();
-    final long batchCount = calculateBatchCount(maxResults, transactionCount);
+    // the count and the stream must come from the same source, so decide once which to use
+    final boolean indexed = encryptedTransactionDAO.isRecipientIndexComplete();
+
+    final long transactionCount =
+        indexed
+            ? encryptedTransactionDAO.transactionCount(recipientPublicKey)
+            : encryptedTransactionDAO.transactionCount();
 
     final BatchWorkflow batchWorkflow = batchWorkflowFactory.create(transactionCount);
 
-    IntStream.range(0, (int) batchCount)
-        .map(i -> i * maxResults)
-        .mapToObj(offset -> encryptedTransactionDAO.retrieveTransactions(offset, maxResults))
-        .flatMap(List::stream)
-        .forEach(
+    final Stream<EncryptedTransaction> transactions =
+        indexed
+            ? encryptedTransactionDAO.streamAll(recipientPublicKey, maxResults)
+            : encryptedTransactionDAO.streamAll(maxResults);
+
+    transactions.forEach(
             encryptedTransaction -> {
               final BatchWorkflowContext context = new BatchWorkflowContext();
               context.setEncryptedTransaction(encryptedTransaction);
-              context.setEncodedPayload(encryptedTransaction.getPayload());
               context.setRecipientKey(recipientPublicKey);
               context.setBatchSize(batchSize);
               batchWorkflow.execute(context);
@@ -73,10 +78,18 @@ public class BatchResendManagerImpl implements BatchResendManager {
   }
 
   @Override
-  public synchronized void storeResendBatch(PushBatchRequest request) {
-    request.getEncodedPayloads().stream()
-        .map(p -> StagingTransactionUtils.fromRawPayload(p, request.getEncodedPayloadCodec()))
-        .forEach(stagingEntityDAO::save);
+  public void storeResendBatch(PushBatchRequest request) {
+    final List<StagingTransaction> transactions =
+        request.getEncodedPayloads().stream()
+            .map(p -> StagingTransactionUtils.fromRawPayload(p, request.getEncodedPayloadCodec()))
+            .collect(Collectors.toList());
+
+    final List<StagingTransaction> failed = stagingEntityDAO.saveAll(transactions);
+    if (!failed.isEmpty()) {
+      throw new PersistenceException(
+          String.format(
+              "Unable to store %d of %d transactions in batch", failed.size(), transactions.size()));
+    }
   }
 
   private int validateRequestBatchSize(int s) {
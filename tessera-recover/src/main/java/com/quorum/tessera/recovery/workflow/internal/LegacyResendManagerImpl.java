@@ -16,7 +16,7 @@ import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class LegacyResendManagerImpl implements LegacyResendManager {
 
@@ -54,18 +54,15 @@ public class LegacyResendManagerImpl implements LegacyResendManager {
 
     final BatchWorkflow batchWorkflow = batchWorkflowFactory.create();
 
-    final long transactionCount = encryptedTransactionDAO.transactionCount();
-    final long batchCount = calculateBatchCount(resendFetchSize, transactionCount);
+    final Stream<EncryptedTransaction> transactions =
+        encryptedTransactionDAO.isRecipientIndexComplete()
+            ? encryptedTransactionDAO.streamAll(request.getRecipient(), resendFetchSize)
+            : encryptedTransactionDAO.streamAll(resendFetchSize);
 
-    IntStream.range(0, (int) batchCount)
-        .map(i -> i * resendFetchSize)
-        .mapToObj(offset -> encryptedTransactionDAO.retrieveTransactions(offset, resendFetchSize))
-        .flatMap(List::stream)
-        .forEach(
+    transactions.forEach(
             encryptedTransaction -> {
               final BatchWorkflowContext context = new BatchWorkflowContext();
               context.setEncryptedTransaction(encryptedTransaction);
-              context.setEncodedPayload(encryptedTransaction.getPayload());
               context.setRecipientKey(request.getRecipient());
               context.setBatchSize(1);
               batchWorkflow.execute(context);
@@ -128,8 +125,4 @@ public class LegacyResendManagerImpl implements LegacyResendManager {
 
     return ResendResponse.Builder.create().withPayload(builder.build()).build();
   }
-
-  static int calculateBatchCount(long maxResults, long total) {
-    return (int) Math.ceil((double) total / maxResults);
-  }
 }
@@ -1,6 +1,7 @@
 package com.quorum.tessera.recovery.internal;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.data.MessageHash;
@@ -45,6 +46,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
 
     stagingEntityDAO = mock(StagingEntityDAO.class);
     transactionManager = mock(TransactionManager.class);
+    doCallRealMethod().when(transactionManager).storePayloads(anyList(), any());
 
     this.recovery =
         new RecoveryImpl(stagingEntityDAO, discovery, transactionRequester, transactionManager);
@@ -187,6 +189,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
     verify(stagingEntityDAO, times(2)).countAll();
 
+    verify(transactionManager).storePayloads(anyList(), any());
     verify(transactionManager).storePayload(firstPayload);
     verify(transactionManager).storePayload(secondPayload);
   }
@@ -220,6 +223,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
     verify(stagingEntityDAO, times(2)).countAll();
 
+    verify(transactionManager).storePayloads(anyList(), any());
     verify(transactionManager).storePayload(encodedPayload);
     verify(transactionManager).storePayload(encodedPayload2);
   }
@@ -254,6 +258,7 @@ public class RecoveryImplTest extends RecoveryTestCase {
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
     verify(stagingEntityDAO, times(2)).countAll();
 
+    verify(transactionManager).storePayloads(anyList(), any());
     verify(transactionManager, times(2)).storePayload(any());
   }
 
@@ -292,10 +297,40 @@ public class RecoveryImplTest extends RecoveryTestCase {
     verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
     verify(stagingEntityDAO, times(2)).countAll();
 
+    verify(transactionManager).storePayloads(anyList(), any());
     verify(transactionManager).storePayload(encodedPayload);
     verify(transactionManager).storePayload(encodedPayload2);
   }
 
+  @Test
+  public void testSyncRethrowsUnexpectedFailure() {
+
+    StagingTransaction version1 = mock(StagingTransaction.class);
+    when(version1.getHash()).thenReturn("TXN1");
+
+    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+    when(version1.getEncodedPayload()).thenReturn(encodedPayload);
+
+    when(stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt()))
+        .thenReturn(List.of(version1));
+    when(stagingEntityDAO.countAll()).thenReturn(1L);
+
+    when(transactionManager.storePayload(any())).thenThrow(IllegalStateException.class);
+
+    try {
+      recovery.sync();
+      failBecauseExceptionWasNotThrown(IllegalStateException.class);
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+
+    verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
+    verify(stagingEntityDAO).countAll();
+
+    verify(transactionManager).storePayloads(anyList(), any());
+    verify(transactionManager).storePayload(encodedPayload);
+  }
+
   @Test
   public void testRecoverSuccess() {
 
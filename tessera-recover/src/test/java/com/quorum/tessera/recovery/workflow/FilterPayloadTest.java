@@ -3,8 +3,10 @@ package com.quorum.tessera.recovery.workflow;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
+import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.EncodedPayloadHeader;
 import com.quorum.tessera.encryption.PublicKey;
 import java.util.List;
 import java.util.Set;
@@ -51,6 +53,33 @@ public class FilterPayloadTest {
     verify(enclave).getPublicKeys();
   }
 
+  @Test
+  public void usesHeaderOfTransactionWithoutDecodingPayload() {
+    BatchWorkflowContext context = new BatchWorkflowContext();
+    PublicKey sender = mock(PublicKey.class);
+    PublicKey recipient = mock(PublicKey.class);
+
+    EncodedPayloadHeader header = mock(EncodedPayloadHeader.class);
+    when(header.getSenderKey()).thenReturn(sender);
+    when(header.getRecipientKeys()).thenReturn(List.of(sender, recipient));
+
+    EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+    when(encryptedTransaction.getHeader()).thenReturn(header);
+
+    context.setEncryptedTransaction(encryptedTransaction);
+    context.setRecipientKey(recipient);
+
+    when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+
+    boolean result = filterPayload.execute(context);
+
+    assertThat(result).isTrue();
+
+    verify(enclave).getPublicKeys();
+    verify(encryptedTransaction).getHeader();
+    verifyNoMoreInteractions(encryptedTransaction);
+  }
+
   @Test
   public void testRequestedNodeIsSender() {
     BatchWorkflowContext context = new BatchWorkflowContext();
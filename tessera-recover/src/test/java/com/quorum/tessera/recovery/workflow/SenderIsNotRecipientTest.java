@@ -56,4 +56,19 @@ public class SenderIsNotRecipientTest {
 
     verify(enclave).getPublicKeys();
   }
+
+  @Test
+  public void localKeysAreOnlyFetchedOnce() {
+    BatchWorkflowContext first = new BatchWorkflowContext();
+    first.setRecipientKey(mock(PublicKey.class));
+    BatchWorkflowContext second = new BatchWorkflowContext();
+    second.setRecipientKey(mock(PublicKey.class));
+
+    when(enclave.getPublicKeys()).thenReturn(Set.of(mock(PublicKey.class)));
+
+    assertThat(senderIsNotRecipient.filter(first)).isTrue();
+    assertThat(senderIsNotRecipient.filter(second)).isTrue();
+
+    verify(enclave).getPublicKeys();
+  }
 }
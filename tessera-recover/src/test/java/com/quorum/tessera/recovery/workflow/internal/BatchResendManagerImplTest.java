@@ -3,8 +3,7 @@ package com.quorum.tessera.recovery.workflow.internal;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.AdditionalMatchers.gt;
-import static org.mockito.AdditionalMatchers.lt;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.*;
 
 import com.quorum.tessera.base64.Base64Codec;
@@ -22,10 +21,10 @@ import com.quorum.tessera.recovery.workflow.BatchResendManager;
 import com.quorum.tessera.recovery.workflow.BatchWorkflow;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowContext;
 import com.quorum.tessera.recovery.workflow.BatchWorkflowFactory;
+import jakarta.persistence.PersistenceException;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.After;
 import org.junit.Before;
@@ -73,16 +72,10 @@ public class BatchResendManagerImplTest {
     ResendBatchRequest request =
         ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
 
-    List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
-            .mapToObj(i -> mock(EncryptedTransaction.class))
-            .collect(Collectors.toUnmodifiableList());
-
     when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamAll(5))
+        .thenReturn(IntStream.range(0, 101).mapToObj(i -> mock(EncryptedTransaction.class)));
 
     BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
     when(batchWorkflow.getPublishedMessageCount()).thenReturn(999L);
@@ -96,24 +89,48 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+    verify(encryptedTransactionDAO).streamAll(5);
 
     verify(encryptedTransactionDAO).transactionCount();
+    verify(encryptedTransactionDAO).isRecipientIndexComplete();
 
     verify(batchWorkflowFactory).create(101L);
   }
 
+  @Test
+  public void resendBatchUsesRecipientIndexWhenComplete() {
+
+    ResendBatchRequest request =
+        ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
+
+    when(encryptedTransactionDAO.isRecipientIndexComplete()).thenReturn(true);
+    when(encryptedTransactionDAO.transactionCount(publicKey)).thenReturn(7L);
+    when(encryptedTransactionDAO.streamAll(publicKey, 5))
+        .thenReturn(IntStream.range(0, 7).mapToObj(i -> mock(EncryptedTransaction.class)));
+
+    BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
+    when(batchWorkflow.getPublishedMessageCount()).thenReturn(7L);
+    when(batchWorkflowFactory.create(7L)).thenReturn(batchWorkflow);
+
+    final ResendBatchResponse result = manager.resendBatch(request);
+
+    assertThat(result.getTotal()).isEqualTo(7L);
+    verify(batchWorkflow, times(7)).execute(any(BatchWorkflowContext.class));
+    verify(batchWorkflow).getPublishedMessageCount();
+
+    verify(encryptedTransactionDAO).isRecipientIndexComplete();
+    verify(encryptedTransactionDAO).transactionCount(publicKey);
+    verify(encryptedTransactionDAO).streamAll(publicKey, 5);
+
+    verify(batchWorkflowFactory).create(7L);
+  }
+
   @Test
   public void useMaxResultsWhenBatchSizeNotProvided() {
 
     final ResendBatchRequest request =
         ResendBatchRequest.Builder.create().withPublicKey(KEY_STRING).build();
 
-    List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
-            .mapToObj(i -> mock(EncryptedTransaction.class))
-            .collect(Collectors.toUnmodifiableList());
-
     when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
 
     BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
@@ -123,9 +140,8 @@ public class BatchResendManagerImplTest {
 
     when(batchWorkflowFactory.create(101L)).thenReturn(batchWorkflow);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(List.of(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamAll(5))
+        .thenReturn(IntStream.range(0, 101).mapToObj(i -> mock(EncryptedTransaction.class)));
 
     final ResendBatchResponse result = manager.resendBatch(request);
 
@@ -133,8 +149,9 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+    verify(encryptedTransactionDAO).streamAll(5);
     verify(encryptedTransactionDAO).transactionCount();
+    verify(encryptedTransactionDAO).isRecipientIndexComplete();
 
     verify(batchWorkflowFactory).create(101L);
   }
@@ -148,16 +165,10 @@ public class BatchResendManagerImplTest {
             .withPublicKey(KEY_STRING)
             .build();
 
-    List<EncryptedTransaction> transactions =
-        IntStream.range(0, 5)
-            .mapToObj(i -> mock(EncryptedTransaction.class))
-            .collect(Collectors.toUnmodifiableList());
-
     when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
 
-    when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-    when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-        .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+    when(encryptedTransactionDAO.streamAll(5))
+        .thenReturn(IntStream.range(0, 101).mapToObj(i -> mock(EncryptedTransaction.class)));
 
     final BatchWorkflow batchWorkflow = mock(BatchWorkflow.class);
     when(batchWorkflow.getPublishedMessageCount()).thenReturn(999L);
@@ -168,9 +179,10 @@ public class BatchResendManagerImplTest {
 
     verify(batchWorkflow, times(101)).execute(any(BatchWorkflowContext.class));
 
-    verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+    verify(encryptedTransactionDAO).streamAll(5);
 
     verify(encryptedTransactionDAO).transactionCount();
+    verify(encryptedTransactionDAO).isRecipientIndexComplete();
 
     verify(batchWorkflowFactory).create(101L);
   }
@@ -183,26 +195,6 @@ public class BatchResendManagerImplTest {
         .isNotNull();
   }
 
-  @Test
-  public void calculateBatchCount() {
-    long numberOfRecords = 10;
-    long maxResults = 3;
-
-    int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-    assertThat(batchCount).isEqualTo(4);
-  }
-
-  @Test
-  public void calculateBatchCountTotalLowerThanBatchSizeIsSingleBatch() {
-    long numberOfRecords = 100;
-    long maxResults = 10;
-
-    int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-    assertThat(batchCount).isEqualTo(10);
-  }
-
   @Test
   public void createBatchResendManager() {
     BatchResendManager expected = mock(BatchResendManager.class);
@@ -264,11 +256,27 @@ public class BatchResendManagerImplTest {
 
       manager.storeResendBatch(request);
 
-      verify(stagingEntityDAO).save(any(StagingTransaction.class));
+      verify(stagingEntityDAO).saveAll(anyList());
       verify(payloadEncoder).decode(any());
       verify(payloadEncoder).encodedPayloadCodec();
       payloadDigestMockedStatic.verify(PayloadDigest::create);
       payloadDigestMockedStatic.verifyNoMoreInteractions();
     }
   }
+
+  @Test
+  public void storeResendBatchThrowsWhenRowsCouldNotBeStored() {
+    final StagingTransaction rejected = new StagingTransaction();
+    when(stagingEntityDAO.saveAll(anyList())).thenReturn(List.of(rejected));
+
+    final PushBatchRequest request = PushBatchRequest.from(List.of(), EncodedPayloadCodec.LEGACY);
+
+    final Throwable throwable = catchThrowable(() -> manager.storeResendBatch(request));
+
+    assertThat(throwable)
+        .isInstanceOf(PersistenceException.class)
+        .hasMessage("Unable to store 1 of 0 transactions in batch");
+
+    verify(stagingEntityDAO).saveAll(List.of());
+  }
 }
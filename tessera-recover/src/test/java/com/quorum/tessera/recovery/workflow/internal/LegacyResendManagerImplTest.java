@@ -19,9 +19,9 @@ import com.quorum.tessera.recovery.workflow.LegacyResendManager;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -192,17 +192,35 @@ public class LegacyResendManagerImplTest {
     // We are not testing the workflow itself, only that the workflow gets the right amount of
     // transactions
 
-    when(dao.transactionCount()).thenReturn(2L);
-    when(dao.retrieveTransactions(0, 1)).thenReturn(List.of(new EncryptedTransaction()));
-    when(dao.retrieveTransactions(1, 1)).thenReturn(List.of(new EncryptedTransaction()));
+    when(dao.streamAll(1))
+        .thenReturn(Stream.of(new EncryptedTransaction(), new EncryptedTransaction()));
 
     final ResendResponse response = resendManager.resend(request);
     assertThat(response).isNotNull();
     assertThat(response.getPayload()).isNull();
 
     verify(enclave, times(2)).status();
-    verify(dao).transactionCount();
-    verify(dao).retrieveTransactions(0, 1);
-    verify(dao).retrieveTransactions(1, 1);
+    verify(dao).isRecipientIndexComplete();
+    verify(dao).streamAll(1);
+  }
+
+  @Test
+  public void performResendAllUsesRecipientIndexWhenComplete() {
+    final PublicKey targetResendKey = PublicKey.from("target".getBytes());
+    final ResendRequest request =
+        ResendRequest.Builder.create()
+            .withType(ResendRequest.ResendRequestType.ALL)
+            .withRecipient(targetResendKey)
+            .build();
+
+    when(dao.isRecipientIndexComplete()).thenReturn(true);
+    when(dao.streamAll(targetResendKey, 1)).thenReturn(Stream.of(new EncryptedTransaction()));
+
+    final ResendResponse response = resendManager.resend(request);
+    assertThat(response).isNotNull();
+
+    verify(enclave).status();
+    verify(dao).isRecipientIndexComplete();
+    verify(dao).streamAll(targetResendKey, 1);
   }
 }